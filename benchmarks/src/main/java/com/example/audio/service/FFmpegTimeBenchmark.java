@@ -0,0 +1,63 @@
+package com.example.audio.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Leitura de tempos do FFmpeg (linhas de duração e de progresso) e duração de um MP3 sem o cache do banco,
+// que é o que getAudioDuration faz quando o arquivo é novo ou mudou
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FFmpegTimeBenchmark {
+
+    private final String durationLine = "  Duration: 01:05:00.03, start: 0.000000, bitrate: 128 kb/s";
+    private final String progressLine = "out_time_us=3900030000";
+
+    private Path directory;
+    private Path mp3;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Fixtures.tempDirectory("time");
+        mp3 = Fixtures.syntheticMp3(directory.resolve("Segment_20240101_000000.mp3"), 300);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public double parseFFmpegTime() {
+        String time = durationLine.substring(durationLine.indexOf("Duration:") + 9, durationLine.indexOf(',')).trim();
+        return FFmpegProgress.parseFFmpegTime(time);
+    }
+
+    @Benchmark
+    public long parseOutTimeMicros() {
+        return FFmpegProgress.parseOutTimeMicros(progressLine);
+    }
+
+    // Duração pelos cabeçalhos MP3 (sem iniciar o FFmpeg)
+    @Benchmark
+    public long audioDuration() throws IOException {
+        return Mp3MetadataProbe.probe(mp3).getDurationSeconds();
+    }
+}
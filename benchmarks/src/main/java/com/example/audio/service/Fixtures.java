@@ -0,0 +1,90 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+// Arquivos gerados localmente para os benchmarks: MP3 sintéticos (frames MPEG-1 Layer III válidos com
+// conteúdo aleatório) e árvores de pastas no formato de C:/pastaudios (rádio/Segment_yyyyMMdd_HHmmss.mp3)
+public final class Fixtures {
+
+    // MPEG-1 Layer III, 128 kb/s, 44100 Hz, estéreo, sem padding: 417 bytes e 1152 amostras por frame
+    private static final int[] FRAME_HEADER = {0xFF, 0xFB, 0x90, 0x00};
+    public static final int FRAME_LENGTH = 417;
+    public static final double FRAME_SECONDS = 1152.0 / 44100;
+
+    private static final DateTimeFormatter SEGMENT_NAME = DateTimeFormatter.ofPattern("'Segment_'yyyyMMdd_HHmmss'.mp3'");
+
+    private Fixtures() {
+    }
+
+    public static Path tempDirectory(String prefix) {
+        try {
+            return Files.createTempDirectory("audio-bench-" + prefix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // MP3 com a duração pedida, precedido de uma tag ID3v2 vazia como nos arquivos gravados
+    public static Path syntheticMp3(Path file, double seconds) throws IOException {
+        int frames = (int) Math.ceil(seconds / FRAME_SECONDS);
+        Random random = new Random(frames);
+        byte[] frame = new byte[FRAME_LENGTH];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(new byte[]{'I', 'D', '3', 4, 0, 0, 0, 0, 0, 0});
+            for (int i = 0; i < frames; i++) {
+                random.nextBytes(frame);
+                for (int b = 0; b < FRAME_HEADER.length; b++) {
+                    frame[b] = (byte) FRAME_HEADER[b];
+                }
+                out.write(frame);
+            }
+        }
+        return file;
+    }
+
+    // Árvore com "radios" pastas e "filesPerRadio" segmentos de tamanho "fileBytes" em cada uma
+    public static Path segmentTree(Path root, int radios, int filesPerRadio, int fileBytes) throws IOException {
+        byte[] content = new byte[fileBytes];
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int r = 0; r < radios; r++) {
+            Path radio = Files.createDirectories(root.resolve("radio" + r));
+            for (int f = 0; f < filesPerRadio; f++) {
+                Files.write(radio.resolve(start.plusMinutes(5L * f).format(SEGMENT_NAME)), content);
+            }
+        }
+        return root;
+    }
+
+    public static void delete(Path root) {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.audio.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Listagem recursiva de uma árvore de rádios: Files.walk a cada pedido versus o catálogo em memória
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+
+    // 20 rádios com uma semana de segmentos de 5 minutos (2016 arquivos cada)
+    @Param("20")
+    public int radios;
+
+    @Param("2016")
+    public int filesPerRadio;
+
+    private Path root;
+    private AudioCatalog catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Fixtures.segmentTree(Fixtures.tempDirectory("listing"), radios, filesPerRadio, 0);
+        catalog = new AudioCatalog();
+        catalog.start(Collections.singletonList(root));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        catalog.shutdown();
+        Fixtures.delete(root);
+    }
+
+    @Benchmark
+    public List<String> filesWalk() throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(Files::isRegularFile)
+                    .map(path -> path.getFileName().toString())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public List<String> catalog() {
+        return catalog.listFileNamesRecursive(root);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.audio.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Varredura de cabeçalhos MP3: índice de frames completo (base dos cortes por cópia) e leitura de metadados
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Mp3ScanBenchmark {
+
+    // Duração do MP3 gerado; 300 s é o tamanho padrão de um segmento gravado
+    @Param("300")
+    public int seconds;
+
+    private Path directory;
+    private Path mp3;
+    private Mp3FrameIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Fixtures.tempDirectory("scan");
+        mp3 = Fixtures.syntheticMp3(directory.resolve("Segment_20240101_000000.mp3"), seconds);
+        index = Mp3FrameScanner.scan(mp3);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Fixtures.delete(directory);
+    }
+
+    @Benchmark
+    public Mp3FrameIndex scanFrames() throws IOException {
+        return Mp3FrameScanner.scan(mp3);
+    }
+
+    @Benchmark
+    public AudioMetadata probeMetadata() throws IOException {
+        return Mp3MetadataProbe.probe(mp3);
+    }
+
+    // Conversão de um intervalo de tempo em bytes sobre o índice já carregado (feita a cada corte)
+    @Benchmark
+    public long[] byteRange() {
+        return index.byteRange(seconds / 3.0, 60);
+    }
+}
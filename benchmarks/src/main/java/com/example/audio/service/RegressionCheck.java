@@ -0,0 +1,56 @@
+package com.example.audio.service;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+// Executa os benchmarks e compara cada resultado com o limite publicado em thresholds.properties
+// (na unidade de saída do benchmark). Termina com código 1 se algum caminho ficou mais lento que o limite.
+// Argumento opcional: expressão regular dos benchmarks a executar (padrão: todos deste pacote).
+public class RegressionCheck {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : RegressionCheck.class.getPackage().getName() + "\\..*Benchmark";
+
+        Properties thresholds = new Properties();
+        try (InputStream in = RegressionCheck.class.getResourceAsStream("/thresholds.properties")) {
+            thresholds.load(in);
+        }
+
+        Options options = new OptionsBuilder().include(include).build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        List<String> regressions = new ArrayList<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            String key = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+            String limit = thresholds.getProperty(key);
+            double score = result.getPrimaryResult().getScore();
+            String unit = result.getPrimaryResult().getScoreUnit();
+            if (limit == null) {
+                System.out.printf("%-40s %12.3f %-8s (sem limite)%n", key, score, unit);
+                continue;
+            }
+            double max = Double.parseDouble(limit);
+            boolean regressed = score > max;
+            System.out.printf("%-40s %12.3f %-8s limite %12.3f %s%n", key, score, unit, max, regressed ? "REGRESSÃO" : "ok");
+            if (regressed) {
+                regressions.add(key);
+            }
+        }
+
+        if (!regressions.isEmpty()) {
+            System.out.println("Benchmarks acima do limite: " + String.join(", ", regressions));
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.audio.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+// Envio de um arquivo inteiro para um socket local (cliente que só descarta os bytes): cópia por stream
+// no heap, FileChannel.transferTo (caminho do ZeroCopyResourceRegionHttpMessageConverter) e cópia por
+// janelas mapeadas (Mp3FrameCopier, usado nos cortes enviados direto na resposta)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServeBenchmark {
+
+    @Param("300")
+    public int seconds;
+
+    private Path directory;
+    private Path mp3;
+    private long size;
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private Thread drain;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Fixtures.tempDirectory("serve");
+        mp3 = Fixtures.syntheticMp3(directory.resolve("Segment_20240101_000000.mp3"), seconds);
+        size = Files.size(mp3);
+
+        server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+        client = SocketChannel.open(server.getLocalAddress());
+        SocketChannel accepted = server.accept();
+        drain = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+            try {
+                while (accepted.read(buffer) >= 0) {
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                // Conexão fechada no fim do benchmark
+            }
+        }, "serve-benchmark-drain");
+        drain.setDaemon(true);
+        drain.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+        Fixtures.delete(directory);
+    }
+
+    // Como os arquivos eram servidos antes: InputStream copiado em blocos pelo heap
+    @Benchmark
+    public long streamCopy() throws IOException {
+        OutputStream out = Channels.newOutputStream(client);
+        try (InputStream in = Files.newInputStream(mp3)) {
+            return in.transferTo(out);
+        }
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException {
+        try (FileChannel source = FileChannel.open(mp3, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < size) {
+                long sent = source.transferTo(position, size - position, client);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+            return position;
+        }
+    }
+
+    @Benchmark
+    public long mappedCopy() throws IOException {
+        return Mp3FrameCopier.copy(mp3, 0, size, client);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.audio.config;
+
+import com.example.audio.service.RequestExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private RequestExecutor requestExecutor;
+
+    // Tempo máximo de uma requisição assíncrona (cortes enviados em streaming podem ser longos)
+    @Value("${audio.async.timeout-millis:1800000}")
+    private long timeoutMillis;
+
+    // StreamingResponseBody dos controllers roda no pool de envios do RequestExecutor, no lugar do padrão do
+    // Spring (uma thread nova por tarefa, sem limite); com o pool cheio a requisição recebe 503
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(requestExecutor.transfers()));
+        configurer.setDefaultTimeout(timeoutMillis);
+    }
+
+    // Com virtual threads, o Tomcat também atende cada requisição em uma virtual thread, então leituras de disco
+    // e envio de áudio para clientes lentos deixam de ocupar as 200 threads do conector
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadConnector() {
+        return factory -> {
+            if (!requestExecutor.isVirtual()) {
+                return;
+            }
+            ExecutorService executor = RequestExecutor.newVirtualThreadExecutor("http-");
+            if (executor != null) {
+                factory.addProtocolHandlerCustomizers(handler -> handler.setExecutor(executor));
+            }
+        };
+    }
+}
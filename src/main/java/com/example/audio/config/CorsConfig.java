@@ -12,8 +12,10 @@ public class CorsConfig implements WebMvcConfigurer {
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
                 .allowedOrigins("http://localhost:4200")
-                .allowedMethods("GET", "POST", "PUT", "DELETE")
+                .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE", "HEAD")
                 .allowedHeaders("*")
+                .exposedHeaders("Accept-Ranges", "Content-Range", "Content-Length", "ETag", "Last-Modified", "Location", "X-Cut-File",
+                        "Upload-Offset", "Upload-Length", "X-Waveform-Bits")
                 .allowCredentials(true);
     }
 }
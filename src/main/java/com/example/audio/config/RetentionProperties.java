@@ -0,0 +1,137 @@
+package com.example.audio.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Políticas de retenção dos segmentos gravados (audio.retention.*). Exemplo:
+//   audio.retention.enabled=true
+//   audio.retention.defaults.compact-after-days=30
+//   audio.retention.defaults.delete-after-days=365
+//   audio.retention.stations.radio1.delete-after-days=90
+@Configuration
+@ConfigurationProperties(prefix = "audio.retention")
+public class RetentionProperties {
+
+    // Política de uma rádio; 0 desativa a etapa correspondente
+    public static class Policy {
+
+        // Idade (pelo início do segmento) a partir da qual o original é recodificado em Opus
+        private int compactAfterDays = 30;
+
+        // Idade a partir da qual o segmento é removido, em qualquer camada
+        private int deleteAfterDays = 365;
+
+        public int getCompactAfterDays() {
+            return compactAfterDays;
+        }
+
+        public void setCompactAfterDays(int compactAfterDays) {
+            this.compactAfterDays = compactAfterDays;
+        }
+
+        public int getDeleteAfterDays() {
+            return deleteAfterDays;
+        }
+
+        public void setDeleteAfterDays(int deleteAfterDays) {
+            this.deleteAfterDays = deleteAfterDays;
+        }
+    }
+
+    // Desligada por padrão: a remoção de gravações precisa ser habilitada explicitamente
+    private boolean enabled = false;
+
+    // Recodificações simultâneas
+    private int workers = 1;
+
+    // Segmentos enfileirados por rádio e etapa a cada execução
+    private int batchSize = 200;
+
+    // Pausa de cada worker entre dois segmentos, para limitar o uso de disco
+    private long throttleMillis = 500;
+
+    // Taxa de bits do Opus mono da camada compactada
+    private String bitrate = "24k";
+
+    // Prefixo do comando do FFmpeg para reduzir a prioridade do processo, ex.: nice,-n,19,ionice,-c,3.
+    // Vazio: cmd /c start "" /B /LOW /WAIT no Windows; nice -n 19 e ionice -c 3 (se instalado) nos demais
+    private List<String> lowPriorityCommand = new ArrayList<>();
+
+    private Policy defaults = new Policy();
+
+    // Políticas por rádio (nome da pasta em C:/pastaudios)
+    private Map<String, Policy> stations = new HashMap<>();
+
+    public Policy policyFor(String radioName) {
+        return stations.getOrDefault(radioName, defaults);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getThrottleMillis() {
+        return throttleMillis;
+    }
+
+    public void setThrottleMillis(long throttleMillis) {
+        this.throttleMillis = throttleMillis;
+    }
+
+    public String getBitrate() {
+        return bitrate;
+    }
+
+    public void setBitrate(String bitrate) {
+        this.bitrate = bitrate;
+    }
+
+    public List<String> getLowPriorityCommand() {
+        return lowPriorityCommand;
+    }
+
+    public void setLowPriorityCommand(List<String> lowPriorityCommand) {
+        this.lowPriorityCommand = lowPriorityCommand;
+    }
+
+    public Policy getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Policy defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Policy> getStations() {
+        return stations;
+    }
+
+    public void setStations(Map<String, Policy> stations) {
+        this.stations = stations;
+    }
+}
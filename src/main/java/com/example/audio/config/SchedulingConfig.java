@@ -0,0 +1,35 @@
+package com.example.audio.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+@Configuration
+public class SchedulingConfig implements SchedulingConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(SchedulingConfig.class);
+
+    // Threads das tarefas @Scheduled. O padrão do Spring é uma só, e uma tarefa longa (reconciliação do catálogo,
+    // retenção) atrasaria todas as outras, inclusive o watchdog das gravações
+    @Value("${audio.scheduling.pool-size:4}")
+    private int poolSize;
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(poolSize, 2));
+        scheduler.setThreadNamePrefix("scheduled-");
+        scheduler.setErrorHandler(error -> log.error("Falha em tarefa agendada", error));
+        return scheduler;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(taskScheduler());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.audio.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBodyReturnValueHandler;
+
+import java.util.List;
+
+// O Spring só envia um StreamingResponseBody em streaming quando o método declara
+// ResponseEntity<StreamingResponseBody>; com ResponseEntity<?> (arquivo com Range ou conversão em andamento no
+// mesmo endpoint) o corpo iria para o Jackson e sairia "{}". Este handler decide pelo corpo de fato retornado.
+final class StreamingEntityReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+    private final HandlerMethodReturnValueHandler streaming = new StreamingResponseBodyReturnValueHandler();
+    private final HandlerMethodReturnValueHandlerComposite others = new HandlerMethodReturnValueHandlerComposite();
+
+    StreamingEntityReturnValueHandler(List<HandlerMethodReturnValueHandler> defaults) {
+        others.addHandlers(defaults);
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return ResponseEntity.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest) throws Exception {
+        if (returnValue instanceof ResponseEntity
+                && ((ResponseEntity<?>) returnValue).getBody() instanceof StreamingResponseBody) {
+            streaming.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+        } else {
+            others.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.audio.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Substitui o conversor padrão de ResourceRegion pelo que envia arquivos sem cópia para o heap
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof ResourceRegionHttpMessageConverter) {
+                converters.set(i, new ZeroCopyResourceRegionHttpMessageConverter(meterRegistry));
+                return;
+            }
+        }
+        converters.add(0, new ZeroCopyResourceRegionHttpMessageConverter(meterRegistry));
+    }
+
+    // Corpo StreamingResponseBody em endpoints que declaram ResponseEntity<?>: o handler vai antes dos padrões
+    // (os adicionados por addReturnValueHandlers ficariam depois do que trata ResponseEntity)
+    @Bean
+    public SmartInitializingSingleton streamingEntityReturnValueHandler(RequestMappingHandlerAdapter adapter) {
+        return () -> {
+            List<HandlerMethodReturnValueHandler> defaults = adapter.getReturnValueHandlers();
+            List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(defaults.size() + 1);
+            handlers.add(new StreamingEntityReturnValueHandler(defaults));
+            handlers.addAll(defaults);
+            adapter.setReturnValueHandlers(handlers);
+        };
+    }
+}
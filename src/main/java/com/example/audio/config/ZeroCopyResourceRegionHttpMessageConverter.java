@@ -0,0 +1,191 @@
+package com.example.audio.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+
+// Escreve trechos (ResourceRegion) de arquivos locais sem passar os bytes pelo heap da JVM:
+// usa o sendfile do Tomcat quando disponível e FileChannel.transferTo nos demais casos
+public class ZeroCopyResourceRegionHttpMessageConverter extends ResourceRegionHttpMessageConverter {
+
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // Abaixo deste tamanho o custo de preparar o sendfile não compensa
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private final MeterRegistry meterRegistry;
+
+    public ZeroCopyResourceRegionHttpMessageConverter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Lista de trechos de uma resposta multi-range. Tipo próprio para que o conversor seja escolhido
+    // também em métodos que retornam ResponseEntity<?>, onde o tipo genérico do corpo não é conhecido.
+    public static class ResourceRegions extends ArrayList<ResourceRegion> {
+
+        public ResourceRegions(Collection<ResourceRegion> regions) {
+            super(regions);
+        }
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, @Nullable Class<?> clazz, @Nullable MediaType mediaType) {
+        if (super.canWrite(type, clazz, mediaType)) {
+            return true;
+        }
+        if (clazz == null || !canWrite(mediaType)) {
+            return false;
+        }
+        return ResourceRegion.class.isAssignableFrom(clazz) || ResourceRegions.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (object instanceof ResourceRegion && isLocalFile(((ResourceRegion) object).getResource())) {
+            writeRegion((ResourceRegion) object, outputMessage);
+        } else if (object instanceof Collection && allLocalFiles((Collection<?>) object)) {
+            @SuppressWarnings("unchecked")
+            Collection<ResourceRegion> regions = (Collection<ResourceRegion>) object;
+            writeRegions(regions, outputMessage);
+        } else {
+            super.writeInternal(object, type, outputMessage);
+        }
+        countServed(object);
+    }
+
+    // Bytes de áudio enviados, por endpoint (padrão da rota, ex.: /audio/play/{radioName}/{fileName})
+    private void countServed(Object object) {
+        long bytes = 0;
+        if (object instanceof ResourceRegion) {
+            bytes = ((ResourceRegion) object).getCount();
+        } else if (object instanceof Collection) {
+            for (Object region : (Collection<?>) object) {
+                if (region instanceof ResourceRegion) {
+                    bytes += ((ResourceRegion) region).getCount();
+                }
+            }
+        }
+        String endpoint = "desconhecido";
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object pattern = attributes.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE,
+                    RequestAttributes.SCOPE_REQUEST);
+            if (pattern != null) {
+                endpoint = pattern.toString();
+            }
+        }
+        meterRegistry.counter("audio.served.bytes", "endpoint", endpoint).increment(bytes);
+    }
+
+    private void writeRegion(ResourceRegion region, HttpOutputMessage outputMessage) throws IOException {
+        File file = region.getResource().getFile();
+        if (trySendfile(file, region, outputMessage)) {
+            return;
+        }
+        // Sem o tamanho o Tomcat enviaria a região em chunked, e o cliente não saberia quanto esperar
+        outputMessage.getHeaders().setContentLength(region.getCount());
+        OutputStream out = outputMessage.getBody();
+        transfer(file, region.getPosition(), region.getCount(), Channels.newChannel(out));
+    }
+
+    // multipart/byteranges com cada parte copiada canal a canal
+    private void writeRegions(Collection<ResourceRegion> regions, HttpOutputMessage outputMessage) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        outputMessage.getHeaders().setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+        OutputStream out = outputMessage.getBody();
+        WritableByteChannel channel = Channels.newChannel(out);
+
+        for (ResourceRegion region : regions) {
+            Resource resource = region.getResource();
+            long start = region.getPosition();
+            long end = start + region.getCount() - 1;
+            long length = resource.contentLength();
+            MediaType partType = MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+            StringBuilder partHeaders = new StringBuilder()
+                    .append("\r\n--").append(boundary).append("\r\n")
+                    .append(HttpHeaders.CONTENT_TYPE).append(": ").append(partType).append("\r\n")
+                    .append(HttpHeaders.CONTENT_RANGE).append(": bytes ").append(start).append('-').append(end)
+                    .append('/').append(length).append("\r\n\r\n");
+            out.write(partHeaders.toString().getBytes(StandardCharsets.US_ASCII));
+            transfer(resource.getFile(), start, region.getCount(), channel);
+        }
+        out.write(("\r\n--" + boundary + "--").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void transfer(File file, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long end = position + count;
+            while (position < end) {
+                long sent = source.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    // Delega o envio ao sendfile do Tomcat: só os cabeçalhos são escritos aqui e o conector copia o arquivo
+    private boolean trySendfile(File file, ResourceRegion region, HttpOutputMessage outputMessage) throws IOException {
+        if (!(outputMessage instanceof ServletServerHttpResponse) || region.getCount() < SENDFILE_MIN_BYTES) {
+            return false;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return false;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        if (!"GET".equals(request.getMethod()) || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            return false;
+        }
+
+        request.setAttribute(SENDFILE_FILENAME_ATTR, file.getAbsolutePath());
+        request.setAttribute(SENDFILE_START_ATTR, region.getPosition());
+        request.setAttribute(SENDFILE_END_ATTR, region.getPosition() + region.getCount());
+        outputMessage.getHeaders().setContentLength(region.getCount());
+        outputMessage.getBody();
+        return true;
+    }
+
+    private boolean isLocalFile(Resource resource) {
+        return resource.isFile();
+    }
+
+    private boolean allLocalFiles(Collection<?> regions) {
+        for (Object region : regions) {
+            if (!(region instanceof ResourceRegion) || !isLocalFile(((ResourceRegion) region).getResource())) {
+                return false;
+            }
+        }
+        return !regions.isEmpty();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.audio.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.concurrent.RejectedExecutionException;
+
+// Pool de envios (ou outra fila) cheio sem tratamento no controller, como um StreamingResponseBody recusado pelo
+// executor do Spring MVC: responde 503 para o cliente tentar de novo, no lugar de um 500
+@RestControllerAdvice
+public class AsyncRejectionHandler {
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> rejected(RejectedExecutionException e) {
+        return ResponseEntity.status(503).header("Retry-After", "5")
+                .body("Servidor ocupado, tente novamente mais tarde.");
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.audio.controller;
+
+import com.example.audio.service.RequestExecutor;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+// Respostas comuns dos handlers assíncronos (CompletableFuture)
+final class AsyncResponses {
+
+    private AsyncResponses() {
+    }
+
+    // Processamento que não terminou a tempo (ou fila cheia) vira 202 para o cliente tentar de novo; o resto, 500
+    static <T> ResponseEntity<T> pendingOrError(Throwable error) {
+        Throwable cause = RequestExecutor.causeOf(error);
+        if (cause instanceof TimeoutException || cause instanceof RejectedExecutionException) {
+            return ResponseEntity.accepted().header("Retry-After", "5").build();
+        }
+        return ResponseEntity.status(500).build();
+    }
+}
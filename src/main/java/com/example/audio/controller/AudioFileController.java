@@ -1,37 +1,84 @@
 package com.example.audio.controller;
 
-import com.example.audio.service.AudioCutProgress;
+import com.example.audio.service.AudioCatalog;
 import com.example.audio.service.AudioService;
+import com.example.audio.service.CatalogPage;
+import com.example.audio.service.CutCacheService;
+import com.example.audio.service.CutJob;
+import com.example.audio.service.CutJobService;
+import com.example.audio.service.CutProgressBroadcaster;
+import com.example.audio.service.LiveRecorderService;
+import com.example.audio.service.RenditionService;
+import com.example.audio.service.RequestExecutor;
+import com.example.audio.service.RetentionService;
+import com.example.audio.service.StartBeyondEndException;
+import com.example.audio.service.StreamingCut;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.MalformedURLException;
+import java.net.URI;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/audio")
 public class AudioFileController {
 
+    private static final Logger log = LoggerFactory.getLogger(AudioFileController.class);
+
     @Autowired
     private AudioService audioService;
 
-    // Endpoint para cortar o áudio
+    @Autowired
+    private CutJobService cutJobService;
+
+    @Autowired
+    private CutProgressBroadcaster progressBroadcaster;
+
+    @Autowired
+    private LiveRecorderService liveRecorderService;
+
+    @Autowired
+    private AudioResponseBuilder audioResponseBuilder;
+
+    @Autowired
+    private AudioCatalog audioCatalog;
+
+    @Autowired
+    private CutCacheService cutCacheService;
+
+    @Autowired
+    private RequestExecutor requestExecutor;
+
+    @Autowired
+    private RenditionService renditionService;
+
+    // Bitrate das versões convertidas quando só o formato é informado
+    private static final int DEFAULT_RENDITION_KBPS = 64;
+
+    // Endpoint para cortar o áudio: enfileira o corte e retorna imediatamente o ID do job
     @PostMapping("/cut/{radioName}/{fileName}")
     public ResponseEntity<?> cutAudio(
             @PathVariable("radioName") String radioName,
@@ -39,166 +86,210 @@ public class AudioFileController {
             @RequestParam("startSeconds") double startSeconds,
             @RequestParam("durationSeconds") double durationSeconds) {
 
+        // Valida os parâmetros
+        if (startSeconds < 0 || durationSeconds <= 0) {
+            return ResponseEntity.badRequest().body("Parâmetros inválidos.");
+        }
+
         try {
-            // Valida os parâmetros
-            if (startSeconds < 0 || durationSeconds <= 0) {
-                return ResponseEntity.badRequest().body("Parâmetros inválidos.");
-            }
+            CutJob job = cutJobService.submit(radioName, fileName, startSeconds, durationSeconds);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/audio/cut/jobs/" + job.getId()))
+                    .body(job.describe());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body("Fila de cortes cheia, tente novamente mais tarde.");
+        }
+    }
+
+    // Corte enviado direto na resposta, sem passar pela fila nem esperar o arquivo em disco; com persist=true
+    // o corte também é salvo em C:/cortes/<data>/ (caminho relativo no cabeçalho X-Cut-File)
+    @GetMapping("/cut/{radioName}/{fileName}/stream")
+    public ResponseEntity<StreamingResponseBody> streamCut(
+            @PathVariable("radioName") String radioName,
+            @PathVariable("fileName") String fileName,
+            @RequestParam("startSeconds") double startSeconds,
+            @RequestParam("durationSeconds") double durationSeconds,
+            @RequestParam(defaultValue = "false") boolean persist) {
+
+        if (startSeconds < 0 || durationSeconds <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingCut cut;
+        try {
+            cut = audioService.prepareStreamingCut(radioName, fileName, startSeconds, durationSeconds, persist);
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.notFound().build();
+        } catch (StartBeyondEndException e) {
+            return ResponseEntity.status(416).build();
+        } catch (IOException e) {
+            log.error("Falha ao preparar o corte de {}/{} em {}s", radioName, fileName, startSeconds, e);
+            return ResponseEntity.status(500).build();
+        }
+
+        Path inputPath = RetentionService.resolve(Paths.get("C:/pastaudios", radioName, fileName));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(audioResponseBuilder.contentTypeOf(inputPath));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cortes_" + inputPath.getFileName() + "\"");
+        if (cut.getContentLength() >= 0) {
+            headers.setContentLength(cut.getContentLength());
+        }
+        if (cut.getPersistPath() != null) {
+            Path persisted = cut.getPersistPath();
+            headers.set("X-Cut-File", persisted.getParent().getFileName() + "/" + persisted.getFileName());
+        }
+        StreamingResponseBody body = cut::writeTo;
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    // Consulta o estado de um corte
+    @GetMapping("/cut/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getCutJob(@PathVariable String jobId) {
+        return cutJobService.find(jobId)
+                .map(job -> ResponseEntity.ok(job.describe()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Contadores do cache de cortes (acertos, falhas, pedidos agrupados, remoções, ocupação)
+    @GetMapping("/cut/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCutCacheStats() {
+        return ResponseEntity.ok(cutCacheService.stats());
+    }
+
+    // Contadores do cache de versões convertidas (?bitrate=/?format= nos endpoints de reprodução)
+    @GetMapping("/renditions/cache/stats")
+    public ResponseEntity<Map<String, Object>> getRenditionCacheStats() {
+        return ResponseEntity.ok(renditionService.stats());
+    }
 
-            // Chama o serviço de corte de áudio, passando a rádio (subpasta) e o nome do arquivo
-            String outputFileName = audioService.cutAudioFile(radioName, fileName, startSeconds, durationSeconds);
+    // Retorna o arquivo gerado por um corte concluído
+    @GetMapping("/cut/jobs/{jobId}/file")
+    public ResponseEntity<?> downloadCutJobFile(@PathVariable String jobId, @RequestHeader HttpHeaders requestHeaders) {
+        Optional<CutJob> found = cutJobService.find(jobId);
+        if (!found.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        CutJob job = found.get();
+        if (job.getStatus() != CutJob.Status.COMPLETED) {
+            return ResponseEntity.status(409).body(job.describe());
+        }
 
+        try {
             // Verifica se o arquivo foi gerado corretamente
-            Path outputPath = Paths.get("C:/cortes/" + outputFileName);
+            Path outputPath = Paths.get("C:/cortes/" + job.getOutputFileName());
             if (!Files.exists(outputPath)) {
                 return ResponseEntity.status(404).body("Arquivo cortado não encontrado.");
             }
 
             // Retorna o arquivo de áudio cortado
-            Resource resource = new UrlResource(outputPath.toUri());
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType("audio/mpeg"))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + outputFileName + "\"")
-                    .body(resource);
-
+            return audioResponseBuilder.build(outputPath, MediaType.parseMediaType("audio/mpeg"), "attachment", requestHeaders);
         } catch (IOException e) {
-            e.printStackTrace();
             return ResponseEntity.status(500).body("Erro ao processar o áudio: " + e.getMessage());
         }
     }
+
+    // Inicia a gravação da transmissão ao vivo em segmentos de 5 minutos, em segundo plano
+    // (mantido por compatibilidade; equivale a POST /audio/recorders/{radioName}/start)
     @PostMapping("/cut-live-segments")
     public ResponseEntity<Map<String, String>> cutLiveStreamSegments(@RequestParam String streamUrl, @RequestParam String radioName) {
         Map<String, String> response = new HashMap<>();
-
-        // Diretório base onde os arquivos serão salvos
-        String baseDirectory = "C:/pastaudios/" + radioName;
-
-        // Cria a subpasta correspondente ao nome da rádio, se não existir
-        Path radioDirectory = Paths.get(baseDirectory);
-        if (!Files.exists(radioDirectory)) {
-            try {
-                Files.createDirectories(radioDirectory); // Cria diretórios necessários
-            } catch (IOException e) {
-                e.printStackTrace();
-                response.put("status", "error");
-                response.put("message", "Erro ao criar diretório para a rádio: " + radioName);
-                return ResponseEntity.status(500).body(response);
-            }
-        }
-
-        // Caminho para salvar os arquivos cortados
-        String outputPath = baseDirectory + "/Segment_%Y%m%d_%H%M%S.mp3";
-        int segmentDuration = 300;  // 5 minutos (300 segundos)
-
-        // Comando FFmpeg para transcodificar o áudio para MP3
-        String[] command = {
-                "ffmpeg",
-                "-i", streamUrl,   // URL da stream ao vivo
-                "-c:a", "libmp3lame", // Codec de áudio para MP3
-                "-b:a", "128k",    // Taxa de bits de 128kbps para o áudio
-                "-f", "segment",   // Formato de segmentação
-                "-segment_time", String.valueOf(segmentDuration),  // Duração de cada segmento
-                "-strftime", "1",  // Usar nome de arquivo com data e hora
-                outputPath         // Caminho de saída do arquivo
-        };
-
         try {
-            ProcessBuilder processBuilder = new ProcessBuilder(command);
-            processBuilder.redirectErrorStream(true); // Redireciona os erros para o stream padrão
-            Process process = processBuilder.start();
-
-            // Lê a saída do processo em tempo real e monitora o progresso
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            String line;
-            double totalDuration = 0;
-            double currentTime = 0;
-
-            while ((line = reader.readLine()) != null) {
-                // Exibe a saída do processo no console (para debug)
-                System.out.println(line);
-
-                // Exemplo de linha que o FFmpeg gera: "time=00:01:23.45 bitrate=..."
-                if (line.contains("time=")) {
-                    // Extraímos o tempo atual do processamento do áudio
-                    String timeStr = line.substring(line.indexOf("time=") + 5, line.indexOf("bitrate=")).trim();
-                    currentTime = parseFFmpegTime(timeStr);
-
-                    // Se soubermos a duração total da transmissão (em segundos), podemos calcular o progresso
-                    if (totalDuration > 0) {
-                        int progress = (int) ((currentTime / totalDuration) * 100);
-                        // Enviar o progresso para o cliente, por exemplo, via WebSocket
-                        sendProgressToClient(progress);
-                    }
-                }
-            }
-
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                response.put("status", "error");
-                response.put("message", "Erro durante a execução do FFmpeg.");
-                return ResponseEntity.status(500).body(response);
-            }
-
-            response.put("status", "success");
-            response.put("message", "Transmissão ao vivo cortada em segmentos de 5 minutos e salva em " + baseDirectory);
-            return ResponseEntity.ok(response);
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
+            liveRecorderService.start(radioName, streamUrl);
+            response.put("status", "recording");
+            response.put("message", "Transmissão ao vivo sendo gravada em segmentos de 5 minutos em C:/pastaudios/" + radioName);
+            return ResponseEntity.accepted().body(response);
+        } catch (IllegalStateException e) {
             response.put("status", "error");
-            response.put("message", "Erro ao cortar a transmissão ao vivo.");
-            return ResponseEntity.status(500).body(response);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(409).body(response);
         }
     }
 
-    // Função auxiliar para analisar o tempo no formato "hh:mm:ss.xx" para segundos
-    private double parseFFmpegTime(String timeStr) {
-        String[] parts = timeStr.split(":");
-        double hours = Double.parseDouble(parts[0]);
-        double minutes = Double.parseDouble(parts[1]);
-        double seconds = Double.parseDouble(parts[2]);
-        return hours * 3600 + minutes * 60 + seconds;
-    }
-
-    // Função para enviar o progresso ao cliente (pode ser implementado com WebSocket)
-    private void sendProgressToClient(int progress) {
-        // Implementar WebSocket ou outra forma de comunicação com o frontend para enviar o progresso
-    }
-
     @GetMapping("/radio")
-    public ResponseEntity<List<String>> listRadios() {
+    public ResponseEntity<List<String>> listRadios(WebRequest webRequest) {
+        String etag = "\"radios-" + audioCatalog.getEpoch() + "-"
+                + audioCatalog.version(Paths.get("C:/pastaudios"), true) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             List<String> radios = audioService.listRadios();
-            return ResponseEntity.ok(radios);
+            return ResponseEntity.ok().eTag(etag).body(radios);
         } catch (IOException e) {
             return ResponseEntity.status(500).body(null);
         }
     }
     @GetMapping("/radio/{radioName}/contents")
-    public ResponseEntity<Map<String, List<String>>> listContentsFromRadio(@PathVariable String radioName) {
+    public ResponseEntity<Map<String, List<String>>> listContentsFromRadio(@PathVariable String radioName,
+                                                                          WebRequest webRequest) {
+        String etag = "\"contents-" + radioName.hashCode() + "-" + audioCatalog.getEpoch() + "-"
+                + audioCatalog.version(Paths.get("C:/pastaudios", radioName), true) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             Map<String, List<String>> contents = audioService.listContentsFromRadio(radioName);
-            return ResponseEntity.ok(contents);
+            return ResponseEntity.ok().eTag(etag).body(contents);
         } catch (IOException e) {
             return ResponseEntity.status(500).body(null);
         }
     }
 
-    // Reproduzir o arquivo de áudio de uma rádio específica
-    @GetMapping("/play/{radioName}/{fileName}")
-    public ResponseEntity<Resource> playAudio(@PathVariable String radioName, @PathVariable String fileName) {
-        try {
-            Path filePath = Paths.get("C:/pastaudios").resolve(radioName).resolve(fileName);
-            Resource resource = new UrlResource(filePath.toUri());
+    // Listagem paginada dos arquivos de uma rádio, ordenada por nome, com filtros opcionais por prefixo e data
+    @GetMapping("/radio/{radioName}/files")
+    public ResponseEntity<CatalogPage> listRadioFiles(
+            @PathVariable String radioName,
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit,
+            WebRequest webRequest) {
+        return catalogPage(Paths.get("C:/pastaudios", radioName), prefix, date, after, limit, webRequest);
+    }
 
-            if (!resource.exists()) {
-                return ResponseEntity.notFound().build();
-            }
+    // Listagem paginada dos cortes de uma subpasta (data) de 'cortes'
+    @GetMapping("/cortes/{subFolder}/files")
+    public ResponseEntity<CatalogPage> listCorteFiles(
+            @PathVariable String subFolder,
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit,
+            WebRequest webRequest) {
+        return catalogPage(Paths.get("C:/cortes", subFolder), prefix, date, after, limit, webRequest);
+    }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(Files.probeContentType(filePath)))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"")
-                    .body(resource);
+    private ResponseEntity<CatalogPage> catalogPage(Path directory, String prefix, LocalDate date, String after,
+                                                    int limit, WebRequest webRequest) {
+        if (limit <= 0 || limit > 1000) {
+            return ResponseEntity.badRequest().build();
+        }
+        long version = audioCatalog.version(directory, false);
+        if (version < 0) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = "\"page-" + Integer.toHexString(Objects.hash(directory, prefix, date, after, limit)) + "-"
+                + audioCatalog.getEpoch() + "-" + version + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        CatalogPage page = audioCatalog.page(directory, prefix, date, after, limit);
+        if (page == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    // Reproduzir o arquivo de áudio de uma rádio específica (com suporte a Range para busca no player).
+    // Com ?bitrate= (kbps) e/ou ?format= (mp3, aac, opus) envia uma versão convertida, mais leve.
+    @GetMapping("/play/{radioName}/{fileName}")
+    public ResponseEntity<?> playAudio(@PathVariable String radioName, @PathVariable String fileName,
+                                       @RequestParam(required = false) Integer bitrate,
+                                       @RequestParam(required = false) String format,
+                                       @RequestHeader HttpHeaders requestHeaders) {
+        try {
+            Path filePath = RetentionService.resolve(Paths.get("C:/pastaudios").resolve(radioName).resolve(fileName));
+            return play(filePath, null, "inline", bitrate, format, requestHeaders);
         } catch (IOException e) {
             return ResponseEntity.status(500).body(null);
         }
@@ -206,153 +297,136 @@ public class AudioFileController {
 
     // Reproduzir o arquivo de áudio cortado de uma subpasta dentro da pasta 'cortes'
     @GetMapping("/play-cut/{radioName}/{fileName}")
-    public ResponseEntity<Resource> playCutAudio(@PathVariable String radioName, @PathVariable String fileName) {
+    public ResponseEntity<?> playCutAudio(@PathVariable String radioName, @PathVariable String fileName,
+                                          @RequestParam(required = false) Integer bitrate,
+                                          @RequestParam(required = false) String format,
+                                          @RequestHeader HttpHeaders requestHeaders) {
         try {
             // Caminho base da pasta 'cortes'
             Path basePath = Paths.get("C:/cortes").resolve(radioName).resolve(fileName);
-            Resource resource = new UrlResource(basePath.toUri());
-
-            // Verifica se o arquivo existe
-            if (!resource.exists()) {
-                return ResponseEntity.notFound().build();
-            }
-
-            // Retorna o arquivo com o tipo de conteúdo apropriado (por exemplo, audio/mp3)
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(Files.probeContentType(basePath)))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"")
-                    .body(resource);
+            return play(basePath, null, "inline", bitrate, format, requestHeaders);
         } catch (IOException e) {
             return ResponseEntity.status(500).body(null);
         }
     }
 
-    // Endpoint para obter o progresso atual do corte e o nome da rádio
-    @GetMapping("/progress")
-    public ResponseEntity<Map<String, Object>> getCutProgress(@RequestParam String radioName) {
-        int progress = audioService.getCutProgress().getProgress();
+    // Endpoint para obter o progresso atual de um corte e o nome da rádio
+    @GetMapping("/progress/{jobId}")
+    public ResponseEntity<Map<String, Object>> getCutProgress(@PathVariable String jobId) {
+        Optional<CutJob> job = cutJobService.find(jobId);
+        if (!job.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
         Map<String, Object> response = new HashMap<>();
-        response.put("progress", progress);
-        response.put("radioName", radioName);
+        response.put("jobId", jobId);
+        response.put("progress", job.get().getProgress().getProgress());
+        response.put("status", job.get().getStatus());
+        response.put("radioName", job.get().getRadioName());
 
         return ResponseEntity.ok(response);
     }
 
-    // Endpoint para pausar o corte de áudio
-    @PostMapping("/pause")
-    public ResponseEntity<String> pauseCut() {
-        try {
-            audioService.pauseCut();
-            return ResponseEntity.ok("Corte pausado com sucesso.");
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("Erro ao pausar o corte: " + e.getMessage());
+    // Stream (Server-Sent Events) com o progresso de um corte, enviado a cada mudança até a conclusão
+    @GetMapping(value = "/progress/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCutProgress(@PathVariable String jobId) {
+        return cutJobService.find(jobId)
+                .map(job -> ResponseEntity.ok(progressBroadcaster.subscribe(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Endpoint para pausar um corte de áudio
+    @PostMapping("/pause/{jobId}")
+    public ResponseEntity<String> pauseCut(@PathVariable String jobId) {
+        Optional<CutJob> job = cutJobService.find(jobId);
+        if (!job.isPresent()) {
+            return ResponseEntity.status(404).body("Corte não encontrado: " + jobId);
         }
+        job.get().pause();
+        return ResponseEntity.ok("Corte pausado com sucesso.");
     }
 
-    // Endpoint para retomar o corte de áudio
-    @PostMapping("/resume")
-    public ResponseEntity<String> resumeCut() {
-        try {
-            audioService.resumeCut();
-            return ResponseEntity.ok("Corte retomado com sucesso.");
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("Erro ao retomar o corte: " + e.getMessage());
+    // Endpoint para retomar um corte de áudio
+    @PostMapping("/resume/{jobId}")
+    public ResponseEntity<String> resumeCut(@PathVariable String jobId) {
+        Optional<CutJob> job = cutJobService.find(jobId);
+        if (!job.isPresent()) {
+            return ResponseEntity.status(404).body("Corte não encontrado: " + jobId);
         }
+        job.get().resume();
+        return ResponseEntity.ok("Corte retomado com sucesso.");
     }
 
-    // Endpoint para cancelar o corte de áudio
-    @PostMapping("/cancel")
-    public ResponseEntity<String> cancelCut() {
-        try {
-            audioService.cancelCut();
-            return ResponseEntity.ok("Corte cancelado com sucesso.");
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("Erro ao cancelar o corte: " + e.getMessage());
+    // Endpoint para cancelar um corte de áudio
+    @PostMapping("/cancel/{jobId}")
+    public ResponseEntity<String> cancelCut(@PathVariable String jobId) {
+        Optional<CutJob> job = cutJobService.find(jobId);
+        if (!job.isPresent()) {
+            return ResponseEntity.status(404).body("Corte não encontrado: " + jobId);
         }
+        job.get().cancel();
+        return ResponseEntity.ok("Corte cancelado com sucesso.");
     }
 
-    // Método para fazer upload de um arquivo de áudio
+    // Método para fazer upload de um arquivo de áudio (cópia e leitura de metadados fora da thread do servlet)
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadAudio(@RequestParam("file") MultipartFile file) {
+    public CompletableFuture<ResponseEntity<?>> uploadAudio(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("O arquivo de áudio está vazio."));
+        }
         try {
-            if (file.isEmpty()) {
-                return ResponseEntity.badRequest().body("O arquivo de áudio está vazio.");
-            }
-
-            String fileName = audioService.saveAudioFile(file);
-            Map<String, String> response = new HashMap<>();
-            response.put("fileName", fileName);
-            return ResponseEntity.ok(response);
-        } catch (IOException e) {
-            return ResponseEntity.status(500).body("Erro ao carregar o arquivo.");
+            return requestExecutor.supply(() -> audioService.saveAudioFile(file))
+                    .<ResponseEntity<?>>thenApply(fileName -> {
+                        Map<String, String> response = new HashMap<>();
+                        response.put("fileName", fileName);
+                        return ResponseEntity.ok(response);
+                    })
+                    .exceptionally(error -> ResponseEntity.status(500).body("Erro ao carregar o arquivo."));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(503).body("Servidor ocupado, tente novamente mais tarde."));
         }
     }
 
     // Método para listar todos os arquivos de áudio na pasta audiopasta
     @GetMapping("/list")
-    public ResponseEntity<List<String>> listAllAudioFilesInAudiopasta() {
+    public ResponseEntity<List<String>> listAllAudioFilesInAudiopasta(WebRequest webRequest) {
+        String etag = "\"list-" + audioCatalog.getEpoch() + "-" + audioCatalog.treeVersion(Paths.get("C:/pastaudios")) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
         try {
             List<String> fileNames = audioService.listAudioFilesFromDirectory("C:/pastaudios");
-            return ResponseEntity.ok(fileNames);
+            return ResponseEntity.ok().eTag(etag).body(fileNames);
         } catch (IOException e) {
             return ResponseEntity.status(500).body(null);
         }
     }
 
-    // Método para listar todos os arquivos de áudio na pasta cortes
     // Método para listar todas as subpastas e arquivos de áudio cortados
     @GetMapping("/list/cortes")
-    public ResponseEntity<Map<String, List<String>>> listCortes() {
-        try {
-            // Caminho da pasta de cortes
-            Path cortesPath = Paths.get("C:/cortes");
-
-            // Map para armazenar subpastas e seus arquivos
-            Map<String, List<String>> cortes = new HashMap<>();
-
-            // Iterar sobre as subpastas (datas) na pasta de cortes
-            try (Stream<Path> walk = Files.walk(cortesPath, 1)) {
-                walk.filter(Files::isDirectory).forEach(subFolder -> {
-                    try {
-                        // Listar os arquivos de áudio em cada subpasta (corte por data)
-                        List<String> files = Files.walk(subFolder, 1)
-                                .filter(Files::isRegularFile)
-                                .map(path -> path.getFileName().toString())
-                                .collect(Collectors.toList());
-
-                        // Adicionar a subpasta e seus arquivos no map
-                        cortes.put(subFolder.getFileName().toString(), files);
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                });
-            }
+    public ResponseEntity<Map<String, List<String>>> listCortes(WebRequest webRequest) {
+        // Caminho da pasta de cortes
+        Path cortesPath = Paths.get("C:/cortes");
+        String etag = "\"cortes-" + audioCatalog.getEpoch() + "-" + audioCatalog.treeVersion(cortesPath) + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
 
-            return ResponseEntity.ok(cortes);
-        } catch (IOException e) {
+        // Subpastas (datas) e seus arquivos, a partir do catálogo em memória
+        Map<String, List<String>> cortes = audioCatalog.listFilesBySubdirectory(cortesPath);
+        if (cortes == null) {
             return ResponseEntity.status(500).body(null);
         }
+        return ResponseEntity.ok().eTag(etag).body(cortes);
     }
     @GetMapping("/play/corte/{subFolder}/{fileName}")
-    public ResponseEntity<Resource> playCorte(@PathVariable String subFolder, @PathVariable String fileName) {
+    public ResponseEntity<?> playCorte(@PathVariable String subFolder, @PathVariable String fileName,
+                                       @RequestParam(required = false) Integer bitrate,
+                                       @RequestParam(required = false) String format,
+                                       @RequestHeader HttpHeaders requestHeaders) {
         try {
             // Caminho completo para o arquivo de áudio dentro da subpasta
             Path filePath = Paths.get("C:/cortes").resolve(subFolder).resolve(fileName);
-            Resource resource = new UrlResource(filePath.toUri());
-
-            // Verifica se o arquivo existe
-            if (!resource.exists()) {
-                return ResponseEntity.notFound().build();
-            }
-
-            // Retorna o arquivo de áudio para reprodução
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(Files.probeContentType(filePath)))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"")
-                    .body(resource);
+            return play(filePath, null, "inline", bitrate, format, requestHeaders);
         } catch (IOException e) {
             return ResponseEntity.status(500).body(null);
         }
@@ -360,22 +434,59 @@ public class AudioFileController {
 
     // Método para fazer o download de um arquivo de áudio específico
     @GetMapping("/download/{fileName}")
-    public ResponseEntity<Resource> downloadAudio(@PathVariable String fileName) {
+    public ResponseEntity<?> downloadAudio(@PathVariable String fileName,
+                                           @RequestParam(required = false) Integer bitrate,
+                                           @RequestParam(required = false) String format,
+                                           @RequestHeader HttpHeaders requestHeaders) {
         try {
             Path filePath = Paths.get("C:/pastaudios").resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (!resource.exists()) {
-                return ResponseEntity.notFound().build();
-            }
 
             // Ajustar o cabeçalho para "inline" para permitir a reprodução no navegador
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType("audio/mpeg"))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"")
-                    .body(resource);
-        } catch (MalformedURLException e) {
+            return play(filePath, MediaType.parseMediaType("audio/mpeg"), "inline", bitrate, format, requestHeaders);
+        } catch (IOException e) {
             return ResponseEntity.status(500).body(null);
         }
     }
-}
\ No newline at end of file
+
+    // Original, ou a versão convertida quando bitrate/format são informados: pronta no cache sai como arquivo
+    // (com Range); ainda em conversão sai em streaming, acompanhando a saída do FFmpeg
+    private ResponseEntity<?> play(Path filePath, MediaType contentType, String disposition, Integer bitrate,
+                                   String format, HttpHeaders requestHeaders) throws IOException {
+        if (bitrate == null && format == null) {
+            return contentType != null ? audioResponseBuilder.build(filePath, contentType, disposition, requestHeaders)
+                    : audioResponseBuilder.build(filePath, disposition, requestHeaders);
+        }
+        if (!Files.isRegularFile(filePath)) {
+            return ResponseEntity.notFound().build();
+        }
+        int bitrateKbps = bitrate != null ? bitrate : DEFAULT_RENDITION_KBPS;
+        RenditionService.Rendition rendition;
+        try {
+            rendition = renditionService.open(filePath,
+                    format != null ? RenditionService.Format.parse(format) : RenditionService.Format.MP3, bitrateKbps);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body("Fila de conversões cheia, tente novamente mais tarde.");
+        }
+        if (rendition.isOriginal()) {
+            return contentType != null ? audioResponseBuilder.build(filePath, contentType, disposition, requestHeaders)
+                    : audioResponseBuilder.build(filePath, disposition, requestHeaders);
+        }
+
+        String name = filePath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String renditionName = (dot > 0 ? name.substring(0, dot) : name) + "_" + bitrateKbps + "k"
+                + rendition.getFormat().getExtension();
+        MediaType renditionType = MediaType.parseMediaType(rendition.getFormat().getContentType());
+        if (rendition.getFile() != null) {
+            return audioResponseBuilder.build(rendition.getFile(), renditionType, disposition, renditionName, requestHeaders);
+        }
+        StreamingResponseBody body = outputStream -> renditionService.writeTo(rendition, outputStream);
+        return ResponseEntity.ok()
+                .contentType(renditionType)
+                .header(HttpHeaders.ACCEPT_RANGES, "none")
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition + "; filename=\"" + renditionName + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.audio.controller;
+
+import com.example.audio.config.ZeroCopyResourceRegionHttpMessageConverter.ResourceRegions;
+import com.example.audio.service.CacheValidatorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Monta as respostas de reprodução/download de áudio com suporte a Range, If-Range e 206 Partial Content.
+// O corpo é sempre um ResourceRegion (ou lista deles), escrito pelo ZeroCopyResourceRegionHttpMessageConverter.
+// Com If-None-Match/If-Modified-Since válidos responde 304 sem corpo; segmentos fechados saem como imutáveis,
+// os demais arquivos com no-cache (proxy e navegador guardam, mas revalidam a cada uso).
+@Component
+public class AudioResponseBuilder {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "no-cache";
+
+    @Autowired
+    private CacheValidatorService cacheValidatorService;
+
+    public ResponseEntity<?> build(Path filePath, String disposition, HttpHeaders requestHeaders) throws IOException {
+        return build(filePath, contentTypeOf(filePath), disposition, requestHeaders);
+    }
+
+    public ResponseEntity<?> build(Path filePath, MediaType contentType, String disposition,
+                                   HttpHeaders requestHeaders) throws IOException {
+        return build(filePath, contentType, disposition, filePath.getFileName().toString(), requestHeaders);
+    }
+
+    // Mesmo que o anterior, com o nome sugerido ao cliente diferente do nome em disco (ex.: versões em cache)
+    public ResponseEntity<?> build(Path filePath, MediaType contentType, String disposition, String fileName,
+                                   HttpHeaders requestHeaders) throws IOException {
+        if (!Files.isRegularFile(filePath)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        FileSystemResource resource = new FileSystemResource(filePath);
+        CacheValidatorService.Validators validators = cacheValidatorService.of(filePath);
+        long length = validators.getSize();
+        long lastModified = validators.getLastModified();
+        String etag = validators.getEtag();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.setLastModified(lastModified);
+        headers.setCacheControl(validators.isImmutable() ? IMMUTABLE : REVALIDATE);
+        if (notModified(requestHeaders, etag, lastModified)) {
+            return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+        }
+        headers.setContentType(contentType);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set(HttpHeaders.CONTENT_DISPOSITION,
+                disposition + "; filename=\"" + fileName + "\"");
+
+        String rangeHeader = requestHeaders.getFirst(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(requestHeaders, etag, lastModified)) {
+            return new ResponseEntity<>(new ResourceRegion(resource, 0, length), headers, HttpStatus.OK);
+        }
+
+        List<ResourceRegion> regions;
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            regions = HttpRange.toResourceRegions(ranges, resource);
+        } catch (IllegalArgumentException e) {
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        }
+
+        if (regions.size() == 1) {
+            ResourceRegion region = regions.get(0);
+            long end = region.getPosition() + region.getCount() - 1;
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + region.getPosition() + "-" + end + "/" + length);
+            return new ResponseEntity<>(region, headers, HttpStatus.PARTIAL_CONTENT);
+        }
+        // O conversor define o Content-Type multipart/byteranges com o boundary gerado
+        return new ResponseEntity<>(new ResourceRegions(regions), headers, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    // If-None-Match (comparação fraca, lista ou "*") tem precedência; sem ele vale If-Modified-Since (em segundos)
+    private boolean notModified(HttpHeaders requestHeaders, String etag, long lastModified) {
+        List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+            for (String candidate : ifNoneMatch) {
+                candidate = candidate.trim();
+                if (candidate.equals("*") || (candidate.startsWith("W/") ? candidate.substring(2) : candidate).equals(opaque)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = requestHeaders.getIfModifiedSince();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range: o Range só vale se o validador enviado (ETag forte ou data) corresponder à versão atual
+    private boolean ifRangeMatches(HttpHeaders requestHeaders, String etag, long lastModified) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = parseDate(ifRange);
+        return date >= 0 && date / 1000 == lastModified / 1000;
+    }
+
+    // Interpreta uma data HTTP; retorna -1 se o formato for inválido
+    private long parseDate(String value) {
+        HttpHeaders holder = new HttpHeaders();
+        holder.set(HttpHeaders.IF_MODIFIED_SINCE, value);
+        return holder.getIfModifiedSince();
+    }
+
+    public MediaType contentTypeOf(Path filePath) {
+        try {
+            String probed = Files.probeContentType(filePath);
+            if (probed != null) {
+                return MediaType.parseMediaType(probed);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Segue para a detecção pela extensão
+        }
+        return MediaTypeFactory.getMediaType(filePath.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+}
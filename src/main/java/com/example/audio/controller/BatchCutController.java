@@ -0,0 +1,135 @@
+package com.example.audio.controller;
+
+import com.example.audio.service.BatchClip;
+import com.example.audio.service.BatchCutJob;
+import com.example.audio.service.BatchCutService;
+import com.example.audio.service.CutJob;
+import com.example.audio.service.RequestExecutor;
+import com.example.audio.service.StartBeyondEndException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/audio/cut/batch")
+public class BatchCutController {
+
+    @Autowired
+    private BatchCutService batchCutService;
+
+    @Autowired
+    private AudioResponseBuilder audioResponseBuilder;
+
+    // Lote de cortes: lista de {radioName, fileName, startSeconds, durationSeconds, label}, retornada como um
+    // ZIP enviado direto na resposta. O ZIP só começa a ser enviado depois que todos os cortes estiverem
+    // preparados: origem ausente (404) ou início além do fim do áudio (416) são respondidos antes, em vez de um
+    // 200 com o ZIP truncado. O corpo precisa do tipo StreamingResponseBody declarado para o Spring enviá-lo em
+    // streaming, por isso os erros também saem nesse formato.
+    @PostMapping
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> cutBatch(@RequestBody List<BatchClip> clips) {
+        List<BatchCutService.Group> groups;
+        try {
+            groups = batchCutService.plan(clips);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(text(400, e.getMessage()));
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(failure(e));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(text(503, "Fila de cortes cheia, tente novamente mais tarde."));
+        }
+        return batchCutService.ready(groups).handle((ready, error) -> {
+            if (error != null) {
+                batchCutService.release(groups);
+                return failure(error);
+            }
+            StreamingResponseBody body = outputStream -> batchCutService.writeZip(groups, outputStream, () -> { });
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cortes_lote.zip\"")
+                    .body(body);
+        });
+    }
+
+    // Com async=true: um job grava o ZIP em C:/cortes/<data>/ e a resposta traz o endereço para consulta
+    @PostMapping(params = "async=true")
+    public ResponseEntity<?> cutBatchAsync(@RequestBody List<BatchClip> clips) {
+        try {
+            BatchCutJob job = batchCutService.submit(clips);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/audio/cut/batch/" + job.getId()))
+                    .body(job.describe());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(404).body("Arquivo não encontrado: " + e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Erro ao processar o lote: " + e.getMessage());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body("Fila de cortes cheia, tente novamente mais tarde.");
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> failure(Throwable error) {
+        Throwable cause = RequestExecutor.causeOf(error);
+        if (cause instanceof UncheckedIOException) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof StartBeyondEndException) {
+            return text(416, cause.getMessage());
+        }
+        if (cause instanceof NoSuchFileException) {
+            return text(404, "Arquivo não encontrado: " + cause.getMessage());
+        }
+        return text(500, "Erro ao processar o lote: " + cause.getMessage());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> text(int status, String message) {
+        byte[] bytes = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(status)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(outputStream -> outputStream.write(bytes));
+    }
+
+    // Consulta o estado de um lote
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBatchJob(@PathVariable String jobId) {
+        return batchCutService.find(jobId)
+                .map(job -> ResponseEntity.ok(job.describe()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Retorna o ZIP gerado por um lote concluído
+    @GetMapping("/{jobId}/file")
+    public ResponseEntity<?> downloadBatchJobFile(@PathVariable String jobId, @RequestHeader HttpHeaders requestHeaders) {
+        Optional<BatchCutJob> found = batchCutService.find(jobId);
+        if (!found.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        BatchCutJob job = found.get();
+        if (job.getStatus() != CutJob.Status.COMPLETED) {
+            return ResponseEntity.status(409).body(job.describe());
+        }
+        try {
+            Path outputPath = Paths.get("C:/cortes/" + job.getOutputFileName());
+            return audioResponseBuilder.build(outputPath, MediaType.parseMediaType("application/zip"), "attachment", requestHeaders);
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Erro ao processar o lote: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.audio.controller;
+
+import com.example.audio.service.StoredZipWriter;
+import com.example.audio.service.ZipExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+@RestController
+@RequestMapping("/audio/export")
+public class ExportController {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+
+    @Autowired
+    private ZipExportService zipExportService;
+
+    // ZIP com todos os cortes de uma pasta de C:/cortes (ex.: /audio/export/cortes/2024-01-31.zip)
+    @GetMapping("/cortes/{subFolder}.zip")
+    public ResponseEntity<?> exportCortesFolder(@PathVariable String subFolder) {
+        try {
+            List<StoredZipWriter.Entry> entries = zipExportService.cortesFolder(subFolder);
+            if (entries == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return zip(entries, "cortes_" + subFolder + ".zip");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            log.error("Falha ao montar a exportação da pasta de cortes {}", subFolder, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    // ZIP com os segmentos gravados de uma rádio que cobrem [from, to) (horário local)
+    @GetMapping("/{radioName}.zip")
+    public ResponseEntity<?> exportSegments(
+            @PathVariable String radioName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        try {
+            List<StoredZipWriter.Entry> entries = zipExportService.stationSegments(radioName,
+                    from.atZone(zone).toInstant(), to.atZone(zone).toInstant());
+            if (entries.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String fileName = radioName + "_" + from.toString().replace(":", "") + "_" + to.toString().replace(":", "") + ".zip";
+            return zip(entries, fileName);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            log.error("Falha ao montar a exportação da rádio {} de {} a {}", radioName, from, to, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    // ZIP com uma lista de cortes, por caminho relativo a C:/cortes: ["2024-01-31/corte1.mp3", ...]
+    @PostMapping("/clips.zip")
+    public ResponseEntity<?> exportClips(@RequestBody List<String> paths) {
+        try {
+            return zip(zipExportService.clips(paths), "cortes.zip");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (NoSuchFileException e) {
+            return ResponseEntity.status(404).body("Corte não encontrado: " + e.getMessage());
+        } catch (IOException e) {
+            log.error("Falha ao montar a exportação de cortes", e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    // O tamanho do ZIP é conhecido antes da escrita, então o cliente recebe Content-Length e progresso real
+    private ResponseEntity<StreamingResponseBody> zip(List<StoredZipWriter.Entry> entries, String fileName) {
+        StreamingResponseBody body = outputStream -> zipExportService.write(entries, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .contentLength(StoredZipWriter.length(entries))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+}
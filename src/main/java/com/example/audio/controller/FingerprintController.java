@@ -0,0 +1,158 @@
+package com.example.audio.controller;
+
+import com.example.audio.model.ReferenceClip;
+import com.example.audio.repository.ReferenceClipRepository;
+import com.example.audio.service.FingerprintService;
+import com.example.audio.service.PcmPipeline;
+import com.example.audio.service.RequestExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+// Referências (vinhetas, anúncios) e busca das suas veiculações em todas as rádios:
+//   POST   /audio/fingerprint/references  (multipart "file", "name")  cadastra e calcula a impressão digital
+//   GET    /audio/fingerprint/references  lista as referências
+//   DELETE /audio/fingerprint/references/{id}
+//   GET    /audio/fingerprint/references/{id}/airings?date= | from=&to= | days=  [&radioName=&minMatches=]
+@RestController
+@RequestMapping("/audio/fingerprint/references")
+public class FingerprintController {
+
+    @Autowired
+    private FingerprintService fingerprintService;
+
+    @Autowired
+    private ReferenceClipRepository referenceClipRepository;
+
+    @Autowired
+    private PcmPipeline pcmPipeline;
+
+    @Autowired
+    private RequestExecutor requestExecutor;
+
+    // Tempo máximo de espera pela impressão digital de uma referência recém-cadastrada
+    @Value("${audio.fingerprint.wait-seconds:30}")
+    private long waitSeconds;
+
+    // Cadastra a referência e aguarda (sem prender a thread da requisição) o cálculo da impressão digital
+    @PostMapping
+    public CompletableFuture<ResponseEntity<?>> register(@RequestParam("file") MultipartFile file,
+                                                         @RequestParam(required = false) String name) {
+        if (file.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("O arquivo de áudio está vazio."));
+        }
+        try {
+            return requestExecutor.supply(() -> fingerprintService.register(name, file))
+                    .thenCompose(this::awaitFingerprint)
+                    .exceptionally(error -> ResponseEntity.status(500)
+                            .body("Erro ao gravar a referência: " + RequestExecutor.causeOf(error).getMessage()));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(503).build());
+        }
+    }
+
+    private CompletableFuture<ResponseEntity<?>> awaitFingerprint(ReferenceClip clip) {
+        URI location = URI.create("/audio/fingerprint/references/" + clip.getId());
+        CompletableFuture<Void> computing;
+        try {
+            computing = pcmPipeline.submit(fingerprintService.referencePath(clip), PcmPipeline.Priority.REQUEST);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.created(location).body(clip));
+        }
+        return requestExecutor.<ResponseEntity<?>>afterCompletion(computing, waitSeconds,
+                () -> ResponseEntity.created(location).body(referenceClipRepository.findById(clip.getId()).orElse(clip)))
+                .exceptionally(error -> {
+                    Throwable cause = RequestExecutor.causeOf(error);
+                    if (cause instanceof TimeoutException || cause instanceof RejectedExecutionException) {
+                        // Cálculo ainda pendente: hashCount fica vazio até terminar
+                        return ResponseEntity.created(location).body(clip);
+                    }
+                    return ResponseEntity.status(422).body("Não foi possível decodificar o arquivo de referência.");
+                });
+    }
+
+    @GetMapping
+    public List<ReferenceClip> list() {
+        return referenceClipRepository.findAll();
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReferenceClip> get(@PathVariable Long id) {
+        return referenceClipRepository.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(@PathVariable Long id) {
+        Optional<ReferenceClip> clip = referenceClipRepository.findById(id);
+        if (!clip.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            fingerprintService.delete(clip.get());
+            return ResponseEntity.noContent().build();
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Erro ao remover a referência: " + e.getMessage());
+        }
+    }
+
+    // Veiculações que começam em um dia, no intervalo [from, to) em horário local, ou nos últimos "days" dias
+    // (padrão); em todas as rádios ou só em radioName
+    @GetMapping("/{id}/airings")
+    public CompletableFuture<ResponseEntity<?>> findAirings(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(required = false) String radioName,
+            @RequestParam(required = false) Integer minMatches) {
+        Optional<ReferenceClip> clip = referenceClipRepository.findById(id);
+        if (!clip.isPresent()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        if (date != null) {
+            from = date.atStartOfDay();
+            to = date.plusDays(1).atStartOfDay();
+        } else if (from == null || to == null) {
+            to = LocalDateTime.now();
+            from = to.minusDays(days);
+        }
+        if (!from.isBefore(to) || (minMatches != null && minMatches < 1)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        Instant start = from.atZone(zone).toInstant();
+        Instant end = to.atZone(zone).toInstant();
+        // A busca lê impressões digitais de dias inteiros em disco: roda no executor das requisições
+        try {
+            return requestExecutor.supply(() -> fingerprintService.findAirings(clip.get(), radioName, start, end, minMatches))
+                    .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                    .exceptionally(error -> {
+                        Throwable cause = RequestExecutor.causeOf(error);
+                        if (cause instanceof IllegalStateException) {
+                            return ResponseEntity.status(409).body(cause.getMessage());
+                        }
+                        return ResponseEntity.status(500).body("Erro ao consultar as impressões digitais: " + cause.getMessage());
+                    });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(503).build());
+        }
+    }
+}
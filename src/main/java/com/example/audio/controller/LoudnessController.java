@@ -0,0 +1,93 @@
+package com.example.audio.controller;
+
+import com.example.audio.service.LoudnessService;
+import com.example.audio.service.PcmPipeline;
+import com.example.audio.service.RequestExecutor;
+import com.example.audio.service.RetentionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/audio/loudness")
+public class LoudnessController {
+
+    @Autowired
+    private LoudnessService loudnessService;
+
+    @Autowired
+    private PcmPipeline pcmPipeline;
+
+    @Autowired
+    private RequestExecutor requestExecutor;
+
+    // Tempo máximo de espera quando o índice ainda precisa ser calculado
+    @Value("${audio.loudness.wait-seconds:30}")
+    private long waitSeconds;
+
+    // Silêncios de uma rádio com pelo menos minSeconds, em um dia (padrão: hoje) ou no intervalo [from, to)
+    // em horário local. Consulta só a tabela de silêncios, sem ler áudio.
+    @GetMapping("/{radioName}/silences")
+    public ResponseEntity<List<Map<String, Object>>> getSilences(
+            @PathVariable String radioName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "5") double minSeconds) {
+        if (from == null || to == null) {
+            LocalDate day = date != null ? date : LocalDate.now();
+            from = day.atStartOfDay();
+            to = day.plusDays(1).atStartOfDay();
+        }
+        if (!from.isBefore(to) || minSeconds < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        return ResponseEntity.ok(loudnessService.findSilences(radioName, from.atZone(zone).toInstant(),
+                to.atZone(zone).toInstant(), Duration.ofMillis((long) (minSeconds * 1000))));
+    }
+
+    // Índice de um arquivo: sonoridade integrada, silêncios, eventos de clipping e séries por segundo
+    // (RMS em dBFS, LUFS e clipping). Calcula o índice se ainda não existir (202 se não terminar a tempo),
+    // sem prender a thread da requisição durante o cálculo.
+    @GetMapping("/{radioName}/{fileName}")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getIndex(@PathVariable String radioName,
+                                                                           @PathVariable String fileName) {
+        Path file = RetentionService.resolve(Paths.get("C:/pastaudios", radioName, fileName));
+        if (!Files.isRegularFile(file)) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        try {
+            LoudnessService.Index index = loudnessService.read(file);
+            if (index != null) {
+                return CompletableFuture.completedFuture(ResponseEntity.ok(loudnessService.describe(index)));
+            }
+            CompletableFuture<Void> analysis = pcmPipeline.submit(file, PcmPipeline.Priority.REQUEST);
+            return requestExecutor.afterCompletion(analysis, waitSeconds, () -> {
+                LoudnessService.Index computed = loudnessService.read(file);
+                return computed != null
+                        ? ResponseEntity.ok(loudnessService.describe(computed))
+                        : ResponseEntity.status(500).<Map<String, Object>>build();
+            }).exceptionally(AsyncResponses::pendingOrError);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.accepted().header("Retry-After", "5").build());
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(500).build());
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.audio.controller;
+
+import com.example.audio.service.LiveListenService;
+import com.example.audio.service.LiveRecorderService;
+import com.example.audio.service.StationRecorder;
+import com.example.audio.service.TimeShiftBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/audio/recorders")
+public class RecorderController {
+
+    @Autowired
+    private LiveRecorderService liveRecorderService;
+
+    @Autowired
+    private LiveListenService liveListenService;
+
+    // Lista as gravações ao vivo com estado e saúde de cada rádio
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> listRecorders() {
+        return ResponseEntity.ok(liveRecorderService.list());
+    }
+
+    // Estado da gravação de uma rádio
+    @GetMapping("/{radioName}")
+    public ResponseEntity<Map<String, Object>> getRecorder(@PathVariable String radioName) {
+        return liveRecorderService.find(radioName)
+                .map(recorder -> ResponseEntity.ok(recorder.describe()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Inicia a gravação supervisionada de uma rádio em segundo plano
+    @PostMapping("/{radioName}/start")
+    public ResponseEntity<?> startRecorder(@PathVariable String radioName, @RequestParam String streamUrl) {
+        try {
+            StationRecorder recorder = liveRecorderService.start(radioName, streamUrl);
+            return ResponseEntity.accepted().body(recorder.describe());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+
+    // Interrompe a gravação de uma rádio
+    @PostMapping("/{radioName}/stop")
+    public ResponseEntity<Map<String, Object>> stopRecorder(@PathVariable String radioName) {
+        return liveRecorderService.stop(radioName)
+                .map(recorder -> ResponseEntity.ok(recorder.describe()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Intervalo disponível no buffer de time-shift da rádio
+    @GetMapping("/{radioName}/timeshift")
+    public ResponseEntity<Map<String, Object>> getTimeShift(@PathVariable String radioName) {
+        TimeShiftBuffer buffer = liveRecorderService.find(radioName).map(StationRecorder::getTimeShift).orElse(null);
+        if (buffer == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(buffer.describe());
+    }
+
+    // Reproduz uma janela do buffer de time-shift: [from, to) em horário local, ou os últimos "seconds" segundos
+    @GetMapping("/{radioName}/timeshift/play")
+    public ResponseEntity<?> playTimeShift(@PathVariable String radioName,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                           @RequestParam(defaultValue = "60") long seconds) {
+        return timeShiftResponse(radioName, from, to, seconds, "inline");
+    }
+
+    // Baixa uma janela do buffer de time-shift como MP3 (mesmos parâmetros da reprodução)
+    @GetMapping("/{radioName}/timeshift/clip")
+    public ResponseEntity<?> clipTimeShift(@PathVariable String radioName,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                           @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                           @RequestParam(defaultValue = "60") long seconds) {
+        return timeShiftResponse(radioName, from, to, seconds, "attachment");
+    }
+
+    // Escuta ao vivo: MP3 contínuo lido do segmento em gravação, começando "behindSeconds" antes do fim dele
+    // e seguindo para os próximos segmentos até a gravação parar ou o cliente desconectar
+    @GetMapping("/{radioName}/live")
+    public ResponseEntity<?> listenLive(@PathVariable String radioName,
+                                        @RequestParam(defaultValue = "5") int behindSeconds) {
+        StationRecorder recorder = liveRecorderService.find(radioName).orElse(null);
+        if (recorder == null || recorder.isStopped()) {
+            return ResponseEntity.notFound().build();
+        }
+        ResponseBodyEmitter emitter;
+        try {
+            emitter = liveListenService.follow(recorder, behindSeconds);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(503).body(e.getMessage());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("audio/mpeg"))
+                .cacheControl(CacheControl.noStore())
+                .body(emitter);
+    }
+
+    // Playlist HLS ao vivo da rádio, com os trechos mais recentes dos segmentos gravados
+    @GetMapping("/{radioName}/live.m3u8")
+    public ResponseEntity<String> getLivePlaylist(@PathVariable String radioName) {
+        StationRecorder recorder = liveRecorderService.find(radioName).orElse(null);
+        if (recorder == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/vnd.apple.mpegurl"))
+                    .cacheControl(CacheControl.noCache())
+                    .body(liveListenService.playlist(recorder));
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // Trecho HLS listado na playlist; 404 quando ele já saiu da janela mantida em memória
+    @GetMapping("/{radioName}/live/{sequence}.mp3")
+    public ResponseEntity<?> getLiveChunk(@PathVariable String radioName, @PathVariable long sequence) {
+        StationRecorder recorder = liveRecorderService.find(radioName).orElse(null);
+        if (recorder == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            byte[] chunk = liveListenService.chunk(recorder, sequence);
+            if (chunk == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("audio/mpeg"))
+                    .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)))
+                    .body(new ByteArrayResource(chunk));
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body(null);
+        }
+    }
+
+    // A janela é resolvida para frames inteiros; com from e to fixos o conteúdo é estável enquanto estiver no
+    // buffer, então o Range (busca no player) é atendido pelo Spring sobre o recurso em memória
+    private ResponseEntity<?> timeShiftResponse(String radioName, LocalDateTime from, LocalDateTime to,
+                                                long seconds, String disposition) {
+        TimeShiftBuffer buffer = liveRecorderService.find(radioName).map(StationRecorder::getTimeShift).orElse(null);
+        if (buffer == null) {
+            return ResponseEntity.notFound().build();
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        Instant end = to != null ? to.atZone(zone).toInstant() : Instant.now().plusSeconds(1);
+        Instant start = from != null ? from.atZone(zone).toInstant() : end.minusSeconds(seconds);
+        if (!start.isBefore(end) || seconds <= 0) {
+            return ResponseEntity.badRequest().body("Intervalo inválido.");
+        }
+        TimeShiftBuffer.Window window = buffer.find(start, end);
+        if (window == null) {
+            return ResponseEntity.status(416).body("Intervalo fora do buffer da rádio " + radioName);
+        }
+        byte[] bytes;
+        try {
+            bytes = buffer.read(window);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(416).body(e.getMessage());
+        }
+        String fileName = radioName + "_" + DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")
+                .format(LocalDateTime.ofInstant(window.getFrom(), zone)) + ".mp3";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("audio/mpeg"))
+                .cacheControl(CacheControl.noStore())
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition + "; filename=\"" + fileName + "\"")
+                .header("X-Clip-Start", window.getFrom().toString())
+                .header("X-Clip-End", window.getTo().toString())
+                .body(new ByteArrayResource(bytes));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.audio.controller;
+
+import com.example.audio.model.AudioFile;
+import com.example.audio.service.SegmentCatalogService;
+import com.example.audio.service.SegmentClipService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/audio/segments")
+public class SegmentController {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentController.class);
+
+    @Autowired
+    private SegmentCatalogService segmentCatalogService;
+
+    @Autowired
+    private SegmentClipService segmentClipService;
+
+    // Maior intervalo aceito num corte por horário
+    @Value("${audio.clip.max-length-hours:24}")
+    private long maxClipHours;
+
+    // Segmentos gravados de uma rádio que cobrem o intervalo [from, to) (horário local), em ordem cronológica.
+    // Para a próxima página, repetir a consulta com after = nextCursor.
+    @GetMapping("/{radioName}")
+    public ResponseEntity<Map<String, Object>> listSegments(
+            @PathVariable String radioName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0 || limit > 1000 || !from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        Instant afterInstant = after != null ? after.atZone(zone).toInstant() : null;
+        List<AudioFile> segments = segmentCatalogService.findSegments(radioName,
+                from.atZone(zone).toInstant(), to.atZone(zone).toInstant(), afterInstant, limit);
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", segments);
+        page.put("nextCursor", segments.size() == limit
+                ? LocalDateTime.ofInstant(segments.get(segments.size() - 1).getStartTime(), zone).toString()
+                : null);
+        return ResponseEntity.ok(page);
+    }
+
+    // Corte por horário real (local) de uma rádio: junta os segmentos que cobrem [from, to) e envia o
+    // resultado direto na resposta, sem arquivos temporários
+    @GetMapping("/{radioName}/clip")
+    public ResponseEntity<StreamingResponseBody> clip(
+            @PathVariable String radioName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ZoneId zone = ZoneId.systemDefault();
+        Instant fromInstant = from.atZone(zone).toInstant();
+        Instant toInstant = to.atZone(zone).toInstant();
+        if (!fromInstant.isBefore(toInstant)
+                || Duration.between(fromInstant, toInstant).compareTo(Duration.ofHours(maxClipHours)) > 0) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<SegmentClipService.ClipPart> parts;
+        try {
+            parts = segmentClipService.plan(radioName, fromInstant, toInstant);
+        } catch (IOException e) {
+            log.error("Falha ao montar o trecho da rádio {} de {} a {}", radioName, from, to, e);
+            return ResponseEntity.status(500).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).build();
+        }
+        if (parts.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String fileName = radioName + "_" + from.toString().replace(":", "") + "_" + to.toString().replace(":", "") + ".mp3";
+        StreamingResponseBody body = outputStream ->
+                SegmentClipService.write(parts, Channels.newChannel(outputStream));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("audio/mpeg"))
+                .contentLength(SegmentClipService.totalLength(parts))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+}
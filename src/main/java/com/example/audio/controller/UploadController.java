@@ -0,0 +1,135 @@
+package com.example.audio.controller;
+
+import com.example.audio.model.UploadSession;
+import com.example.audio.service.RequestExecutor;
+import com.example.audio.service.UploadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+// Upload retomável em partes:
+//   POST   /audio/uploads?fileName=&radioName=&size=  cria a sessão (Location com o ID)
+//   PATCH  /audio/uploads/{id}  com Upload-Offset e o corpo bruto da parte (Upload-Complete: 1 na última,
+//          quando o tamanho total não foi informado)
+//   HEAD   /audio/uploads/{id}  retorna Upload-Offset para retomar após uma falha
+@RestController
+@RequestMapping("/audio/uploads")
+public class UploadController {
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String UPLOAD_COMPLETE = "Upload-Complete";
+
+    @Autowired
+    private UploadService uploadService;
+
+    @Autowired
+    private RequestExecutor requestExecutor;
+
+    @PostMapping
+    public ResponseEntity<?> createUpload(@RequestParam String fileName,
+                                          @RequestParam(required = false) String radioName,
+                                          @RequestParam(required = false) Long size) {
+        try {
+            UploadSession session = uploadService.create(fileName, radioName, size);
+            return ResponseEntity.created(URI.create("/audio/uploads/" + session.getId()))
+                    .header(UPLOAD_OFFSET, "0")
+                    .body(uploadService.describe(session));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (FileAlreadyExistsException e) {
+            return ResponseEntity.status(409).body("Arquivo já existe: " + fileName);
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Erro ao criar o upload: " + e.getMessage());
+        }
+    }
+
+    // A parte é lida do corpo e gravada no executor das requisições: uma conexão lenta não prende a thread do
+    // servlet durante o envio
+    @PatchMapping("/{uploadId}")
+    public CompletableFuture<ResponseEntity<?>> uploadChunk(@PathVariable String uploadId,
+                                                            @RequestHeader(UPLOAD_OFFSET) long offset,
+                                                            @RequestHeader(value = UPLOAD_COMPLETE, required = false) String complete,
+                                                            HttpServletRequest request) {
+        Optional<UploadSession> found = uploadService.find(uploadId);
+        if (!found.isPresent()) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        UploadSession session = found.get();
+        boolean last = "1".equals(complete) || "?1".equals(complete) || "true".equalsIgnoreCase(complete);
+        try {
+            return requestExecutor.supply(() -> uploadService.append(session, offset, request.getInputStream(), last))
+                    .<ResponseEntity<?>>thenApply(updated -> ResponseEntity.ok()
+                            .headers(offsetHeaders(updated))
+                            .body(uploadService.describe(updated)))
+                    .exceptionally(error -> {
+                        Throwable cause = RequestExecutor.causeOf(error);
+                        if (cause instanceof IllegalStateException) {
+                            return ResponseEntity.status(409).headers(offsetHeaders(session)).body(cause.getMessage());
+                        }
+                        if (cause instanceof FileAlreadyExistsException) {
+                            return ResponseEntity.status(409).headers(offsetHeaders(session))
+                                    .body("Arquivo já existe: " + session.getFileName());
+                        }
+                        if (cause instanceof IllegalArgumentException) {
+                            return ResponseEntity.status(413).headers(offsetHeaders(session)).body(cause.getMessage());
+                        }
+                        // Conexão interrompida: o cliente consulta o offset (HEAD) e retoma
+                        return ResponseEntity.status(500).headers(offsetHeaders(session))
+                                .body("Erro ao gravar a parte: " + cause.getMessage());
+                    });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(503).headers(offsetHeaders(session))
+                    .body("Servidor ocupado, tente novamente mais tarde."));
+        }
+    }
+
+    @RequestMapping(value = "/{uploadId}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> uploadOffset(@PathVariable String uploadId) {
+        return uploadService.find(uploadId)
+                .map(session -> ResponseEntity.ok().headers(offsetHeaders(session)).<Void>build())
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> getUpload(@PathVariable String uploadId) {
+        return uploadService.find(uploadId)
+                .map(session -> ResponseEntity.ok(uploadService.describe(session)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Cancela o upload e descarta os bytes recebidos
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> abortUpload(@PathVariable String uploadId) {
+        Optional<UploadSession> found = uploadService.find(uploadId);
+        if (!found.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            uploadService.abort(found.get());
+            return ResponseEntity.noContent().build();
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Erro ao cancelar o upload: " + e.getMessage());
+        }
+    }
+
+    private static HttpHeaders offsetHeaders(UploadSession session) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(UPLOAD_OFFSET, String.valueOf(session.getReceived()));
+        if (session.getTotalSize() != null) {
+            headers.set(UPLOAD_LENGTH, String.valueOf(session.getTotalSize()));
+        }
+        headers.setCacheControl("no-store");
+        return headers;
+    }
+}
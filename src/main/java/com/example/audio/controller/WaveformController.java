@@ -0,0 +1,104 @@
+package com.example.audio.controller;
+
+import com.example.audio.service.PcmPipeline;
+import com.example.audio.service.RequestExecutor;
+import com.example.audio.service.RetentionService;
+import com.example.audio.service.WaveformService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/audio/waveform")
+public class WaveformController {
+
+    @Autowired
+    private WaveformService waveformService;
+
+    @Autowired
+    private PcmPipeline pcmPipeline;
+
+    @Autowired
+    private RequestExecutor requestExecutor;
+
+    // Tempo máximo de espera quando os picos ainda precisam ser gerados
+    @Value("${audio.waveform.wait-seconds:30}")
+    private long waitSeconds;
+
+    // Níveis de zoom disponíveis para um arquivo de uma rádio; gera os picos se ainda não existirem
+    // (202 se a geração não terminar a tempo: o cliente tenta de novo). Enquanto os picos são gerados nenhuma
+    // thread fica esperando: a resposta é montada quando o PcmPipeline conclui o arquivo.
+    @GetMapping("/{radioName}/{fileName}")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getWaveformInfo(@PathVariable String radioName,
+                                                                                  @PathVariable String fileName) {
+        Path file = RetentionService.resolve(Paths.get("C:/pastaudios", radioName, fileName));
+        if (!Files.isRegularFile(file)) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        try {
+            WaveformService.Header header = waveformService.readHeader(file);
+            if (header != null) {
+                return CompletableFuture.completedFuture(ResponseEntity.ok(waveformService.describe(header)));
+            }
+            CompletableFuture<Void> analysis = pcmPipeline.submit(file, PcmPipeline.Priority.REQUEST);
+            return requestExecutor.afterCompletion(analysis, waitSeconds, () -> {
+                WaveformService.Header generated = waveformService.readHeader(file);
+                return generated != null
+                        ? ResponseEntity.ok(waveformService.describe(generated))
+                        : ResponseEntity.status(500).<Map<String, Object>>build();
+            }).exceptionally(AsyncResponses::pendingOrError);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.accepted().header("Retry-After", "5").build());
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(500).build());
+        }
+    }
+
+    // Janela de picos de um nível: pares (mínimo, máximo) com sinal, em 8 bits ou 16 bits little-endian
+    // conforme o campo "bits" da descrição
+    @GetMapping("/{radioName}/{fileName}/peaks")
+    public ResponseEntity<byte[]> getPeaks(@PathVariable String radioName,
+                                           @PathVariable String fileName,
+                                           @RequestParam(defaultValue = "0") int level,
+                                           @RequestParam(defaultValue = "0") long start,
+                                           @RequestParam(defaultValue = "4096") int count) {
+        if (start < 0 || count <= 0 || count > 65536) {
+            return ResponseEntity.badRequest().build();
+        }
+        Path file = RetentionService.resolve(Paths.get("C:/pastaudios", radioName, fileName));
+        try {
+            WaveformService.Header header = waveformService.readHeader(file);
+            if (header == null) {
+                return ResponseEntity.notFound().build();
+            }
+            ByteBuffer peaks = waveformService.readPeaks(file, level, start, count);
+            if (peaks == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            byte[] body = new byte[peaks.remaining()];
+            peaks.get(body);
+            String etag = "\"peaks-" + Long.toHexString(Files.getLastModifiedTime(file).toMillis())
+                    + "-" + level + "-" + start + "-" + count + "\"";
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .header("X-Waveform-Bits", String.valueOf(header.getBits()))
+                    .body(body);
+        } catch (IOException e) {
+            return ResponseEntity.status(500).build();
+        }
+    }
+}
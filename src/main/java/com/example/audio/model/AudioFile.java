@@ -1,9 +1,13 @@
 package com.example.audio.model;
 
 import javax.persistence.*;
+import java.time.Instant;
 
 @Entity
-@Table(name = "audio_file")
+@Table(name = "audio_file", indexes = {
+        @Index(name = "idx_audio_file_path", columnList = "file_path"),
+        @Index(name = "idx_audio_file_radio_start", columnList = "radio_name, start_time")
+})
 public class AudioFile {
 
     @Id
@@ -22,6 +26,49 @@ public class AudioFile {
     @Column(name = "duration")
     private long duration;
 
+    // Metadados técnicos, válidos enquanto o arquivo mantiver o mesmo tamanho e data de modificação
+    @Column(name = "last_modified")
+    private Long lastModified;
+
+    @Column(name = "duration_micros")
+    private Long durationMicros;
+
+    @Column(name = "bitrate")
+    private Integer bitrate;
+
+    @Column(name = "sample_rate")
+    private Integer sampleRate;
+
+    @Column(name = "channels")
+    private Integer channels;
+
+    // Segmentos gravados: rádio e intervalo de tempo real coberto pelo arquivo
+    @Column(name = "radio_name")
+    private String radioName;
+
+    @Column(name = "start_time")
+    private Instant startTime;
+
+    @Column(name = "end_time")
+    private Instant endTime;
+
+    // SHA-256 do conteúdo (hexadecimal), calculado durante o upload
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // CRC-32 do conteúdo, usado nas entradas STORED das exportações em ZIP
+    @Column(name = "content_crc32")
+    private Long contentCrc32;
+
+    // Camada de armazenamento atual (null nos registros anteriores à retenção: original)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "storage_tier", length = 16)
+    private StorageTier storageTier;
+
+    // Original já substituído pela versão compactada, mas ainda não removido do disco (estava em uso)
+    @Column(name = "original_path")
+    private String originalPath;
+
     // Getters e Setters
 
     public Long getId() {
@@ -63,4 +110,100 @@ public class AudioFile {
     public void setDuration(long duration) {
         this.duration = duration;
     }
-}
\ No newline at end of file
+
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public Long getDurationMicros() {
+        return durationMicros;
+    }
+
+    public void setDurationMicros(Long durationMicros) {
+        this.durationMicros = durationMicros;
+    }
+
+    public Integer getBitrate() {
+        return bitrate;
+    }
+
+    public void setBitrate(Integer bitrate) {
+        this.bitrate = bitrate;
+    }
+
+    public Integer getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(Integer sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public Integer getChannels() {
+        return channels;
+    }
+
+    public void setChannels(Integer channels) {
+        this.channels = channels;
+    }
+
+    public String getRadioName() {
+        return radioName;
+    }
+
+    public void setRadioName(String radioName) {
+        this.radioName = radioName;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Instant endTime) {
+        this.endTime = endTime;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Long getContentCrc32() {
+        return contentCrc32;
+    }
+
+    public void setContentCrc32(Long contentCrc32) {
+        this.contentCrc32 = contentCrc32;
+    }
+
+    public StorageTier getStorageTier() {
+        return storageTier;
+    }
+
+    public void setStorageTier(StorageTier storageTier) {
+        this.storageTier = storageTier;
+    }
+
+    public String getOriginalPath() {
+        return originalPath;
+    }
+
+    public void setOriginalPath(String originalPath) {
+        this.originalPath = originalPath;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.audio.model;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+// Trecho de referência (vinheta, anúncio) cujas veiculações são procuradas pelo índice de impressões digitais
+@Entity
+@Table(name = "reference_clip")
+public class ReferenceClip {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "name", nullable = false)
+    private String name;
+
+    // Nome do arquivo enviado
+    @Column(name = "original_file_name")
+    private String originalFileName;
+
+    // Nome do arquivo guardado em C:/audioreferences
+    @Column(name = "file_name")
+    private String fileName;
+
+    // Preenchidos quando a impressão digital é calculada
+    @Column(name = "duration_seconds")
+    private Double durationSeconds;
+
+    @Column(name = "hash_count")
+    private Integer hashCount;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Getters e Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getOriginalFileName() {
+        return originalFileName;
+    }
+
+    public void setOriginalFileName(String originalFileName) {
+        this.originalFileName = originalFileName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(Double durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public Integer getHashCount() {
+        return hashCount;
+    }
+
+    public void setHashCount(Integer hashCount) {
+        this.hashCount = hashCount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
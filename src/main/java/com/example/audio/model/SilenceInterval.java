@@ -0,0 +1,72 @@
+package com.example.audio.model;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+// Intervalo de silêncio detectado em um segmento gravado, em horário real, para consultas sem reler o áudio
+@Entity
+@Table(name = "silence_interval", indexes = {
+        @Index(name = "idx_silence_radio_start", columnList = "radio_name, start_time"),
+        @Index(name = "idx_silence_segment", columnList = "radio_name, segment_start")
+})
+public class SilenceInterval {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "radio_name", nullable = false)
+    private String radioName;
+
+    // Início do segmento em que o silêncio foi detectado (chave para substituir ou remover os intervalos dele)
+    @Column(name = "segment_start", nullable = false)
+    private Instant segmentStart;
+
+    @Column(name = "start_time", nullable = false)
+    private Instant startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private Instant endTime;
+
+    // Getters e Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getRadioName() {
+        return radioName;
+    }
+
+    public void setRadioName(String radioName) {
+        this.radioName = radioName;
+    }
+
+    public Instant getSegmentStart() {
+        return segmentStart;
+    }
+
+    public void setSegmentStart(Instant segmentStart) {
+        this.segmentStart = segmentStart;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(Instant endTime) {
+        this.endTime = endTime;
+    }
+}
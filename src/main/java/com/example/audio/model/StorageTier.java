@@ -0,0 +1,11 @@
+package com.example.audio.model;
+
+// Camada de armazenamento em que o áudio de um AudioFile está no momento
+public enum StorageTier {
+
+    // Arquivo como foi gravado ou enviado
+    ORIGINAL,
+
+    // Recodificado pela retenção em Opus mono de baixa taxa de bits
+    COMPACT
+}
@@ -0,0 +1,114 @@
+package com.example.audio.model;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+// Upload em partes: guarda o destino e quantos bytes já foram recebidos, para retomar após uma falha
+@Entity
+@Table(name = "upload_session")
+public class UploadSession {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    // Subpasta (rádio) de destino dentro de C:/pastaudios; null para a raiz
+    @Column(name = "radio_name")
+    private String radioName;
+
+    // Tamanho total declarado na criação; null quando desconhecido (o cliente encerra com Upload-Complete)
+    @Column(name = "total_size")
+    private Long totalSize;
+
+    @Column(name = "received", nullable = false)
+    private long received;
+
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // Getters e Setters
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getRadioName() {
+        return radioName;
+    }
+
+    public void setRadioName(String radioName) {
+        this.radioName = radioName;
+    }
+
+    public Long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(Long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public void setReceived(long received) {
+        this.received = received;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,7 +1,44 @@
 package com.example.audio.repository;
 
 import com.example.audio.model.AudioFile;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 public interface AudioFileRepository extends JpaRepository<AudioFile, Long> {
-}
\ No newline at end of file
+
+    Optional<AudioFile> findFirstByFilePath(String filePath);
+
+    // Segmentos de uma rádio que se sobrepõem a [from, to), em ordem de início, a partir do cursor "after"
+    // (paginação por chave sobre o índice radio_name, start_time). earliestStart limita a busca no índice:
+    // nenhum segmento começa antes dele e ainda alcança "from".
+    @Query("select a from AudioFile a where a.radioName = :radioName"
+            + " and a.startTime > :after and a.startTime >= :earliestStart and a.startTime < :to"
+            + " and a.endTime > :from order by a.startTime asc")
+    List<AudioFile> findSegments(@Param("radioName") String radioName,
+                                 @Param("from") Instant from,
+                                 @Param("to") Instant to,
+                                 @Param("earliestStart") Instant earliestStart,
+                                 @Param("after") Instant after,
+                                 Pageable pageable);
+
+    // Segmentos ainda na camada original que começaram antes de "before", do mais antigo ao mais recente
+    @Query("select a from AudioFile a where a.radioName = :radioName and a.startTime < :before"
+            + " and (a.storageTier is null or a.storageTier = com.example.audio.model.StorageTier.ORIGINAL)"
+            + " order by a.startTime asc")
+    List<AudioFile> findCompactionCandidates(@Param("radioName") String radioName,
+                                             @Param("before") Instant before,
+                                             Pageable pageable);
+
+    // Segmentos compactados cujo original ainda não pôde ser removido
+    List<AudioFile> findByRadioNameAndOriginalPathIsNotNull(String radioName, Pageable pageable);
+
+    // Segmentos (em qualquer camada) que começaram antes de "before", do mais antigo ao mais recente
+    List<AudioFile> findByRadioNameAndStartTimeBeforeOrderByStartTimeAsc(String radioName, Instant before,
+                                                                         Pageable pageable);
+}
@@ -0,0 +1,11 @@
+package com.example.audio.repository;
+
+import com.example.audio.model.ReferenceClip;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ReferenceClipRepository extends JpaRepository<ReferenceClip, Long> {
+
+    Optional<ReferenceClip> findByFileName(String fileName);
+}
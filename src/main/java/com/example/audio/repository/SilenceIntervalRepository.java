@@ -0,0 +1,26 @@
+package com.example.audio.repository;
+
+import com.example.audio.model.SilenceInterval;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SilenceIntervalRepository extends JpaRepository<SilenceInterval, Long> {
+
+    // Silêncios de uma rádio que se sobrepõem a [from, to), em ordem de início
+    @Query("select s from SilenceInterval s where s.radioName = :radioName"
+            + " and s.startTime < :to and s.endTime > :from order by s.startTime asc")
+    List<SilenceInterval> findOverlapping(@Param("radioName") String radioName,
+                                          @Param("from") Instant from,
+                                          @Param("to") Instant to);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SilenceInterval s where s.radioName = :radioName and s.segmentStart = :segmentStart")
+    int deleteBySegment(@Param("radioName") String radioName, @Param("segmentStart") Instant segmentStart);
+}
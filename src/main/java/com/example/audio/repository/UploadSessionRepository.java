@@ -0,0 +1,12 @@
+package com.example.audio.repository;
+
+import com.example.audio.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    List<UploadSession> findByCompletedFalseAndUpdatedAtBefore(Instant updatedAt);
+}
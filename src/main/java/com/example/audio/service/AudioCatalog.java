@@ -0,0 +1,442 @@
+package com.example.audio.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// Catálogo em memória das pastas de áudio (rádios e cortes), montado uma vez na inicialização e mantido
+// atualizado pelos eventos do WatchService. As listagens saem da memória, já ordenadas por nome.
+@Service
+public class AudioCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(AudioCatalog.class);
+
+    private final String UPLOAD_DIR = "C:/pastaudios";
+    private final String OUTPUT_DIR = "C:/cortes";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Data contida no nome dos segmentos gravados: Segment_20240131_235500.mp3
+    private static final Pattern NAME_DATE = Pattern.compile("(\\d{8})_\\d{6}");
+    private static final DateTimeFormatter NAME_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    // Segmentos gravados começam com "Segment_" e a data; a faixa dos que começam com dígito é pulada no filtro
+    // por data, exceto a do dia pedido
+    private static final String SEGMENT_PREFIX = "Segment_";
+    private static final String SEGMENT_DIGITS_FROM = SEGMENT_PREFIX + '0';
+    private static final String SEGMENT_DIGITS_TO = SEGMENT_PREFIX + (char) ('9' + 1);
+
+    // Conteúdo de um diretório: arquivos e subpastas ordenados por nome
+    static final class Directory {
+        final NavigableMap<String, CatalogEntry> files = new ConcurrentSkipListMap<>();
+        final Set<String> subdirectories = new ConcurrentSkipListSet<>();
+        // Muda quando arquivos ou subpastas são criados/removidos
+        final AtomicLong namesVersion = new AtomicLong();
+        // Muda em qualquer alteração, inclusive de tamanho e data
+        final AtomicLong version = new AtomicLong();
+    }
+
+    private final Map<Path, Directory> directories = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
+    private final Map<Path, AtomicLong> rootVersions = new ConcurrentHashMap<>();
+    // Identifica esta execução: as versões recomeçam do zero a cada início, então ETags montadas só com elas
+    // coincidiriam com as de antes do reinício, com outro conteúdo
+    private final String epoch = Long.toHexString(System.currentTimeMillis())
+            + Integer.toHexString(ThreadLocalRandom.current().nextInt());
+    private final List<Path> roots = new ArrayList<>();
+    private WatchService watchService;
+    private Thread watchThread;
+
+    @PostConstruct
+    public void init() throws IOException {
+        start(Arrays.asList(Paths.get(UPLOAD_DIR), Paths.get(OUTPUT_DIR)));
+    }
+
+    // Monta o catálogo das raízes indicadas e inicia a observação (também usado pelos benchmarks)
+    void start(List<Path> rootDirectories) throws IOException {
+        rootDirectories.forEach(root -> roots.add(normalize(root)));
+        roots.forEach(root -> rootVersions.put(root, new AtomicLong()));
+
+        watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                registerTree(root);
+            }
+        }
+
+        watchThread = new Thread(this::processEvents, "audio-catalog-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        watchService.close();
+    }
+
+    // Lista as subpastas de um diretório (ex.: rádios em C:/pastaudios)
+    public List<String> listSubdirectories(Path directory) {
+        Directory listing = directories.get(normalize(directory));
+        return listing == null ? null : new ArrayList<>(listing.subdirectories);
+    }
+
+    // Lista os nomes dos arquivos de um diretório; null se o diretório não existir
+    public List<String> listFileNames(Path directory) {
+        Directory listing = directories.get(normalize(directory));
+        return listing == null ? null : new ArrayList<>(listing.files.keySet());
+    }
+
+    // Lista os nomes de todos os arquivos abaixo de um diretório, recursivamente; null se não existir
+    public List<String> listFileNamesRecursive(Path directory) {
+        Path base = normalize(directory);
+        if (!directories.containsKey(base)) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        collect(base, names);
+        return names;
+    }
+
+    private void collect(Path directory, List<String> names) {
+        Directory listing = directories.get(directory);
+        if (listing == null) {
+            return;
+        }
+        names.addAll(listing.files.keySet());
+        for (String subdirectory : listing.subdirectories) {
+            collect(directory.resolve(subdirectory), names);
+        }
+    }
+
+    // Mapa subpasta → arquivos, como na listagem de cortes por data; null se o diretório não existir
+    public Map<String, List<String>> listFilesBySubdirectory(Path directory) {
+        Path base = normalize(directory);
+        Directory listing = directories.get(base);
+        if (listing == null) {
+            return null;
+        }
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (String subdirectory : listing.subdirectories) {
+            List<String> files = listFileNames(base.resolve(subdirectory));
+            result.put(subdirectory, files != null ? files : new ArrayList<>());
+        }
+        return result;
+    }
+
+    // Página de arquivos de um diretório, filtrada por prefixo do nome e/ou data, a partir do cursor "after".
+    // O custo é proporcional ao tamanho da página: com data, os segmentos gravados (Segment_yyyyMMdd_...) saem
+    // direto da faixa de nomes do dia, e só os demais arquivos são conferidos um a um.
+    public CatalogPage page(Path directory, String prefix, LocalDate date, String after, int limit) {
+        Directory listing = directories.get(normalize(directory));
+        if (listing == null) {
+            return null;
+        }
+        // Faixa [from, to) de nomes; o menor nome depois de "after" é ele seguido de '\0'
+        String from = prefix != null ? prefix : "";
+        String to = prefix != null && !prefix.isEmpty() ? prefix + Character.MAX_VALUE : null;
+        if (after != null && !after.isEmpty() && after.compareTo(from) >= 0) {
+            from = after + '\0';
+        }
+        List<NavigableMap<String, CatalogEntry>> ranges = new ArrayList<>(3);
+        if (date == null) {
+            ranges.add(range(listing.files, from, to));
+        } else {
+            String day = SEGMENT_PREFIX + NAME_DATE_FORMAT.format(date);
+            ranges.add(range(listing.files, from, min(to, SEGMENT_DIGITS_FROM)));
+            ranges.add(range(listing.files, max(from, day), min(to, day + Character.MAX_VALUE)));
+            ranges.add(range(listing.files, max(from, SEGMENT_DIGITS_TO), to));
+        }
+
+        List<CatalogEntry> items = new ArrayList<>(Math.min(limit, 1024));
+        for (NavigableMap<String, CatalogEntry> range : ranges) {
+            for (CatalogEntry entry : range.values()) {
+                if (date != null && !date.equals(dateOf(entry))) {
+                    continue;
+                }
+                if (items.size() == limit) {
+                    String nextCursor = items.get(items.size() - 1).getName();
+                    return new CatalogPage(items, nextCursor, listing.files.size());
+                }
+                items.add(entry);
+            }
+        }
+        return new CatalogPage(items, null, listing.files.size());
+    }
+
+    // Nomes em [from, to); to == null não limita o fim
+    private static NavigableMap<String, CatalogEntry> range(NavigableMap<String, CatalogEntry> files, String from,
+                                                           String to) {
+        if (to == null) {
+            return files.tailMap(from, true);
+        }
+        return from.compareTo(to) < 0 ? files.subMap(from, true, to, false) : Collections.emptyNavigableMap();
+    }
+
+    private static String min(String a, String b) {
+        return a == null ? b : b == null ? a : a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static String max(String a, String b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    // Data de um arquivo: a do nome (segmentos gravados) ou, na falta dela, a da última modificação
+    public static LocalDate dateOf(CatalogEntry entry) {
+        Matcher matcher = NAME_DATE.matcher(entry.getName());
+        if (matcher.find()) {
+            try {
+                return LocalDate.parse(matcher.group(1), NAME_DATE_FORMAT);
+            } catch (RuntimeException e) {
+                // Não é uma data; usa a data de modificação
+            }
+        }
+        return Instant.ofEpochMilli(entry.getLastModified()).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    // Identificador desta execução, para compor ETags com as versões abaixo
+    public String getEpoch() {
+        return epoch;
+    }
+
+    // Versão do conteúdo de um diretório para ETags; namesOnly considera apenas criação/remoção
+    public long version(Path directory, boolean namesOnly) {
+        Directory listing = directories.get(normalize(directory));
+        if (listing == null) {
+            return -1;
+        }
+        return namesOnly ? listing.namesVersion.get() : listing.version.get();
+    }
+
+    // Versão de toda a árvore abaixo de uma das raízes (muda a cada criação/remoção de arquivo)
+    public long treeVersion(Path root) {
+        AtomicLong version = rootVersions.get(normalize(root));
+        return version == null ? -1 : version.get();
+    }
+
+    // Reconciliação periódica com o disco: cobre eventos perdidos (OVERFLOW) e raízes criadas depois do início
+    @Scheduled(fixedDelayString = "${audio.catalog.reconcile-interval-millis:600000}",
+            initialDelayString = "${audio.catalog.reconcile-interval-millis:600000}")
+    public void reconcile() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                try {
+                    registerTree(root);
+                } catch (IOException e) {
+                    log.error("Falha ao reconciliar o catálogo de {}", root, e);
+                }
+            } else {
+                removeTree(root);
+            }
+        }
+        sample.stop(meterRegistry.timer("audio.catalog.reconcile"));
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                try {
+                    handleEvent(directory, event);
+                } catch (IOException e) {
+                    // Arquivo removido ou inacessível entre o evento e a leitura; a reconciliação corrige
+                }
+            }
+            if (!key.reset()) {
+                watchKeys.remove(directory, key);
+                if (!Files.isDirectory(directory)) {
+                    removeTree(directory);
+                }
+            }
+        }
+    }
+
+    private void handleEvent(Path directory, WatchEvent<?> event) throws IOException {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            registerTree(directory);
+            return;
+        }
+        Path child = directory.resolve((Path) event.context());
+        if (isHidden(child)) {
+            return;
+        }
+        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            Directory listing = directories.get(directory);
+            String name = child.getFileName().toString();
+            if (listing != null && listing.files.remove(name) != null) {
+                changed(directory, true);
+            }
+            if (listing != null && listing.subdirectories.remove(name)) {
+                removeTree(child);
+                changed(directory, true);
+            }
+        } else if (Files.isDirectory(child)) {
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                registerTree(child);
+            }
+        } else {
+            putFile(directory, child, Files.readAttributes(child, BasicFileAttributes.class));
+        }
+    }
+
+    // Registra (ou reconcilia) um diretório e tudo abaixo dele
+    private synchronized void registerTree(Path directory) throws IOException {
+        Path dir = normalize(directory);
+        if (!watchKeys.containsKey(dir)) {
+            watchKeys.put(dir, dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY));
+        }
+        Directory listing = directories.computeIfAbsent(dir, d -> new Directory());
+        Path parent = dir.getParent();
+        if (parent != null && directories.containsKey(parent)
+                && directories.get(parent).subdirectories.add(dir.getFileName().toString())) {
+            changed(parent, true);
+        }
+
+        Set<String> seenFiles = new HashSet<>();
+        Set<String> seenDirectories = new HashSet<>();
+        List<Path> childDirectories = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                if (isHidden(child)) {
+                    continue;
+                }
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(child, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue;
+                }
+                String name = child.getFileName().toString();
+                if (attributes.isDirectory()) {
+                    seenDirectories.add(name);
+                    childDirectories.add(child);
+                } else if (attributes.isRegularFile()) {
+                    seenFiles.add(name);
+                    putFile(dir, child, attributes);
+                }
+            }
+        }
+
+        if (listing.files.keySet().retainAll(seenFiles)) {
+            changed(dir, true);
+        }
+        for (String name : new ArrayList<>(listing.subdirectories)) {
+            if (!seenDirectories.contains(name)) {
+                listing.subdirectories.remove(name);
+                removeTree(dir.resolve(name));
+                changed(dir, true);
+            }
+        }
+        for (Path child : childDirectories) {
+            registerTree(child);
+        }
+    }
+
+    private synchronized void removeTree(Path directory) {
+        Path dir = normalize(directory);
+        List<Path> removed = directories.keySet().stream()
+                .filter(path -> path.startsWith(dir))
+                .collect(Collectors.toList());
+        for (Path path : removed) {
+            directories.remove(path);
+            WatchKey key = watchKeys.remove(path);
+            if (key != null) {
+                key.cancel();
+            }
+        }
+        if (!removed.isEmpty()) {
+            bumpRoot(dir);
+        }
+    }
+
+    private void putFile(Path directory, Path file, BasicFileAttributes attributes) {
+        Directory listing = directories.get(directory);
+        if (listing == null) {
+            return;
+        }
+        CatalogEntry entry = new CatalogEntry(file.getFileName().toString(), attributes.size(),
+                attributes.lastModifiedTime().toMillis());
+        CatalogEntry previous = listing.files.put(entry.getName(), entry);
+        if (previous == null) {
+            changed(directory, true);
+        } else if (previous.getSize() != entry.getSize() || previous.getLastModified() != entry.getLastModified()) {
+            changed(directory, false);
+        }
+    }
+
+    private void changed(Path directory, boolean names) {
+        Directory listing = directories.get(directory);
+        if (listing == null) {
+            return;
+        }
+        listing.version.incrementAndGet();
+        if (names) {
+            listing.namesVersion.incrementAndGet();
+            bumpRoot(directory);
+        }
+    }
+
+    private void bumpRoot(Path path) {
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                rootVersions.get(root).incrementAndGet();
+            }
+        }
+    }
+
+    // Entradas ocultas (".cache", ".part" etc.) não fazem parte das listagens
+    private static boolean isHidden(Path path) {
+        return path.getFileName().toString().startsWith(".");
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.audio.service;
 
 public class AudioCutProgress {
-    private int progress;  // Progresso em porcentagem (0 a 100)
+    private volatile int progress;  // Progresso em porcentagem (0 a 100)
 
     // Construtor
     public AudioCutProgress() {
@@ -17,4 +17,4 @@ public class AudioCutProgress {
     public void setProgress(int progress) {
         this.progress = progress;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.example.audio.service;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.nio.file.Path;
+
+// Publicado quando um arquivo de áudio fica completo em disco (segmento gravado fechado ou upload concluído)
+public class AudioFileReadyEvent extends ApplicationEvent {
+
+    private final Path file;
+    private final String radioName;
+
+    public AudioFileReadyEvent(Object source, Path file, String radioName) {
+        super(source);
+        this.file = file;
+        this.radioName = radioName;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Rádio de origem; null para uploads na raiz
+    public String getRadioName() {
+        return radioName;
+    }
+}
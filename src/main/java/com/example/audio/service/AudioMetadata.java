@@ -0,0 +1,38 @@
+package com.example.audio.service;
+
+// Metadados técnicos de um arquivo de áudio
+public class AudioMetadata {
+
+    private final long durationMicros;
+    private final int bitrateKbps;
+    private final int sampleRate;
+    private final int channels;
+
+    public AudioMetadata(long durationMicros, int bitrateKbps, int sampleRate, int channels) {
+        this.durationMicros = durationMicros;
+        this.bitrateKbps = bitrateKbps;
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+    }
+
+    public long getDurationMicros() {
+        return durationMicros;
+    }
+
+    // Duração em segundos inteiros, como gravada na coluna "duration"
+    public long getDurationSeconds() {
+        return durationMicros / 1_000_000;
+    }
+
+    public int getBitrateKbps() {
+        return bitrateKbps;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.audio.service;
+
+import com.example.audio.model.AudioFile;
+import com.example.audio.repository.AudioFileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Metadados (duração, bitrate, taxa de amostragem, canais) com cache na entidade AudioFile:
+// enquanto tamanho e data de modificação não mudarem, o arquivo não é lido de novo
+@Service
+public class AudioMetadataService {
+
+    private final String FFMPEG_PATH = "C:/ffmpeg/ffmpeg-7.0.2-full_build/bin/ffmpeg.exe";
+
+    @Autowired
+    private AudioFileRepository audioFileRepository;
+
+    @Autowired
+    private FFmpegLauncher ffmpegLauncher;
+
+    // Chave do arquivo na coluna file_path (barras normais, como gravado pelos uploads)
+    public static String storageKey(Path file) {
+        return file.toAbsolutePath().normalize().toString().replace('\\', '/');
+    }
+
+    // Retorna os metadados do cache quando válidos; senão lê o arquivo e atualiza (ou cria) o registro
+    public AudioMetadata getMetadata(Path file) throws IOException {
+        return toMetadata(describe(file));
+    }
+
+    // Registro AudioFile do arquivo com metadados atualizados
+    public AudioFile describe(Path file) throws IOException {
+        String key = storageKey(file);
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+
+        AudioFile audioFile = audioFileRepository.findFirstByFilePath(key).orElse(null);
+        if (audioFile != null && audioFile.getSize() == size && audioFile.getLastModified() != null
+                && audioFile.getLastModified() == modified && audioFile.getDurationMicros() != null) {
+            return audioFile;
+        }
+
+        AudioMetadata metadata = probe(file);
+        if (audioFile == null) {
+            audioFile = new AudioFile();
+            audioFile.setFileName(file.getFileName().toString());
+            audioFile.setFilePath(key);
+        }
+        // Conteúdo mudou: o hash e o CRC anteriores deixam de valer
+        if (audioFile.getLastModified() != null && (audioFile.getSize() != size || audioFile.getLastModified() != modified)) {
+            audioFile.setContentHash(null);
+            audioFile.setContentCrc32(null);
+        }
+        audioFile.setSize(size);
+        audioFile.setLastModified(modified);
+        audioFile.setDuration(metadata.getDurationSeconds());
+        audioFile.setDurationMicros(metadata.getDurationMicros());
+        audioFile.setBitrate(metadata.getBitrateKbps());
+        audioFile.setSampleRate(metadata.getSampleRate());
+        audioFile.setChannels(metadata.getChannels());
+        return audioFileRepository.save(audioFile);
+    }
+
+    // Lê os metadados do arquivo: cabeçalhos MP3 nativamente, FFmpeg para os demais formatos
+    public AudioMetadata probe(Path file) throws IOException {
+        if (Mp3FrameIndexService.isMp3(file)) {
+            AudioMetadata metadata = Mp3MetadataProbe.probe(file);
+            if (metadata != null) {
+                return metadata;
+            }
+        }
+        return probeWithFFmpeg(file);
+    }
+
+    private static AudioMetadata toMetadata(AudioFile audioFile) {
+        return new AudioMetadata(audioFile.getDurationMicros(),
+                audioFile.getBitrate() != null ? audioFile.getBitrate() : 0,
+                audioFile.getSampleRate() != null ? audioFile.getSampleRate() : 0,
+                audioFile.getChannels() != null ? audioFile.getChannels() : 0);
+    }
+
+    // Função para obter os metadados do arquivo de áudio usando FFmpeg. Exemplo das linhas lidas:
+    //   Duration: 00:05:00.03, start: 0.000000, bitrate: 128 kb/s
+    //   Stream #0:0: Audio: mp3, 44100 Hz, stereo, fltp, 128 kb/s
+    AudioMetadata probeWithFFmpeg(Path file) throws IOException {
+        String[] command = {FFMPEG_PATH, "-hide_banner", "-i", file.toString()};
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        Process process = ffmpegLauncher.start("probe", processBuilder);
+
+        long durationMicros = 0;
+        int bitrate = 0;
+        int sampleRate = 0;
+        int channels = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("Duration:")) {
+                    String time = line.substring("Duration:".length(), line.indexOf(',')).trim();
+                    if (!time.startsWith("N/A")) {
+                        durationMicros = (long) (FFmpegProgress.parseFFmpegTime(time) * 1_000_000);
+                    }
+                    bitrate = parseNumberBefore(line, "kb/s");
+                } else if (line.startsWith("Stream #") && line.contains("Audio:") && sampleRate == 0) {
+                    sampleRate = parseNumberBefore(line, "Hz");
+                    channels = line.contains("mono") ? 1 : line.contains("stereo") ? 2 : 0;
+                }
+            }
+        }
+
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("O processo foi interrompido", e);
+        }
+        return new AudioMetadata(durationMicros, bitrate, sampleRate, channels);
+    }
+
+    // Número imediatamente antes da unidade ("128 kb/s" → 128); 0 se não houver
+    private static int parseNumberBefore(String line, String unit) {
+        int end = line.indexOf(" " + unit);
+        if (end < 0) {
+            return 0;
+        }
+        int start = end;
+        while (start > 0 && Character.isDigit(line.charAt(start - 1))) {
+            start--;
+        }
+        return start < end ? Integer.parseInt(line.substring(start, end)) : 0;
+    }
+}
@@ -1,8 +1,9 @@
 package com.example.audio.service;
 
-import com.example.audio.model.AudioFile;
-import com.example.audio.repository.AudioFileRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -10,15 +11,23 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -30,72 +39,56 @@ public class AudioService {
     private final String OUTPUT_DIR = "C:/cortes";
 
     @Autowired
-    private AudioFileRepository audioFileRepository;
+    private Mp3FrameIndexService mp3FrameIndexService;
+
+    @Autowired
+    private AudioMetadataService audioMetadataService;
+
+    @Autowired
+    private AudioCatalog audioCatalog;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ContentHashService contentHashService;
+
+    @Autowired
+    private CutCacheService cutCacheService;
+
+    @Autowired
+    private FFmpegLauncher ffmpegLauncher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-    private volatile boolean isPaused = false;
-    private volatile boolean isCancelled = false;
-    private Process ffmpegProcess;
-    private Thread cuttingThread;
     private final Path rootLocation = Paths.get("C:/pastaudios");
 
     // Listar todas as subpastas (rádios)
     public List<String> listRadios() throws IOException {
-        try (Stream<Path> walk = Files.walk(rootLocation, 1)) {
-            return walk.filter(Files::isDirectory)
-                    .map(path -> path.getFileName().toString())
-                    .collect(Collectors.toList());
+        List<String> radios = audioCatalog.listSubdirectories(rootLocation);
+        if (radios == null) {
+            throw new IOException("Diretório não encontrado: " + rootLocation);
         }
+        return radios;
     }
 
     // Listar arquivos dentro de uma rádio específica (subpasta)
     public Map<String, List<String>> listContentsFromRadio(String radioName) throws IOException {
         Path radioPath = rootLocation.resolve(radioName);
-        if (!Files.exists(radioPath) || !Files.isDirectory(radioPath)) {
+        List<String> files = audioCatalog.listFileNames(radioPath);
+        if (files == null) {
             throw new IOException("Rádio não encontrada: " + radioName);
         }
 
         Map<String, List<String>> contents = new HashMap<>();
-        List<String> files = Files.walk(radioPath, 1)
-                .filter(Files::isRegularFile)
-                .map(path -> path.getFileName().toString())
-                .collect(Collectors.toList());
         contents.put("files", files);
         return contents;
     }
 
-    private AudioCutProgress cutProgress = new AudioCutProgress();
-
-    // Função para calcular a duração do arquivo de áudio usando FFmpeg
+    // Duração do arquivo de áudio em segundos (lida dos cabeçalhos, com cache no AudioFile)
     public long getAudioDuration(String filePath) throws IOException {
-        String[] command = {FFMPEG_PATH, "-i", filePath};
-
-        ProcessBuilder processBuilder = new ProcessBuilder(command);
-        processBuilder.redirectErrorStream(true);
-        Process process = processBuilder.start();
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.contains("Duration")) {
-                    String[] parts = line.split(",")[0].split(":");
-                    String[] timeParts = parts[1].trim().split(":");
-                    long hours = Long.parseLong(timeParts[0].trim());
-                    long minutes = Long.parseLong(timeParts[1].trim());
-                    float seconds = Float.parseFloat(timeParts[2].trim());
-
-                    long totalSeconds = (hours * 3600) + (minutes * 60) + (long) seconds;
-                    return totalSeconds;
-                }
-            }
-        }
-
-        try {
-            process.waitFor();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("O processo foi interrompido", e);
-        }
-        return 0;
+        return audioMetadataService.getMetadata(Paths.get(filePath)).getDurationSeconds();
     }
 
     // Salva o arquivo de áudio no servidor e no banco de dados
@@ -109,29 +102,32 @@ public class AudioService {
         File dest = new File(filePath);
         file.transferTo(dest);
 
-        AudioFile audioFile = new AudioFile();
-        audioFile.setFileName(file.getOriginalFilename());
-        audioFile.setFilePath(filePath);
-        audioFile.setSize(file.getSize());
-
-        long duration = getAudioDuration(filePath);
-        audioFile.setDuration(duration);
-
-        audioFileRepository.save(audioFile);
+        // Cria (ou atualiza) o registro com tamanho, duração e demais metadados
+        audioMetadataService.describe(dest.toPath());
+        eventPublisher.publishEvent(new AudioFileReadyEvent(this, dest.toPath(), null));
 
         return file.getOriginalFilename();
     }
 
-    // Lista todos os arquivos de áudio em um diretório específico
+    // Lista todos os arquivos de áudio em um diretório específico (do catálogo em memória quando possível)
     public List<String> listAudioFilesFromDirectory(String directory) throws IOException {
         Path dirPath = Paths.get(directory);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<String> cached = audioCatalog.listFileNamesRecursive(dirPath);
+        if (cached != null) {
+            sample.stop(meterRegistry.timer("audio.listing", "source", "catalog"));
+            return cached;
+        }
         if (!Files.exists(dirPath)) {
             throw new IOException("Diretório não encontrado: " + directory);
         }
-        return Files.walk(dirPath)
-                .filter(Files::isRegularFile)
-                .map(path -> path.getFileName().toString())
-                .collect(Collectors.toList());
+        try (Stream<Path> walk = Files.walk(dirPath)) {
+            return walk.filter(Files::isRegularFile)
+                    .map(path -> path.getFileName().toString())
+                    .collect(Collectors.toList());
+        } finally {
+            sample.stop(meterRegistry.timer("audio.listing", "source", "walk"));
+        }
     }
 
     // Lista todos os arquivos de áudio no diretório de uploads
@@ -144,10 +140,11 @@ public class AudioService {
         return listAudioFilesFromDirectory(OUTPUT_DIR);
     }
 
-    // Função para cortar um arquivo de áudio e atualizar o progresso
-    public String cutAudioFile(String radioName, String fileName, double start, double duration) throws IOException {
-        // Reseta o estado de pausa/cancelamento
-        resetCutState();
+    // Função para cortar um arquivo de áudio e atualizar o progresso do corte informado
+    // (executada por um worker do CutJobService, nunca na thread da requisição)
+    public void cutAudioFile(CutJob job) throws IOException, InterruptedException {
+        String radioName = job.getRadioName();
+        String fileName = job.getFileName();
 
         // Construa o caminho completo do arquivo de entrada (incluindo a subpasta da rádio)
         String inputFilePath = Paths.get(UPLOAD_DIR, radioName, fileName).toString();
@@ -161,119 +158,232 @@ public class AudioService {
             Files.createDirectories(dateDirectory); // Cria o diretório
         }
 
-        // Construa o caminho completo do arquivo de saída dentro do diretório de data
-        String outputFilePath = Paths.get(dateDirectory.toString(), "cortes_" + fileName).toString();
+        // Arquivo na camada de armazenamento atual (original ou compactado pela retenção)
+        Path inputPath = RetentionService.resolve(Paths.get(inputFilePath));
+        if (!Files.isRegularFile(inputPath)) {
+            throw new NoSuchFileException(inputFilePath);
+        }
+        String inputName = inputPath.getFileName().toString();
+
+        // O corte vem do cache (ou é produzido nele) e é publicado em C:/cortes/<data>/ como link para a entrada:
+        // pedidos iguais no mesmo dia reaproveitam o mesmo arquivo e ele sai do disco junto com a entrada
+        String extension = extensionOf(inputName);
+        String key = CutCacheService.key(contentHashService.hashOf(inputPath),
+                job.getStartSeconds(), job.getDurationSeconds(), "copy" + extension);
+        String outputName = cutFileName(inputName, key.substring(0, 12));
+        Path outputPath = null;
+        for (int attempt = 0; outputPath == null && attempt < 3; attempt++) {
+            Path cached = cutCacheService.getOrCreate(key, extension, target -> produceCut(job, inputPath, target));
+            if (cached == null || job.isCancelled()) {
+                return;
+            }
+            try {
+                outputPath = cutCacheService.publish(key, extension, dateDirectory.resolve(outputName));
+            } catch (FileAlreadyExistsException e) {
+                // Nome ocupado por outro arquivo: usa o do job
+                outputName = cutFileName(inputName, job.getId().substring(0, 8));
+                outputPath = cutCacheService.publish(key, extension, dateDirectory.resolve(outputName));
+            }
+            // null: a entrada saiu do cache entre a produção e a publicação; produz de novo
+        }
+        if (outputPath == null) {
+            throw new IOException("Corte removido do cache antes de ser publicado: " + outputName);
+        }
+
+        // Registrar o nome do arquivo cortado junto com o diretório da data
+        job.setOutputFileName(Paths.get(currentDate, outputName).toString());
+    }
+
+    // Executa o corte do job no arquivo indicado; em caso de cancelamento, o arquivo não é criado
+    private void produceCut(CutJob job, Path inputPath, Path target) throws IOException, InterruptedException {
+        // MP3 com cópia de frames: recorta direto pelo índice de frames, sem iniciar o FFmpeg
+        if (Mp3FrameIndexService.isMp3(inputPath)) {
+            Mp3FrameIndex index = mp3FrameIndexService.getIndex(inputPath);
+            if (index != null) {
+                cutWithFrameIndex(job, inputPath, index, target);
+                return;
+            }
+        }
 
-        // Comando FFmpeg para corte
-        String[] command = {
+        // Comando FFmpeg para corte; o progresso sai em formato chave=valor na saída padrão
+        List<String> command = new ArrayList<>(Arrays.asList(
                 FFMPEG_PATH,
-                "-ss", String.valueOf(start),
-                "-i", inputFilePath,
-                "-t", String.valueOf(duration),
-                "-c", "copy",  // Cópia sem reprocessamento
-                outputFilePath
-        };
+                "-ss", String.valueOf(job.getStartSeconds()),
+                "-i", inputPath.toString(),
+                "-t", String.valueOf(job.getDurationSeconds()),
+                "-c", "copy"  // Cópia sem reprocessamento
+        ));
+        command.addAll(Arrays.asList(FFmpegProgress.PROGRESS_ARGS));
+        command.add(target.toString());
 
-        // Log para verificar o comando gerado
-        System.out.println("Comando FFmpeg: " + String.join(" ", command));
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        Process ffmpegProcess = ffmpegLauncher.start("cut", processBuilder);
+        job.setProcess(ffmpegProcess);
+        if (job.isCancelled()) {
+            ffmpegProcess.destroy();
+            return;
+        }
 
-        AtomicInteger progressStep = new AtomicInteger(0);
+        // Inicializa o progresso
+        job.updateProgress(0);
 
-        cuttingThread = new Thread(() -> {
-            try {
-                ProcessBuilder processBuilder = new ProcessBuilder(command);
-                processBuilder.redirectErrorStream(true);
-                ffmpegProcess = processBuilder.start();
-
-                // Inicializa o progresso
-                cutProgress.setProgress(0);
-
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(ffmpegProcess.getInputStream()))) {
-                    String line;
-
-                    while ((line = reader.readLine()) != null) {
-                        System.out.println(line);
-
-                        synchronized (this) {
-                            // Pausa o corte se estiver pausado
-                            while (isPaused) {
-                                try {
-                                    wait();
-                                } catch (InterruptedException e) {
-                                    System.out.println("Corte interrompido.");
-                                    return;
-                                }
-                            }
-                        }
-
-                        // Checa se o processo foi cancelado
-                        if (isCancelled) {
-                            ffmpegProcess.destroy();
-                            return;
-                        }
-
-                        // Atualiza o progresso em intervalos simulados
-                        progressStep.addAndGet(10);
-                        cutProgress.setProgress(progressStep.get());
-                    }
-
-                    int exitCode = ffmpegProcess.waitFor();
-                    if (exitCode != 0) {
-                        throw new IOException("Erro no processo FFmpeg, código de saída: " + exitCode);
-                    }
-
-                    // Concluir o progresso
-                    cutProgress.setProgress(100);
-
-                } catch (Exception e) {
-                    e.printStackTrace();
+        boolean completed = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ffmpegProcess.getInputStream()))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                // Pausa o corte se estiver pausado
+                job.awaitIfPaused();
+
+                // Checa se o processo foi cancelado
+                if (job.isCancelled()) {
+                    ffmpegProcess.destroy();
+                    return;
+                }
+
+                // Atualiza o progresso pela posição real (out_time_us) em relação à duração pedida
+                long outTimeMicros = FFmpegProgress.parseOutTimeMicros(line);
+                if (outTimeMicros >= 0) {
+                    job.updateProgress(FFmpegProgress.percentOf(outTimeMicros, job.getDurationSeconds()));
+                } else if (FFmpegProgress.isEnd(line)) {
+                    // Saída toda escrita; o corte só chega a 100% depois de ir para o cache e ser publicado
+                    job.updateProgress(99);
+                } else if (!line.contains("=")) {
+                    ffmpegLauncher.logOutput("cut", line);
                 }
-            } catch (IOException e) {
-                e.printStackTrace();
             }
-        });
-
-        cuttingThread.start();
-        try {
-            cuttingThread.join();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            System.out.println("Corte interrompido.");
-        }
 
-        // Retornar o nome do arquivo cortado junto com o diretório da data
-        return Paths.get(currentDate, "cortes_" + fileName).toString();
+            int exitCode = ffmpegProcess.waitFor();
+            if (job.isCancelled()) {
+                return;
+            }
+            if (exitCode != 0) {
+                throw new IOException("Erro no processo FFmpeg, código de saída: " + exitCode);
+            }
+            completed = true;
+        } finally {
+            if (ffmpegProcess.isAlive()) {
+                ffmpegProcess.destroy();
+            }
+            if (!completed) {
+                Files.deleteIfExists(target);
+            }
+        }
     }
 
-    // Retorna o progresso do corte
-    public AudioCutProgress getCutProgress() {
-        return cutProgress;
+    private static String extensionOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(dot).toLowerCase(Locale.ROOT) : "";
     }
 
-    // Método para pausar o corte
-    public synchronized void pauseCut() {
-        isPaused = true;
-        System.out.println("Corte pausado.");
+    // Prepara um corte para ser enviado direto na resposta; com persist, o corte também é salvo em
+    // C:/cortes/<data>/ enquanto é enviado
+    public StreamingCut prepareStreamingCut(String radioName, String fileName, double startSeconds,
+                                            double durationSeconds, boolean persist) throws IOException {
+        Path inputPath = RetentionService.resolve(Paths.get(UPLOAD_DIR, radioName, fileName));
+        if (!Files.isRegularFile(inputPath)) {
+            throw new NoSuchFileException(inputPath.toString());
+        }
+        fileName = inputPath.getFileName().toString();
+
+        Path persistPath = null;
+        if (persist) {
+            String currentDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            Path dateDirectory = Paths.get(OUTPUT_DIR, currentDate);
+            Files.createDirectories(dateDirectory);
+            persistPath = dateDirectory.resolve(cutFileName(fileName,
+                    UUID.randomUUID().toString().substring(0, 8)));
+        }
+
+        if (Mp3FrameIndexService.isMp3(inputPath)) {
+            Mp3FrameIndex index = mp3FrameIndexService.getIndex(inputPath);
+            if (index != null) {
+                long[] range = index.byteRange(startSeconds, durationSeconds);
+                if (range[1] <= range[0]) {
+                    throw new StartBeyondEndException("Início do corte além do fim do áudio: " + startSeconds + "s");
+                }
+                return StreamingCut.ofFrames(inputPath, range[0], range[1], persistPath);
+            }
+        }
+
+        // Demais formatos: um corte igual já no cache é enviado como arquivo, sem iniciar o FFmpeg
+        String extension = extensionOf(fileName);
+        Path cached = cutCacheService.lookup(CutCacheService.key(contentHashService.hashOf(inputPath),
+                startSeconds, durationSeconds, "copy" + extension), extension);
+        if (cached != null) {
+            return StreamingCut.ofFrames(cached, 0, Files.size(cached), persistPath);
+        }
+
+        // Senão, FFmpeg escrevendo na saída padrão, no mesmo contêiner da entrada
+        List<String> command = new ArrayList<>(Arrays.asList(
+                FFMPEG_PATH, "-nostdin", "-v", "error",
+                "-ss", String.valueOf(startSeconds),
+                "-i", inputPath.toString(),
+                "-t", String.valueOf(durationSeconds),
+                "-c", "copy"
+        ));
+        command.addAll(pipeFormatArgs(fileName));
+        command.add("pipe:1");
+        return StreamingCut.ofFFmpeg(ffmpegLauncher, command, persistPath);
     }
 
-    // Método para retomar o corte
-    public synchronized void resumeCut() {
-        isPaused = false;
-        notify();
-        System.out.println("Corte retomado.");
+    // cortes_<nome>_<tag>.<extensão>
+    static String cutFileName(String fileName, String tag) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String extension = dot > 0 ? fileName.substring(dot) : "";
+        return "cortes_" + base + "_" + tag + extension;
     }
 
-    // Método para cancelar o corte
-    public void cancelCut() {
-        isCancelled = true;
-        if (ffmpegProcess != null) {
-            ffmpegProcess.destroy();
+    // Formato de saída para o pipe: sem arquivo, o FFmpeg não consegue deduzi-lo pela extensão
+    private static List<String> pipeFormatArgs(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".wav")) {
+            return Arrays.asList("-f", "wav");
+        } else if (name.endsWith(".ogg") || name.endsWith(".opus")) {
+            return Arrays.asList("-f", "ogg");
+        } else if (name.endsWith(".flac")) {
+            return Arrays.asList("-f", "flac");
+        } else if (name.endsWith(".aac")) {
+            return Arrays.asList("-f", "adts");
+        } else if (name.endsWith(".m4a") || name.endsWith(".mp4")) {
+            // MP4 fragmentado dispensa voltar ao início do arquivo para escrever o índice
+            return Arrays.asList("-f", "mp4", "-movflags", "frag_keyframe+empty_moov");
         }
+        return Arrays.asList("-f", "mp3");
     }
 
-    // Método para resetar o estado de pausa e cancelamento após cada corte
-    public void resetCutState() {
-        isPaused = false;
-        isCancelled = false;
+    // Corte por cópia de frames a partir do índice; retorna false se o corte foi cancelado
+    private boolean cutWithFrameIndex(CutJob job, Path input, Mp3FrameIndex index, Path output) throws IOException {
+        long[] range = index.byteRange(job.getStartSeconds(), job.getDurationSeconds());
+        long total = range[1] - range[0];
+        if (total <= 0) {
+            throw new StartBeyondEndException("Início do corte além do fim do áudio: " + job.getStartSeconds() + "s");
+        }
+
+        job.updateProgress(0);
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Mp3FrameCopier.copy(input, range[0], range[1], out, copied -> {
+                try {
+                    job.awaitIfPaused();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException();
+                }
+                if (job.isCancelled()) {
+                    throw new CancellationException();
+                }
+                job.updateProgress((int) Math.min(99, copied * 100 / total));
+            });
+        } catch (CancellationException e) {
+            Files.deleteIfExists(output);
+            return false;
+        } catch (IOException e) {
+            Files.deleteIfExists(output);
+            throw e;
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.example.audio.service;
+
+// Um corte dentro de um lote: arquivo de origem, trecho e nome opcional do arquivo no ZIP
+public class BatchClip {
+
+    private String radioName;
+    private String fileName;
+    private double startSeconds;
+    private double durationSeconds;
+    private String label;
+
+    // Getters e Setters
+
+    public String getRadioName() {
+        return radioName;
+    }
+
+    public void setRadioName(String radioName) {
+        this.radioName = radioName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public double getStartSeconds() {
+        return startSeconds;
+    }
+
+    public void setStartSeconds(double startSeconds) {
+        this.startSeconds = startSeconds;
+    }
+
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(double durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+}
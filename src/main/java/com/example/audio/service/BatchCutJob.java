@@ -0,0 +1,77 @@
+package com.example.audio.service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Lote de cortes gerado em segundo plano como um arquivo ZIP em C:/cortes/<data>/
+public class BatchCutJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final int clipCount;
+    private final AtomicInteger written = new AtomicInteger();
+    private final Instant createdAt = Instant.now();
+
+    private volatile CutJob.Status status = CutJob.Status.QUEUED;
+    private volatile String outputFileName;
+    private volatile String errorMessage;
+    private volatile Instant finishedAt;
+
+    public BatchCutJob(int clipCount) {
+        this.clipCount = clipCount;
+    }
+
+    // Estado atual do lote no formato retornado pela API
+    public Map<String, Object> describe() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", id);
+        response.put("status", status);
+        response.put("clips", clipCount);
+        response.put("written", written.get());
+        response.put("progress", clipCount > 0 ? written.get() * 100 / clipCount : 0);
+        response.put("outputFileName", outputFileName);
+        response.put("error", errorMessage);
+        return response;
+    }
+
+    void clipWritten() {
+        written.incrementAndGet();
+    }
+
+    void start() {
+        status = CutJob.Status.RUNNING;
+    }
+
+    void finish(CutJob.Status finalStatus, String outputFileName, String error) {
+        this.outputFileName = outputFileName;
+        this.errorMessage = error;
+        this.finishedAt = Instant.now();
+        this.status = finalStatus;
+    }
+
+    public boolean isFinished() {
+        return status == CutJob.Status.COMPLETED || status == CutJob.Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public CutJob.Status getStatus() {
+        return status;
+    }
+
+    public String getOutputFileName() {
+        return outputFileName;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
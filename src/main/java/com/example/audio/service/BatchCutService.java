@@ -0,0 +1,419 @@
+package com.example.audio.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Lotes de cortes: os cortes são agrupados por arquivo de origem e cada grupo é preparado com uma única
+// passada pela origem (cópia de frames em ordem crescente, ou um FFmpeg com várias saídas). Os grupos
+// rodam em paralelo e o resultado sai como um ZIP enviado direto na resposta ou gravado por um job.
+@Service
+public class BatchCutService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchCutService.class);
+
+    private final String UPLOAD_DIR = "C:/pastaudios";
+    private final String OUTPUT_DIR = "C:/cortes";
+    private final String FFMPEG_PATH = "C:/ffmpeg/ffmpeg-7.0.2-full_build/bin/ffmpeg.exe";
+
+    @Autowired
+    private Mp3FrameIndexService mp3FrameIndexService;
+
+    @Autowired
+    private ContentHashService contentHashService;
+
+    @Autowired
+    private CutCacheService cutCacheService;
+
+    @Autowired
+    private FFmpegLauncher ffmpegLauncher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Grupos preparados em paralelo (0 = um por núcleo disponível)
+    @Value("${audio.batch.workers:0}")
+    private int workers;
+
+    // Quantidade máxima de cortes por lote
+    @Value("${audio.batch.max-clips:500}")
+    private int maxClips;
+
+    // Tempo que um lote finalizado permanece consultável
+    @Value("${audio.batch.retention-minutes:60}")
+    private long retentionMinutes;
+
+    // Grupo de cortes de um mesmo arquivo de origem, ordenados pelo início
+    public static class Group {
+        private final Path source;
+        private final List<BatchClip> clips = new ArrayList<>();
+        private CompletableFuture<List<SegmentClipService.ClipPart>> parts;
+        // Arquivos dos trechos, abertos na preparação: a retenção ou o cache podem removê-los antes da escrita do
+        // ZIP (no Windows o canal aberto impede a remoção; nos demais, mantém os dados legíveis)
+        private final Map<Path, FileChannel> channels = new HashMap<>();
+        private boolean closed;
+
+        Group(Path source) {
+            this.source = source;
+        }
+    }
+
+    private final Map<String, BatchCutJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+    private ExecutorService assemblers;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(maxClips, 1) * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "batch-cut-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        // Montagem dos ZIPs dos jobs em threads separadas, para não ocupar os workers que preparam os grupos
+        AtomicInteger assemblerCounter = new AtomicInteger();
+        assemblers = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "batch-zip-" + assemblerCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("audio.jobs.active", Tags.of("type", "batch"), executor, ThreadPoolExecutor::getActiveCount);
+        meterRegistry.gauge("audio.jobs.queued", Tags.of("type", "batch"), executor, pool -> pool.getQueue().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        assemblers.shutdownNow();
+    }
+
+    // Valida o lote e inicia a preparação dos grupos em paralelo; lança NoSuchFileException se uma origem não
+    // existir
+    public List<Group> plan(List<BatchClip> clips) throws IOException {
+        if (clips == null || clips.isEmpty() || clips.size() > maxClips) {
+            throw new IllegalArgumentException("O lote deve ter entre 1 e " + maxClips + " cortes.");
+        }
+        Map<Path, Group> groups = new LinkedHashMap<>();
+        for (BatchClip clip : clips) {
+            if (clip.getRadioName() == null || clip.getFileName() == null
+                    || clip.getStartSeconds() < 0 || clip.getDurationSeconds() <= 0) {
+                throw new IllegalArgumentException("Parâmetros inválidos no corte " + describeClip(clip));
+            }
+            Path source = RetentionService.resolve(Paths.get(UPLOAD_DIR, clip.getRadioName(), clip.getFileName()));
+            if (!groups.containsKey(source) && !Files.isRegularFile(source)) {
+                throw new NoSuchFileException(source.toString());
+            }
+            groups.computeIfAbsent(source, Group::new).clips.add(clip);
+        }
+
+        List<Group> planned = new ArrayList<>(groups.values());
+        for (Group group : planned) {
+            group.clips.sort(Comparator.comparingDouble(BatchClip::getStartSeconds));
+            group.parts = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return prepare(group);
+                } catch (IOException e) {
+                    close(group);
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    close(group);
+                    Thread.currentThread().interrupt();
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+        return planned;
+    }
+
+    // Conclui quando todos os grupos estiverem preparados (intervalos de bytes calculados e cortes prontos), ou
+    // com a primeira falha; permite responder com erro antes de começar a enviar o ZIP
+    public CompletableFuture<Void> ready(List<Group> groups) {
+        return CompletableFuture.allOf(groups.stream().map(group -> group.parts).toArray(CompletableFuture[]::new));
+    }
+
+    // Fecha os arquivos abertos na preparação de um lote que não vai ser escrito
+    public void release(List<Group> groups) {
+        groups.forEach(BatchCutService::close);
+    }
+
+    private static void close(Group group) {
+        synchronized (group.channels) {
+            for (FileChannel channel : group.channels.values()) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Somente leitura: nada a perder
+                }
+            }
+            group.channels.clear();
+            group.closed = true;
+        }
+    }
+
+    // Abre um arquivo do grupo (uma vez por arquivo); lança NoSuchFileException se ele já tiver sido removido
+    private static FileChannel open(Group group, Path file) throws IOException {
+        synchronized (group.channels) {
+            if (group.closed) {
+                throw new IOException("Lote cancelado");
+            }
+            FileChannel channel = group.channels.get(file);
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+                group.channels.put(file, channel);
+            }
+            return channel;
+        }
+    }
+
+    // Trechos de cada corte do grupo, na ordem dos cortes
+    private List<SegmentClipService.ClipPart> prepare(Group group) throws IOException, InterruptedException {
+        Path source = group.source;
+        open(group, source);
+        List<SegmentClipService.ClipPart> parts = new ArrayList<>(group.clips.size());
+
+        // MP3: só calcula os intervalos de bytes; a cópia acontece na escrita do ZIP, em ordem crescente
+        if (Mp3FrameIndexService.isMp3(source)) {
+            Mp3FrameIndex index = mp3FrameIndexService.getIndex(source);
+            if (index != null) {
+                for (BatchClip clip : group.clips) {
+                    long[] range = index.byteRange(clip.getStartSeconds(), clip.getDurationSeconds());
+                    if (range[1] <= range[0]) {
+                        throw new StartBeyondEndException("Início do corte além do fim do áudio: " + describeClip(clip));
+                    }
+                    parts.add(new SegmentClipService.ClipPart(source, range[0], range[1]));
+                }
+                return parts;
+            }
+        }
+
+        // Demais formatos: os cortes ausentes do cache saem de um único FFmpeg com uma saída por corte
+        String extension = extensionOf(source);
+        String hash = contentHashService.hashOf(source);
+        Path[] cached = new Path[group.clips.size()];
+        Path[] temps = new Path[group.clips.size()];
+        String[] keys = new String[group.clips.size()];
+        List<String> command = new ArrayList<>(Arrays.asList(FFMPEG_PATH, "-nostdin", "-v", "error", "-y",
+                "-i", source.toString()));
+        List<Integer> missing = new ArrayList<>();
+        try {
+            for (int i = 0; i < group.clips.size(); i++) {
+                BatchClip clip = group.clips.get(i);
+                keys[i] = CutCacheService.key(hash, clip.getStartSeconds(), clip.getDurationSeconds(), "copy" + extension);
+                cached[i] = cutCacheService.lookup(keys[i], extension);
+                if (cached[i] != null) {
+                    try {
+                        open(group, cached[i]);
+                    } catch (NoSuchFileException e) {
+                        // Removido do cache entre a consulta e a abertura: produz de novo
+                        cached[i] = null;
+                    }
+                }
+                if (cached[i] == null) {
+                    missing.add(i);
+                    // Temporário exclusivo: outro lote ou um corte avulso pode estar produzindo a mesma chave
+                    temps[i] = cutCacheService.uniqueTempFile(keys[i], extension);
+                    command.addAll(Arrays.asList(
+                            "-ss", String.valueOf(clip.getStartSeconds()),
+                            "-t", String.valueOf(clip.getDurationSeconds()),
+                            "-map", "0:a", "-c", "copy",
+                            temps[i].toString()));
+                }
+            }
+            if (!missing.isEmpty()) {
+                runFFmpeg(command);
+                for (int i : missing) {
+                    cached[i] = cutCacheService.store(keys[i], extension, temps[i]);
+                    temps[i] = null;
+                    open(group, cached[i]);
+                }
+            }
+        } finally {
+            for (Path temp : temps) {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        }
+        for (Path file : cached) {
+            parts.add(new SegmentClipService.ClipPart(file, 0, open(group, file).size()));
+        }
+        return parts;
+    }
+
+    private void runFFmpeg(List<String> command) throws IOException, InterruptedException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        processBuilder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        Process process = ffmpegLauncher.start("batch-cut", processBuilder);
+        try {
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("Erro no processo FFmpeg, código de saída: " + exitCode);
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    // Escreve o ZIP com os cortes agrupados por origem e, dentro de cada origem, em ordem de início. Entradas
+    // STORED: o CRC de cada trecho é calculado antes e os bytes vão da origem para a saída sem recompressão.
+    // Fecha os arquivos de todos os grupos ao terminar, com sucesso ou não.
+    public void writeZip(List<Group> groups, OutputStream out, Runnable onClipWritten) throws IOException {
+        try {
+            StoredZipWriter zip = new StoredZipWriter(Channels.newChannel(out));
+            Set<String> names = new HashSet<>();
+            long modified = System.currentTimeMillis();
+            for (Group group : groups) {
+                List<SegmentClipService.ClipPart> parts = await(group);
+                for (int i = 0; i < parts.size(); i++) {
+                    SegmentClipService.ClipPart part = parts.get(i);
+                    StoredZipWriter.Entry entry = new StoredZipWriter.Entry(
+                            entryName(group.clips.get(i), group.source, names),
+                            part.getFile(), part.getFrom(), part.getTo(), modified);
+                    FileChannel channel = open(group, part.getFile());
+                    zip.write(entry, ContentHashService.crc32(channel, part.getFrom(), part.getTo()), channel);
+                    onClipWritten.run();
+                }
+                close(group);
+            }
+            zip.finish();
+            out.flush();
+        } finally {
+            release(groups);
+        }
+    }
+
+    // Gera o ZIP do lote em segundo plano em C:/cortes/<data>/lote_<id>.zip
+    public BatchCutJob submit(List<BatchClip> clips) throws IOException {
+        List<Group> groups = plan(clips);
+        BatchCutJob job = new BatchCutJob(clips.size());
+        jobs.put(job.getId(), job);
+        assemblers.execute(() -> {
+            job.start();
+            String currentDate = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+            String outputName = "lote_" + job.getId().substring(0, 8) + ".zip";
+            Path dateDirectory = Paths.get(OUTPUT_DIR, currentDate);
+            Path partPath = dateDirectory.resolve("." + outputName);
+            try {
+                Files.createDirectories(dateDirectory);
+                try (OutputStream out = Files.newOutputStream(partPath)) {
+                    writeZip(groups, out, job::clipWritten);
+                }
+                StreamingCut.moveIntoPlace(partPath, dateDirectory.resolve(outputName));
+                job.finish(CutJob.Status.COMPLETED, Paths.get(currentDate, outputName).toString(), null);
+            } catch (Exception e) {
+                log.error("Falha ao gerar o lote {}", job.getId(), e);
+                try {
+                    Files.deleteIfExists(partPath);
+                } catch (IOException ignored) {
+                    // O arquivo oculto incompleto não aparece nas listagens
+                }
+                job.finish(CutJob.Status.FAILED, null, e.getMessage());
+            }
+        });
+        return job;
+    }
+
+    public Optional<BatchCutJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    // Remove do registro os lotes finalizados há mais tempo que o período de retenção
+    @Scheduled(fixedDelay = 60000)
+    public void purgeFinishedJobs() {
+        Instant limit = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(limit));
+    }
+
+    private static List<SegmentClipService.ClipPart> await(Group group) throws IOException {
+        try {
+            return group.parts.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Lote interrompido", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    // Nome do arquivo no ZIP: o rótulo informado (ou origem + trecho), sem caracteres problemáticos e sem repetição
+    private static String entryName(BatchClip clip, Path source, Set<String> used) {
+        String extension = extensionOf(source);
+        String base = clip.getLabel() != null && !clip.getLabel().trim().isEmpty()
+                ? clip.getLabel().trim()
+                : clip.getRadioName() + "_" + stripExtension(clip.getFileName()) + "_"
+                + String.format(Locale.ROOT, "%.1f-%.1f", clip.getStartSeconds(), clip.getDurationSeconds());
+        base = base.replaceAll("[^\\p{L}\\p{N}._ -]", "_");
+        String name = base + extension;
+        for (int i = 2; !used.add(name); i++) {
+            name = base + " (" + i + ")" + extension;
+        }
+        return name;
+    }
+
+    private static String describeClip(BatchClip clip) {
+        return clip.getRadioName() + "/" + clip.getFileName() + " @" + clip.getStartSeconds() + "s";
+    }
+
+    private static String extensionOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(dot).toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.audio.service;
+
+import com.example.audio.model.AudioFile;
+import com.example.audio.repository.AudioFileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Validadores HTTP (ETag forte e Last-Modified) dos arquivos servidos para reprodução e download.
+// A ETag é o SHA-256 guardado no AudioFile quando existe; segmentos gravados já fechados nunca mudam, então o
+// hash deles é calculado (uma vez) na primeira requisição e a resposta pode ser marcada como imutável.
+// Os demais arquivos usam a impressão (tamanho, data de modificação), que não exige ler o conteúdo.
+// O resultado fica em memória por caminho enquanto tamanho e data não mudarem, para que as requisições de
+// Range de um player não consultem o banco a cada trecho.
+@Service
+public class CacheValidatorService {
+
+    // Segmento sem escrita há menos que isso ainda pode receber dados do FFmpeg
+    private static final long CLOSED_AFTER_MILLIS = 10_000;
+
+    @Autowired
+    private AudioFileRepository audioFileRepository;
+
+    @Autowired
+    private ContentHashService contentHashService;
+
+    @Autowired
+    private LiveRecorderService liveRecorderService;
+
+    // Arquivos com validadores em memória
+    @Value("${audio.http-cache.max-entries:10000}")
+    private int maxEntries;
+
+    // ETag entre aspas, data de modificação e se o conteúdo é imutável (segmento fechado)
+    public static final class Validators {
+        private final long size;
+        private final long lastModified;
+        private final String etag;
+        private final boolean immutable;
+
+        Validators(long size, long lastModified, String etag, boolean immutable) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.etag = etag;
+            this.immutable = immutable;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public boolean isImmutable() {
+            return immutable;
+        }
+    }
+
+    private final Map<Path, Validators> validators = new ConcurrentHashMap<>();
+
+    public Validators of(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        Path key = file.toAbsolutePath().normalize();
+
+        Validators known = validators.get(key);
+        if (known != null && known.size == size && known.lastModified == modified
+                && (known.immutable || !isClosedSegment(file, modified))) {
+            return known;
+        }
+
+        boolean immutable = isClosedSegment(file, modified);
+        String hash = null;
+        AudioFile audioFile = audioFileRepository.findFirstByFilePath(AudioMetadataService.storageKey(file)).orElse(null);
+        if (audioFile != null && audioFile.getContentHash() != null && audioFile.getSize() == size
+                && audioFile.getLastModified() != null && audioFile.getLastModified() == modified) {
+            hash = audioFile.getContentHash();
+        } else if (immutable) {
+            hash = contentHashService.hashOf(file);
+        }
+        String etag = hash != null
+                ? "\"" + hash.substring(0, Math.min(hash.length(), 32)) + "\""
+                : "\"" + Long.toHexString(size) + "-" + Long.toHexString(modified) + "\"";
+
+        Validators computed = new Validators(size, modified, etag, immutable);
+        if (validators.size() >= maxEntries) {
+            validators.clear();
+        }
+        validators.put(key, computed);
+        return computed;
+    }
+
+    // Segmento gravado (original ou compactado pela retenção) que o gravador já fechou
+    private boolean isClosedSegment(Path file, long modified) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(RetentionService.COMPACT_EXTENSION)) {
+            name = name.substring(0, name.length() - RetentionService.COMPACT_EXTENSION.length()) + ".mp3";
+        }
+        if (SegmentCatalogService.segmentStart(name) == null
+                || System.currentTimeMillis() - modified < CLOSED_AFTER_MILLIS) {
+            return false;
+        }
+        Path absolute = file.toAbsolutePath().normalize();
+        for (StationRecorder recorder : liveRecorderService.recorders()) {
+            Path current = recorder.getCurrentSegment();
+            if (current != null && current.toAbsolutePath().normalize().equals(absolute)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.audio.service;
+
+// Arquivo conhecido pelo catálogo em memória
+public class CatalogEntry {
+
+    private final String name;
+    private final long size;
+    private final long lastModified;
+
+    public CatalogEntry(String name, long size, long lastModified) {
+        this.name = name;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+}
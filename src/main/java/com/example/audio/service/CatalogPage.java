@@ -0,0 +1,30 @@
+package com.example.audio.service;
+
+import java.util.List;
+
+// Página de uma listagem do catálogo; nextCursor é o valor de "after" para a página seguinte (null no fim)
+public class CatalogPage {
+
+    private final List<CatalogEntry> items;
+    private final String nextCursor;
+    private final int directoryCount;
+
+    public CatalogPage(List<CatalogEntry> items, String nextCursor, int directoryCount) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.directoryCount = directoryCount;
+    }
+
+    public List<CatalogEntry> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    // Total de arquivos no diretório, sem filtros
+    public int getDirectoryCount() {
+        return directoryCount;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.audio.service;
+
+import com.example.audio.model.AudioFile;
+import com.example.audio.repository.AudioFileRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+
+// SHA-256 e CRC-32 do conteúdo de um arquivo de áudio, guardados no AudioFile (content_hash, content_crc32) e
+// recalculados apenas quando o tamanho ou a data de modificação mudam
+@Service
+public class ContentHashService {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    @Autowired
+    private AudioMetadataService audioMetadataService;
+
+    @Autowired
+    private AudioFileRepository audioFileRepository;
+
+    public String hashOf(Path file) throws IOException {
+        AudioFile audioFile = audioMetadataService.describe(file);
+        if (audioFile.getContentHash() != null) {
+            return audioFile.getContentHash();
+        }
+        String hash = sha256(file);
+        audioFile.setContentHash(hash);
+        audioFileRepository.save(audioFile);
+        return hash;
+    }
+
+    // CRC-32 do arquivo inteiro (entradas STORED de ZIP), calculado uma vez e reaproveitado nas exportações
+    public long crcOf(Path file) throws IOException {
+        AudioFile audioFile = audioMetadataService.describe(file);
+        if (audioFile.getContentCrc32() != null) {
+            return audioFile.getContentCrc32();
+        }
+        long crc = crc32(file, 0, audioFile.getSize());
+        audioFile.setContentCrc32(crc);
+        audioFileRepository.save(audioFile);
+        return crc;
+    }
+
+    // CRC-32 dos bytes [from, to) de um arquivo
+    public static long crc32(Path file, long from, long to) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return crc32(channel, from, to);
+        }
+    }
+
+    // Mesmo que o anterior sobre um canal já aberto
+    public static long crc32(FileChannel channel, long from, long to) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long position = from;
+        while (position < to) {
+            buffer.clear();
+            buffer.limit((int) Math.min(BUFFER_SIZE, to - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Arquivo menor que o esperado");
+            }
+            buffer.flip();
+            crc.update(buffer);
+            position += read;
+        }
+        return crc.getValue();
+    }
+
+    public static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return UploadService.toHex(digest.digest());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.audio.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+// Cache de cortes endereçado pelo conteúdo: a chave é (hash da origem, início, duração, opções de codec).
+// Pedidos idênticos simultâneos compartilham uma única execução; o espaço em disco é limitado com remoção LRU.
+@Service
+public class CutCacheService {
+
+    // Pasta oculta dentro de C:/cortes (não aparece nas listagens)
+    @Value("${audio.cut.cache.dir:C:/cortes/.cache}")
+    private String cacheDir;
+
+    // Espaço máximo ocupado pelo cache
+    @Value("${audio.cut.cache.max-bytes:10737418240}")
+    private long maxBytes;
+
+    // Produz o corte no arquivo indicado; se retornar sem criá-lo, o corte foi cancelado
+    public interface Producer {
+        void produce(Path target) throws IOException, InterruptedException;
+    }
+
+    private DiskLruCache cache;
+    private final Map<String, CompletableFuture<Path>> inflight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        cache = new DiskLruCache(Paths.get(cacheDir), maxBytes);
+        cache.open();
+    }
+
+    public static String key(String contentHash, double startSeconds, double durationSeconds, String options) {
+        String raw = contentHash + "|" + String.format(Locale.ROOT, "%.3f|%.3f|", startSeconds, durationSeconds) + options;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return UploadService.toHex(digest).substring(0, 40);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Corte em cache, ou null se não existir
+    public Path lookup(String key, String extension) throws IOException {
+        return cache.lookup(key + extension);
+    }
+
+    // Retorna o corte do cache ou o produz; pedidos iguais em andamento aguardam a mesma produção.
+    // Retorna null se a produção foi cancelada.
+    public Path getOrCreate(String key, String extension, Producer producer) throws IOException, InterruptedException {
+        while (true) {
+            Path cached = lookup(key, extension);
+            if (cached != null) {
+                return cached;
+            }
+
+            CompletableFuture<Path> mine = new CompletableFuture<>();
+            CompletableFuture<Path> existing = inflight.putIfAbsent(key, mine);
+            if (existing != null) {
+                cache.recordCoalesced();
+                try {
+                    Path produced = existing.get();
+                    if (produced != null) {
+                        return produced;
+                    }
+                    // A produção compartilhada foi cancelada: tenta novamente por conta própria
+                    continue;
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+                            : new IOException(e.getCause());
+                }
+            }
+
+            cache.recordMiss();
+            try {
+                Path produced = produce(key, extension, producer);
+                mine.complete(produced);
+                return produced;
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inflight.remove(key, mine);
+            }
+        }
+    }
+
+    private Path produce(String key, String extension, Producer producer) throws IOException, InterruptedException {
+        Path temp = tempFile(key, extension);
+        try {
+            producer.produce(temp);
+            if (!Files.isRegularFile(temp)) {
+                return null;
+            }
+            return store(key, extension, temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Arquivo temporário dentro do cache para produzir uma entrada; a extensão fica no fim para o
+    // FFmpeg deduzir o formato de saída
+    public Path tempFile(String key, String extension) throws IOException {
+        return cache.tempFile(key, extension);
+    }
+
+    // Temporário exclusivo para quem produz fora de getOrCreate (ex.: um FFmpeg com várias saídas): não colide
+    // com o temporário de uma produção da mesma chave em andamento, que getOrCreate apaga ao terminar
+    public Path uniqueTempFile(String key, String extension) throws IOException {
+        return cache.uniqueTempFile(key, extension);
+    }
+
+    // Move um corte já produzido (ex.: uma das saídas de um FFmpeg com várias saídas) para o cache
+    public Path store(String key, String extension, Path produced) throws IOException {
+        return cache.store(key + extension, produced);
+    }
+
+    // Publica o corte em cache como arquivo visível (ex.: C:/cortes/<data>/cortes_x.mp3), sem copiar os dados: o
+    // arquivo conta no limite do cache e sai junto com a entrada. Retorna null se a entrada já saiu do cache.
+    public Path publish(String key, String extension, Path output) throws IOException {
+        return cache.publish(key + extension, output);
+    }
+
+    // Contadores do cache no formato retornado pela API
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = cache.stats();
+        stats.put("inflight", inflight.size());
+        return stats;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.audio.service;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Representa um corte de áudio submetido ao pool de workers, com estado próprio
+public class CutJob {
+
+    public enum Status { QUEUED, RUNNING, PAUSED, COMPLETED, FAILED, CANCELLED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String radioName;
+    private final String fileName;
+    private final double startSeconds;
+    private final double durationSeconds;
+    private final Instant createdAt = Instant.now();
+    private final AudioCutProgress progress = new AudioCutProgress();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile boolean paused = false;
+    private volatile boolean started = false;
+    private volatile boolean cancelled = false;
+    private volatile Process process;
+    private volatile Future<?> future;
+    private volatile String outputFileName;
+    private volatile String errorMessage;
+    private volatile Instant finishedAt;
+    private final Consumer<CutJob> listener;
+
+    public CutJob(String radioName, String fileName, double startSeconds, double durationSeconds) {
+        this(radioName, fileName, startSeconds, durationSeconds, job -> { });
+    }
+
+    // O listener é notificado a cada mudança de progresso ou de estado
+    public CutJob(String radioName, String fileName, double startSeconds, double durationSeconds,
+                  Consumer<CutJob> listener) {
+        this.radioName = radioName;
+        this.fileName = fileName;
+        this.startSeconds = startSeconds;
+        this.durationSeconds = durationSeconds;
+        this.listener = listener;
+    }
+
+    // Atualiza o percentual do corte, notificando apenas quando o valor muda
+    public void updateProgress(int percent) {
+        if (progress.getProgress() != percent) {
+            progress.setProgress(percent);
+            listener.accept(this);
+        }
+    }
+
+    // Estado atual do corte no formato retornado pela API
+    public Map<String, Object> describe() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", id);
+        response.put("status", status);
+        response.put("progress", progress.getProgress());
+        response.put("radioName", radioName);
+        response.put("fileName", fileName);
+        response.put("outputFileName", outputFileName);
+        response.put("error", errorMessage);
+        return response;
+    }
+
+    // Bloqueia o worker enquanto o corte estiver pausado
+    public synchronized void awaitIfPaused() throws InterruptedException {
+        while (paused && !cancelled) {
+            wait();
+        }
+    }
+
+    public synchronized void pause() {
+        if (!isFinished()) {
+            paused = true;
+            status = Status.PAUSED;
+            listener.accept(this);
+        }
+    }
+
+    // Um corte pausado ainda na fila volta para a fila; só passa a RUNNING se o worker já o pegou
+    public synchronized void resume() {
+        paused = false;
+        if (status == Status.PAUSED) {
+            status = started ? Status.RUNNING : Status.QUEUED;
+            listener.accept(this);
+        }
+        notifyAll();
+    }
+
+    // Cancela o corte: interrompe o worker e encerra o processo FFmpeg, se houver
+    public synchronized void cancel() {
+        if (isFinished()) {
+            return;
+        }
+        cancelled = true;
+        notifyAll();
+        Process current = process;
+        if (current != null) {
+            current.destroy();
+        }
+        Future<?> task = future;
+        if (task != null) {
+            task.cancel(true);
+        }
+        finish(Status.CANCELLED, null);
+    }
+
+    synchronized void start() {
+        started = true;
+        if (status == Status.QUEUED) {
+            status = paused ? Status.PAUSED : Status.RUNNING;
+            listener.accept(this);
+        }
+    }
+
+    synchronized void finish(Status finalStatus, String error) {
+        if (isFinished()) {
+            return;
+        }
+        status = finalStatus;
+        errorMessage = error;
+        finishedAt = Instant.now();
+        if (finalStatus == Status.COMPLETED) {
+            progress.setProgress(100);
+        }
+        listener.accept(this);
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRadioName() {
+        return radioName;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public double getStartSeconds() {
+        return startSeconds;
+    }
+
+    public double getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public AudioCutProgress getProgress() {
+        return progress;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public Process getProcess() {
+        return process;
+    }
+
+    void setProcess(Process process) {
+        this.process = process;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public String getOutputFileName() {
+        return outputFileName;
+    }
+
+    void setOutputFileName(String outputFileName) {
+        this.outputFileName = outputFileName;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
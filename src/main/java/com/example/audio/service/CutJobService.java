@@ -0,0 +1,158 @@
+package com.example.audio.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Registro de cortes em andamento e pool limitado de workers que os executa
+@Service
+public class CutJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(CutJobService.class);
+
+    @Autowired
+    private AudioService audioService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CutProgressBroadcaster progressBroadcaster;
+
+    // Número de workers (0 = um por núcleo disponível)
+    @Value("${audio.cut.workers:0}")
+    private int workers;
+
+    // Quantidade máxima de cortes aguardando na fila
+    @Value("${audio.cut.queue-capacity:200}")
+    private int queueCapacity;
+
+    // Tempo que um corte finalizado permanece consultável
+    @Value("${audio.cut.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final Map<String, CutJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "cut-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        meterRegistry.gauge("audio.jobs.active", Tags.of("type", "cut"), executor, ThreadPoolExecutor::getActiveCount);
+        meterRegistry.gauge("audio.jobs.queued", Tags.of("type", "cut"), executor, pool -> pool.getQueue().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(CutJob::cancel);
+        executor.shutdownNow();
+    }
+
+    // Enfileira um novo corte e retorna imediatamente; lança RejectedExecutionException se a fila estiver cheia
+    public CutJob submit(String radioName, String fileName, double start, double duration) {
+        CutJob job = new CutJob(radioName, fileName, start, duration, progressBroadcaster::publish);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    private void run(CutJob job) {
+        if (job.isCancelled()) {
+            return;
+        }
+        job.start();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            audioService.cutAudioFile(job);
+            if (job.isCancelled()) {
+                job.finish(CutJob.Status.CANCELLED, null);
+            } else {
+                job.finish(CutJob.Status.COMPLETED, null);
+                recordBytesWritten(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(CutJob.Status.CANCELLED, null);
+        } catch (Exception e) {
+            log.error("Falha no corte {} de {}/{}", job.getId(), job.getRadioName(), job.getFileName(), e);
+            job.finish(job.isCancelled() ? CutJob.Status.CANCELLED : CutJob.Status.FAILED, e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("audio.cut.duration",
+                    "outcome", job.getStatus().name().toLowerCase()));
+        }
+    }
+
+    private void recordBytesWritten(CutJob job) {
+        if (job.getOutputFileName() == null) {
+            return;
+        }
+        try {
+            DistributionSummary.builder("audio.cut.bytes")
+                    .baseUnit("bytes")
+                    .register(meterRegistry)
+                    .record(Files.size(Paths.get("C:/cortes", job.getOutputFileName())));
+        } catch (IOException e) {
+            // Arquivo removido logo após o corte: não entra na métrica
+        }
+    }
+
+    public Optional<CutJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public Collection<CutJob> list() {
+        return jobs.values();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    // Remove do registro os cortes finalizados há mais tempo que o período de retenção
+    @Scheduled(fixedDelay = 60000)
+    public void purgeFinishedJobs() {
+        Instant limit = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(limit));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.audio.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Envia o progresso dos cortes aos clientes inscritos via Server-Sent Events
+@Service
+public class CutProgressBroadcaster {
+
+    private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    // Estado de um corte a enviar
+    private static final class Update {
+        private final Map<String, Object> snapshot;
+        private final boolean finished;
+
+        Update(Map<String, Object> snapshot, boolean finished) {
+            this.snapshot = snapshot;
+            this.finished = finished;
+        }
+    }
+
+    // Cliente inscrito: guarda só o estado mais recente ainda não enviado, então um cliente lento perde os
+    // intermediários em vez de acumular eventos, e no máximo uma tarefa de envio por cliente fica ativa
+    private static final class Subscriber {
+        private final String jobId;
+        private final SseEmitter emitter;
+        private final AtomicReference<Update> latest = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Subscriber(String jobId, SseEmitter emitter) {
+            this.jobId = jobId;
+            this.emitter = emitter;
+        }
+    }
+
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // Envios em threads próprias, uma por cliente com evento pendente: um cliente lento não atrasa os workers de
+    // corte nem os demais clientes
+    private final AtomicInteger senderCounter = new AtomicInteger();
+    private final ExecutorService sender = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "cut-progress-sse-" + senderCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Inscreve um cliente para receber o progresso de um corte; o estado atual é enviado de imediato
+    public SseEmitter subscribe(CutJob job) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(job.getId(), emitter);
+        subscribers.computeIfAbsent(job.getId(), id -> new CopyOnWriteArrayList<>()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        publish(job);
+        return emitter;
+    }
+
+    // Publica o estado atual do corte para todos os inscritos; encerra os streams quando o corte termina
+    public void publish(CutJob job) {
+        List<Subscriber> jobSubscribers = subscribers.get(job.getId());
+        if (jobSubscribers == null) {
+            return;
+        }
+        boolean finished = job.isFinished();
+        Update update = new Update(job.describe(), finished);
+        for (Subscriber subscriber : jobSubscribers) {
+            subscriber.latest.set(update);
+            schedule(subscriber);
+        }
+        if (finished) {
+            subscribers.remove(job.getId());
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            // O envio em andamento pega o estado novo ao terminar o atual
+            return;
+        }
+        try {
+            sender.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // Encerrando
+            subscriber.sending.set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            Update update;
+            while ((update = subscriber.latest.getAndSet(null)) != null) {
+                try {
+                    subscriber.emitter.send(SseEmitter.event().name("progress").data(update.snapshot));
+                    if (update.finished) {
+                        subscriber.emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Cliente desconectado
+                    remove(subscriber);
+                    return;
+                }
+            }
+            subscriber.sending.set(false);
+        } while (subscriber.latest.get() != null && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.latest.set(null);
+        List<Subscriber> jobSubscribers = subscribers.get(subscriber.jobId);
+        if (jobSubscribers != null) {
+            jobSubscribers.remove(subscriber);
+            if (jobSubscribers.isEmpty()) {
+                subscribers.remove(subscriber.jobId, jobSubscribers);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.values().forEach(list -> list.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Pasta de arquivos limitada em bytes, com remoção dos menos usados recentemente (LRU). Usada pelo cache de
+// cortes e pelo de versões de reprodução; quem a usa cuida de produzir os arquivos e de juntar pedidos iguais.
+// Temporários ficam na mesma pasta com ".tmp" no nome e são apagados ao abrir.
+// Uma entrada pode ser publicada fora da pasta (o corte visível em C:/cortes/<data>/, como hard link ou cópia):
+// a publicação conta no limite e é removida junto com a entrada, registrada em "<nome>.links" para sobreviver
+// a reinícios.
+public final class DiskLruCache {
+
+    public static final String TEMP_MARKER = ".tmp";
+    private static final String LINKS_SUFFIX = ".links";
+
+    // Arquivo publicado fora da pasta e quantos bytes ele ocupa além da entrada (zero para um hard link)
+    private static final class Output {
+        private final Path path;
+        private final long extraBytes;
+
+        Output(Path path, long extraBytes) {
+            this.path = path;
+            this.extraBytes = extraBytes;
+        }
+    }
+
+    private static final class Entry {
+        private final long size;
+        private final List<Output> outputs = new ArrayList<>();
+
+        Entry(long size) {
+            this.size = size;
+        }
+
+        long bytes() {
+            long bytes = size;
+            for (Output output : outputs) {
+                bytes += output.extraBytes;
+            }
+            return bytes;
+        }
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Nome do arquivo → entrada, em ordem de acesso (o primeiro é o menos usado recentemente). A ordem fica só em
+    // memória: um acerto não altera o arquivo, cuja data de modificação também é a dos cortes publicados
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public DiskLruCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    // Reconstrói o índice a partir do disco. Sem o histórico de acessos, a ordem inicial é a de criação.
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        Map<Path, Long> created = new HashMap<>();
+        List<Path> valid = new ArrayList<>();
+        List<Path> links = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.contains(TEMP_MARKER)) {
+                Files.deleteIfExists(file);
+            } else if (name.endsWith(LINKS_SUFFIX)) {
+                links.add(file);
+            } else {
+                created.put(file, Files.getLastModifiedTime(file).toMillis());
+                valid.add(file);
+            }
+        }
+        valid.sort(Comparator.comparing(created::get));
+        synchronized (this) {
+            entries.clear();
+            totalBytes = 0;
+            // Consulta fora do LinkedHashMap, que em ordem de acesso seria reordenado a cada get
+            Map<String, Entry> loaded = new HashMap<>();
+            for (Path file : valid) {
+                Entry entry = new Entry(Files.size(file));
+                entries.put(file.getFileName().toString(), entry);
+                loaded.put(file.getFileName().toString(), entry);
+            }
+            for (Path file : links) {
+                String name = file.getFileName().toString();
+                Entry entry = loaded.get(name.substring(0, name.length() - LINKS_SUFFIX.length()));
+                List<Output> outputs = readLinks(file);
+                if (entry == null) {
+                    // Remoção interrompida: a entrada já saiu, as publicações dela também saem
+                    for (Output output : outputs) {
+                        Files.deleteIfExists(output.path);
+                    }
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                for (Output output : outputs) {
+                    if (Files.exists(output.path)) {
+                        entry.outputs.add(output);
+                    }
+                }
+            }
+            for (Entry entry : entries.values()) {
+                totalBytes += entry.bytes();
+            }
+            evict(null);
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Arquivo em cache, ou null se não existir; um acerto o torna o mais recente
+    public Path lookup(String name) throws IOException {
+        Path file = directory.resolve(name);
+        synchronized (this) {
+            if (entries.get(name) == null) {
+                return null;
+            }
+        }
+        if (!Files.isRegularFile(file)) {
+            synchronized (this) {
+                Entry entry = entries.remove(name);
+                if (entry != null) {
+                    totalBytes -= entry.bytes();
+                }
+            }
+            return null;
+        }
+        hits.incrementAndGet();
+        return file;
+    }
+
+    // Temporário de nome fixo para produzir "prefix" + "suffix"; a extensão fica no fim para o FFmpeg deduzir o
+    // formato de saída. Só quem registrou a produção em andamento deve usá-lo.
+    public Path tempFile(String prefix, String suffix) throws IOException {
+        Files.createDirectories(directory);
+        return directory.resolve(prefix + TEMP_MARKER + suffix);
+    }
+
+    // Temporário exclusivo, que não colide com o de nenhuma outra produção
+    public Path uniqueTempFile(String prefix, String suffix) throws IOException {
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, prefix + TEMP_MARKER, suffix);
+    }
+
+    // Move um arquivo já produzido para o cache com o nome "name" e remove os menos usados se passar do limite
+    public Path store(String name, Path produced) throws IOException {
+        Path target = directory.resolve(name);
+        StreamingCut.moveIntoPlace(produced, target);
+        long size = Files.size(target);
+        synchronized (this) {
+            Entry entry = new Entry(size);
+            Entry previous = entries.put(name, entry);
+            if (previous != null) {
+                // Publicações do arquivo substituído continuam controladas pelo cache
+                entry.outputs.addAll(previous.outputs);
+            }
+            totalBytes += entry.bytes() - (previous != null ? previous.bytes() : 0);
+            evict(name);
+        }
+        return target;
+    }
+
+    // Publica a entrada em "output" como hard link (cópia se o sistema de arquivos não suportar). Uma publicação
+    // já feita no mesmo caminho é reaproveitada. Retorna null se a entrada saiu do cache; lança
+    // FileAlreadyExistsException se "output" for um arquivo que não veio desta entrada.
+    public synchronized Path publish(String name, Path output) throws IOException {
+        Entry entry = entries.get(name);
+        Path file = directory.resolve(name);
+        if (entry == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        for (Output existing : entry.outputs) {
+            if (existing.path.equals(output) && Files.exists(output)) {
+                return output;
+            }
+        }
+        long extraBytes = 0;
+        try {
+            Files.createLink(output, file);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            Path part = Files.createTempFile(output.getParent(), "." + output.getFileName(), TEMP_MARKER);
+            try {
+                Files.copy(file, part, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(part, output);
+            } finally {
+                Files.deleteIfExists(part);
+            }
+            extraBytes = entry.size;
+        }
+        entry.outputs.removeIf(existing -> existing.path.equals(output));
+        entry.outputs.add(new Output(output, extraBytes));
+        writeLinks(name, entry);
+        totalBytes += extraBytes;
+        evict(name);
+        return output;
+    }
+
+    // Pedido que não estava em cache e vai ser produzido
+    public void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    // Pedido que aguardou a produção já em andamento de outro
+    public void recordCoalesced() {
+        coalesced.incrementAndGet();
+    }
+
+    // Remove os menos usados (com as publicações) até caber no limite, preservando a entrada recém-usada
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            Entry entry = eldest.getValue();
+            try {
+                Iterator<Output> outputs = entry.outputs.iterator();
+                while (outputs.hasNext()) {
+                    Output output = outputs.next();
+                    Files.deleteIfExists(output.path);
+                    totalBytes -= output.extraBytes;
+                    outputs.remove();
+                }
+                Files.deleteIfExists(directory.resolve(eldest.getKey()));
+                Files.deleteIfExists(directory.resolve(eldest.getKey() + LINKS_SUFFIX));
+            } catch (IOException e) {
+                // Arquivo em uso (Windows): fica para a próxima remoção
+                continue;
+            }
+            totalBytes -= entry.size;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    // Uma publicação por linha: bytes extras, tabulação e o caminho
+    private void writeLinks(String name, Entry entry) throws IOException {
+        List<String> lines = new ArrayList<>(entry.outputs.size());
+        for (Output output : entry.outputs) {
+            lines.add(output.extraBytes + "\t" + output.path.toAbsolutePath());
+        }
+        Path temp = uniqueTempFile(name, LINKS_SUFFIX);
+        try {
+            Files.write(temp, lines, StandardCharsets.UTF_8);
+            StreamingCut.moveIntoPlace(temp, directory.resolve(name + LINKS_SUFFIX));
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static List<Output> readLinks(Path file) throws IOException {
+        List<Output> outputs = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            try {
+                outputs.add(new Output(Paths.get(line.substring(tab + 1)), Long.parseLong(line.substring(0, tab))));
+            } catch (RuntimeException e) {
+                // Linha corrompida: a publicação deixa de ser controlada pelo cache
+            }
+        }
+        return outputs;
+    }
+
+    // Contadores no formato retornado pela API
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new HashMap<>();
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        int outputs = 0;
+        for (Entry entry : entries.values()) {
+            outputs += entry.outputs.size();
+        }
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("coalesced", coalesced.get());
+        stats.put("evictions", evictions.get());
+        stats.put("hitRatio", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        stats.put("entries", entries.size());
+        stats.put("outputs", outputs);
+        stats.put("bytes", totalBytes);
+        stats.put("maxBytes", maxBytes);
+        return stats;
+    }
+}
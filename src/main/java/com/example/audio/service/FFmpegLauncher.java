@@ -0,0 +1,64 @@
+package com.example.audio.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Ponto único de criação dos processos FFmpeg: mede o tempo de criação do processo, conta processos
+// ativos e registra o comando e a saída com log estruturado e limitado
+@Component
+public class FFmpegLauncher {
+
+    private static final Logger log = LoggerFactory.getLogger(FFmpegLauncher.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Limite de linhas de saída do FFmpeg registradas por segundo (todas as execuções somadas)
+    @Value("${audio.ffmpeg.log-lines-per-second:20}")
+    private int logLinesPerSecond;
+
+    private final AtomicInteger running = new AtomicInteger();
+    private RateLimitedLog outputLog;
+
+    @PostConstruct
+    public void init() {
+        outputLog = new RateLimitedLog(log, logLinesPerSecond);
+        meterRegistry.gauge("audio.ffmpeg.running", running);
+    }
+
+    // Inicia o processo; "purpose" identifica o uso (cut, stream-cut, batch-cut, recorder, probe, pcm) nas métricas
+    public Process start(String purpose, ProcessBuilder processBuilder) throws IOException {
+        log.debug("FFmpeg [{}]: {}", purpose, String.join(" ", processBuilder.command()));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Process process;
+        try {
+            process = processBuilder.start();
+        } catch (IOException e) {
+            Counter.builder("audio.ffmpeg.spawn.failures").tag("purpose", purpose)
+                    .register(meterRegistry).increment();
+            throw e;
+        }
+        sample.stop(Timer.builder("audio.ffmpeg.spawn")
+                .description("Tempo para criar o processo FFmpeg")
+                .tag("purpose", purpose)
+                .register(meterRegistry));
+        running.incrementAndGet();
+        process.onExit().thenRun(running::decrementAndGet);
+        return process;
+    }
+
+    // Linha de saída do FFmpeg que não é progresso (avisos, erros)
+    public void logOutput(String purpose, String line) {
+        outputLog.info("FFmpeg [{}]: {}", purpose, line);
+    }
+}
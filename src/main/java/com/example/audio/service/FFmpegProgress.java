@@ -0,0 +1,60 @@
+package com.example.audio.service;
+
+// Interpretação da saída "-progress" do FFmpeg (linhas chave=valor) e de tempos "hh:mm:ss.xx"
+public final class FFmpegProgress {
+
+    // Argumentos que fazem o FFmpeg escrever o progresso em formato de máquina na saída padrão
+    public static final String[] PROGRESS_ARGS = {"-progress", "pipe:1", "-nostats"};
+
+    private FFmpegProgress() {
+    }
+
+    // Retorna a posição em microssegundos de uma linha "out_time_us=..." (ou "out_time=hh:mm:ss"),
+    // ou -1 se a linha não informar a posição
+    public static long parseOutTimeMicros(String line) {
+        int separator = line.indexOf('=');
+        if (separator <= 0) {
+            return -1;
+        }
+        String key = line.substring(0, separator).trim();
+        String value = line.substring(separator + 1).trim();
+        try {
+            switch (key) {
+                // Versões antigas do FFmpeg escrevem microssegundos também em out_time_ms
+                case "out_time_us":
+                case "out_time_ms":
+                    return Long.parseLong(value);
+                case "out_time":
+                    return (long) (parseFFmpegTime(value) * 1_000_000);
+                default:
+                    return -1;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // "N/A" antes do primeiro pacote
+            return -1;
+        }
+    }
+
+    // Indica se a linha é o marcador de fim do relatório de progresso ("progress=end")
+    public static boolean isEnd(String line) {
+        return "progress=end".equals(line.trim());
+    }
+
+    // Percentual (0 a 99) da posição atual em relação à duração solicitada; 100 fica reservado para a conclusão
+    public static int percentOf(long outTimeMicros, double durationSeconds) {
+        if (outTimeMicros <= 0 || durationSeconds <= 0) {
+            return 0;
+        }
+        double percent = outTimeMicros / (durationSeconds * 10_000);
+        return (int) Math.max(0, Math.min(99, percent));
+    }
+
+    // Função auxiliar para analisar o tempo no formato "hh:mm:ss.xx" para segundos
+    public static double parseFFmpegTime(String timeStr) {
+        String[] parts = timeStr.trim().split(":");
+        double hours = Double.parseDouble(parts[0]);
+        double minutes = Double.parseDouble(parts[1]);
+        double seconds = Double.parseDouble(parts[2]);
+        return hours * 3600 + minutes * 60 + seconds;
+    }
+}
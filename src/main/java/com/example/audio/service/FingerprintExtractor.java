@@ -0,0 +1,235 @@
+package com.example.audio.service;
+
+import java.util.Arrays;
+
+// Impressão digital acústica calculada em streaming sobre o PCM mono do PcmPipeline: picos espectrais (máximos
+// locais em tempo e frequência do espectro em log) combinados em pares. Cada hash codifica a frequência do pico âncora,
+// a diferença de frequência para um pico seguinte e a distância entre eles em quadros; o quadro do âncora é o
+// deslocamento do hash no arquivo. Os pares dependem só das posições relativas dos picos, não do volume.
+final class FingerprintExtractor {
+
+    // Recebe os hashes na ordem em que são calculados
+    interface Sink {
+        void accept(int hash, int frame);
+    }
+
+    // Quadros a cada 20 ms, analisados por uma FFT de 1024 pontos (64 ms a 16 kHz, bins de 15,6 Hz)
+    static final int FRAME_MILLIS = 20;
+    private static final int FFT_SIZE = 1024;
+
+    // Faixa considerada: ~300 Hz a ~4 kHz, onde locução, vinhetas e trilhas concentram os picos
+    private static final int MIN_BIN = 20;
+    private static final int MAX_BIN = 255;
+
+    // Vizinhança em que um pico precisa ser o máximo: ±NEIGHBOR_FRAMES quadros (240 ms) e ±NEIGHBOR_BINS bins
+    // (~230 Hz). Junto com os pares por âncora, limita a densidade a algumas dezenas de hashes por segundo.
+    private static final int NEIGHBOR_FRAMES = 12;
+    private static final int NEIGHBOR_BINS = 15;
+    private static final int HISTORY = 2 * NEIGHBOR_FRAMES + 1;
+    private static final int PEAKS_PER_FRAME = 2;
+    private static final int FAN_OUT = 3;
+
+    // Limites do par: distância em quadros (6 bits) e diferença de frequência em bins (8 bits com sinal)
+    private static final int MIN_DT = 1;
+    private static final int MAX_DT = 63;
+    private static final int MAX_DF = 127;
+
+    // Quadros abaixo desta energia média (~ -80 dBFS) não geram picos
+    private static final double SILENCE_ENERGY = 1e-8;
+    private static final double SILENT = Double.NEGATIVE_INFINITY;
+
+    private static final int RECENT_PEAKS = 256;
+
+    private final Sink sink;
+    private final int hop;
+
+    private final double[] window = new double[FFT_SIZE];
+    private final double[] cos = new double[FFT_SIZE / 2];
+    private final double[] sin = new double[FFT_SIZE / 2];
+    private final int[] reversed = new int[FFT_SIZE];
+
+    private final double[] ring = new double[FFT_SIZE];
+    private int ringPosition = 0;
+    private long samplesSeen = 0;
+    private int sinceFrame = 0;
+
+    private final double[] re = new double[FFT_SIZE];
+    private final double[] im = new double[FFT_SIZE];
+    // Espectros dos últimos HISTORY quadros e, para cada um, o máximo na vizinhança de frequência de cada bin;
+    // o quadro central é avaliado quando os NEIGHBOR_FRAMES seguintes já foram calculados
+    private final double[][] magnitude = new double[HISTORY][MAX_BIN + 1];
+    private final double[][] bandMax = new double[HISTORY][MAX_BIN + 1];
+    private int frame = 0;
+    private final int[] peaks = new int[PEAKS_PER_FRAME];
+
+    // Picos recentes (âncoras que ainda podem formar pares), em ordem de quadro
+    private final int[] peakFrame = new int[RECENT_PEAKS];
+    private final int[] peakBin = new int[RECENT_PEAKS];
+    private final int[] peakPairs = new int[RECENT_PEAKS];
+    private int peakHead = 0;
+    private int peakCount = 0;
+
+    FingerprintExtractor(int sampleRate, Sink sink) {
+        this.sink = sink;
+        this.hop = sampleRate * FRAME_MILLIS / 1000;
+        for (int i = 0; i < FFT_SIZE; i++) {
+            window[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / FFT_SIZE);
+        }
+        for (int i = 0; i < FFT_SIZE / 2; i++) {
+            cos[i] = Math.cos(-2 * Math.PI * i / FFT_SIZE);
+            sin[i] = Math.sin(-2 * Math.PI * i / FFT_SIZE);
+        }
+        int bits = Integer.numberOfTrailingZeros(FFT_SIZE);
+        for (int i = 0; i < FFT_SIZE; i++) {
+            reversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+        for (double[] row : magnitude) {
+            Arrays.fill(row, SILENT);
+        }
+        for (double[] row : bandMax) {
+            Arrays.fill(row, SILENT);
+        }
+    }
+
+    static int hash(int anchorBin, int targetBin, int dt) {
+        return (anchorBin << 14) | ((targetBin - anchorBin + 128) << 6) | dt;
+    }
+
+    // Quadros analisados até agora (duração em múltiplos de FRAME_MILLIS)
+    int getFrames() {
+        return frame;
+    }
+
+    void accept(short[] samples, int count) {
+        for (int i = 0; i < count; i++) {
+            ring[ringPosition] = samples[i] / 32768.0;
+            ringPosition = (ringPosition + 1) & (FFT_SIZE - 1);
+            samplesSeen++;
+            if (samplesSeen >= FFT_SIZE && ++sinceFrame >= hop) {
+                sinceFrame = 0;
+                analyzeFrame();
+                if (frame >= NEIGHBOR_FRAMES) {
+                    pickPeaks(frame - NEIGHBOR_FRAMES);
+                }
+                frame++;
+            }
+        }
+    }
+
+    private void analyzeFrame() {
+        double[] spectrum = magnitude[frame % HISTORY];
+        double[] neighborhood = bandMax[frame % HISTORY];
+        double energy = 0;
+        for (int i = 0; i < FFT_SIZE; i++) {
+            double sample = ring[(ringPosition + i) & (FFT_SIZE - 1)];
+            energy += sample * sample;
+            int target = reversed[i];
+            re[target] = sample * window[i];
+            im[target] = 0;
+        }
+        if (energy / FFT_SIZE < SILENCE_ENERGY) {
+            Arrays.fill(spectrum, SILENT);
+            Arrays.fill(neighborhood, SILENT);
+            return;
+        }
+        fft();
+        for (int k = MIN_BIN; k <= MAX_BIN; k++) {
+            spectrum[k] = Math.log(re[k] * re[k] + im[k] * im[k] + 1e-12);
+        }
+        for (int k = MIN_BIN; k <= MAX_BIN; k++) {
+            double max = SILENT;
+            for (int j = Math.max(MIN_BIN, k - NEIGHBOR_BINS); j <= Math.min(MAX_BIN, k + NEIGHBOR_BINS); j++) {
+                max = Math.max(max, spectrum[j]);
+            }
+            neighborhood[k] = max;
+        }
+    }
+
+    // Picos do quadro "center": bins que são o máximo da vizinhança em tempo e frequência (os mais fortes primeiro)
+    private void pickPeaks(int center) {
+        double[] spectrum = magnitude[center % HISTORY];
+        int first = Math.max(0, center - NEIGHBOR_FRAMES);
+        int last = center + NEIGHBOR_FRAMES;
+        int found = 0;
+        for (int k = MIN_BIN; k <= MAX_BIN; k++) {
+            double value = spectrum[k];
+            if (value == SILENT || value < bandMax[center % HISTORY][k]) {
+                continue;
+            }
+            boolean peak = true;
+            for (int f = first; f <= last && peak; f++) {
+                if (f != center && bandMax[f % HISTORY][k] >= value) {
+                    peak = false;
+                }
+            }
+            if (!peak) {
+                continue;
+            }
+            if (found < PEAKS_PER_FRAME) {
+                peaks[found++] = k;
+            } else {
+                int weakest = 0;
+                for (int i = 1; i < found; i++) {
+                    if (spectrum[peaks[i]] < spectrum[peaks[weakest]]) {
+                        weakest = i;
+                    }
+                }
+                if (value > spectrum[peaks[weakest]]) {
+                    peaks[weakest] = k;
+                }
+            }
+        }
+        Arrays.sort(peaks, 0, found);
+        for (int i = 0; i < found; i++) {
+            addPeak(center, peaks[i]);
+        }
+    }
+
+    // Forma pares do novo pico com as âncoras anteriores dentro da janela e o guarda como âncora
+    private void addPeak(int peakAt, int bin) {
+        while (peakCount > 0 && peakAt - peakFrame[peakHead] > MAX_DT) {
+            peakHead = (peakHead + 1) % RECENT_PEAKS;
+            peakCount--;
+        }
+        for (int i = 0; i < peakCount; i++) {
+            int anchor = (peakHead + i) % RECENT_PEAKS;
+            int dt = peakAt - peakFrame[anchor];
+            if (dt < MIN_DT || peakPairs[anchor] >= FAN_OUT || Math.abs(bin - peakBin[anchor]) > MAX_DF) {
+                continue;
+            }
+            peakPairs[anchor]++;
+            sink.accept(hash(peakBin[anchor], bin, dt), peakFrame[anchor]);
+        }
+        if (peakCount == RECENT_PEAKS) {
+            peakHead = (peakHead + 1) % RECENT_PEAKS;
+            peakCount--;
+        }
+        int slot = (peakHead + peakCount) % RECENT_PEAKS;
+        peakFrame[slot] = peakAt;
+        peakBin[slot] = bin;
+        peakPairs[slot] = 0;
+        peakCount++;
+    }
+
+    // FFT radix-2 iterativa sobre re/im, que já chegam em ordem de bits invertidos
+    private void fft() {
+        for (int size = 2; size <= FFT_SIZE; size <<= 1) {
+            int half = size >> 1;
+            int step = FFT_SIZE / size;
+            for (int start = 0; start < FFT_SIZE; start += size) {
+                for (int j = 0; j < half; j++) {
+                    double wr = cos[j * step];
+                    double wi = sin[j * step];
+                    int a = start + j;
+                    int b = a + half;
+                    double tr = re[b] * wr - im[b] * wi;
+                    double ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.audio.service;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice invertido em memória hash → postagens (rádio, quadro absoluto), dividido em fatias escolhidas pelo hash.
+// Cada fatia tem seu próprio lock, então inserções de várias rádios e consultas em paralelo (uma tarefa por
+// fatia) não disputam o mesmo lock. Tudo fica em arrays primitivos: tabela de endereçamento aberto com chaves
+// int e listas ligadas de postagens long, sem um objeto por entrada.
+final class FingerprintIndex {
+
+    // Postagem: rádio nos 24 bits altos, quadro absoluto (desde a época, em quadros de 20 ms) nos 40 baixos
+    private static final int STATION_SHIFT = 40;
+    private static final long FRAME_MASK = (1L << STATION_SHIFT) - 1;
+
+    // Recebe as postagens de um hash consultado; "i" é a posição do hash no array da consulta
+    interface Visitor {
+        void visit(int i, long posting);
+    }
+
+    private final Shard[] shards;
+
+    FingerprintIndex(int shardCount) {
+        shards = new Shard[Math.max(shardCount, 1)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    static long posting(int station, long frame) {
+        return ((long) station << STATION_SHIFT) | (frame & FRAME_MASK);
+    }
+
+    static int stationOf(long posting) {
+        return (int) (posting >>> STATION_SHIFT);
+    }
+
+    static long frameOf(long posting) {
+        return posting & FRAME_MASK;
+    }
+
+    int shardCount() {
+        return shards.length;
+    }
+
+    int shardOf(int hash) {
+        return ((hash * 0x85EBCA6B) >>> 1) % shards.length;
+    }
+
+    // Hashes de um segmento (quadros relativos ao início dele); trava cada fatia uma única vez
+    void addAll(int station, long baseFrame, int[] hashes, int[] frames, int count) {
+        for (int s = 0; s < shards.length; s++) {
+            Shard shard = shards[s];
+            shard.lock.writeLock().lock();
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (shardOf(hashes[i]) == s) {
+                        shard.add(hashes[i], posting(station, baseFrame + frames[i]));
+                    }
+                }
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Visita as postagens dos hashes que pertencem à fatia "s" (os demais são ignorados)
+    void query(int s, int[] hashes, Visitor visitor) {
+        Shard shard = shards[s];
+        shard.lock.readLock().lock();
+        try {
+            for (int i = 0; i < hashes.length; i++) {
+                if (shardOf(hashes[i]) != s) {
+                    continue;
+                }
+                for (int p = shard.head(hashes[i]); p >= 0; p = shard.next[p]) {
+                    visitor.visit(i, shard.postings[p]);
+                }
+            }
+        } finally {
+            shard.lock.readLock().unlock();
+        }
+    }
+
+    // Remove as postagens anteriores ao quadro informado, reconstruindo uma fatia de cada vez
+    long evictBefore(long minFrame) {
+        long removed = 0;
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+            try {
+                removed += shard.evictBefore(minFrame);
+            } finally {
+                shard.lock.writeLock().unlock();
+            }
+        }
+        return removed;
+    }
+
+    long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.count;
+        }
+        return size;
+    }
+
+    private static final class Shard {
+        private static final int INITIAL_KEYS = 1024;
+        private static final int INITIAL_POSTINGS = 4096;
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // Tabela hash → primeira postagem (-1 marca posição livre)
+        private int[] keys = new int[INITIAL_KEYS];
+        private int[] heads = filled(INITIAL_KEYS);
+        private int used = 0;
+
+        // Postagens e o encadeamento entre as de um mesmo hash (da mais recente para a mais antiga)
+        private long[] postings = new long[INITIAL_POSTINGS];
+        private int[] next = new int[INITIAL_POSTINGS];
+        private volatile int count = 0;
+
+        private static int[] filled(int size) {
+            int[] array = new int[size];
+            Arrays.fill(array, -1);
+            return array;
+        }
+
+        private static int slot(int hash, int mask) {
+            int mixed = hash * 0x9E3779B9;
+            return (mixed ^ (mixed >>> 16)) & mask;
+        }
+
+        private int find(int hash) {
+            int mask = keys.length - 1;
+            int slot = slot(hash, mask);
+            while (heads[slot] >= 0 && keys[slot] != hash) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        int head(int hash) {
+            return heads[find(hash)];
+        }
+
+        void add(int hash, long posting) {
+            if (count == postings.length) {
+                postings = Arrays.copyOf(postings, postings.length * 2);
+                next = Arrays.copyOf(next, next.length * 2);
+            }
+            if ((used + 1) * 4L > keys.length * 3L) {
+                rehash(keys.length * 2);
+            }
+            int slot = find(hash);
+            if (heads[slot] < 0) {
+                keys[slot] = hash;
+                used++;
+            }
+            postings[count] = posting;
+            next[count] = heads[slot];
+            heads[slot] = count;
+            count++;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldHeads = heads;
+            keys = new int[capacity];
+            heads = filled(capacity);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldHeads[i] >= 0) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    heads[slot] = oldHeads[i];
+                }
+            }
+        }
+
+        long evictBefore(long minFrame) {
+            int kept = 0;
+            for (int p = 0; p < count; p++) {
+                if (frameOf(postings[p]) >= minFrame) {
+                    kept++;
+                }
+            }
+            if (kept == count) {
+                return 0;
+            }
+            int[] oldKeys = keys;
+            int[] oldHeads = heads;
+            long[] oldPostings = postings;
+            int[] oldNext = next;
+            int removed = count - kept;
+
+            int capacity = INITIAL_KEYS;
+            while (capacity * 3L < used * 4L) {
+                capacity *= 2;
+            }
+            keys = new int[capacity];
+            heads = filled(capacity);
+            used = 0;
+            postings = new long[Math.max(INITIAL_POSTINGS, kept + kept / 4)];
+            next = new int[postings.length];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                for (int p = oldHeads[i]; p >= 0; p = oldNext[p]) {
+                    if (frameOf(oldPostings[p]) >= minFrame) {
+                        add(oldKeys[i], oldPostings[p]);
+                    }
+                }
+            }
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,661 @@
+package com.example.audio.service;
+
+import com.example.audio.model.ReferenceClip;
+import com.example.audio.repository.ReferenceClipRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+// Detecção de vinhetas e anúncios por impressão digital acústica. Os hashes de cada segmento gravado são
+// calculados pelo PcmPipeline e guardados em arquivo auxiliar (FINGERPRINT_DIR/rádio/yyyyMMdd/Segment_*.fp);
+// as últimas memory-hours horas de todas as rádios ficam também no FingerprintIndex em memória.
+// As consultas por referência usam o índice dentro dessa janela e varrem os arquivos auxiliares antes dela.
+@Service
+public class FingerprintService implements PcmAnalysis {
+
+    private static final Logger log = LoggerFactory.getLogger(FingerprintService.class);
+
+    private final String UPLOAD_DIR = "C:/pastaudios";
+    private final String FINGERPRINT_DIR = "C:/audiofingerprints";
+    private final String REFERENCE_DIR = "C:/audioreferences";
+
+    private static final long MAGIC = 0x31544E5250464CL; // "LFPRNT1"
+    private static final int HEADER_BYTES = 16;
+
+    private static final int FRAME_MILLIS = FingerprintExtractor.FRAME_MILLIS;
+
+    // Segment_20240131_235500 (qualquer extensão: o original .mp3 ou a versão compactada pela retenção)
+    private static final Pattern SEGMENT_BASE = Pattern.compile("^(Segment_(\\d{8})_\\d{6})(\\.[^.]+)?$");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    // Horas mais recentes mantidas no índice em memória (~12 bytes por hash, ~30 hashes por segundo e rádio)
+    @Value("${audio.fingerprint.memory-hours:24}")
+    private long memoryHours;
+
+    // Fatias do índice; 0 usa o número de processadores
+    @Value("${audio.fingerprint.shards:0}")
+    private int shardCount;
+
+    // Hashes coincidentes (no mesmo alinhamento) para considerar uma veiculação
+    @Value("${audio.fingerprint.min-matches:20}")
+    private int defaultMinMatches;
+
+    @Autowired
+    private ReferenceClipRepository referenceClipRepository;
+
+    @Autowired
+    private AudioCatalog audioCatalog;
+
+    // O PcmPipeline recebe esta análise na sua lista; a referência de volta é resolvida sob demanda
+    @Lazy
+    @Autowired
+    private PcmPipeline pcmPipeline;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private FingerprintIndex index;
+
+    // Identificadores das rádios no índice (atribuídos a cada execução; o índice é recarregado dos arquivos auxiliares)
+    private final Map<String, Integer> stationIds = new ConcurrentHashMap<>();
+    private final List<String> stationNames = new CopyOnWriteArrayList<>();
+
+    // Segmentos já inseridos no índice → quadro inicial, para não inserir duas vezes
+    private final Map<String, Long> indexedSegments = new ConcurrentHashMap<>();
+
+    // Primeiro quadro coberto pelo índice; antes do carregamento inicial, tudo é consultado nos arquivos auxiliares
+    private volatile long windowStart = Long.MAX_VALUE;
+    private volatile boolean loaded = false;
+
+    private Counter hashCounter;
+    private Timer queryTimer;
+
+    @PostConstruct
+    public void init() {
+        int shards = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        index = new FingerprintIndex(shards);
+        windowStart = frameOf(Instant.now().minus(Duration.ofHours(memoryHours)));
+        hashCounter = meterRegistry.counter("audio.fingerprint.hashes");
+        queryTimer = meterRegistry.timer("audio.fingerprint.query");
+        meterRegistry.gauge("audio.fingerprint.postings", index, FingerprintIndex::size);
+    }
+
+    private static long frameOf(Instant instant) {
+        return instant.toEpochMilli() / FRAME_MILLIS;
+    }
+
+    private static Instant instantOf(long frame) {
+        return Instant.ofEpochMilli(frame * FRAME_MILLIS);
+    }
+
+    @Override
+    public boolean isUpToDate(Path file) throws IOException {
+        Path sidecar = sidecarFor(file);
+        return sidecar == null || Files.isRegularFile(sidecar);
+    }
+
+    @Override
+    public PcmAnalyzer open(Path file, int sampleRate) {
+        return new Analyzer(file, sampleRate);
+    }
+
+    // Arquivo auxiliar de um segmento gravado (rádio/Segment_*) ou de uma referência; null para os demais arquivos
+    Path sidecarFor(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+        Path parent = absolute.getParent();
+        if (parent == null) {
+            return null;
+        }
+        String name = absolute.getFileName().toString();
+        if (parent.equals(Paths.get(REFERENCE_DIR).toAbsolutePath().normalize())) {
+            return parent.resolve(baseName(name) + ".fp");
+        }
+        Matcher matcher = SEGMENT_BASE.matcher(name);
+        if (!matcher.matches() || parent.getParent() == null
+                || !parent.getParent().equals(Paths.get(UPLOAD_DIR).toAbsolutePath().normalize())) {
+            return null;
+        }
+        return Paths.get(FINGERPRINT_DIR, parent.getFileName().toString(), matcher.group(2), matcher.group(1) + ".fp");
+    }
+
+    private static String baseName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    // Remove o arquivo auxiliar de um segmento (segmento removido pela retenção)
+    public void forget(Path file) throws IOException {
+        Path sidecar = sidecarFor(file);
+        if (sidecar != null) {
+            Files.deleteIfExists(sidecar);
+        }
+    }
+
+    // Pares (hash, quadro) de um arquivo auxiliar; null se não existir ou estiver incompleto
+    private static int[] readSidecar(Path sidecar) throws IOException {
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // Lê o arquivo inteiro: ~250 KB por hora de áudio
+            }
+        }
+        buffer.flip();
+        if (buffer.getLong() != MAGIC) {
+            return null;
+        }
+        int count = buffer.getInt();
+        buffer.getInt(); // duração do quadro em ms (reservado)
+        if (count < 0 || buffer.remaining() != count * 8L) {
+            return null;
+        }
+        int[] pairs = new int[count * 2];
+        buffer.asIntBuffer().get(pairs);
+        return pairs;
+    }
+
+    private static void writeSidecar(Path sidecar, int[] hashes, int[] frames, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(MAGIC).putInt(count).putInt(FRAME_MILLIS);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(hashes[i]).putInt(frames[i]);
+        }
+        buffer.flip();
+        Files.createDirectories(sidecar.getParent());
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private int stationId(String radioName) {
+        return stationIds.computeIfAbsent(radioName, name -> {
+            synchronized (stationNames) {
+                stationNames.add(name);
+                return stationNames.size() - 1;
+            }
+        });
+    }
+
+    // Insere os hashes de um segmento no índice, se ele ainda estiver dentro da janela em memória
+    private void indexSegment(String radioName, String segmentName, Instant segmentStart, int[] hashes, int[] frames, int count) {
+        long baseFrame = frameOf(segmentStart);
+        int lastFrame = count > 0 ? frames[count - 1] : 0;
+        if (baseFrame + lastFrame < windowStart) {
+            return;
+        }
+        if (indexedSegments.putIfAbsent(radioName + "/" + segmentName, baseFrame) != null) {
+            return;
+        }
+        index.addAll(stationId(radioName), baseFrame, hashes, frames, count);
+    }
+
+    // Carrega no índice os arquivos auxiliares da janela em memória e enfileira os segmentos recentes sem impressão digital
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Thread thread = new Thread(() -> {
+            long started = System.nanoTime();
+            Instant cutoff = instantOf(windowStart);
+            List<String> radios = audioCatalog.listSubdirectories(Paths.get(UPLOAD_DIR));
+            if (radios == null) {
+                radios = new ArrayList<>();
+            }
+            List<Path> missing = new ArrayList<>();
+            for (String radioName : radios) {
+                for (LocalDate day = LocalDate.ofInstant(cutoff, ZoneId.systemDefault());
+                     !day.isAfter(LocalDate.now()); day = day.plusDays(1)) {
+                    loadDay(radioName, day);
+                }
+                List<String> files = audioCatalog.listFileNames(Paths.get(UPLOAD_DIR, radioName));
+                if (files == null) {
+                    continue;
+                }
+                for (String fileName : files) {
+                    Instant start = SegmentCatalogService.segmentStart(fileName);
+                    Path segment = Paths.get(UPLOAD_DIR, radioName, fileName);
+                    Path sidecar = sidecarFor(segment);
+                    if (start != null && !start.isBefore(cutoff) && sidecar != null && !Files.isRegularFile(sidecar)) {
+                        missing.add(segment);
+                    }
+                }
+            }
+            loaded = true;
+            log.info("Índice de impressões digitais carregado: {} segmentos, {} hashes em {} ms",
+                    indexedSegments.size(), index.size(), (System.nanoTime() - started) / 1_000_000);
+
+            for (Path segment : missing) {
+                while (true) {
+                    try {
+                        pcmPipeline.submit(segment, PcmPipeline.Priority.BACKFILL);
+                        break;
+                    } catch (RejectedExecutionException e) {
+                        // Fila do backlog cheia: espera a análise avançar
+                        try {
+                            Thread.sleep(1000);
+                        } catch (InterruptedException interrupted) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }, "fingerprint-loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void loadDay(String radioName, LocalDate day) {
+        Path directory = Paths.get(FINGERPRINT_DIR, radioName, day.format(DAY));
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.fp")) {
+            for (Path sidecar : stream) {
+                String segmentName = baseName(sidecar.getFileName().toString());
+                Instant start = SegmentCatalogService.segmentStart(segmentName + ".mp3");
+                int[] pairs = start != null ? readSidecar(sidecar) : null;
+                if (pairs == null) {
+                    continue;
+                }
+                int count = pairs.length / 2;
+                int[] hashes = new int[count];
+                int[] frames = new int[count];
+                for (int i = 0; i < count; i++) {
+                    hashes[i] = pairs[2 * i];
+                    frames[i] = pairs[2 * i + 1];
+                }
+                indexSegment(radioName, segmentName, start, hashes, frames, count);
+            }
+        } catch (IOException e) {
+            log.warn("Falha ao carregar impressões digitais de {}", directory, e);
+        }
+    }
+
+    // Descarta do índice o que saiu da janela em memória; essas consultas passam a ler os arquivos auxiliares
+    @Scheduled(fixedDelayString = "${audio.fingerprint.evict-interval-millis:3600000}")
+    public void evict() {
+        if (!loaded) {
+            return;
+        }
+        long cutoff = frameOf(Instant.now().minus(Duration.ofHours(memoryHours)));
+        windowStart = cutoff;
+        long removed = index.evictBefore(cutoff);
+        // Segmentos de até uma hora: os que começaram antes disso já saíram inteiros do índice
+        long oldest = cutoff - Duration.ofHours(1).toMillis() / FRAME_MILLIS;
+        indexedSegments.values().removeIf(start -> start < oldest);
+        if (removed > 0) {
+            log.info("Índice de impressões digitais: {} hashes anteriores a {} removidos", removed, instantOf(cutoff));
+        }
+    }
+
+    // Cadastra uma referência: grava o arquivo em REFERENCE_DIR (nomeado pelo ID) e enfileira a impressão digital
+    public ReferenceClip register(String name, MultipartFile file) throws IOException {
+        String originalFileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "referencia";
+        String extension = originalFileName.lastIndexOf('.') > 0
+                ? originalFileName.substring(originalFileName.lastIndexOf('.')) : "";
+        ReferenceClip clip = new ReferenceClip();
+        clip.setName(name != null && !name.isEmpty() ? name : baseName(originalFileName));
+        clip.setOriginalFileName(originalFileName);
+        clip.setCreatedAt(Instant.now());
+        clip = referenceClipRepository.save(clip);
+
+        Path directory = Files.createDirectories(Paths.get(REFERENCE_DIR));
+        Path target = directory.resolve(clip.getId() + extension.toLowerCase());
+        file.transferTo(target);
+        clip.setFileName(target.getFileName().toString());
+        return referenceClipRepository.save(clip);
+    }
+
+    public Path referencePath(ReferenceClip clip) {
+        return Paths.get(REFERENCE_DIR, clip.getFileName());
+    }
+
+    public void delete(ReferenceClip clip) throws IOException {
+        if (clip.getFileName() != null) {
+            Path file = referencePath(clip);
+            Files.deleteIfExists(sidecarFor(file));
+            Files.deleteIfExists(file);
+        }
+        referenceClipRepository.delete(clip);
+    }
+
+    // Veiculações de uma referência que começam em [from, to), em todas as rádios (ou só em radioName).
+    // Cada hash da referência vota no alinhamento (rádio, início) das postagens que o contêm; alinhamentos com
+    // pelo menos minMatches votos (tolerando ±1 quadro) são veiculações. Lança IllegalStateException se a
+    // impressão digital da referência ainda não foi calculada.
+    public List<Map<String, Object>> findAirings(ReferenceClip clip, String radioName, Instant from, Instant to,
+                                                 Integer minMatches) throws IOException {
+        int[] pairs = clip.getFileName() != null ? readSidecar(sidecarFor(referencePath(clip))) : null;
+        if (pairs == null) {
+            throw new IllegalStateException("Impressão digital da referência ainda não calculada");
+        }
+        long started = System.nanoTime();
+        int count = pairs.length / 2;
+        int[] hashes = new int[count];
+        int[] frames = new int[count];
+        int referenceFrames = 1;
+        for (int i = 0; i < count; i++) {
+            hashes[i] = pairs[2 * i];
+            frames[i] = pairs[2 * i + 1];
+            referenceFrames = Math.max(referenceFrames, frames[i] + 1);
+        }
+        if (clip.getDurationSeconds() != null) {
+            referenceFrames = Math.max(referenceFrames, (int) (clip.getDurationSeconds() * 1000 / FRAME_MILLIS));
+        }
+        Integer station = radioName != null ? stationIds.get(radioName) : null;
+        long fromFrame = frameOf(from);
+        long toFrame = frameOf(to);
+        long split = loaded ? Math.max(fromFrame, Math.min(toFrame, windowStart)) : toFrame;
+
+        Votes votes = new Votes();
+        if (split < toFrame && (radioName == null || station != null)) {
+            votes.addAll(queryIndex(hashes, frames, station, split, toFrame));
+        }
+        if (fromFrame < split) {
+            votes.addAll(scanArchive(hashes, frames, radioName, fromFrame, split, referenceFrames));
+        }
+        List<Map<String, Object>> airings = selectAirings(votes, count, referenceFrames,
+                minMatches != null ? minMatches : defaultMinMatches);
+        queryTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return airings;
+    }
+
+    // Consulta as fatias do índice em paralelo, cada uma com sua contagem de votos
+    private Votes queryIndex(int[] hashes, int[] frames, Integer station, long fromFrame, long toFrame) {
+        return IntStream.range(0, index.shardCount()).parallel().mapToObj(shard -> {
+            Votes votes = new Votes();
+            index.query(shard, hashes, (i, posting) -> {
+                if (station != null && FingerprintIndex.stationOf(posting) != station) {
+                    return;
+                }
+                long start = FingerprintIndex.frameOf(posting) - frames[i];
+                if (start >= fromFrame && start < toFrame) {
+                    votes.add(FingerprintIndex.posting(FingerprintIndex.stationOf(posting), start), 1);
+                }
+            });
+            return votes;
+        }).collect(Votes::new, Votes::addAll, Votes::addAll);
+    }
+
+    // Varre em paralelo os arquivos auxiliares dos segmentos que podem conter veiculações iniciadas em [fromFrame, toFrame)
+    private Votes scanArchive(int[] hashes, int[] frames, String radioName, long fromFrame, long toFrame,
+                              int referenceFrames) throws IOException {
+        // Hashes da referência ordenados, com o quadro, para busca binária: (hash << 32) | quadro
+        long[] reference = new long[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            reference[i] = ((long) hashes[i] << 32) | (frames[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(reference);
+
+        Instant earliest = instantOf(fromFrame).minus(Duration.ofHours(1));
+        Instant latest = instantOf(toFrame + referenceFrames);
+        List<Path> sidecars = new ArrayList<>();
+        List<String> radios = radioName != null ? List.of(radioName) : audioCatalog.listSubdirectories(Paths.get(UPLOAD_DIR));
+        for (String radio : radios != null ? radios : new ArrayList<String>()) {
+            for (LocalDate day = LocalDate.ofInstant(earliest, ZoneId.systemDefault());
+                 !day.isAfter(LocalDate.ofInstant(latest, ZoneId.systemDefault())); day = day.plusDays(1)) {
+                Path directory = Paths.get(FINGERPRINT_DIR, radio, day.format(DAY));
+                if (!Files.isDirectory(directory)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.fp")) {
+                    for (Path sidecar : stream) {
+                        Instant start = SegmentCatalogService.segmentStart(baseName(sidecar.getFileName().toString()) + ".mp3");
+                        if (start != null && !start.isBefore(earliest) && start.isBefore(latest)) {
+                            sidecars.add(sidecar);
+                        }
+                    }
+                }
+            }
+        }
+
+        return sidecars.parallelStream().map(sidecar -> {
+            Votes votes = new Votes();
+            try {
+                int[] pairs = readSidecar(sidecar);
+                if (pairs == null) {
+                    return votes;
+                }
+                String radio = sidecar.getParent().getParent().getFileName().toString();
+                int station = stationId(radio);
+                long baseFrame = frameOf(SegmentCatalogService.segmentStart(baseName(sidecar.getFileName().toString()) + ".mp3"));
+                for (int p = 0; p < pairs.length; p += 2) {
+                    long key = (long) pairs[p] << 32;
+                    int i = lowerBound(reference, key);
+                    for (; i < reference.length && (reference[i] & 0xFFFFFFFF00000000L) == key; i++) {
+                        long start = baseFrame + pairs[p + 1] - (int) reference[i];
+                        if (start >= fromFrame && start < toFrame) {
+                            votes.add(FingerprintIndex.posting(station, start), 1);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Falha ao ler impressões digitais de {}", sidecar, e);
+            }
+            return votes;
+        }).collect(Votes::new, Votes::addAll, Votes::addAll);
+    }
+
+    private static int lowerBound(long[] sorted, long key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Alinhamentos com votos suficientes, do mais forte ao mais fraco, descartando os que se sobrepõem a uma
+    // veiculação já aceita na mesma rádio; resultado em ordem cronológica
+    private List<Map<String, Object>> selectAirings(Votes votes, int referenceHashes, int referenceFrames, int minMatches) {
+        List<long[]> candidates = new ArrayList<>();
+        for (int slot = 0; slot < votes.keys.length; slot++) {
+            long key = votes.keys[slot];
+            if (key == 0) {
+                continue;
+            }
+            int score = votes.counts[slot] + votes.get(key - 1) + votes.get(key + 1);
+            if (score >= minMatches) {
+                candidates.add(new long[]{key, score});
+            }
+        }
+        candidates.sort(Comparator.comparingLong((long[] candidate) -> candidate[1]).reversed());
+        List<long[]> accepted = new ArrayList<>();
+        for (long[] candidate : candidates) {
+            boolean overlaps = false;
+            for (long[] airing : accepted) {
+                if (FingerprintIndex.stationOf(airing[0]) == FingerprintIndex.stationOf(candidate[0])
+                        && Math.abs(FingerprintIndex.frameOf(airing[0]) - FingerprintIndex.frameOf(candidate[0])) < referenceFrames) {
+                    overlaps = true;
+                    break;
+                }
+            }
+            if (!overlaps) {
+                accepted.add(candidate);
+            }
+        }
+        accepted.sort(Comparator.comparingLong(airing -> FingerprintIndex.frameOf(airing[0])));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (long[] airing : accepted) {
+            long startFrame = FingerprintIndex.frameOf(airing[0]);
+            Map<String, Object> item = new HashMap<>();
+            item.put("radioName", stationNames.get(FingerprintIndex.stationOf(airing[0])));
+            item.put("start", LocalDateTime.ofInstant(instantOf(startFrame), ZoneId.systemDefault()));
+            item.put("end", LocalDateTime.ofInstant(instantOf(startFrame + referenceFrames), ZoneId.systemDefault()));
+            item.put("matches", airing[1]);
+            item.put("confidence", Math.min(1.0, airing[1] / (double) Math.max(referenceHashes, 1)));
+            result.add(item);
+        }
+        return result;
+    }
+
+    // Contagem de votos por chave long (rádio e quadro de início), em endereçamento aberto; 0 marca posição livre
+    private static final class Votes {
+        private long[] keys = new long[256];
+        private int[] counts = new int[256];
+        private int size = 0;
+
+        private int slot(long key) {
+            int mask = keys.length - 1;
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            int slot = (int) (mixed ^ (mixed >>> 32)) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        int get(long key) {
+            int slot = slot(key);
+            return keys[slot] == key ? counts[slot] : 0;
+        }
+
+        void add(long key, int amount) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                long[] oldKeys = keys;
+                int[] oldCounts = counts;
+                keys = new long[oldKeys.length * 2];
+                counts = new int[oldKeys.length * 2];
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != 0) {
+                        int slot = slot(oldKeys[i]);
+                        keys[slot] = oldKeys[i];
+                        counts[slot] = oldCounts[i];
+                    }
+                }
+            }
+            int slot = slot(key);
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+            counts[slot] += amount;
+        }
+
+        void addAll(Votes other) {
+            for (int i = 0; i < other.keys.length; i++) {
+                if (other.keys[i] != 0) {
+                    add(other.keys[i], other.counts[i]);
+                }
+            }
+        }
+    }
+
+    // Acumula os hashes do arquivo; no fim grava o arquivo auxiliar e, para segmentos, insere no índice
+    private class Analyzer implements PcmAnalyzer {
+        private final Path file;
+        private final FingerprintExtractor extractor;
+        private int[] hashes = new int[8192];
+        private int[] frames = new int[8192];
+        private int count = 0;
+
+        Analyzer(Path file, int sampleRate) {
+            this.file = file;
+            this.extractor = new FingerprintExtractor(sampleRate, (hash, frame) -> {
+                if (count == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, count * 2);
+                    frames = Arrays.copyOf(frames, count * 2);
+                }
+                hashes[count] = hash;
+                frames[count] = frame;
+                count++;
+            });
+        }
+
+        @Override
+        public void accept(short[] samples, int count) {
+            extractor.accept(samples, count);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            Path sidecar = sidecarFor(file);
+            if (sidecar == null) {
+                return;
+            }
+            // Hashes ordenados pelo quadro do âncora
+            long[] ordered = new long[count];
+            for (int i = 0; i < count; i++) {
+                ordered[i] = ((long) frames[i] << 32) | (hashes[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(ordered);
+            for (int i = 0; i < count; i++) {
+                frames[i] = (int) (ordered[i] >>> 32);
+                hashes[i] = (int) ordered[i];
+            }
+            writeSidecar(sidecar, hashes, frames, count);
+            hashCounter.increment(count);
+
+            String fileName = file.getFileName().toString();
+            Path parent = file.toAbsolutePath().normalize().getParent();
+            if (parent.equals(Paths.get(REFERENCE_DIR).toAbsolutePath().normalize())) {
+                referenceClipRepository.findByFileName(fileName).ifPresent(clip -> {
+                    clip.setHashCount(count);
+                    clip.setDurationSeconds(extractor.getFrames() * FRAME_MILLIS / 1000.0);
+                    referenceClipRepository.save(clip);
+                });
+                return;
+            }
+            Instant start = SegmentCatalogService.segmentStart(fileName);
+            if (start != null) {
+                indexSegment(parent.getFileName().toString(), baseName(fileName), start, hashes, frames, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.audio.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Escuta ao vivo das rádios gravadas, sem nova conexão com a origem por ouvinte: tudo é lido dos segmentos
+// que o StationRecorder está escrevendo em disco.
+// - Acompanhamento (tail): stream MP3 contínuo que envia os frames novos do segmento aberto e, quando ele
+//   fecha, segue para o próximo.
+// - HLS: playlist gerada sobre os segmentos, divididos em trechos curtos servidos com a tag de horário do HLS.
+@Service
+public class LiveListenService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveListenService.class);
+
+    private static final MediaType AUDIO_MPEG = MediaType.parseMediaType("audio/mpeg");
+
+    // Bytes por segundo do MP3 gravado (128 kb/s), para posicionar o início "behindSeconds" antes do fim
+    private static final int RECORDING_BYTES_PER_SECOND = 128 * 1000 / 8;
+
+    // Intervalo entre verificações de crescimento do segmento quando não há frames novos
+    private static final long POLL_MILLIS = 200;
+
+    // Tag ID3 PRIV com o PTS (90 kHz) do primeiro frame, exigida pelo HLS em trechos de áudio "packed"
+    private static final byte[] TIMESTAMP_OWNER = "com.apple.streaming.transportStreamTimestamp\0"
+            .getBytes(StandardCharsets.ISO_8859_1);
+
+    @Autowired
+    private LiveRecorderService liveRecorderService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Ouvintes simultâneos do acompanhamento (cada um ocupa uma thread enquanto escuta)
+    @Value("${audio.live.max-listeners:50}")
+    private int maxListeners;
+
+    // Tempo máximo de uma conexão de acompanhamento
+    @Value("${audio.live.max-listen-minutes:240}")
+    private long maxListenMinutes;
+
+    // Duração de cada trecho HLS e janela listada na playlist
+    @Value("${audio.live.hls-chunk-seconds:6}")
+    private int hlsChunkSeconds;
+
+    @Value("${audio.live.hls-window-seconds:60}")
+    private int hlsWindowSeconds;
+
+    private final AtomicInteger listeners = new AtomicInteger();
+    private final Map<String, LivePlaylist> playlists = new ConcurrentHashMap<>();
+
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService tails = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "live-listen-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("audio.live.listeners", listeners, AtomicInteger::get)
+                .description("Ouvintes conectados ao acompanhamento ao vivo")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        tails.shutdownNow();
+        for (LivePlaylist playlist : playlists.values()) {
+            try {
+                playlist.close();
+            } catch (IOException e) {
+                // Encerrando
+            }
+        }
+    }
+
+    // Abre o acompanhamento de uma rádio começando "behindSeconds" antes do fim do segmento atual (limitado ao
+    // início dele). Lança IllegalStateException quando o limite de ouvintes foi atingido.
+    public ResponseBodyEmitter follow(StationRecorder recorder, int behindSeconds) {
+        if (listeners.incrementAndGet() > maxListeners) {
+            listeners.decrementAndGet();
+            throw new IllegalStateException("Limite de ouvintes ao vivo atingido (" + maxListeners + ")");
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(maxListenMinutes * 60 * 1000);
+        AtomicBoolean closed = new AtomicBoolean(false);
+        emitter.onCompletion(() -> closed.set(true));
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onError(e -> closed.set(true));
+        try {
+            tails.execute(() -> {
+                try {
+                    tail(recorder, (long) Math.max(behindSeconds, 0) * RECORDING_BYTES_PER_SECOND, emitter, closed);
+                    emitter.complete();
+                } catch (IOException e) {
+                    // Cliente desconectado
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    emitter.complete();
+                } catch (RuntimeException e) {
+                    log.warn("Escuta ao vivo da rádio {} interrompida", recorder.getRadioName(), e);
+                    emitter.completeWithError(e);
+                } finally {
+                    listeners.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            listeners.decrementAndGet();
+            throw new IllegalStateException("Escuta ao vivo indisponível");
+        }
+        return emitter;
+    }
+
+    // Envia os frames novos até a gravação parar ou o cliente desconectar; na troca de segmento o anterior é lido
+    // até o fim (o FFmpeg já o fechou ao anunciar o próximo) antes de seguir para o novo
+    private void tail(StationRecorder recorder, long behindBytes, ResponseBodyEmitter emitter, AtomicBoolean closed)
+            throws IOException, InterruptedException {
+        byte[] out = new byte[64 * 1024];
+        SegmentFrameReader reader = null;
+        boolean positioned = false;
+        try {
+            while (!closed.get()) {
+                Path current = recorder.getCurrentSegment();
+                if (reader != null && !reader.getFile().equals(current)) {
+                    drain(reader, out, emitter);
+                    reader.close();
+                    reader = null;
+                }
+                if (reader == null && current != null && Files.exists(current)) {
+                    reader = new SegmentFrameReader(current);
+                }
+                if (reader != null && !positioned) {
+                    positioned = reader.seekFromEnd(behindBytes);
+                }
+                int read = positioned ? reader.read(out, Integer.MAX_VALUE) : 0;
+                if (read > 0) {
+                    emitter.send(Arrays.copyOf(out, read), AUDIO_MPEG);
+                    continue;
+                }
+                if (recorder.isStopped()) {
+                    if (reader != null) {
+                        drain(reader, out, emitter);
+                    }
+                    return;
+                }
+                Thread.sleep(POLL_MILLIS);
+            }
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
+        }
+    }
+
+    private void drain(SegmentFrameReader reader, byte[] out, ResponseBodyEmitter emitter) throws IOException {
+        int read;
+        while ((read = reader.read(out, Integer.MAX_VALUE)) > 0) {
+            emitter.send(Arrays.copyOf(out, read), AUDIO_MPEG);
+        }
+    }
+
+    // Playlist HLS ao vivo (sem EXT-X-ENDLIST) com os trechos mais recentes; os URIs são relativos à playlist
+    public String playlist(StationRecorder recorder) throws IOException {
+        LivePlaylist playlist = playlistFor(recorder);
+        playlist.update(recorder.getCurrentSegment(), recorder.getProcessStartedAt());
+        List<LivePlaylist.Chunk> window = playlist.window(hlsWindowSeconds * 1_000_000L);
+
+        long targetDuration = hlsChunkSeconds;
+        for (LivePlaylist.Chunk chunk : window) {
+            targetDuration = Math.max(targetDuration, Math.round(chunk.getDurationMicros() / 1_000_000.0));
+        }
+        StringBuilder m3u8 = new StringBuilder();
+        m3u8.append("#EXTM3U\n");
+        m3u8.append("#EXT-X-VERSION:3\n");
+        m3u8.append("#EXT-X-TARGETDURATION:").append(targetDuration).append('\n');
+        if (!window.isEmpty()) {
+            LivePlaylist.Chunk first = window.get(0);
+            m3u8.append("#EXT-X-MEDIA-SEQUENCE:").append(first.getSequence()).append('\n');
+            m3u8.append("#EXT-X-DISCONTINUITY-SEQUENCE:").append(first.getDiscontinuityCount()).append('\n');
+        }
+        for (int i = 0; i < window.size(); i++) {
+            LivePlaylist.Chunk chunk = window.get(i);
+            if (i > 0 && chunk.isDiscontinuity()) {
+                m3u8.append("#EXT-X-DISCONTINUITY\n");
+            }
+            if ((i == 0 || chunk.isDiscontinuity()) && chunk.getStartedAt() != null) {
+                m3u8.append("#EXT-X-PROGRAM-DATE-TIME:").append(chunk.getStartedAt()).append('\n');
+            }
+            m3u8.append(String.format(Locale.ROOT, "#EXTINF:%.3f,\n", chunk.getDurationMicros() / 1_000_000.0));
+            m3u8.append("live/").append(chunk.getSequence()).append(".mp3\n");
+        }
+        return m3u8.toString();
+    }
+
+    // Bytes de um trecho HLS (tag de horário + frames do segmento); null se ele já saiu da janela
+    public byte[] chunk(StationRecorder recorder, long sequence) throws IOException {
+        LivePlaylist playlist = playlists.get(recorder.getRadioName());
+        LivePlaylist.Chunk chunk = playlist != null ? playlist.find(sequence) : null;
+        if (chunk == null) {
+            return null;
+        }
+        byte[] tag = timestampTag(chunk.getPts());
+        int length = (int) (chunk.getEnd() - chunk.getStart());
+        ByteBuffer bytes = ByteBuffer.allocate(tag.length + length);
+        bytes.put(tag);
+        try (FileChannel channel = FileChannel.open(chunk.getFile(), StandardOpenOption.READ)) {
+            long position = chunk.getStart();
+            while (bytes.hasRemaining()) {
+                int read = channel.read(bytes, position);
+                if (read < 0) {
+                    throw new IOException("Segmento " + chunk.getFile() + " menor que o esperado");
+                }
+                position += read;
+            }
+        }
+        return bytes.array();
+    }
+
+    // Um estado por rádio, mantido enquanto a rádio estiver gravando (sobrevive a reinícios do FFmpeg)
+    private LivePlaylist playlistFor(StationRecorder recorder) {
+        for (LivePlaylist stale : playlists.values()) {
+            if (!liveRecorderService.find(stale.getRadioName()).isPresent() && playlists.remove(stale.getRadioName(), stale)) {
+                try {
+                    stale.close();
+                } catch (IOException e) {
+                    // Segmento já removido
+                }
+            }
+        }
+        return playlists.computeIfAbsent(recorder.getRadioName(), radioName -> new LivePlaylist(radioName,
+                Math.max(hlsChunkSeconds, 2) * 1_000_000L, Math.max(hlsWindowSeconds, hlsChunkSeconds) * 2_000_000L));
+    }
+
+    // ID3v2.4 com um único frame PRIV: dono + PTS de 33 bits em 8 bytes big-endian
+    static byte[] timestampTag(long pts) {
+        int frameSize = TIMESTAMP_OWNER.length + 8;
+        ByteBuffer tag = ByteBuffer.allocate(10 + 10 + frameSize);
+        tag.put(new byte[]{'I', 'D', '3', 4, 0, 0});
+        tag.putInt(syncSafe(10 + frameSize));
+        tag.put(new byte[]{'P', 'R', 'I', 'V'});
+        tag.putInt(syncSafe(frameSize));
+        tag.putShort((short) 0);
+        tag.put(TIMESTAMP_OWNER);
+        tag.putLong(pts);
+        return tag.array();
+    }
+
+    private static int syncSafe(int size) {
+        return ((size & 0xFE00000) << 3) | ((size & 0x1FC000) << 2) | ((size & 0x3F80) << 1) | (size & 0x7F);
+    }
+}
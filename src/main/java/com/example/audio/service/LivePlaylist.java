@@ -0,0 +1,230 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+// Trechos HLS de uma rádio: os segmentos gravados são lidos à medida que crescem e divididos em trechos de
+// duração fixa (em frames inteiros), numerados em sequência. Cada trecho aponta para um intervalo de bytes do
+// segmento, então nada é copiado; o estado só avança quando a playlist é pedida.
+final class LivePlaylist {
+
+    // Trecho: intervalo [start, end) de um segmento, com duração, PTS (90 kHz) e horário do primeiro frame
+    static final class Chunk {
+        private final long sequence;
+        private final Path file;
+        private final long start;
+        private final long end;
+        private final long durationMicros;
+        private final long pts;
+        private final Instant startedAt;
+        private final boolean discontinuity;
+        private final long discontinuityCount;
+
+        Chunk(long sequence, Path file, long start, long end, long durationMicros, long pts,
+              Instant startedAt, boolean discontinuity, long discontinuityCount) {
+            this.sequence = sequence;
+            this.file = file;
+            this.start = start;
+            this.end = end;
+            this.durationMicros = durationMicros;
+            this.pts = pts;
+            this.startedAt = startedAt;
+            this.discontinuity = discontinuity;
+            this.discontinuityCount = discontinuityCount;
+        }
+
+        long getSequence() {
+            return sequence;
+        }
+
+        Path getFile() {
+            return file;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getEnd() {
+            return end;
+        }
+
+        long getDurationMicros() {
+            return durationMicros;
+        }
+
+        long getPts() {
+            return pts;
+        }
+
+        Instant getStartedAt() {
+            return startedAt;
+        }
+
+        boolean isDiscontinuity() {
+            return discontinuity;
+        }
+
+        // Descontinuidades desde o início da numeração, incluindo a que precede este trecho
+        long getDiscontinuityCount() {
+            return discontinuityCount;
+        }
+    }
+
+    // O PTS do HLS tem 33 bits
+    private static final long PTS_MASK = (1L << 33) - 1;
+
+    // Diferença entre o fim do último trecho e o início do segmento seguinte tratada como lacuna
+    private static final long GAP_TOLERANCE_MICROS = 30_000_000;
+
+    private final String radioName;
+    private final long chunkMicros;
+    private final long keepMicros;
+    private final byte[] scratch = new byte[256 * 1024];
+
+    private final Deque<Chunk> chunks = new ArrayDeque<>();
+    private long nextSequence = 0;
+    private long discontinuities = 0;
+    private long pts = 0;
+
+    // Segmento sendo lido e o trecho em formação dentro dele
+    private SegmentFrameReader reader;
+    private Instant segmentStart;
+    private Instant runStartedAt;
+    private Instant lastChunkEnd;
+    private boolean pendingDiscontinuity = false;
+    private long chunkStart = -1;
+    private long chunkEnd = -1;
+    private long chunkFrames = 0;
+    private long chunkFirstFrame = 0;
+
+    LivePlaylist(String radioName, long chunkMicros, long keepMicros) {
+        this.radioName = radioName;
+        this.chunkMicros = chunkMicros;
+        this.keepMicros = keepMicros;
+    }
+
+    String getRadioName() {
+        return radioName;
+    }
+
+    // Lê o que o gravador escreveu desde a última chamada. Um novo processo FFmpeg (runStartedAt diferente) ou
+    // segmentos pulados entre duas chamadas marcam uma descontinuidade (novo codificador ou lacuna no áudio)
+    synchronized void update(Path currentSegment, Instant currentRunStartedAt) throws IOException {
+        if (reader != null && !reader.getFile().equals(currentSegment)) {
+            // Segmento fechado: lê o restante e fecha o último trecho, mesmo que mais curto
+            advance();
+            closeChunk();
+            reader.close();
+            reader = null;
+        }
+        // O FFmpeg anuncia o segmento um instante antes de criá-lo
+        if (reader == null && currentSegment != null && Files.exists(currentSegment)) {
+            reader = new SegmentFrameReader(currentSegment);
+            segmentStart = SegmentCatalogService.segmentStart(currentSegment.getFileName().toString());
+            if (runStartedAt != null && currentRunStartedAt != null && !runStartedAt.equals(currentRunStartedAt)) {
+                pendingDiscontinuity = true;
+            }
+            if (lastChunkEnd != null && segmentStart != null
+                    && segmentStart.isAfter(lastChunkEnd.plusNanos(GAP_TOLERANCE_MICROS * 1000))) {
+                pendingDiscontinuity = true;
+            }
+            if (currentRunStartedAt != null) {
+                runStartedAt = currentRunStartedAt;
+            }
+        }
+        if (reader != null) {
+            advance();
+        }
+        trim();
+    }
+
+    private void advance() throws IOException {
+        while (true) {
+            long frameMicros = reader.getFrameDurationMicros();
+            int wanted = frameMicros > 0 ? (int) Math.max(1, (chunkMicros + frameMicros / 2) / frameMicros - chunkFrames) : 1;
+            long before = reader.getFrames();
+            int copied = reader.read(scratch, wanted);
+            if (copied == 0) {
+                return;
+            }
+            if (chunkStart < 0) {
+                chunkStart = reader.getLastReadStart();
+                chunkFirstFrame = before;
+            }
+            chunkFrames += reader.getFrames() - before;
+            chunkEnd = reader.getPosition();
+            frameMicros = reader.getFrameDurationMicros();
+            if (chunkFrames * frameMicros >= chunkMicros - frameMicros / 2) {
+                closeChunk();
+            }
+        }
+    }
+
+    private void closeChunk() {
+        if (chunkStart < 0 || chunkFrames == 0) {
+            return;
+        }
+        long frameMicros = reader.getFrameDurationMicros();
+        long duration = chunkFrames * frameMicros;
+        Instant startedAt = segmentStart != null ? segmentStart.plusNanos(chunkFirstFrame * frameMicros * 1000) : null;
+        if (pendingDiscontinuity && !chunks.isEmpty()) {
+            discontinuities++;
+        } else {
+            pendingDiscontinuity = false;
+        }
+        chunks.addLast(new Chunk(nextSequence++, reader.getFile(), chunkStart, chunkEnd, duration, pts,
+                startedAt, pendingDiscontinuity, discontinuities));
+        pts = (pts + duration * 9 / 100) & PTS_MASK;
+        lastChunkEnd = startedAt != null ? startedAt.plusNanos(duration * 1000) : null;
+        pendingDiscontinuity = false;
+        chunkStart = -1;
+        chunkFrames = 0;
+    }
+
+    // Mantém em memória só os trechos dentro da janela de retenção (medida pela duração acumulada)
+    private void trim() {
+        long total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.getDurationMicros();
+        }
+        while (chunks.size() > 1 && total - chunks.peekFirst().getDurationMicros() >= keepMicros) {
+            total -= chunks.removeFirst().getDurationMicros();
+        }
+    }
+
+    // Últimos trechos cuja duração somada cobre "windowMicros"
+    synchronized List<Chunk> window(long windowMicros) {
+        List<Chunk> window = new ArrayList<>();
+        long total = 0;
+        for (Iterator<Chunk> iterator = chunks.descendingIterator(); iterator.hasNext() && total < windowMicros; ) {
+            Chunk chunk = iterator.next();
+            window.add(0, chunk);
+            total += chunk.getDurationMicros();
+        }
+        return window;
+    }
+
+    synchronized Chunk find(long sequence) {
+        for (Chunk chunk : chunks) {
+            if (chunk.getSequence() == sequence) {
+                return chunk;
+            }
+        }
+        return null;
+    }
+
+    synchronized void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.audio.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Gerencia as gravações ao vivo em segundo plano: uma StationRecorder supervisionada por rádio
+@Service
+public class LiveRecorderService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveRecorderService.class);
+
+    private final String UPLOAD_DIR = "C:/pastaudios";
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private FFmpegLauncher ffmpegLauncher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Duração de cada segmento gravado
+    @Value("${audio.recorder.segment-seconds:300}")
+    private int segmentSeconds;
+
+    // Tempo sem dados novos (ou além da duração do segmento sem segmento novo) até considerar a gravação travada
+    @Value("${audio.recorder.stall-timeout-seconds:60}")
+    private long stallTimeoutSeconds;
+
+    @Value("${audio.recorder.backoff-initial-seconds:1}")
+    private long backoffInitialSeconds;
+
+    @Value("${audio.recorder.backoff-max-seconds:300}")
+    private long backoffMaxSeconds;
+
+    // Minutos mantidos no buffer de time-shift de cada rádio (0 desativa)
+    @Value("${audio.timeshift.minutes:10}")
+    private int timeShiftMinutes;
+
+    // Limites de memória fora do heap dos buffers: por rádio e somando todas as rádios
+    @Value("${audio.timeshift.max-station-bytes:67108864}")
+    private long timeShiftMaxStationBytes;
+
+    @Value("${audio.timeshift.max-total-bytes:536870912}")
+    private long timeShiftMaxTotalBytes;
+
+    // Bytes por segundo do MP3 gravado (128 kb/s)
+    private static final int RECORDING_BYTES_PER_SECOND = 128 * 1000 / 8;
+
+    // Buffers menores que isso não valem a pena (menos de ~1 minuto)
+    private static final long MIN_TIME_SHIFT_BYTES = 1024 * 1024;
+
+    private final AtomicLong timeShiftReserved = new AtomicLong();
+
+    private final Map<String, StationRecorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, List<Meter>> recorderMeters = new ConcurrentHashMap<>();
+
+    // Cada supervisor passa a maior parte do tempo bloqueado lendo a saída do FFmpeg
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private final ExecutorService supervisors = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "recorder-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("audio.timeshift.reserved", timeShiftReserved, AtomicLong::get)
+                .baseUnit("bytes")
+                .description("Memória fora do heap reservada pelos buffers de time-shift")
+                .register(meterRegistry);
+    }
+
+    // Inicia a gravação de uma rádio; se ela já estiver gravando, retorna a gravação existente
+    public synchronized StationRecorder start(String radioName, String streamUrl) {
+        StationRecorder existing = recorders.get(radioName);
+        if (existing != null && !existing.isStopped()) {
+            if (!existing.getStreamUrl().equals(streamUrl)) {
+                throw new IllegalStateException("A rádio " + radioName + " já está gravando de " + existing.getStreamUrl());
+            }
+            return existing;
+        }
+
+        if (existing != null) {
+            releaseTimeShift(existing);
+        }
+
+        StationRecorder recorder = new StationRecorder(radioName, streamUrl,
+                Paths.get(UPLOAD_DIR, radioName), segmentSeconds,
+                Duration.ofSeconds(stallTimeoutSeconds),
+                Duration.ofSeconds(backoffInitialSeconds),
+                Duration.ofSeconds(backoffMaxSeconds),
+                this::segmentClosed, ffmpegLauncher, allocateTimeShift(radioName));
+        recorders.put(radioName, recorder);
+        removeMeters(radioName);
+        registerMeters(recorder);
+        supervisors.execute(recorder);
+        return recorder;
+    }
+
+    // Reserva o buffer de time-shift dentro dos limites por rádio e global; null se desativado ou sem espaço
+    private TimeShiftBuffer allocateTimeShift(String radioName) {
+        if (timeShiftMinutes <= 0) {
+            return null;
+        }
+        long wanted = Math.min((long) timeShiftMinutes * 60 * RECORDING_BYTES_PER_SECOND, timeShiftMaxStationBytes);
+        wanted = Math.min(wanted, Integer.MAX_VALUE);
+        while (true) {
+            long reserved = timeShiftReserved.get();
+            long size = Math.min(wanted, timeShiftMaxTotalBytes - reserved);
+            if (size < MIN_TIME_SHIFT_BYTES) {
+                log.warn("Rádio {}: limite de memória do time-shift atingido ({} bytes reservados), gravando sem buffer",
+                        radioName, reserved);
+                return null;
+            }
+            if (timeShiftReserved.compareAndSet(reserved, reserved + size)) {
+                return new TimeShiftBuffer(radioName, (int) size);
+            }
+        }
+    }
+
+    private void releaseTimeShift(StationRecorder recorder) {
+        TimeShiftBuffer buffer = recorder.getTimeShift();
+        if (buffer != null && !buffer.isReleased()) {
+            buffer.release();
+            timeShiftReserved.addAndGet(-buffer.getCapacity());
+        }
+    }
+
+    // Memória fora do heap reservada pelos buffers de time-shift
+    public long getTimeShiftReservedBytes() {
+        return timeShiftReserved.get();
+    }
+
+    // Métricas da gravação, com a rádio como tag; removidas quando a gravação é interrompida
+    private void registerMeters(StationRecorder recorder) {
+        String radioName = recorder.getRadioName();
+        recorderMeters.put(radioName, Arrays.asList(
+                Gauge.builder("audio.recorder.uptime", recorder, StationRecorder::getUptimeSeconds)
+                        .tag("radio", radioName).baseUnit("seconds")
+                        .description("Tempo desde o início do processo FFmpeg atual")
+                        .register(meterRegistry),
+                FunctionCounter.builder("audio.recorder.restarts", recorder, StationRecorder::getRestarts)
+                        .tag("radio", radioName)
+                        .register(meterRegistry),
+                Gauge.builder("audio.recorder.segment.lag", recorder, StationRecorder::getSegmentLagSeconds)
+                        .tag("radio", radioName).baseUnit("seconds")
+                        .description("Tempo desde o último crescimento do segmento atual")
+                        .register(meterRegistry)));
+    }
+
+    private void removeMeters(String radioName) {
+        List<Meter> meters = recorderMeters.remove(radioName);
+        if (meters != null) {
+            meters.forEach(meterRegistry::remove);
+        }
+    }
+
+    // Segmento fechado pelo FFmpeg: avisa catálogo, análises etc.
+    private void segmentClosed(String radioName, Path segment) {
+        eventPublisher.publishEvent(new AudioFileReadyEvent(this, segment, radioName));
+    }
+
+    // Interrompe a gravação de uma rádio
+    public synchronized Optional<StationRecorder> stop(String radioName) {
+        StationRecorder recorder = recorders.remove(radioName);
+        if (recorder != null) {
+            recorder.stop();
+            removeMeters(radioName);
+            releaseTimeShift(recorder);
+        }
+        return Optional.ofNullable(recorder);
+    }
+
+    public Optional<StationRecorder> find(String radioName) {
+        return Optional.ofNullable(recorders.get(radioName));
+    }
+
+    public Collection<StationRecorder> recorders() {
+        return recorders.values();
+    }
+
+    // Estado de todas as gravações, ordenado pelo nome da rádio
+    public List<Map<String, Object>> list() {
+        return recorders.values().stream()
+                .sorted(Comparator.comparing(StationRecorder::getRadioName))
+                .map(StationRecorder::describe)
+                .collect(Collectors.toList());
+    }
+
+    // Detecção de travamentos das gravações ativas
+    @Scheduled(fixedDelayString = "${audio.recorder.watchdog-interval-millis:10000}")
+    public void watchdog() {
+        recorders.values().forEach(StationRecorder::checkStall);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recorders.values().forEach(StationRecorder::stop);
+        supervisors.shutdownNow();
+    }
+}
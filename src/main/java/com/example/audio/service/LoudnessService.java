@@ -0,0 +1,503 @@
+package com.example.audio.service;
+
+import com.example.audio.model.SilenceInterval;
+import com.example.audio.repository.SilenceIntervalRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Índice de áudio por arquivo, calculado em uma única passada sobre o PCM do PcmPipeline: RMS e sonoridade
+// (LUFS, ponderação K da ITU-R BS.1770) por segundo, intervalos de silêncio e eventos de clipping.
+// A série fica em arquivo auxiliar em LOUDNESS_DIR; os silêncios dos segmentos gravados também vão para a
+// tabela silence_interval, para consultas por horário sem reler o áudio.
+@Service
+public class LoudnessService implements PcmAnalysis {
+
+    private final String LOUDNESS_DIR = "C:/audioloudness";
+
+    private static final long MAGIC = 0x31444E554F4CL; // "LOUND1"
+    private static final int HEADER_BYTES = 48;
+    private static final int SECOND_BYTES = 6;
+
+    // Janelas de 100 ms: base do RMS, do detector de silêncio e dos blocos de 400 ms da sonoridade integrada
+    private static final int WINDOWS_PER_SECOND = 10;
+
+    // Valor gravado para energia zero (décimos de dB)
+    private static final short FLOOR_DECIBELS = -1200;
+
+    // Amostras consecutivas no limite que caracterizam um evento de clipping
+    private static final int CLIP_MIN_RUN = 3;
+
+    // Abaixo deste nível (dBFS, RMS em janelas de 100 ms) o áudio é considerado silêncio
+    @Value("${audio.loudness.silence-threshold-db:-50}")
+    private double silenceThresholdDb;
+
+    // Duração mínima de um silêncio registrado
+    @Value("${audio.loudness.silence-min-millis:1000}")
+    private int silenceMinMillis;
+
+    // Amplitude (em 16 bits) considerada no limite; o PCM é mono a 16 kHz, então o valor fica um pouco abaixo de 32767
+    @Value("${audio.loudness.clip-level:32500}")
+    private int clipLevel;
+
+    @Autowired
+    private SilenceIntervalRepository silenceIntervalRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Resumo e série por segundo de um arquivo
+    public static class Index {
+        private final long fileSize;
+        private final long lastModified;
+        private final int seconds;
+        private final int clipEvents;
+        private final double integratedLufs;
+        private final double silenceThresholdDb;
+        private final int silenceMinMillis;
+        private final short[] rms;
+        private final short[] lufs;
+        private final short[] clips;
+        private final int[] silences;
+
+        Index(long fileSize, long lastModified, int seconds, int clipEvents, double integratedLufs,
+              double silenceThresholdDb, int silenceMinMillis, short[] rms, short[] lufs, short[] clips, int[] silences) {
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.seconds = seconds;
+            this.clipEvents = clipEvents;
+            this.integratedLufs = integratedLufs;
+            this.silenceThresholdDb = silenceThresholdDb;
+            this.silenceMinMillis = silenceMinMillis;
+            this.rms = rms;
+            this.lufs = lufs;
+            this.clips = clips;
+            this.silences = silences;
+        }
+
+        public int getSeconds() {
+            return seconds;
+        }
+
+        public int getClipEvents() {
+            return clipEvents;
+        }
+
+        public double getIntegratedLufs() {
+            return integratedLufs;
+        }
+    }
+
+    @Override
+    public boolean isUpToDate(Path file) throws IOException {
+        return read(file) != null;
+    }
+
+    @Override
+    public PcmAnalyzer open(Path file, int sampleRate) throws IOException {
+        return new Analyzer(file, Files.size(file), Files.getLastModifiedTime(file).toMillis(), sampleRate);
+    }
+
+    // Índice do arquivo; null se ainda não calculado ou desatualizado
+    public Index read(Path file) throws IOException {
+        Path sidecar = sidecarFor(file);
+        if (!Files.isRegularFile(sidecar) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // Lê o arquivo inteiro: poucos KB por hora de áudio
+            }
+        }
+        buffer.flip();
+        if (buffer.getLong() != MAGIC) {
+            return null;
+        }
+        long fileSize = buffer.getLong();
+        long lastModified = buffer.getLong();
+        if (fileSize != Files.size(file) || lastModified != Files.getLastModifiedTime(file).toMillis()) {
+            return null;
+        }
+        int seconds = buffer.getInt();
+        int silenceCount = buffer.getInt();
+        int clipEvents = buffer.getInt();
+        int integrated = buffer.getInt();
+        int threshold = buffer.getInt();
+        int minMillis = buffer.getInt();
+        if (seconds < 0 || silenceCount < 0
+                || buffer.remaining() != (long) seconds * SECOND_BYTES + (long) silenceCount * 8) {
+            return null;
+        }
+        short[] rms = new short[seconds];
+        short[] lufs = new short[seconds];
+        short[] clips = new short[seconds];
+        for (int i = 0; i < seconds; i++) {
+            rms[i] = buffer.getShort();
+            lufs[i] = buffer.getShort();
+            clips[i] = buffer.getShort();
+        }
+        int[] silences = new int[silenceCount * 2];
+        for (int i = 0; i < silences.length; i++) {
+            silences[i] = buffer.getInt();
+        }
+        return new Index(fileSize, lastModified, seconds, clipEvents,
+                integrated == Integer.MIN_VALUE ? Double.NEGATIVE_INFINITY : integrated / 10.0,
+                threshold / 10.0, minMillis, rms, lufs, clips, silences);
+    }
+
+    // Índice no formato retornado pela API: resumo, silêncios (em segundos desde o início) e séries por segundo
+    public Map<String, Object> describe(Index index) {
+        List<Map<String, Object>> silences = new ArrayList<>();
+        for (int i = 0; i < index.silences.length; i += 2) {
+            Map<String, Object> silence = new HashMap<>();
+            silence.put("start", index.silences[i] / 1000.0);
+            silence.put("end", index.silences[i + 1] / 1000.0);
+            silences.add(silence);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("seconds", index.seconds);
+        response.put("integratedLufs", Double.isInfinite(index.integratedLufs) ? null : index.integratedLufs);
+        response.put("clipEvents", index.clipEvents);
+        response.put("silenceThresholdDb", index.silenceThresholdDb);
+        response.put("silenceMinMillis", index.silenceMinMillis);
+        response.put("silences", silences);
+        response.put("rmsDb", toDecibels(index.rms));
+        response.put("lufs", toDecibels(index.lufs));
+        response.put("clips", index.clips);
+        return response;
+    }
+
+    private static double[] toDecibels(short[] tenths) {
+        double[] values = new double[tenths.length];
+        for (int i = 0; i < tenths.length; i++) {
+            values[i] = tenths[i] / 10.0;
+        }
+        return values;
+    }
+
+    // Silêncios de uma rádio em [from, to) com pelo menos minDuration (início e fim em horário local). Silêncios que atravessam a troca de
+    // segmento são gravados em dois pedaços e unidos aqui (intervalos separados por até 1 s)
+    public List<Map<String, Object>> findSilences(String radioName, Instant from, Instant to, Duration minDuration) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        Instant start = null;
+        Instant end = null;
+        for (SilenceInterval silence : silenceIntervalRepository.findOverlapping(radioName, from, to)) {
+            if (start != null && Duration.between(end, silence.getStartTime()).compareTo(Duration.ofSeconds(1)) <= 0) {
+                if (silence.getEndTime().isAfter(end)) {
+                    end = silence.getEndTime();
+                }
+                continue;
+            }
+            addSilence(result, start, end, minDuration);
+            start = silence.getStartTime();
+            end = silence.getEndTime();
+        }
+        addSilence(result, start, end, minDuration);
+        return result;
+    }
+
+    private static void addSilence(List<Map<String, Object>> result, Instant start, Instant end, Duration minDuration) {
+        if (start == null || Duration.between(start, end).compareTo(minDuration) < 0) {
+            return;
+        }
+        Map<String, Object> silence = new HashMap<>();
+        silence.put("start", LocalDateTime.ofInstant(start, ZoneId.systemDefault()));
+        silence.put("end", LocalDateTime.ofInstant(end, ZoneId.systemDefault()));
+        silence.put("durationSeconds", Duration.between(start, end).toMillis() / 1000.0);
+        result.add(silence);
+    }
+
+    // Remove os silêncios registrados de um segmento (segmento removido pela retenção)
+    public void forgetSegment(String radioName, Instant segmentStart) {
+        silenceIntervalRepository.deleteBySegment(radioName, segmentStart);
+    }
+
+    // Arquivo auxiliar: LOUDNESS_DIR/ab/<sha-1 do caminho>.loud
+    Path sidecarFor(Path file) {
+        String hash = Mp3FrameIndexService.sha1(file.toAbsolutePath().normalize().toString());
+        return Paths.get(LOUDNESS_DIR, hash.substring(0, 2), hash + ".loud");
+    }
+
+    private static short decibels(double meanSquare, double offset) {
+        if (meanSquare <= 0) {
+            return FLOOR_DECIBELS;
+        }
+        double db = offset + 10 * Math.log10(meanSquare);
+        return (short) Math.max(FLOOR_DECIBELS, Math.round(db * 10));
+    }
+
+    // Biquad (forma direta I) usado na ponderação K
+    private static final class Biquad {
+        private final double b0, b1, b2, a1, a2;
+        private double x1, x2, y1, y2;
+
+        Biquad(double b0, double b1, double b2, double a1, double a2) {
+            this.b0 = b0;
+            this.b1 = b1;
+            this.b2 = b2;
+            this.a1 = a1;
+            this.a2 = a2;
+        }
+
+        double process(double x) {
+            double y = b0 * x + b1 * x1 + b2 * x2 - a1 * y1 - a2 * y2;
+            x2 = x1;
+            x1 = x;
+            y2 = y1;
+            y1 = y;
+            return y;
+        }
+
+        // Filtro de prateleira (efeito da cabeça) da BS.1770, calculado para a taxa de amostragem
+        static Biquad shelf(int sampleRate) {
+            double f0 = 1681.974450955533;
+            double gain = 3.999843853973347;
+            double q = 0.7071752369554196;
+            double k = Math.tan(Math.PI * f0 / sampleRate);
+            double vh = Math.pow(10, gain / 20);
+            double vb = Math.pow(vh, 0.4996667741545416);
+            double a0 = 1 + k / q + k * k;
+            return new Biquad((vh + vb * k / q + k * k) / a0, 2 * (k * k - vh) / a0, (vh - vb * k / q + k * k) / a0,
+                    2 * (k * k - 1) / a0, (1 - k / q + k * k) / a0);
+        }
+
+        // Passa-altas RLB da BS.1770
+        static Biquad highPass(int sampleRate) {
+            double f0 = 38.13547087602444;
+            double q = 0.5003270373238773;
+            double k = Math.tan(Math.PI * f0 / sampleRate);
+            double a0 = 1 + k / q + k * k;
+            return new Biquad(1, -2, 1, 2 * (k * k - 1) / a0, (1 - k / q + k * k) / a0);
+        }
+    }
+
+    // Acumula energia por janela de 100 ms e eventos de clipping por segundo; tudo o mais é derivado no fim
+    private class Analyzer implements PcmAnalyzer {
+        private final Path file;
+        private final long fileSize;
+        private final long lastModified;
+        private final int sampleRate;
+        private final int windowSamples;
+        private final Biquad shelf;
+        private final Biquad highPass;
+        private double[] energy = new double[4096];
+        private double[] weighted = new double[4096];
+        private short[] clips = new short[512];
+        private int windows = 0;
+        private int inWindow = 0;
+        private double windowEnergy = 0;
+        private double windowWeighted = 0;
+        private long samplesSeen = 0;
+        private int clipRun = 0;
+        private int clipEvents = 0;
+
+        Analyzer(Path file, long fileSize, long lastModified, int sampleRate) {
+            this.file = file;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.sampleRate = sampleRate;
+            this.windowSamples = sampleRate / WINDOWS_PER_SECOND;
+            this.shelf = Biquad.shelf(sampleRate);
+            this.highPass = Biquad.highPass(sampleRate);
+        }
+
+        @Override
+        public void accept(short[] samples, int count) {
+            for (int i = 0; i < count; i++) {
+                short sample = samples[i];
+                double x = sample / 32768.0;
+                double k = highPass.process(shelf.process(x));
+                windowEnergy += x * x;
+                windowWeighted += k * k;
+
+                if (sample >= clipLevel || sample <= -clipLevel) {
+                    clipRun++;
+                } else {
+                    closeClipRun();
+                }
+
+                samplesSeen++;
+                if (++inWindow == windowSamples) {
+                    closeWindow();
+                }
+            }
+        }
+
+        private void closeClipRun() {
+            if (clipRun >= CLIP_MIN_RUN) {
+                int second = (int) ((samplesSeen - clipRun) / sampleRate);
+                if (second >= clips.length) {
+                    clips = Arrays.copyOf(clips, Math.max(clips.length * 2, second + 1));
+                }
+                if (clips[second] < Short.MAX_VALUE) {
+                    clips[second]++;
+                }
+                clipEvents++;
+            }
+            clipRun = 0;
+        }
+
+        private void closeWindow() {
+            if (windows == energy.length) {
+                energy = Arrays.copyOf(energy, windows * 2);
+                weighted = Arrays.copyOf(weighted, windows * 2);
+            }
+            energy[windows] = windowEnergy / inWindow;
+            weighted[windows] = windowWeighted / inWindow;
+            windows++;
+            inWindow = 0;
+            windowEnergy = 0;
+            windowWeighted = 0;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            closeClipRun();
+            if (inWindow > 0) {
+                closeWindow();
+            }
+            int seconds = (windows + WINDOWS_PER_SECOND - 1) / WINDOWS_PER_SECOND;
+            int[] silences = detectSilences();
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + seconds * SECOND_BYTES + silences.length * 4)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(MAGIC).putLong(fileSize).putLong(lastModified)
+                    .putInt(seconds).putInt(silences.length / 2).putInt(clipEvents)
+                    .putInt(integratedLoudness())
+                    .putInt((int) Math.round(silenceThresholdDb * 10)).putInt(silenceMinMillis);
+            for (int second = 0; second < seconds; second++) {
+                int first = second * WINDOWS_PER_SECOND;
+                int last = Math.min(windows, first + WINDOWS_PER_SECOND);
+                double sum = 0;
+                double sumWeighted = 0;
+                for (int w = first; w < last; w++) {
+                    sum += energy[w];
+                    sumWeighted += weighted[w];
+                }
+                buffer.putShort(decibels(sum / (last - first), 0))
+                        .putShort(decibels(sumWeighted / (last - first), -0.691))
+                        .putShort(second < clips.length ? clips[second] : 0);
+            }
+            for (int value : silences) {
+                buffer.putInt(value);
+            }
+            buffer.flip();
+
+            Path sidecar = sidecarFor(file);
+            Files.createDirectories(sidecar.getParent());
+            Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            registerSilences(silences);
+        }
+
+        // Sequências de janelas abaixo do limiar com a duração mínima: pares (início, fim) em milissegundos
+        private int[] detectSilences() {
+            double threshold = Math.pow(10, silenceThresholdDb / 10);
+            int minWindows = Math.max(1, (silenceMinMillis + 99) / 100);
+            long totalMillis = samplesSeen * 1000 / sampleRate;
+            List<Integer> bounds = new ArrayList<>();
+            int runStart = -1;
+            for (int w = 0; w <= windows; w++) {
+                boolean silent = w < windows && energy[w] < threshold;
+                if (silent && runStart < 0) {
+                    runStart = w;
+                } else if (!silent && runStart >= 0) {
+                    if (w - runStart >= minWindows) {
+                        bounds.add(runStart * 100);
+                        bounds.add((int) Math.min((long) w * 100, totalMillis));
+                    }
+                    runStart = -1;
+                }
+            }
+            return bounds.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // Sonoridade integrada (BS.1770): blocos de 400 ms com 75% de sobreposição, portão absoluto de -70 LUFS
+        // e relativo de -10 LU. Retorna décimos de LUFS, ou Integer.MIN_VALUE se tudo estiver abaixo dos portões.
+        private int integratedLoudness() {
+            int blocks = windows - 3;
+            if (blocks <= 0) {
+                return Integer.MIN_VALUE;
+            }
+            double[] blockEnergy = new double[blocks];
+            double absoluteGate = Math.pow(10, (-70 + 0.691) / 10);
+            double gatedSum = 0;
+            int gatedCount = 0;
+            for (int b = 0; b < blocks; b++) {
+                blockEnergy[b] = (weighted[b] + weighted[b + 1] + weighted[b + 2] + weighted[b + 3]) / 4;
+                if (blockEnergy[b] > absoluteGate) {
+                    gatedSum += blockEnergy[b];
+                    gatedCount++;
+                }
+            }
+            if (gatedCount == 0) {
+                return Integer.MIN_VALUE;
+            }
+            double relativeGate = gatedSum / gatedCount / 10;
+            double sum = 0;
+            int count = 0;
+            for (double value : blockEnergy) {
+                if (value > absoluteGate && value > relativeGate) {
+                    sum += value;
+                    count++;
+                }
+            }
+            return decibels(sum / count, -0.691);
+        }
+
+        // Segmentos gravados (rádio/Segment_yyyyMMdd_HHmmss.mp3): substitui os silêncios registrados do segmento
+        private void registerSilences(int[] silences) {
+            Instant segmentStart = SegmentCatalogService.segmentStart(file.getFileName().toString());
+            Path radioDirectory = file.toAbsolutePath().getParent();
+            if (segmentStart == null || radioDirectory == null || radioDirectory.getFileName() == null) {
+                return;
+            }
+            String radioName = radioDirectory.getFileName().toString();
+            List<SilenceInterval> intervals = new ArrayList<>();
+            for (int i = 0; i < silences.length; i += 2) {
+                SilenceInterval interval = new SilenceInterval();
+                interval.setRadioName(radioName);
+                interval.setSegmentStart(segmentStart);
+                interval.setStartTime(segmentStart.plusMillis(silences[i]));
+                interval.setEndTime(segmentStart.plusMillis(silences[i + 1]));
+                intervals.add(interval);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                silenceIntervalRepository.deleteBySegment(radioName, segmentStart);
+                silenceIntervalRepository.saveAll(intervals);
+            });
+        }
+    }
+}
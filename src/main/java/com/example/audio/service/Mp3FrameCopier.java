@@ -0,0 +1,55 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
+
+// Copia um intervalo de frames de um MP3 diretamente para um canal de saída (arquivo ou resposta HTTP) com
+// FileChannel.transferTo, sem decodificar e sem iniciar o FFmpeg. Sem mapeamentos em memória, que no Windows
+// impediriam apagar ou substituir o arquivo enquanto não fossem coletados.
+public final class Mp3FrameCopier {
+
+    // Bytes por chamada de transferTo; define a granularidade do progresso
+    private static final long CHUNK_BYTES = 1 << 20;
+
+    private Mp3FrameCopier() {
+    }
+
+    // Copia os bytes [from, to) do arquivo; o callback recebe o total copiado após cada bloco.
+    // Retorna a quantidade de bytes copiados.
+    public static long copy(Path source, long from, long to, WritableByteChannel target,
+                            LongConsumer progress) throws IOException {
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            return copy(channel, from, to, target, progress);
+        }
+    }
+
+    // Mesmo que o anterior sobre um canal já aberto, para vários trechos do mesmo arquivo em sequência
+    public static long copy(FileChannel channel, long from, long to, WritableByteChannel target,
+                            LongConsumer progress) throws IOException {
+        long copied = 0;
+        long end = Math.min(to, channel.size());
+        long position = from;
+        while (position < end) {
+            long count = channel.transferTo(position, Math.min(CHUNK_BYTES, end - position), target);
+            if (count <= 0) {
+                if (position >= channel.size()) {
+                    // Arquivo encurtado durante a cópia
+                    break;
+                }
+                continue;
+            }
+            position += count;
+            copied += count;
+            progress.accept(copied);
+        }
+        return copied;
+    }
+
+    public static long copy(Path source, long from, long to, WritableByteChannel target) throws IOException {
+        return copy(source, from, to, target, bytes -> { });
+    }
+}
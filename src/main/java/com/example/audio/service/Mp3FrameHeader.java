@@ -0,0 +1,136 @@
+package com.example.audio.service;
+
+// Cabeçalho de 4 bytes de um frame MPEG de áudio (MPEG 1, 2 e 2.5; camadas I, II e III)
+public final class Mp3FrameHeader {
+
+    public static final int MPEG1 = 3;
+    public static final int MPEG2 = 2;
+    public static final int MPEG25 = 0;
+
+    public static final int CHANNEL_MODE_MONO = 3;
+
+    // Maior frame possível (camada II/III, 448 kbps a 8 kHz com padding); usado para dimensionar buffers
+    public static final int MAX_FRAME_LENGTH = 2881;
+
+    private static final int[][] BITRATES_V1 = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448, -1}, // Camada I
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384, -1},    // Camada II
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, -1},     // Camada III
+    };
+    private static final int[][] BITRATES_V2 = {
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256, -1},    // Camada I
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160, -1},         // Camadas II e III
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160, -1},
+    };
+    private static final int[][] SAMPLE_RATES = {
+            {11025, 12000, 8000},  // MPEG 2.5
+            {0, 0, 0},             // reservado
+            {22050, 24000, 16000}, // MPEG 2
+            {44100, 48000, 32000}, // MPEG 1
+    };
+
+    private final int version;
+    private final int layer;
+    private final int bitrateKbps;
+    private final int sampleRate;
+    private final boolean padding;
+    private final int channelMode;
+    private final int samplesPerFrame;
+    private final int frameLength;
+
+    private Mp3FrameHeader(int version, int layer, int bitrateKbps, int sampleRate, boolean padding, int channelMode) {
+        this.version = version;
+        this.layer = layer;
+        this.bitrateKbps = bitrateKbps;
+        this.sampleRate = sampleRate;
+        this.padding = padding;
+        this.channelMode = channelMode;
+        if (layer == 1) {
+            this.samplesPerFrame = 384;
+            this.frameLength = (12 * bitrateKbps * 1000 / sampleRate + (padding ? 1 : 0)) * 4;
+        } else {
+            this.samplesPerFrame = (layer == 3 && version != MPEG1) ? 576 : 1152;
+            int slotFactor = samplesPerFrame / 8;
+            this.frameLength = slotFactor * bitrateKbps * 1000 / sampleRate + (padding ? 1 : 0);
+        }
+    }
+
+    // Interpreta os 4 bytes (big-endian) como cabeçalho; retorna null se não for um cabeçalho válido
+    // (sync ausente, versão/camada reservada, bitrate livre ou inválido, taxa de amostragem reservada)
+    public static Mp3FrameHeader parse(int header) {
+        if ((header & 0xFFE00000) != 0xFFE00000) {
+            return null;
+        }
+        int version = (header >>> 19) & 0x3;
+        int layerBits = (header >>> 17) & 0x3;
+        int bitrateIndex = (header >>> 12) & 0xF;
+        int sampleRateIndex = (header >>> 10) & 0x3;
+        if (version == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return null;
+        }
+        int layer = 4 - layerBits;
+        int bitrate = version == MPEG1
+                ? BITRATES_V1[layer - 1][bitrateIndex]
+                : BITRATES_V2[layer == 1 ? 0 : 1][bitrateIndex];
+        int sampleRate = SAMPLE_RATES[version][sampleRateIndex];
+        boolean padding = ((header >>> 9) & 0x1) == 1;
+        int channelMode = (header >>> 6) & 0x3;
+        return new Mp3FrameHeader(version, layer, bitrate, sampleRate, padding, channelMode);
+    }
+
+    // Indica se outro frame pertence ao mesmo fluxo (mesma versão, camada e taxa de amostragem);
+    // usado para descartar falsos sincronismos no meio dos dados
+    public boolean isCompatible(Mp3FrameHeader other) {
+        return other != null && other.version == version && other.layer == layer && other.sampleRate == sampleRate;
+    }
+
+    // Deslocamento, a partir do início do frame, onde ficam os cabeçalhos Xing/Info (após a side information)
+    public int sideInfoEnd() {
+        boolean mono = channelMode == CHANNEL_MODE_MONO;
+        if (version == MPEG1) {
+            return 4 + (mono ? 17 : 32);
+        }
+        return 4 + (mono ? 9 : 17);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getLayer() {
+        return layer;
+    }
+
+    public int getBitrateKbps() {
+        return bitrateKbps;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public boolean hasPadding() {
+        return padding;
+    }
+
+    public int getChannelMode() {
+        return channelMode;
+    }
+
+    public int getChannels() {
+        return channelMode == CHANNEL_MODE_MONO ? 1 : 2;
+    }
+
+    public int getSamplesPerFrame() {
+        return samplesPerFrame;
+    }
+
+    public int getFrameLength() {
+        return frameLength;
+    }
+
+    // Duração de um frame em microssegundos
+    public long getFrameDurationMicros() {
+        return samplesPerFrame * 1_000_000L / sampleRate;
+    }
+}
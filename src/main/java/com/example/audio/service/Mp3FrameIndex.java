@@ -0,0 +1,156 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Índice tempo → posição em bytes dos frames de um MP3. Guarda o início de cada frame de áudio
+// em um long[]; como todos os frames têm a mesma quantidade de amostras, o frame de um instante
+// é obtido por divisão, sem busca.
+public class Mp3FrameIndex {
+
+    private static final long MAGIC = 0x4D5033494458_0001L; // "MP3IDX" + versão 1
+    private static final int HEADER_BYTES = 8 * 7;
+
+    private final long fileSize;
+    private final long lastModified;
+    private final int sampleRate;
+    private final int samplesPerFrame;
+    private final long audioEnd;
+    private final long[] offsets;
+
+    public Mp3FrameIndex(long fileSize, long lastModified, int sampleRate, int samplesPerFrame,
+                         long audioEnd, long[] offsets) {
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.sampleRate = sampleRate;
+        this.samplesPerFrame = samplesPerFrame;
+        this.audioEnd = audioEnd;
+        this.offsets = offsets;
+    }
+
+    // Indica se o índice ainda corresponde ao arquivo (mesmo tamanho e data de modificação)
+    public boolean matches(long size, long modified) {
+        return fileSize == size && lastModified == modified;
+    }
+
+    public int getFrameCount() {
+        return offsets.length;
+    }
+
+    public long getDurationMicros() {
+        return offsets.length * frameDurationMicros();
+    }
+
+    // Frame que contém o instante informado (limitado ao intervalo do arquivo)
+    public int frameAt(double seconds) {
+        long frame = (long) Math.floor(seconds * sampleRate / samplesPerFrame);
+        return (int) Math.max(0, Math.min(frame, offsets.length));
+    }
+
+    // Posição em bytes do início de um frame; frameCount retorna o fim do último frame
+    public long offsetOf(int frame) {
+        return frame >= offsets.length ? audioEnd : offsets[frame];
+    }
+
+    // Intervalo de bytes [início, fim) com os frames que cobrem o trecho pedido; vazio se o início estiver além do fim
+    public long[] byteRange(double startSeconds, double durationSeconds) {
+        int first = frameAt(startSeconds);
+        int last = (int) Math.min(offsets.length,
+                (long) Math.ceil((startSeconds + durationSeconds) * sampleRate / samplesPerFrame));
+        if (last <= first) {
+            return new long[]{offsetOf(first), offsetOf(first)};
+        }
+        return new long[]{offsetOf(first), offsetOf(last)};
+    }
+
+    public double frameDurationSeconds() {
+        return (double) samplesPerFrame / sampleRate;
+    }
+
+    private long frameDurationMicros() {
+        return samplesPerFrame * 1_000_000L / sampleRate;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getSamplesPerFrame() {
+        return samplesPerFrame;
+    }
+
+    public long getAudioStart() {
+        return offsets.length > 0 ? offsets[0] : audioEnd;
+    }
+
+    public long getAudioEnd() {
+        return audioEnd;
+    }
+
+    // Grava o índice como arquivo auxiliar: cabeçalho fixo seguido do long[] de posições
+    public void writeTo(Path sidecar) throws IOException {
+        Files.createDirectories(sidecar.getParent());
+        // Temporário exclusivo: outro processo ou instância pode estar gravando o mesmo índice
+        Path temp = Files.createTempFile(sidecar.getParent(), sidecar.getFileName().toString(), ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_BYTES + offsets.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(MAGIC).putLong(fileSize).putLong(lastModified)
+                .putLong(sampleRate).putLong(samplesPerFrame).putLong(audioEnd).putLong(offsets.length);
+        buffer.asLongBuffer().put(offsets);
+        buffer.position(0).limit(buffer.capacity());
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Lê um índice gravado por writeTo; retorna null se o arquivo não for um índice válido
+    public static Mp3FrameIndex readFrom(Path sidecar) throws IOException {
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                return null;
+            }
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            // Leitura para o heap: um mapeamento manteria o arquivo preso no Windows até ser coletado, e o
+            // índice regravado (ATOMIC_MOVE em writeTo) ou a remoção pela retenção falhariam
+            ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, buffer.position()) < 0) {
+                    return null;
+                }
+            }
+            buffer.flip();
+            if (buffer.getLong() != MAGIC) {
+                return null;
+            }
+            long fileSize = buffer.getLong();
+            long lastModified = buffer.getLong();
+            int sampleRate = (int) buffer.getLong();
+            int samplesPerFrame = (int) buffer.getLong();
+            long audioEnd = buffer.getLong();
+            long count = buffer.getLong();
+            if (count < 0 || HEADER_BYTES + count * 8 != size || sampleRate <= 0 || samplesPerFrame <= 0) {
+                return null;
+            }
+            long[] offsets = new long[(int) count];
+            LongBuffer longs = buffer.asLongBuffer();
+            longs.get(offsets);
+            return new Mp3FrameIndex(fileSize, lastModified, sampleRate, samplesPerFrame, audioEnd, offsets);
+        }
+    }
+}
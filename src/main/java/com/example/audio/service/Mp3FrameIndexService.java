@@ -0,0 +1,131 @@
+package com.example.audio.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+// Fornece o Mp3FrameIndex de um arquivo: memória (LRU) → arquivo auxiliar em INDEX_DIR → varredura
+@Service
+public class Mp3FrameIndexService {
+
+    private final String INDEX_DIR = "C:/audioindex";
+
+    // Quantidade de índices mantidos em memória
+    @Value("${audio.index.cache-entries:512}")
+    private int cacheEntries;
+
+    private final Map<Path, Mp3FrameIndex> cache = new LinkedHashMap<Path, Mp3FrameIndex>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Mp3FrameIndex> eldest) {
+            return size() > cacheEntries;
+        }
+    };
+
+    private final Map<Path, CompletableFuture<Mp3FrameIndex>> inflight = new ConcurrentHashMap<>();
+
+    public static boolean isMp3(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".mp3");
+    }
+
+    // Retorna o índice do arquivo, ou null se ele não for um MP3 válido
+    public Mp3FrameIndex getIndex(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        long size = Files.size(key);
+        long modified = Files.getLastModifiedTime(key).toMillis();
+
+        synchronized (cache) {
+            Mp3FrameIndex cached = cache.get(key);
+            if (cached != null && cached.matches(size, modified)) {
+                return cached;
+            }
+        }
+
+        // Primeiro uso simultâneo do mesmo arquivo: uma única leitura/varredura, as demais aguardam o resultado
+        CompletableFuture<Mp3FrameIndex> mine = new CompletableFuture<>();
+        CompletableFuture<Mp3FrameIndex> existing = inflight.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Leitura do índice interrompida", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+            }
+        }
+        try {
+            Mp3FrameIndex index = load(key, size, modified);
+            mine.complete(index);
+            return index;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, mine);
+        }
+    }
+
+    private Mp3FrameIndex load(Path key, long size, long modified) throws IOException {
+        Path sidecar = sidecarFor(key);
+        Mp3FrameIndex index = null;
+        if (Files.exists(sidecar)) {
+            index = Mp3FrameIndex.readFrom(sidecar);
+            if (index != null && !index.matches(size, modified)) {
+                index = null;
+            }
+        }
+        if (index == null) {
+            index = Mp3FrameScanner.scan(key);
+            if (index == null) {
+                return null;
+            }
+            index.writeTo(sidecar);
+        }
+
+        synchronized (cache) {
+            cache.put(key, index);
+        }
+        return index;
+    }
+
+    // Descarta o índice de um arquivo removido (memória e arquivo auxiliar)
+    public void forget(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        synchronized (cache) {
+            cache.remove(key);
+        }
+        Files.deleteIfExists(sidecarFor(key));
+    }
+
+    // Arquivo auxiliar do índice: INDEX_DIR/ab/<sha-1 do caminho>.idx
+    Path sidecarFor(Path file) {
+        String hash = sha1(file.toString());
+        return Paths.get(INDEX_DIR, hash.substring(0, 2), hash + ".idx");
+    }
+
+    static String sha1(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Varredura dos frames de um arquivo MP3 em Java puro, sem FFmpeg, para montar o Mp3FrameIndex
+public final class Mp3FrameScanner {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private Mp3FrameScanner() {
+    }
+
+    // Percorre o arquivo frame a frame; retorna null se nenhum fluxo MPEG de áudio for encontrado
+    public static Mp3FrameIndex scan(Path file) throws IOException {
+        long fileSize = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Window window = new Window(channel);
+            long position = skipId3v2(window);
+
+            long[] offsets = new long[estimateFrames(fileSize)];
+            int count = 0;
+            Mp3FrameHeader first = null;
+            long audioEnd = position;
+
+            while (window.ensure(position, 4)) {
+                Mp3FrameHeader header = Mp3FrameHeader.parse(window.intAt(position));
+                if (header == null || (first != null && !first.isCompatible(header))) {
+                    position++;
+                    continue;
+                }
+                long next = position + header.getFrameLength();
+
+                // Antes do primeiro frame confirmado, exige que o frame seguinte também seja válido
+                if (first == null) {
+                    if (window.ensure(next, 4) && !header.isCompatible(Mp3FrameHeader.parse(window.intAt(next)))) {
+                        position++;
+                        continue;
+                    }
+                    first = header;
+                    if (isInfoFrame(window, position, header)) {
+                        // Frame Xing/Info/VBRI: metadados, não contém áudio
+                        position = next;
+                        continue;
+                    }
+                }
+
+                if (next > fileSize) {
+                    break; // Frame truncado no fim do arquivo (gravação interrompida)
+                }
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, offsets.length + (offsets.length >> 1) + 16);
+                }
+                offsets[count++] = position;
+                audioEnd = next;
+                position = next;
+            }
+
+            if (first == null || count == 0) {
+                return null;
+            }
+            return new Mp3FrameIndex(fileSize, lastModified, first.getSampleRate(), first.getSamplesPerFrame(),
+                    audioEnd, Arrays.copyOf(offsets, count));
+        }
+    }
+
+    // Tamanho total (cabeçalho incluso) da tag ID3v2 no início do arquivo, ou 0 se não houver
+    static long skipId3v2(Window window) throws IOException {
+        if (!window.ensure(0, 10)) {
+            return 0;
+        }
+        if (window.byteAt(0) != 'I' || window.byteAt(1) != 'D' || window.byteAt(2) != '3') {
+            return 0;
+        }
+        int flags = window.byteAt(5);
+        long size = ((window.byteAt(6) & 0x7F) << 21) | ((window.byteAt(7) & 0x7F) << 14)
+                | ((window.byteAt(8) & 0x7F) << 7) | (window.byteAt(9) & 0x7F);
+        boolean footer = (flags & 0x10) != 0;
+        return 10 + size + (footer ? 10 : 0);
+    }
+
+    static boolean isInfoFrame(Window window, long position, Mp3FrameHeader header) throws IOException {
+        long xing = position + header.sideInfoEnd();
+        if (window.ensure(xing, 4)) {
+            int tag = window.intAt(xing);
+            if (tag == 0x58696E67 || tag == 0x496E666F) { // "Xing" ou "Info"
+                return true;
+            }
+        }
+        long vbri = position + 4 + 32;
+        return window.ensure(vbri, 4) && window.intAt(vbri) == 0x56425249; // "VBRI"
+    }
+
+    private static int estimateFrames(long fileSize) {
+        // ~417 bytes por frame a 128 kbps / 44,1 kHz
+        return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(64, fileSize / 400));
+    }
+
+    // Janela deslizante de leitura sobre o arquivo, para varrer arquivos de qualquer tamanho
+    static final class Window {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long start = 0;
+        private int length = 0;
+
+        Window(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        // Garante que os bytes [position, position + bytes) estejam na janela; false se passarem do fim do arquivo
+        boolean ensure(long position, int bytes) throws IOException {
+            if (position >= start && position + bytes <= start + length) {
+                return true;
+            }
+            if (position + bytes > channel.size()) {
+                return false;
+            }
+            buffer.clear();
+            start = position;
+            length = 0;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, start + length);
+                if (read <= 0) {
+                    break;
+                }
+                length += read;
+            }
+            return length >= bytes;
+        }
+
+        int byteAt(long position) {
+            return buffer.get((int) (position - start)) & 0xFF;
+        }
+
+        int intAt(long position) {
+            return buffer.getInt((int) (position - start));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Leitura dos metadados de um MP3 direto dos cabeçalhos, sem decodificar e sem FFmpeg:
+// cabeçalho Xing/Info ou VBRI quando existe, senão o TLEN da tag ID3v2, senão cálculo CBR pelo tamanho
+public final class Mp3MetadataProbe {
+
+    // Quantos bytes procurar pelo primeiro frame após a tag ID3v2
+    private static final long SYNC_SEARCH_LIMIT = 64 * 1024;
+
+    private static final int XING_FRAMES_FLAG = 0x1;
+    private static final int XING_BYTES_FLAG = 0x2;
+
+    private Mp3MetadataProbe() {
+    }
+
+    // Retorna null se nenhum frame MPEG de áudio for encontrado no início do arquivo
+    public static AudioMetadata probe(Path file) throws IOException {
+        long fileSize = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Mp3FrameScanner.Window window = new Mp3FrameScanner.Window(channel);
+            long tagEnd = Mp3FrameScanner.skipId3v2(window);
+            long tlenMillis = tagEnd > 0 ? readTlen(window, tagEnd) : -1;
+
+            long position = tagEnd;
+            Mp3FrameHeader header = null;
+            while (position < tagEnd + SYNC_SEARCH_LIMIT && window.ensure(position, 4)) {
+                Mp3FrameHeader candidate = Mp3FrameHeader.parse(window.intAt(position));
+                long next = candidate != null ? position + candidate.getFrameLength() : -1;
+                if (candidate != null && (!window.ensure(next, 4)
+                        || candidate.isCompatible(Mp3FrameHeader.parse(window.intAt(next))))) {
+                    header = candidate;
+                    break;
+                }
+                position++;
+            }
+            if (header == null) {
+                return null;
+            }
+
+            int sampleRate = header.getSampleRate();
+            int channels = header.getChannels();
+            long audioBytes = fileSize - position - (hasId3v1(window, fileSize) ? 128 : 0);
+
+            // Xing/Info (VBR do LAME e CBR com cabeçalho Info)
+            long xing = position + header.sideInfoEnd();
+            if (window.ensure(xing, 16)) {
+                int tag = window.intAt(xing);
+                if (tag == 0x58696E67 || tag == 0x496E666F) {
+                    int flags = window.intAt(xing + 4);
+                    if ((flags & XING_FRAMES_FLAG) != 0) {
+                        long frames = window.intAt(xing + 8) & 0xFFFFFFFFL;
+                        long bytes = (flags & XING_BYTES_FLAG) != 0 ? window.intAt(xing + 12) & 0xFFFFFFFFL : audioBytes;
+                        return fromFrames(frames, bytes, header, channels);
+                    }
+                }
+            }
+
+            // VBRI (Fraunhofer): 32 bytes após o cabeçalho do frame
+            long vbri = position + 4 + 32;
+            if (window.ensure(vbri, 18) && window.intAt(vbri) == 0x56425249) {
+                long bytes = window.intAt(vbri + 10) & 0xFFFFFFFFL;
+                long frames = window.intAt(vbri + 14) & 0xFFFFFFFFL;
+                return fromFrames(frames, bytes, header, channels);
+            }
+
+            if (tlenMillis > 0) {
+                int bitrate = (int) Math.round(audioBytes * 8.0 / tlenMillis);
+                return new AudioMetadata(tlenMillis * 1000, bitrate, sampleRate, channels);
+            }
+
+            // CBR: tamanho dos dados de áudio dividido pela taxa de bits do primeiro frame
+            long durationMicros = audioBytes * 8_000L / header.getBitrateKbps();
+            return new AudioMetadata(durationMicros, header.getBitrateKbps(), sampleRate, channels);
+        }
+    }
+
+    private static AudioMetadata fromFrames(long frames, long bytes, Mp3FrameHeader header, int channels) {
+        long durationMicros = frames * header.getSamplesPerFrame() * 1_000_000L / header.getSampleRate();
+        int bitrate = durationMicros > 0 ? (int) Math.round(bytes * 8_000.0 / durationMicros) : header.getBitrateKbps();
+        return new AudioMetadata(durationMicros, bitrate, header.getSampleRate(), channels);
+    }
+
+    private static boolean hasId3v1(Mp3FrameScanner.Window window, long fileSize) throws IOException {
+        long tag = fileSize - 128;
+        return tag > 0 && window.ensure(tag, 3)
+                && window.byteAt(tag) == 'T' && window.byteAt(tag + 1) == 'A' && window.byteAt(tag + 2) == 'G';
+    }
+
+    // Procura o frame TLEN (duração em milissegundos) na tag ID3v2.3/2.4; -1 se não existir
+    static long readTlen(Mp3FrameScanner.Window window, long tagEnd) throws IOException {
+        if (!window.ensure(0, 10)) {
+            return -1;
+        }
+        int major = window.byteAt(3);
+        if (major != 3 && major != 4) {
+            return -1;
+        }
+        long position = 10;
+        if ((window.byteAt(5) & 0x40) != 0 && window.ensure(position, 4)) {
+            // Cabeçalho estendido
+            long size = major == 4 ? syncsafe(window, position) : window.intAt(position) + 4L;
+            position += size;
+        }
+
+        while (position + 10 <= tagEnd && window.ensure(position, 10)) {
+            if (window.byteAt(position) == 0) {
+                break; // Padding
+            }
+            boolean tlen = window.byteAt(position) == 'T' && window.byteAt(position + 1) == 'L'
+                    && window.byteAt(position + 2) == 'E' && window.byteAt(position + 3) == 'N';
+            long size = major == 4 ? syncsafe(window, position + 4) : window.intAt(position + 4) & 0xFFFFFFFFL;
+            if (size <= 0 || position + 10 + size > tagEnd) {
+                break;
+            }
+            if (tlen && size < 64 && window.ensure(position + 10, (int) size)) {
+                return parseTextNumber(window, position + 10, (int) size);
+            }
+            position += 10 + size;
+        }
+        return -1;
+    }
+
+    private static long parseTextNumber(Mp3FrameScanner.Window window, long position, int size) {
+        byte[] data = new byte[size - 1];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) window.byteAt(position + 1 + i);
+        }
+        Charset charset;
+        switch (window.byteAt(position)) {
+            case 1:
+                charset = StandardCharsets.UTF_16;
+                break;
+            case 2:
+                charset = StandardCharsets.UTF_16BE;
+                break;
+            case 3:
+                charset = StandardCharsets.UTF_8;
+                break;
+            default:
+                charset = StandardCharsets.ISO_8859_1;
+        }
+        String digits = new String(data, charset).replaceAll("[^0-9]", "");
+        try {
+            return digits.isEmpty() ? -1 : Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long syncsafe(Mp3FrameScanner.Window window, long position) {
+        return ((window.byteAt(position) & 0x7F) << 21) | ((window.byteAt(position + 1) & 0x7F) << 14)
+                | ((window.byteAt(position + 2) & 0x7F) << 7) | (window.byteAt(position + 3) & 0x7F);
+    }
+}
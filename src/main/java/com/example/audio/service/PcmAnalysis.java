@@ -0,0 +1,15 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// Análise executada sobre o PCM decodificado de um arquivo pelo PcmPipeline.
+// Todas as análises de um arquivo compartilham uma única decodificação pelo FFmpeg.
+public interface PcmAnalysis {
+
+    // Indica se o resultado já existe e corresponde ao arquivo atual (nada a fazer)
+    boolean isUpToDate(Path file) throws IOException;
+
+    // Inicia a análise de um arquivo; as amostras chegam em mono, 16 bits, na taxa informada
+    PcmAnalyzer open(Path file, int sampleRate) throws IOException;
+}
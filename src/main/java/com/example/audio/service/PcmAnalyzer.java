@@ -0,0 +1,13 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+
+// Consumidor das amostras de um arquivo, criado por uma PcmAnalysis
+public interface PcmAnalyzer {
+
+    // Recebe as próximas "count" amostras; o array é reutilizado entre as chamadas
+    void accept(short[] samples, int count);
+
+    // Chamado após a última amostra, para gravar o resultado
+    void finish() throws IOException;
+}
@@ -0,0 +1,260 @@
+package com.example.audio.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Decodificação em segundo plano dos arquivos prontos para PCM mono (uma única execução do FFmpeg por
+// arquivo), distribuindo as amostras para todas as análises registradas (PcmAnalysis) que estejam desatualizadas.
+// A fila é por prioridade: pedidos de clientes primeiro, depois segmentos recém-gravados e por fim o backlog
+// (arquivos antigos ainda sem análise), que só ocupa os workers quando não há nada mais urgente.
+@Service
+public class PcmPipeline {
+
+    // Ordem de atendimento; dentro da mesma prioridade, a ordem de chegada. REQUEST é um cliente esperando a
+    // resposta (forma de onda, sonoridade, referência de busca) e passa à frente de tudo
+    public enum Priority {
+        REQUEST,
+        LIVE,
+        BACKFILL
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(PcmPipeline.class);
+
+    private final String FFMPEG_PATH = "C:/ffmpeg/ffmpeg-7.0.2-full_build/bin/ffmpeg.exe";
+
+    // Taxa de amostragem do PCM entregue às análises
+    public static final int SAMPLE_RATE = 16000;
+
+    private static final int READ_BUFFER = 64 * 1024;
+
+    @Autowired
+    private List<PcmAnalysis> analyses;
+
+    @Autowired
+    private FFmpegLauncher ffmpegLauncher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AudioCatalog audioCatalog;
+
+    // Decodificações simultâneas (cada uma ocupa um processo FFmpeg); 0 calcula pelo número de rádios
+    @Value("${audio.pcm.workers:0}")
+    private int workers;
+
+    // Limite só do backlog: segmentos novos e pedidos nunca são recusados
+    @Value("${audio.pcm.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // Rádios atendidas por worker no cálculo automático (um segmento de 5 minutos decodifica em poucos segundos)
+    private static final int STATIONS_PER_WORKER = 8;
+
+    private final String UPLOAD_DIR = "C:/pastaudios";
+
+    // Arquivos na fila ou em processamento; pedidos repetidos do mesmo arquivo compartilham o resultado
+    private final Map<Path, Task> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedBackfill = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private ThreadPoolExecutor executor;
+
+    // Análise de um arquivo na fila; a prioridade pode subir enquanto ele aguarda
+    private final class Task implements Runnable, Comparable<Task> {
+        private final Path file;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile Priority priority;
+        private volatile long order;
+
+        Task(Path file, Priority priority) {
+            this.file = file;
+            this.priority = priority;
+            this.order = sequence.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            if (priority == Priority.BACKFILL) {
+                queuedBackfill.decrementAndGet();
+            }
+            try {
+                process(file);
+                done.complete(null);
+            } catch (Exception e) {
+                done.completeExceptionally(e);
+            } finally {
+                pending.remove(file, this);
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        int threads = workers > 0 ? workers : defaultWorkers();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "pcm-pipeline-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        log.info("Análise de PCM com {} workers", threads);
+        meterRegistry.gauge("audio.jobs.active", Tags.of("type", "pcm"), executor, ThreadPoolExecutor::getActiveCount);
+        meterRegistry.gauge("audio.jobs.queued", Tags.of("type", "pcm"), executor, pool -> pool.getQueue().size());
+        meterRegistry.gauge("audio.jobs.queued", Tags.of("type", "pcm-backfill"), queuedBackfill);
+    }
+
+    // Um worker a cada STATIONS_PER_WORKER rádios, no mínimo 2 (o backlog não segura os segmentos novos) e no
+    // máximo metade dos processadores
+    private int defaultWorkers() {
+        List<String> radios = audioCatalog.listSubdirectories(Paths.get(UPLOAD_DIR));
+        int stations = radios != null ? radios.size() : 0;
+        int limit = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        return Math.min(limit, Math.max(2, (stations + STATIONS_PER_WORKER - 1) / STATIONS_PER_WORKER));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Segmentos recém-gravados entram sempre, à frente do backlog
+    @EventListener
+    public void onAudioFileReady(AudioFileReadyEvent event) {
+        submit(event.getFile(), Priority.LIVE);
+    }
+
+    public CompletableFuture<Void> submit(Path file) {
+        return submit(file, Priority.LIVE);
+    }
+
+    // Enfileira a análise de um arquivo. Um arquivo já na fila com prioridade menor passa para a pedida.
+    // Só o backlog tem limite: lança RejectedExecutionException se houver queue-capacity itens dele aguardando.
+    public CompletableFuture<Void> submit(Path file, Priority priority) {
+        Path key = file.toAbsolutePath().normalize();
+        synchronized (pending) {
+            Task existing = pending.get(key);
+            if (existing != null) {
+                promote(existing, priority);
+                return existing.done;
+            }
+            if (priority == Priority.BACKFILL && queuedBackfill.get() >= queueCapacity) {
+                throw new RejectedExecutionException("Fila de análise do backlog cheia");
+            }
+            Task task = new Task(key, priority);
+            pending.put(key, task);
+            if (priority == Priority.BACKFILL) {
+                queuedBackfill.incrementAndGet();
+            }
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Pipeline encerrado
+                pending.remove(key, task);
+                if (priority == Priority.BACKFILL) {
+                    queuedBackfill.decrementAndGet();
+                }
+                throw e;
+            }
+            return task.done;
+        }
+    }
+
+    // Reinsere na fila com a nova prioridade, se a tarefa ainda não começou
+    private void promote(Task task, Priority priority) {
+        if (priority.compareTo(task.priority) >= 0 || !executor.remove(task)) {
+            return;
+        }
+        if (task.priority == Priority.BACKFILL) {
+            queuedBackfill.decrementAndGet();
+        }
+        task.priority = priority;
+        task.order = sequence.incrementAndGet();
+        executor.execute(task);
+    }
+
+    private void process(Path file) throws IOException, InterruptedException {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        List<PcmAnalyzer> analyzers = new ArrayList<>();
+        for (PcmAnalysis analysis : analyses) {
+            if (!analysis.isUpToDate(file)) {
+                analyzers.add(analysis.open(file, SAMPLE_RATE));
+            }
+        }
+        if (analyzers.isEmpty()) {
+            return;
+        }
+
+        String[] command = {FFMPEG_PATH, "-nostdin", "-v", "error", "-i", file.toString(),
+                "-vn", "-ac", "1", "-ar", String.valueOf(SAMPLE_RATE), "-f", "s16le", "pipe:1"};
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = ffmpegLauncher.start("pcm", processBuilder);
+        try (InputStream stdout = process.getInputStream()) {
+            byte[] buffer = new byte[READ_BUFFER];
+            short[] samples = new short[READ_BUFFER / 2];
+            int carry = 0;
+            int read;
+            while ((read = stdout.read(buffer, carry, buffer.length - carry)) != -1) {
+                int available = carry + read;
+                int count = available / 2;
+                // s16le: byte menos significativo primeiro
+                for (int i = 0; i < count; i++) {
+                    samples[i] = (short) ((buffer[2 * i] & 0xFF) | (buffer[2 * i + 1] << 8));
+                }
+                for (PcmAnalyzer analyzer : analyzers) {
+                    analyzer.accept(samples, count);
+                }
+                carry = available & 1;
+                if (carry == 1) {
+                    buffer[0] = buffer[available - 1];
+                }
+            }
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("Erro no processo FFmpeg, código de saída: " + exitCode);
+            }
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+
+        for (PcmAnalyzer analyzer : analyzers) {
+            analyzer.finish();
+        }
+    }
+}
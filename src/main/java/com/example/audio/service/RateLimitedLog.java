@@ -0,0 +1,44 @@
+package com.example.audio.service;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Log limitado a um número de linhas por segundo: o excedente é descartado e contado, e a quantidade
+// descartada é informada na próxima linha registrada. Evita que a saída de vários FFmpeg sature o log.
+public class RateLimitedLog {
+
+    private final Logger logger;
+    private final int linesPerSecond;
+    private final AtomicLong windowStart = new AtomicLong();
+    private final AtomicLong windowCount = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public RateLimitedLog(Logger logger, int linesPerSecond) {
+        this.logger = logger;
+        this.linesPerSecond = linesPerSecond;
+    }
+
+    public void info(String format, Object... arguments) {
+        if (logger.isInfoEnabled() && acquire()) {
+            long dropped = suppressed.getAndSet(0);
+            if (dropped > 0) {
+                logger.info("{} linhas de log descartadas pelo limite de {}/s", dropped, linesPerSecond);
+            }
+            logger.info(format, arguments);
+        }
+    }
+
+    private boolean acquire() {
+        long now = System.currentTimeMillis() / 1000;
+        long start = windowStart.get();
+        if (now != start && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+        }
+        if (windowCount.incrementAndGet() <= linesPerSecond) {
+            return true;
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+}
@@ -0,0 +1,353 @@
+package com.example.audio.service;
+
+import com.example.audio.model.AudioFile;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Versões de reprodução em bitrate/formato menores, para ouvintes em conexões lentas. A primeira requisição de
+// uma versão inicia um FFmpeg cuja saída vai para um arquivo temporário do cache; ela e as requisições
+// simultâneas da mesma versão acompanham esse arquivo enquanto ele cresce, então o áudio começa a tocar antes
+// do fim da conversão e há um único processo por versão. Concluída, a versão fica no cache (limitado em bytes,
+// com remoção LRU) e passa a ser servida como arquivo comum, com Range.
+@Service
+public class RenditionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RenditionService.class);
+
+    // Pasta oculta dentro de C:/cortes (não aparece nas listagens)
+    private final String CACHE_DIR = "C:/cortes/.renditions";
+    private final String FFMPEG_PATH = "C:/ffmpeg/ffmpeg-7.0.2-full_build/bin/ffmpeg.exe";
+
+    private static final int PIPE_BUFFER = 64 * 1024;
+
+    // Abaixo deste bitrate a versão é mono: em voz e música de rádio soa melhor que estéreo espremido
+    private static final int MONO_BELOW_KBPS = 48;
+
+    public static final int MIN_BITRATE_KBPS = 16;
+    public static final int MAX_BITRATE_KBPS = 320;
+
+    // Formatos de saída que podem ser escritos em pipe e tocados enquanto chegam
+    public enum Format {
+        MP3(".mp3", "audio/mpeg", "libmp3lame", "mp3"),
+        AAC(".aac", "audio/aac", "aac", "adts"),
+        OPUS(".opus", "audio/ogg", "libopus", "ogg");
+
+        private final String extension;
+        private final String contentType;
+        private final String codec;
+        private final String muxer;
+
+        Format(String extension, String contentType, String codec, String muxer) {
+            this.extension = extension;
+            this.contentType = contentType;
+            this.codec = codec;
+            this.muxer = muxer;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        // Formato pelo nome (mp3, aac, opus); IllegalArgumentException se não for suportado
+        public static Format parse(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Formato não suportado: " + name + " (use mp3, aac ou opus)");
+            }
+        }
+    }
+
+    // Resultado de um pedido: o arquivo pronto (original ou versão em cache) ou uma conversão em andamento
+    public static final class Rendition {
+        private final Path file;
+        private final Transcode transcode;
+        private final Format format;
+
+        private Rendition(Path file, Transcode transcode, Format format) {
+            this.file = file;
+            this.transcode = transcode;
+            this.format = format;
+        }
+
+        // Arquivo completo; null enquanto a conversão não terminou
+        public Path getFile() {
+            return file;
+        }
+
+        public boolean isOriginal() {
+            return format == null;
+        }
+
+        public Format getFormat() {
+            return format;
+        }
+    }
+
+    // Conversão em andamento: bytes já gravados no arquivo temporário e, ao fim, o arquivo no cache ou a falha
+    static final class Transcode {
+        private final Path temp;
+        private long written = 0;
+        private boolean finished = false;
+        private Path result;
+        private IOException failure;
+
+        Transcode(Path temp) {
+            this.temp = temp;
+        }
+
+        synchronized void advance(long bytes) {
+            written += bytes;
+            notifyAll();
+        }
+
+        synchronized void finish(Path result, IOException failure) {
+            this.result = result;
+            this.failure = failure;
+            this.finished = true;
+            notifyAll();
+        }
+
+        // Abre o arquivo para leitura: o temporário ou, se a conversão já terminou, a versão no cache
+        synchronized FileChannel openReader() throws IOException {
+            if (finished && failure != null) {
+                throw failure;
+            }
+            return FileChannel.open(finished ? result : temp, StandardOpenOption.READ);
+        }
+
+        // Aguarda haver bytes além de "position" ou o fim da conversão; retorna o total disponível
+        synchronized long awaitBeyond(long position) throws InterruptedException, IOException {
+            while (written <= position && !finished) {
+                wait(1000);
+            }
+            if (written <= position && failure != null) {
+                throw failure;
+            }
+            return written;
+        }
+    }
+
+    @Autowired
+    private ContentHashService contentHashService;
+
+    @Autowired
+    private AudioMetadataService audioMetadataService;
+
+    @Autowired
+    private FFmpegLauncher ffmpegLauncher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Espaço máximo ocupado pelas versões convertidas
+    @Value("${audio.rendition.cache.max-bytes:5368709120}")
+    private long maxBytes;
+
+    // Conversões simultâneas e conversões aguardando na fila
+    @Value("${audio.rendition.workers:2}")
+    private int workers;
+
+    @Value("${audio.rendition.queue-capacity:50}")
+    private int queueCapacity;
+
+    private DiskLruCache cache;
+    private final Map<String, Transcode> inflight = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        cache = new DiskLruCache(Paths.get(CACHE_DIR), maxBytes);
+        cache.open();
+
+        int poolSize = Math.max(workers, 1);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)), runnable -> {
+                    Thread thread = new Thread(runnable, "rendition-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        meterRegistry.gauge("audio.jobs.active", Tags.of("type", "rendition"), executor, ThreadPoolExecutor::getActiveCount);
+        meterRegistry.gauge("audio.jobs.queued", Tags.of("type", "rendition"), executor, pool -> pool.getQueue().size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Versão de "source" no formato e bitrate pedidos. Se o original já está nesse formato com bitrate igual ou
+    // menor, ele mesmo é retornado. Lança RejectedExecutionException quando a fila de conversões está cheia.
+    public Rendition open(Path source, Format format, int bitrateKbps) throws IOException {
+        if (bitrateKbps < MIN_BITRATE_KBPS || bitrateKbps > MAX_BITRATE_KBPS) {
+            throw new IllegalArgumentException("Bitrate deve estar entre " + MIN_BITRATE_KBPS + " e "
+                    + MAX_BITRATE_KBPS + " kbps.");
+        }
+        AudioFile audioFile = audioMetadataService.describe(source);
+        if (source.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(format.extension)
+                && audioFile.getBitrate() != null && audioFile.getBitrate() > 0
+                && audioFile.getBitrate() <= bitrateKbps) {
+            return new Rendition(source, null, null);
+        }
+
+        String key = CutCacheService.key(contentHashService.hashOf(source), 0, 0,
+                "rendition|" + format.codec + "|" + bitrateKbps + "k");
+        String name = key + format.extension;
+        Path cached = cache.lookup(name);
+        if (cached != null) {
+            return new Rendition(cached, null, format);
+        }
+        Transcode started = new Transcode(cache.tempFile(key, format.extension));
+        Transcode transcode = inflight.putIfAbsent(name, started);
+        if (transcode != null) {
+            cache.recordCoalesced();
+            return new Rendition(null, transcode, format);
+        }
+        // Outra requisição pode ter concluído a mesma versão entre a consulta e o registro
+        cached = cache.lookup(name);
+        if (cached != null) {
+            inflight.remove(name, started);
+            return new Rendition(cached, null, format);
+        }
+        cache.recordMiss();
+        try {
+            Files.write(started.temp, new byte[0]);
+            executor.execute(() -> transcode(source, format, bitrateKbps, name, started));
+        } catch (IOException | RuntimeException e) {
+            inflight.remove(name, started);
+            Files.deleteIfExists(started.temp);
+            throw e;
+        }
+        return new Rendition(null, started, format);
+    }
+
+    // Envia uma conversão em andamento acompanhando o arquivo até o fim. Se o cliente desconectar a conversão
+    // continua e a versão fica no cache para o próximo pedido.
+    public void writeTo(Rendition rendition, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        Transcode transcode = rendition.transcode;
+        try (FileChannel channel = transcode.openReader()) {
+            long position = 0;
+            while (true) {
+                long available = transcode.awaitBeyond(position);
+                if (available <= position) {
+                    break;
+                }
+                while (position < available) {
+                    position += channel.transferTo(position, available - position, target);
+                }
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Envio da versão interrompido", e);
+        }
+    }
+
+    private void transcode(Path source, Format format, int bitrateKbps, String name, Transcode transcode) {
+        List<String> command = new ArrayList<>(Arrays.asList(FFMPEG_PATH, "-nostdin", "-v", "error",
+                "-i", source.toString(), "-vn", "-map", "0:a:0", "-map_metadata", "-1",
+                "-c:a", format.codec, "-b:a", bitrateKbps + "k"));
+        if (bitrateKbps < MONO_BELOW_KBPS) {
+            command.addAll(Arrays.asList("-ac", "1"));
+        }
+        command.addAll(Arrays.asList("-f", format.muxer, "pipe:1"));
+        try {
+            IOException failure = null;
+            try {
+                pipeFFmpeg(command, transcode);
+                synchronized (transcode) {
+                    // Move e conclusão juntos: um leitor novo abre o temporário antes ou a versão depois, nunca nenhum
+                    transcode.finish(cache.store(name, transcode.temp), null);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException(e.getMessage(), e);
+            }
+            if (failure != null) {
+                log.warn("Falha ao converter {} para {} {} kbps: {}", source, format, bitrateKbps, failure.getMessage());
+                transcode.finish(null, failure);
+                try {
+                    Files.deleteIfExists(transcode.temp);
+                } catch (IOException e) {
+                    // Removido na próxima inicialização
+                }
+            }
+        } finally {
+            // Só depois de o temporário sair do lugar, para uma nova conversão da mesma versão não o reaproveitar
+            inflight.remove(name, transcode);
+        }
+    }
+
+    private void pipeFFmpeg(List<String> command, Transcode transcode) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = ffmpegLauncher.start("rendition", processBuilder);
+        try (InputStream stdout = process.getInputStream();
+             FileChannel file = FileChannel.open(transcode.temp, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[] buffer = new byte[PIPE_BUFFER];
+            int read;
+            while ((read = stdout.read(buffer)) != -1) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    file.write(chunk);
+                }
+                transcode.advance(read);
+            }
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("Erro no processo FFmpeg, código de saída: " + exitCode);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Conversão interrompida", e);
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    // Contadores do cache de versões no formato retornado pela API
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = cache.stats();
+        stats.put("inflight", inflight.size());
+        return stats;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.audio.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executor das requisições assíncronas: tarefas curtas dos handlers que retornam CompletableFuture e, em um pool
+// separado (transfers), os corpos enviados em streaming (StreamingResponseBody), que podem durar minutos com
+// clientes lentos e não devem ocupar as threads das tarefas curtas. Por padrão cada um é um pool limitado (o de
+// requisições com fila, o de envios sem) que lança RejectedExecutionException quando cheio, respondida com 503;
+// com audio.async.virtual-threads=true, em um JDK com virtual threads (21+), cada tarefa roda em uma virtual
+// thread e o número de threads deixa de limitar cortes e reproduções simultâneos. O projeto compila em Java 11,
+// então a fábrica de virtual threads é obtida por reflexão; em JDKs antigos o pool limitado é usado.
+@Service
+public class RequestExecutor implements Executor {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestExecutor.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${audio.async.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    // Pool limitado (sem virtual threads): threads e tarefas aguardando na fila
+    @Value("${audio.async.threads:64}")
+    private int threads;
+
+    @Value("${audio.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    // Envios em streaming simultâneos e aguardando na fila (sem virtual threads). Sem fila por padrão: um envio
+    // enfileirado esperaria até um dos atuais terminar (minutos, com o tempo limite assíncrono de 30 minutos), então
+    // o excedente recebe 503 na hora
+    @Value("${audio.async.transfer-threads:64}")
+    private int transferThreads;
+
+    @Value("${audio.async.transfer-queue-capacity:0}")
+    private int transferQueueCapacity;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger activeTransfers = new AtomicInteger();
+    private ExecutorService executor;
+    private ExecutorService transferExecutor;
+    private boolean virtual = false;
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads) {
+            executor = newVirtualThreadExecutor("request-");
+            virtual = executor != null;
+            if (!virtual) {
+                log.warn("Virtual threads indisponíveis nesta JVM ({}), usando pool de {} threads",
+                        System.getProperty("java.version"), threads);
+            }
+        }
+        if (executor == null) {
+            executor = newPool("request-", threads, queueCapacity);
+            transferExecutor = newPool("transfer-", transferThreads, transferQueueCapacity);
+        } else {
+            transferExecutor = newVirtualThreadExecutor("transfer-");
+        }
+        Gauge.builder("audio.async.active", active, AtomicInteger::get)
+                .tags("mode", virtual ? "virtual" : "pool", "pool", "request")
+                .description("Tarefas de requisições assíncronas em execução")
+                .register(meterRegistry);
+        Gauge.builder("audio.async.active", activeTransfers, AtomicInteger::get)
+                .tags("mode", virtual ? "virtual" : "pool", "pool", "transfer")
+                .description("Envios em streaming em execução")
+                .register(meterRegistry);
+    }
+
+    // Pool fixo; com queueCapacity <= 0 a tarefa só é aceita se houver uma thread livre (SynchronousQueue)
+    private static ExecutorService newPool(String namePrefix, int threads, int queueCapacity) {
+        int poolSize = Math.max(threads, 1);
+        AtomicInteger counter = new AtomicInteger();
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity)
+                : new SynchronousQueue<>();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                queue, runnable -> {
+                    Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        transferExecutor.shutdownNow();
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        executor.execute(counted(active, task));
+    }
+
+    // Executor dos envios em streaming (StreamingResponseBody), usado pelo Spring MVC; lança
+    // RejectedExecutionException quando não há thread de envio livre (nem lugar na fila, se configurada)
+    public Executor transfers() {
+        return task -> transferExecutor.execute(counted(activeTransfers, task));
+    }
+
+    private static Runnable counted(AtomicInteger counter, Runnable task) {
+        return () -> {
+            counter.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                counter.decrementAndGet();
+            }
+        };
+    }
+
+    // Executa uma tarefa bloqueante (disco, FFmpeg) fora da thread do servlet; exceções completam o futuro.
+    // Lança RejectedExecutionException quando a fila do pool está cheia.
+    public <T> CompletableFuture<T> supply(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        execute(() -> {
+            try {
+                future.complete(task.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // Aguarda um futuro sem ocupar thread e então executa "then" no executor. Se o futuro não terminar em
+    // timeoutSeconds o resultado falha com TimeoutException, mas o futuro original segue (ele pode ser
+    // compartilhado com outros pedidos, como os do PcmPipeline).
+    public <T> CompletableFuture<T> afterCompletion(CompletableFuture<?> future, long timeoutSeconds, Callable<T> then) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.thenApply(done -> done)
+                .orTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .whenComplete((done, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(causeOf(error));
+                        return;
+                    }
+                    try {
+                        supply(then).whenComplete((value, failure) -> {
+                            if (failure != null) {
+                                result.completeExceptionally(failure);
+                            } else {
+                                result.complete(value);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        result.completeExceptionally(e);
+                    }
+                });
+        return result;
+    }
+
+    // Exceção original de uma falha propagada por CompletableFuture
+    public static Throwable causeOf(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    // Executor com uma virtual thread por tarefa (Executors.newThreadPerTaskExecutor com Thread.ofVirtual()),
+    // ou null se a JVM não tiver virtual threads
+    public static ExecutorService newVirtualThreadExecutor(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 1L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.audio.service;
+
+import com.example.audio.config.RetentionProperties;
+import com.example.audio.model.AudioFile;
+import com.example.audio.model.StorageTier;
+import com.example.audio.repository.AudioFileRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Retenção em camadas dos segmentos gravados: depois de compact-after-days o MP3 original é recodificado
+// em Opus mono de baixa taxa (mesmo nome, extensão .opus) e depois de delete-after-days o segmento é removido.
+// Roda em um pool pequeno de threads de baixa prioridade, com pausa entre segmentos.
+@Service
+public class RetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionService.class);
+
+    private final String UPLOAD_DIR = "C:/pastaudios";
+    private final String FFMPEG_PATH = "C:/ffmpeg/ffmpeg-7.0.2-full_build/bin/ffmpeg.exe";
+
+    public static final String COMPACT_EXTENSION = ".opus";
+
+    @Autowired
+    private RetentionProperties properties;
+
+    @Autowired
+    private AudioFileRepository audioFileRepository;
+
+    @Autowired
+    private AudioMetadataService audioMetadataService;
+
+    @Autowired
+    private AudioCatalog audioCatalog;
+
+    @Autowired
+    private Mp3FrameIndexService mp3FrameIndexService;
+
+    @Autowired
+    private WaveformService waveformService;
+
+    @Autowired
+    private LoudnessService loudnessService;
+
+    @Autowired
+    private FingerprintService fingerprintService;
+
+    @Autowired
+    private FFmpegLauncher ffmpegLauncher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private interface Task {
+        void run(AudioFile audioFile) throws IOException, InterruptedException;
+    }
+
+    // Registros enfileirados ou em processamento, para não enfileirar o mesmo segmento duas vezes
+    private final Set<Long> inProgress = ConcurrentHashMap.newKeySet();
+    private ThreadPoolExecutor executor;
+    // Prefixo efetivo do comando do FFmpeg (configurado ou o padrão do sistema)
+    private List<String> lowPriorityCommand;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = Math.max(properties.getWorkers(), 1);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(properties.getBatchSize(), 1) * 2), runnable -> {
+                    Thread thread = new Thread(runnable, "retention-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        lowPriorityCommand = resolveLowPriorityCommand();
+    }
+
+    // Thread.MIN_PRIORITY só vale para a thread Java que aguarda o processo; a prioridade do FFmpeg depende do
+    // prefixo. Sem configuração: no Windows, "start /LOW /WAIT" pelo cmd (classe de prioridade baixa, aguardando
+    // o fim para repassar o código de saída); nos demais, "nice -n 19" e, se existir, "ionice -c 3" (E/S só
+    // quando o disco estiver ocioso), já que a compactação é limitada pelo disco mais que pela CPU.
+    private List<String> resolveLowPriorityCommand() {
+        if (!properties.getLowPriorityCommand().isEmpty()) {
+            return properties.getLowPriorityCommand();
+        }
+        if (System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows")) {
+            return Arrays.asList("cmd", "/c", "start", "\"\"", "/B", "/LOW", "/WAIT");
+        }
+        List<String> command = new ArrayList<>(Arrays.asList("nice", "-n", "19"));
+        if (onPath("ionice")) {
+            command.addAll(Arrays.asList("ionice", "-c", "3"));
+        }
+        return command;
+    }
+
+    private static boolean onPath(String program) {
+        for (String directory : System.getenv().getOrDefault("PATH", "").split(File.pathSeparator)) {
+            if (!directory.isEmpty() && Files.isExecutable(Paths.get(directory, program))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Arquivo que contém o áudio pedido no momento: o original, se ainda existir, senão a versão compactada
+    public static Path resolve(Path requested) {
+        if (Files.exists(requested)) {
+            return requested;
+        }
+        Path compact = compactPathOf(requested);
+        return Files.exists(compact) ? compact : requested;
+    }
+
+    static Path compactPathOf(Path original) {
+        String name = original.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return original.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + COMPACT_EXTENSION);
+    }
+
+    // Enfileira, para cada rádio, os segmentos vencidos de cada etapa; o trabalho é feito pelos workers
+    @Scheduled(fixedDelayString = "${audio.retention.interval-millis:3600000}",
+            initialDelayString = "${audio.retention.initial-delay-millis:300000}")
+    public void run() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<String> radios = audioCatalog.listSubdirectories(Paths.get(UPLOAD_DIR));
+        if (radios == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        PageRequest batch = PageRequest.of(0, properties.getBatchSize());
+        for (String radioName : radios) {
+            RetentionProperties.Policy policy = properties.policyFor(radioName);
+            for (AudioFile audioFile : audioFileRepository.findByRadioNameAndOriginalPathIsNotNull(radioName, batch)) {
+                if (!submit(audioFile, this::removeOriginal)) {
+                    return;
+                }
+            }
+            if (policy.getDeleteAfterDays() > 0) {
+                Instant before = now.minus(Duration.ofDays(policy.getDeleteAfterDays()));
+                for (AudioFile audioFile : audioFileRepository
+                        .findByRadioNameAndStartTimeBeforeOrderByStartTimeAsc(radioName, before, batch)) {
+                    if (!submit(audioFile, this::expire)) {
+                        return;
+                    }
+                }
+            }
+            if (policy.getCompactAfterDays() > 0) {
+                Instant before = now.minus(Duration.ofDays(policy.getCompactAfterDays()));
+                for (AudioFile audioFile : audioFileRepository.findCompactionCandidates(radioName, before, batch)) {
+                    if (!submit(audioFile, this::compact)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // Retorna false quando a fila está cheia; o restante fica para a próxima execução
+    private boolean submit(AudioFile audioFile, Task task) {
+        Long id = audioFile.getId();
+        if (!inProgress.add(id)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run(audioFile);
+                    Thread.sleep(properties.getThrottleMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.warn("Retenção: falha ao processar {}", audioFile.getFilePath(), e);
+                } finally {
+                    inProgress.remove(id);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inProgress.remove(id);
+            return false;
+        }
+    }
+
+    // Recodifica o original em Opus ao lado dele, aponta o registro para a nova camada e só então remove o original,
+    // de modo que reprodução e corte sempre encontrem uma das duas versões. O caminho do original fica no registro
+    // até a remoção dar certo: no Windows ela falha enquanto o arquivo estiver aberto (reprodução, escuta ao vivo,
+    // cópia mapeada) e é repetida nas próximas execuções
+    void compact(AudioFile audioFile) throws IOException, InterruptedException {
+        Path source = Paths.get(audioFile.getFilePath());
+        if (!Files.isRegularFile(source)) {
+            // Original removido fora da retenção: o registro não aponta mais para nada
+            audioFileRepository.delete(audioFile);
+            return;
+        }
+        Path target = compactPathOf(source);
+        Path part = target.resolveSibling("." + target.getFileName());
+
+        List<String> command = new ArrayList<>(lowPriorityCommand);
+        command.addAll(Arrays.asList(FFMPEG_PATH, "-nostdin", "-v", "error", "-y", "-threads", "1",
+                "-i", source.toString(),
+                "-vn", "-ac", "1",
+                "-c:a", "libopus", "-b:a", properties.getBitrate(), "-application", "audio",
+                "-f", "ogg", part.toString()));
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectErrorStream(true);
+        Process process = ffmpegLauncher.start("retention", processBuilder);
+        boolean completed = false;
+        try {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ffmpegLauncher.logOutput("retention", line);
+                }
+            }
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("Erro no processo FFmpeg, código de saída: " + exitCode);
+            }
+            StreamingCut.moveIntoPlace(part, target);
+            completed = true;
+        } finally {
+            if (process.isAlive()) {
+                // Com o prefixo do Windows o FFmpeg é filho do cmd e não sairia junto com ele
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+            if (!completed) {
+                Files.deleteIfExists(part);
+            }
+        }
+
+        long originalSize = Files.size(source);
+        audioFile.setFilePath(AudioMetadataService.storageKey(target));
+        audioFile.setFileName(target.getFileName().toString());
+        audioFile.setStorageTier(StorageTier.COMPACT);
+        audioFile.setOriginalPath(AudioMetadataService.storageKey(source));
+        audioFile.setContentHash(null);
+        audioFile.setContentCrc32(null);
+        audioFileRepository.save(audioFile);
+        // Mesmo registro, agora com os metadados da versão compactada
+        audioFile = audioMetadataService.describe(target);
+        meterRegistry.counter("audio.retention.compacted").increment();
+        meterRegistry.counter("audio.retention.bytes.saved").increment(originalSize - Files.size(target));
+
+        removeOriginal(audioFile);
+    }
+
+    // Remove o original de um segmento já compactado; se ainda estiver em uso, fica para a próxima execução
+    void removeOriginal(AudioFile audioFile) throws IOException {
+        if (audioFile.getOriginalPath() == null) {
+            return;
+        }
+        Path original = Paths.get(audioFile.getOriginalPath());
+        try {
+            Files.deleteIfExists(original);
+        } catch (IOException e) {
+            log.info("Retenção: original {} em uso, nova tentativa na próxima execução", original);
+            return;
+        }
+        mp3FrameIndexService.forget(original);
+        Files.deleteIfExists(waveformService.sidecarFor(original));
+        Files.deleteIfExists(loudnessService.sidecarFor(original));
+        audioFile.setOriginalPath(null);
+        audioFileRepository.save(audioFile);
+    }
+
+    // Remove o segmento: primeiro o registro (sai das consultas por horário), depois o arquivo
+    void expire(AudioFile audioFile) throws IOException {
+        Path file = Paths.get(audioFile.getFilePath());
+        audioFileRepository.delete(audioFile);
+        if (audioFile.getRadioName() != null && audioFile.getStartTime() != null) {
+            loudnessService.forgetSegment(audioFile.getRadioName(), audioFile.getStartTime());
+        }
+        Files.deleteIfExists(file);
+        mp3FrameIndexService.forget(file);
+        Files.deleteIfExists(waveformService.sidecarFor(file));
+        Files.deleteIfExists(loudnessService.sidecarFor(file));
+        fingerprintService.forget(file);
+        if (audioFile.getOriginalPath() != null) {
+            // Original de um segmento compactado que ainda não tinha sido removido
+            Path original = Paths.get(audioFile.getOriginalPath());
+            Files.deleteIfExists(original);
+            mp3FrameIndexService.forget(original);
+            Files.deleteIfExists(waveformService.sidecarFor(original));
+            Files.deleteIfExists(loudnessService.sidecarFor(original));
+            fingerprintService.forget(original);
+        }
+        meterRegistry.counter("audio.retention.deleted").increment();
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.audio.service;
+
+import com.example.audio.model.AudioFile;
+import com.example.audio.repository.AudioFileRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Registro dos segmentos gravados na tabela audio_file (rádio, início, fim, tamanho e duração),
+// com inserções em lote via JDBC, e consultas por intervalo de tempo real
+@Service
+public class SegmentCatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentCatalogService.class);
+
+    private final String UPLOAD_DIR = "C:/pastaudios";
+
+    // Segment_20240131_235500.mp3 → 2024-01-31 23:55:00 no fuso local (o mesmo usado pelo strftime do FFmpeg)
+    private static final Pattern SEGMENT_NAME = Pattern.compile("^Segment_(\\d{8}_\\d{6})\\.mp3$");
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private static final String INSERT_SQL = "insert into audio_file (file_name, file_path, size, duration,"
+            + " last_modified, duration_micros, bitrate, sample_rate, channels, radio_name, start_time, end_time)"
+            + " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "update audio_file set size = ?, duration = ?, last_modified = ?,"
+            + " duration_micros = ?, bitrate = ?, sample_rate = ?, channels = ?, radio_name = ?, start_time = ?,"
+            + " end_time = ? where file_path = ?";
+
+    @Autowired
+    private AudioFileRepository audioFileRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private AudioCatalog audioCatalog;
+
+    @Autowired
+    private AudioMetadataService audioMetadataService;
+
+    // Quantidade máxima de segmentos por lote de inserção
+    @Value("${audio.segments.batch-size:500}")
+    private int batchSize;
+
+    // Maior duração esperada de um segmento; limita a faixa do índice percorrida nas consultas
+    @Value("${audio.segments.max-length-seconds:3600}")
+    private long maxSegmentLengthSeconds;
+
+    private final BlockingQueue<Path> pending = new LinkedBlockingQueue<>();
+
+    public static boolean isSegment(Path file) {
+        return SEGMENT_NAME.matcher(file.getFileName().toString()).matches();
+    }
+
+    // Instante de início de um segmento a partir do nome; null se o nome não seguir o padrão
+    public static Instant segmentStart(String fileName) {
+        Matcher matcher = SEGMENT_NAME.matcher(fileName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(matcher.group(1), SEGMENT_TIME).atZone(ZoneId.systemDefault()).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // Segmento fechado pelo gravador; o registro ocorre no próximo lote
+    @EventListener
+    public void onAudioFileReady(AudioFileReadyEvent event) {
+        if (event.getRadioName() != null && isSegment(event.getFile())) {
+            pending.add(event.getFile());
+        }
+    }
+
+    // Registra os segmentos já existentes em disco que ainda não estão na tabela
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        Thread thread = new Thread(() -> {
+            List<String> radios = audioCatalog.listSubdirectories(Paths.get(UPLOAD_DIR));
+            if (radios == null) {
+                return;
+            }
+            for (String radioName : radios) {
+                Path radioPath = Paths.get(UPLOAD_DIR, radioName);
+                List<String> files = audioCatalog.listFileNames(radioPath);
+                if (files == null) {
+                    continue;
+                }
+                Set<String> registered = new HashSet<>(jdbcTemplate.queryForList(
+                        "select file_path from audio_file where radio_name = ?", String.class, radioName));
+                for (String fileName : files) {
+                    Path segment = radioPath.resolve(fileName);
+                    if (isSegment(segment) && !registered.contains(AudioMetadataService.storageKey(segment))) {
+                        pending.add(segment);
+                    }
+                }
+            }
+        }, "segment-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Grava no máximo um lote de segmentos pendentes por execução, para que a fila do backfill não ocupe a
+    // thread agendada por minutos; o restante fica para as próximas
+    @Scheduled(fixedDelayString = "${audio.segments.flush-interval-millis:5000}")
+    public void flush() {
+        List<Path> batch = new ArrayList<>(batchSize);
+        if (pending.drainTo(batch, batchSize) == 0) {
+            return;
+        }
+        try {
+            register(batch);
+        } catch (RuntimeException e) {
+            log.error("Falha ao registrar {} segmentos no catálogo", batch.size(), e);
+        }
+    }
+
+    private void register(List<Path> segments) {
+        List<Object[]> rows = new ArrayList<>(segments.size());
+        List<String> keys = new ArrayList<>(segments.size());
+        for (Path segment : segments) {
+            Object[] row = toRow(segment);
+            if (row != null) {
+                rows.add(row);
+                keys.add((String) row[1]);
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        // Arquivos já registrados (ex.: sondados antes) são atualizados; os demais, inseridos
+        Set<String> existing = new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "select file_path from audio_file where file_path in (:paths)",
+                new MapSqlParameterSource("paths", keys), String.class));
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Object[] row : rows) {
+            if (existing.contains((String) row[1])) {
+                updates.add(new Object[]{row[2], row[3], row[4], row[5], row[6], row[7], row[8], row[9], row[10], row[11], row[1]});
+            } else {
+                inserts.add(row);
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+        }
+    }
+
+    private Object[] toRow(Path segment) {
+        Instant start = segmentStart(segment.getFileName().toString());
+        Path radioDirectory = segment.getParent();
+        if (start == null || radioDirectory == null) {
+            return null;
+        }
+        try {
+            long size = Files.size(segment);
+            long modified = Files.getLastModifiedTime(segment).toMillis();
+            AudioMetadata metadata = audioMetadataService.probe(segment);
+            Instant end = start.plus(Duration.ofNanos(metadata.getDurationMicros() * 1000));
+            return new Object[]{
+                    segment.getFileName().toString(),
+                    AudioMetadataService.storageKey(segment),
+                    size,
+                    metadata.getDurationSeconds(),
+                    modified,
+                    metadata.getDurationMicros(),
+                    metadata.getBitrateKbps(),
+                    metadata.getSampleRate(),
+                    metadata.getChannels(),
+                    radioDirectory.getFileName().toString(),
+                    Timestamp.from(start),
+                    Timestamp.from(end)
+            };
+        } catch (IOException e) {
+            // Segmento removido antes do registro
+            return null;
+        }
+    }
+
+    // Segmentos de uma rádio que cobrem [from, to), em ordem cronológica, a partir do cursor "after" (exclusivo)
+    public List<AudioFile> findSegments(String radioName, Instant from, Instant to, Instant after, int limit) {
+        Instant earliestStart = from.minusSeconds(maxSegmentLengthSeconds);
+        Instant cursor = after != null && after.isAfter(earliestStart) ? after : earliestStart.minusNanos(1000);
+        return audioFileRepository.findSegments(radioName, from, to, earliestStart, cursor, PageRequest.of(0, limit));
+    }
+}
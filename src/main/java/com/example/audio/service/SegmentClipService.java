@@ -0,0 +1,111 @@
+package com.example.audio.service;
+
+import com.example.audio.model.AudioFile;
+import com.example.audio.model.StorageTier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Corte por horário real atravessando vários segmentos gravados: o trecho final do primeiro segmento,
+// os segmentos intermediários inteiros e o trecho inicial do último, copiados frame a frame em sequência
+@Service
+public class SegmentClipService {
+
+    // Segmentos consultados por página ao montar o corte
+    private static final int PAGE_SIZE = 500;
+
+    @Autowired
+    private SegmentCatalogService segmentCatalogService;
+
+    @Autowired
+    private Mp3FrameIndexService mp3FrameIndexService;
+
+    // Trecho [from, to) em bytes de um segmento
+    public static class ClipPart {
+        private final Path file;
+        private final long from;
+        private final long to;
+
+        ClipPart(Path file, long from, long to) {
+            this.file = file;
+            this.from = from;
+            this.to = to;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public long getFrom() {
+            return from;
+        }
+
+        public long getTo() {
+            return to;
+        }
+
+        public long length() {
+            return to - from;
+        }
+    }
+
+    // Monta a lista de trechos que cobrem [from, to); vazia se não houver segmentos registrados no intervalo.
+    // Lança IllegalStateException se algum segmento do intervalo já foi compactado (não é mais MP3).
+    public List<ClipPart> plan(String radioName, Instant from, Instant to) throws IOException {
+        List<ClipPart> parts = new ArrayList<>();
+        Instant after = null;
+        while (true) {
+            List<AudioFile> segments = segmentCatalogService.findSegments(radioName, from, to, after, PAGE_SIZE);
+            for (AudioFile segment : segments) {
+                ClipPart part = partOf(segment, from, to);
+                if (part != null) {
+                    parts.add(part);
+                }
+            }
+            if (segments.size() < PAGE_SIZE) {
+                return parts;
+            }
+            after = segments.get(segments.size() - 1).getStartTime();
+        }
+    }
+
+    private ClipPart partOf(AudioFile segment, Instant from, Instant to) throws IOException {
+        if (segment.getStorageTier() == StorageTier.COMPACT) {
+            throw new IllegalStateException("O trecho inclui segmentos já compactados pela retenção ("
+                    + segment.getFileName() + "); use o corte por arquivo.");
+        }
+        Path file = Paths.get(segment.getFilePath());
+        Mp3FrameIndex index = mp3FrameIndexService.getIndex(file);
+        if (index == null) {
+            throw new IOException("Segmento não é um MP3 válido: " + file.getFileName());
+        }
+        Instant start = segment.getStartTime();
+        double startSeconds = Math.max(0, Duration.between(start, from).toMillis() / 1000.0);
+        double endSeconds = Duration.between(start, to).toMillis() / 1000.0;
+        long[] range = index.byteRange(startSeconds, endSeconds - startSeconds);
+        return range[1] > range[0] ? new ClipPart(file, range[0], range[1]) : null;
+    }
+
+    public static long totalLength(List<ClipPart> parts) {
+        long total = 0;
+        for (ClipPart part : parts) {
+            total += part.length();
+        }
+        return total;
+    }
+
+    // Escreve os trechos em sequência no canal de saída; os frames MP3 são concatenados sem reprocessamento
+    public static void write(List<ClipPart> parts, WritableByteChannel target) throws IOException {
+        for (ClipPart part : parts) {
+            Mp3FrameCopier.copy(part.getFile(), part.getFrom(), part.getTo(), target);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.audio.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Leitura incremental, frame a frame, de um segmento MP3 que o FFmpeg ainda pode estar gravando: a cada chamada
+// entrega só os frames completos escritos desde a anterior. Pula a tag ID3v2 e o frame Xing/Info do início.
+final class SegmentFrameReader implements Closeable {
+
+    private static final int ID3_HEADER = 10;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    // Próximo byte a examinar; -1 até a tag ID3v2 (se houver) ter sido lida
+    private long position = -1;
+    private Mp3FrameHeader first;
+    private long frames = 0;
+    private long lastReadStart = -1;
+
+    SegmentFrameReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    long getPosition() {
+        return position;
+    }
+
+    // Frames entregues até agora
+    long getFrames() {
+        return frames;
+    }
+
+    // Posição no arquivo do primeiro frame entregue pela última leitura
+    long getLastReadStart() {
+        return lastReadStart;
+    }
+
+    // Duração de cada frame do fluxo; 0 antes do primeiro frame
+    long getFrameDurationMicros() {
+        return first != null ? first.getFrameDurationMicros() : 0;
+    }
+
+    // Começa a leitura "bytes" antes do fim atual do arquivo (ou no início do áudio, se ele for menor)
+    boolean seekFromEnd(long bytes) throws IOException {
+        if (!ready()) {
+            return false;
+        }
+        long target = Math.max(position, channel.size() - bytes);
+        if (target > position) {
+            // Sincroniza de novo: o primeiro frame a partir daqui precisa ser confirmado pelo seguinte
+            position = target;
+            first = null;
+        }
+        return true;
+    }
+
+    // Copia para "out" os frames completos disponíveis, no máximo maxFrames; retorna os bytes copiados
+    int read(byte[] out, int maxFrames) throws IOException {
+        if (!ready()) {
+            return 0;
+        }
+        lastReadStart = -1;
+        int copied = 0;
+        int count = 0;
+        while (count < maxFrames) {
+            buffer.clear();
+            buffer.limit(Math.min(buffer.capacity(), out.length - copied));
+            int available = channel.read(buffer, position);
+            if (available < 4) {
+                break;
+            }
+            byte[] data = buffer.array();
+            int offset = 0;
+            boolean progress = false;
+            while (count < maxFrames && available - offset >= 4) {
+                Mp3FrameHeader header = Mp3FrameHeader.parse(intAt(data, offset));
+                if (header == null || (first != null && !first.isCompatible(header))) {
+                    offset++;
+                    progress = true;
+                    continue;
+                }
+                int length = header.getFrameLength();
+                if (first == null) {
+                    // O primeiro frame só é aceito se o seguinte (quando já escrito) também for válido
+                    if (available - offset < length + 4) {
+                        break;
+                    }
+                    if (!header.isCompatible(Mp3FrameHeader.parse(intAt(data, offset + length)))) {
+                        offset++;
+                        progress = true;
+                        continue;
+                    }
+                    first = header;
+                    if (isInfoFrame(data, offset, available, header)) {
+                        offset += length;
+                        progress = true;
+                        continue;
+                    }
+                }
+                if (available - offset < length) {
+                    break;
+                }
+                if (lastReadStart < 0) {
+                    lastReadStart = position + offset;
+                }
+                System.arraycopy(data, offset, out, copied, length);
+                copied += length;
+                offset += length;
+                count++;
+                progress = true;
+            }
+            position += offset;
+            if (!progress || copied + Mp3FrameHeader.MAX_FRAME_LENGTH > out.length) {
+                break;
+            }
+        }
+        frames += count;
+        return copied;
+    }
+
+    // Na primeira leitura, pula a tag ID3v2 do início do segmento (escrita pelo FFmpeg ao abrir o arquivo)
+    private boolean ready() throws IOException {
+        if (position >= 0) {
+            return true;
+        }
+        ByteBuffer header = ByteBuffer.allocate(ID3_HEADER);
+        if (channel.read(header, 0) < ID3_HEADER) {
+            return false;
+        }
+        byte[] tag = header.array();
+        if (tag[0] == 'I' && tag[1] == 'D' && tag[2] == '3') {
+            long size = ((tag[6] & 0x7F) << 21) | ((tag[7] & 0x7F) << 14) | ((tag[8] & 0x7F) << 7) | (tag[9] & 0x7F);
+            boolean footer = (tag[5] & 0x10) != 0;
+            position = ID3_HEADER + size + (footer ? ID3_HEADER : 0);
+        } else {
+            position = 0;
+        }
+        return true;
+    }
+
+    private static boolean isInfoFrame(byte[] data, int offset, int available, Mp3FrameHeader header) {
+        int xing = offset + header.sideInfoEnd();
+        if (xing + 4 <= available) {
+            int tag = intAt(data, xing);
+            if (tag == 0x58696E67 || tag == 0x496E666F) { // "Xing" ou "Info"
+                return true;
+            }
+        }
+        int vbri = offset + 4 + 32;
+        return vbri + 4 <= available && intAt(data, vbri) == 0x56425249; // "VBRI"
+    }
+
+    private static int intAt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
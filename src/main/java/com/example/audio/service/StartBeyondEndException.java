@@ -0,0 +1,11 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+
+// Corte pedido com início depois do fim do áudio; o controller responde 416 só para este caso
+public class StartBeyondEndException extends IOException {
+
+    public StartBeyondEndException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,402 @@
+package com.example.audio.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+// Gravação supervisionada de uma rádio: mantém um processo FFmpeg segmentando a transmissão,
+// reiniciando-o com backoff exponencial quando ele termina ou quando a gravação trava.
+// Com buffer de time-shift, o mesmo MP3 codificado também sai pela saída padrão (muxer tee) e é copiado
+// para o TimeShiftBuffer; o log do FFmpeg passa então a ser lido da saída de erro.
+public class StationRecorder implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(StationRecorder.class);
+
+    public enum State { STARTING, RECORDING, BACKOFF, STOPPED }
+
+    // Linha que o FFmpeg escreve ao abrir cada novo segmento: Opening 'C:/.../Segment_...mp3' for writing
+    private static final String OPENING_PREFIX = "Opening '";
+    private static final String OPENING_SUFFIX = "' for writing";
+
+    // Um processo que ficou de pé por este tempo é considerado estável e zera o backoff
+    private static final Duration STABLE_RUN = Duration.ofMinutes(2);
+
+    private final String radioName;
+    private final String streamUrl;
+    private final Path directory;
+    private final int segmentSeconds;
+    private final Duration stallTimeout;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final BiConsumer<String, Path> segmentClosed;
+    private final FFmpegLauncher ffmpegLauncher;
+    private final TimeShiftBuffer timeShift;
+    private final Instant createdAt = Instant.now();
+    private final AtomicInteger restarts = new AtomicInteger();
+    private final AtomicInteger segmentCount = new AtomicInteger();
+
+    private volatile State state = State.STARTING;
+    private volatile boolean stopRequested = false;
+    private volatile Thread supervisorThread;
+    private volatile Process process;
+    private volatile Instant processStartedAt;
+    private volatile int consecutiveFailures = 0;
+    private volatile Instant nextRestartAt;
+    private volatile String lastError;
+    private volatile Path currentSegment;
+    private volatile Instant lastSegmentAt;
+    private volatile long lastSegmentSize = -1;
+    private volatile Instant lastGrowthAt;
+    private volatile int stallCount = 0;
+
+    public StationRecorder(String radioName, String streamUrl, Path directory, int segmentSeconds,
+                           Duration stallTimeout, Duration initialBackoff, Duration maxBackoff,
+                           BiConsumer<String, Path> segmentClosed, FFmpegLauncher ffmpegLauncher,
+                           TimeShiftBuffer timeShift) {
+        this.radioName = radioName;
+        this.streamUrl = streamUrl;
+        this.directory = directory;
+        this.segmentSeconds = segmentSeconds;
+        this.stallTimeout = stallTimeout;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.segmentClosed = segmentClosed;
+        this.ffmpegLauncher = ffmpegLauncher;
+        this.timeShift = timeShift;
+    }
+
+    @Override
+    public void run() {
+        supervisorThread = Thread.currentThread();
+        try {
+            while (!stopRequested) {
+                Instant startedAt = Instant.now();
+                try {
+                    runProcessOnce();
+                } catch (IOException e) {
+                    lastError = e.getMessage();
+                }
+                if (stopRequested) {
+                    break;
+                }
+
+                // Processo terminou sem pedido de parada: stream caiu, FFmpeg falhou ou foi morto por travamento
+                if (Duration.between(startedAt, Instant.now()).compareTo(STABLE_RUN) >= 0) {
+                    consecutiveFailures = 0;
+                }
+                Duration delay = backoffDelay(consecutiveFailures);
+                consecutiveFailures++;
+                restarts.incrementAndGet();
+                state = State.BACKOFF;
+                nextRestartAt = Instant.now().plus(delay);
+                log.warn("Gravação da rádio {} interrompida, reiniciando em {}s: {}",
+                        radioName, delay.getSeconds(), lastError);
+                Thread.sleep(delay.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            destroyProcess();
+            state = State.STOPPED;
+            nextRestartAt = null;
+        }
+    }
+
+    private void runProcessOnce() throws IOException, InterruptedException {
+        if (!Files.exists(directory)) {
+            Files.createDirectories(directory);
+        }
+
+        state = State.STARTING;
+        nextRestartAt = null;
+        ProcessBuilder processBuilder = new ProcessBuilder(buildCommand());
+        if (timeShift == null) {
+            processBuilder.redirectErrorStream(true); // Redireciona os erros para o stream padrão
+        }
+        Process started = ffmpegLauncher.start("recorder", processBuilder);
+        process = started;
+        processStartedAt = Instant.now();
+        lastGrowthAt = processStartedAt;
+        lastSegmentSize = -1;
+        if (stopRequested) {
+            destroyProcess();
+            return;
+        }
+
+        Thread pump = null;
+        if (timeShift != null) {
+            timeShift.restart();
+            pump = new Thread(() -> pumpTimeShift(started.getInputStream()), "timeshift-" + radioName);
+            pump.setDaemon(true);
+            pump.start();
+        }
+
+        // Lê o log do processo, detectando a abertura de cada novo segmento. Se a leitura falhar ou a thread for
+        // interrompida, o processo é encerrado aqui para não ficar gravando sem supervisão
+        InputStream output = timeShift != null ? started.getErrorStream() : started.getInputStream();
+        int exitCode;
+        boolean exited = false;
+        try {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(output))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    onOutputLine(line);
+                }
+            }
+            exitCode = started.waitFor();
+            exited = true;
+        } finally {
+            if (!exited) {
+                destroyProcess();
+            }
+        }
+        if (pump != null) {
+            pump.join(1000);
+        }
+        if (exitCode != 0 && !stopRequested) {
+            lastError = "FFmpeg terminou com código de saída " + exitCode;
+        }
+
+        // O último segmento é fechado junto com o processo; sem limpar currentSegment, o próximo processo o
+        // veria como "anterior" em onSegmentOpened e o anunciaria de novo
+        Path last = currentSegment;
+        currentSegment = null;
+        if (last != null) {
+            notifySegmentClosed(last);
+        }
+    }
+
+    // Copia o MP3 da saída padrão para o buffer de time-shift até o processo terminar
+    private void pumpTimeShift(InputStream output) {
+        byte[] buffer = new byte[16 * 1024];
+        try (InputStream input = output) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                timeShift.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            // Processo encerrado; a supervisão trata o término
+        }
+    }
+
+    List<String> buildCommand() {
+        List<String> command = new ArrayList<>(Arrays.asList("ffmpeg", "-nostdin", "-hide_banner"));
+        if (streamUrl.startsWith("http://") || streamUrl.startsWith("https://")) {
+            // Reconexão transparente para quedas curtas de streams HTTP
+            command.addAll(Arrays.asList("-reconnect", "1", "-reconnect_streamed", "1", "-reconnect_delay_max", "30"));
+        }
+        String segmentPattern = directory.resolve("Segment_%Y%m%d_%H%M%S.mp3").toString();
+        if (timeShift != null) {
+            // Uma única codificação para as duas saídas: segmentos em disco e MP3 contínuo na saída padrão
+            command.addAll(Arrays.asList(
+                    "-i", streamUrl,
+                    "-map", "0:a",
+                    "-c:a", "libmp3lame",
+                    "-b:a", "128k",
+                    "-f", "tee",
+                    "[f=segment:segment_time=" + segmentSeconds + ":strftime=1]" + segmentPattern
+                            + "|[f=mp3:id3v2_version=0:write_xing=0]pipe:1"
+            ));
+            return command;
+        }
+        command.addAll(Arrays.asList(
+                "-i", streamUrl,   // URL da stream ao vivo
+                "-c:a", "libmp3lame", // Codec de áudio para MP3
+                "-b:a", "128k",    // Taxa de bits de 128kbps para o áudio
+                "-f", "segment",   // Formato de segmentação
+                "-segment_time", String.valueOf(segmentSeconds),  // Duração de cada segmento
+                "-strftime", "1",  // Usar nome de arquivo com data e hora
+                segmentPattern
+        ));
+        return command;
+    }
+
+    private void onOutputLine(String line) {
+        int start = line.indexOf(OPENING_PREFIX);
+        int end = line.indexOf(OPENING_SUFFIX);
+        if (start >= 0 && end > start) {
+            Path segment = Paths.get(line.substring(start + OPENING_PREFIX.length(), end));
+            onSegmentOpened(segment);
+        } else if (line.contains("Error") || line.contains("error")) {
+            lastError = line.trim();
+            ffmpegLauncher.logOutput("recorder", radioName + ": " + lastError);
+        }
+    }
+
+    private void onSegmentOpened(Path segment) {
+        Path previous = currentSegment;
+        if (previous != null && !previous.equals(segment)) {
+            notifySegmentClosed(previous);
+        }
+        currentSegment = segment;
+        lastSegmentAt = Instant.now();
+        lastGrowthAt = lastSegmentAt;
+        lastSegmentSize = -1;
+        segmentCount.incrementAndGet();
+        state = State.RECORDING;
+    }
+
+    private void notifySegmentClosed(Path segment) {
+        try {
+            segmentClosed.accept(radioName, segment);
+        } catch (RuntimeException e) {
+            log.error("Falha ao registrar o segmento {} da rádio {}", segment, radioName, e);
+        }
+    }
+
+    // Verificação periódica de travamento: o segmento atual precisa crescer e um novo segmento
+    // precisa surgir dentro da duração de segmento mais a tolerância; caso contrário o processo é reiniciado
+    public void checkStall() {
+        Process current = process;
+        if (stopRequested || current == null || !current.isAlive()) {
+            return;
+        }
+        Instant now = Instant.now();
+        Path segment = currentSegment;
+        if (segment != null) {
+            try {
+                long size = Files.size(segment);
+                if (size != lastSegmentSize) {
+                    lastSegmentSize = size;
+                    lastGrowthAt = now;
+                }
+            } catch (IOException e) {
+                // Segmento ainda não criado ou já renomeado; mantém o último instante de crescimento
+            }
+        }
+
+        Instant lastGrowth = lastGrowthAt != null ? lastGrowthAt : processStartedAt;
+        Instant lastSegment = lastSegmentAt != null ? lastSegmentAt : processStartedAt;
+        boolean notGrowing = Duration.between(lastGrowth, now).compareTo(stallTimeout) > 0;
+        boolean noNewSegment = Duration.between(lastSegment, now)
+                .compareTo(Duration.ofSeconds(segmentSeconds).plus(stallTimeout)) > 0;
+        if (notGrowing || noNewSegment) {
+            stallCount++;
+            lastError = notGrowing
+                    ? "Gravação travada: nenhum dado novo em " + stallTimeout.getSeconds() + "s"
+                    : "Gravação travada: nenhum segmento novo em " + (segmentSeconds + stallTimeout.getSeconds()) + "s";
+            log.warn("Rádio {}: {}, reiniciando FFmpeg.", radioName, lastError);
+            current.destroyForcibly();
+        }
+    }
+
+    public void stop() {
+        stopRequested = true;
+        destroyProcess();
+        Thread thread = supervisorThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void destroyProcess() {
+        Process current = process;
+        if (current != null && current.isAlive()) {
+            current.destroy();
+        }
+    }
+
+    Duration backoffDelay(int failures) {
+        long millis = initialBackoff.toMillis() << Math.min(failures, 20);
+        return Duration.ofMillis(Math.min(millis, maxBackoff.toMillis()));
+    }
+
+    // Gravação saudável: processo ativo, já abriu segmento e não está travada
+    public boolean isHealthy() {
+        Process current = process;
+        Instant lastGrowth = lastGrowthAt;
+        return state == State.RECORDING && current != null && current.isAlive()
+                && lastGrowth != null && Duration.between(lastGrowth, Instant.now()).compareTo(stallTimeout) <= 0;
+    }
+
+    public boolean isStopped() {
+        return state == State.STOPPED;
+    }
+
+    // Estado atual da gravação no formato retornado pela API
+    public Map<String, Object> describe() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("radioName", radioName);
+        status.put("streamUrl", streamUrl);
+        status.put("state", state);
+        status.put("healthy", isHealthy());
+        status.put("recordingSince", createdAt.toString());
+        status.put("uptimeSeconds", getUptimeSeconds());
+        status.put("restarts", restarts.get());
+        status.put("consecutiveFailures", consecutiveFailures);
+        status.put("stalls", stallCount);
+        status.put("segments", segmentCount.get());
+        status.put("currentSegment", currentSegment != null ? currentSegment.getFileName().toString() : null);
+        status.put("lastSegmentAt", lastSegmentAt != null ? lastSegmentAt.toString() : null);
+        status.put("nextRestartAt", nextRestartAt != null ? nextRestartAt.toString() : null);
+        status.put("lastError", lastError);
+        status.put("timeShift", timeShift != null ? timeShift.describe() : null);
+        return status;
+    }
+
+    public String getRadioName() {
+        return radioName;
+    }
+
+    public String getStreamUrl() {
+        return streamUrl;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getRestarts() {
+        return restarts.get();
+    }
+
+    public Instant getProcessStartedAt() {
+        return processStartedAt;
+    }
+
+    // Buffer de time-shift da rádio; null quando desativado
+    public TimeShiftBuffer getTimeShift() {
+        return timeShift;
+    }
+
+    public Path getCurrentSegment() {
+        return currentSegment;
+    }
+
+    public Instant getLastSegmentAt() {
+        return lastSegmentAt;
+    }
+
+    // Tempo desde o início do processo FFmpeg atual (0 se não houver processo ativo)
+    public long getUptimeSeconds() {
+        Instant startedAt = processStartedAt;
+        Process current = process;
+        boolean alive = current != null && current.isAlive();
+        return alive && startedAt != null ? Duration.between(startedAt, Instant.now()).getSeconds() : 0;
+    }
+
+    // Atraso da gravação: tempo desde o último crescimento do segmento atual (ou desde o início do processo)
+    public double getSegmentLagSeconds() {
+        Instant lastGrowth = lastGrowthAt != null ? lastGrowthAt : processStartedAt;
+        if (lastGrowth == null || state == State.STOPPED) {
+            return 0;
+        }
+        return Duration.between(lastGrowth, Instant.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// ZIP escrito em streaming só com entradas STORED (áudio já comprimido não ganha nada com deflate). Como o CRC e
+// o tamanho de cada entrada são conhecidos antes da escrita, o cabeçalho local já sai completo, sem data
+// descriptor, e os dados vão do arquivo para o canal de saída com FileChannel.transferTo, sem passar por um
+// buffer no heap. Entradas ou arquivos acima de 4 GB e mais de 65535 entradas usam as extensões ZIP64.
+// O tamanho final é calculável de antemão (length), o que permite enviar Content-Length.
+public final class StoredZipWriter {
+
+    // Entrada: bytes [from, to) de um arquivo, com o nome no ZIP e a data de modificação
+    public static final class Entry {
+        private final String name;
+        private final Path file;
+        private final long from;
+        private final long to;
+        private final long lastModified;
+
+        public Entry(String name, Path file, long from, long to, long lastModified) {
+            this.name = name;
+            this.file = file;
+            this.from = from;
+            this.to = to;
+            this.lastModified = lastModified;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public long getFrom() {
+            return from;
+        }
+
+        public long getTo() {
+            return to;
+        }
+
+        public long getSize() {
+            return to - from;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    private static final int LOCAL_HEADER = 30;
+    private static final int CENTRAL_HEADER = 46;
+    private static final int END_RECORD = 22;
+    private static final int ZIP64_END_RECORD = 56;
+    private static final int ZIP64_LOCATOR = 20;
+    private static final int ZIP64_EXTRA_HEADER = 4;
+
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int VERSION_STORED = 10;
+    private static final int VERSION_ZIP64 = 45;
+
+    // Registro do diretório central de uma entrada já escrita (o nome fica codificado em UTF-8)
+    private static final class Written {
+        private final byte[] name;
+        private final long crc;
+        private final long size;
+        private final long offset;
+        private final int dosTime;
+
+        Written(byte[] name, long crc, long size, long offset, int dosTime) {
+            this.name = name;
+            this.crc = crc;
+            this.size = size;
+            this.offset = offset;
+            this.dosTime = dosTime;
+        }
+    }
+
+    private final WritableByteChannel out;
+    private final List<Written> central = new ArrayList<>();
+    private long position = 0;
+    private boolean finished = false;
+
+    public StoredZipWriter(WritableByteChannel out) {
+        this.out = out;
+    }
+
+    // Bytes escritos até agora
+    public long getPosition() {
+        return position;
+    }
+
+    // Escreve o cabeçalho local e os dados da entrada; "crc" é o CRC-32 dos bytes [from, to)
+    public void write(Entry entry, long crc) throws IOException {
+        try (FileChannel channel = FileChannel.open(entry.getFile(), StandardOpenOption.READ)) {
+            write(entry, crc, channel);
+        }
+    }
+
+    // Mesmo que o anterior sobre um canal já aberto, para várias entradas do mesmo arquivo em sequência
+    public void write(Entry entry, long crc, FileChannel channel) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("ZIP já finalizado");
+        }
+        byte[] name = entry.getName().getBytes(StandardCharsets.UTF_8);
+        long size = entry.getSize();
+        boolean zip64 = size >= MAX_32;
+        int dosTime = dosTime(entry.getLastModified());
+
+        ByteBuffer header = buffer(localHeaderLength(name.length, size));
+        header.putInt(0x04034B50);
+        header.putShort((short) (zip64 ? VERSION_ZIP64 : VERSION_STORED));
+        header.putShort((short) FLAG_UTF8);
+        header.putShort((short) 0); // STORED
+        header.putInt(dosTime);
+        header.putInt((int) crc);
+        header.putInt((int) (zip64 ? MAX_32 : size));
+        header.putInt((int) (zip64 ? MAX_32 : size));
+        header.putShort((short) name.length);
+        header.putShort((short) (zip64 ? ZIP64_EXTRA_HEADER + 16 : 0));
+        header.put(name);
+        if (zip64) {
+            header.putShort((short) 0x0001);
+            header.putShort((short) 16);
+            header.putLong(size);
+            header.putLong(size);
+        }
+        long offset = position;
+        writeFully(header);
+
+        long from = entry.getFrom();
+        long end = entry.getTo();
+        while (from < end) {
+            long transferred = channel.transferTo(from, end - from, out);
+            if (transferred <= 0 && from >= channel.size()) {
+                throw new IOException("Arquivo menor que o esperado: " + entry.getFile());
+            }
+            from += transferred;
+        }
+        position += size;
+        central.add(new Written(name, crc, size, offset, dosTime));
+    }
+
+    // Escreve o diretório central e o registro de fim (ZIP64 quando necessário)
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        long centralStart = position;
+        for (Written entry : central) {
+            boolean zip64Size = entry.size >= MAX_32;
+            boolean zip64Offset = entry.offset >= MAX_32;
+            int extra = zip64Extra(zip64Size, zip64Offset);
+            ByteBuffer record = buffer(CENTRAL_HEADER + entry.name.length + extra);
+            int version = extra > 0 ? VERSION_ZIP64 : VERSION_STORED;
+            record.putInt(0x02014B50);
+            record.putShort((short) version); // criado por (MS-DOS)
+            record.putShort((short) version);
+            record.putShort((short) FLAG_UTF8);
+            record.putShort((short) 0);
+            record.putInt(entry.dosTime);
+            record.putInt((int) entry.crc);
+            record.putInt((int) (zip64Size ? MAX_32 : entry.size));
+            record.putInt((int) (zip64Size ? MAX_32 : entry.size));
+            record.putShort((short) entry.name.length);
+            record.putShort((short) extra);
+            record.putShort((short) 0); // comentário
+            record.putShort((short) 0); // disco
+            record.putShort((short) 0); // atributos internos
+            record.putInt(0);           // atributos externos
+            record.putInt((int) (zip64Offset ? MAX_32 : entry.offset));
+            record.put(entry.name);
+            if (extra > 0) {
+                record.putShort((short) 0x0001);
+                record.putShort((short) (extra - ZIP64_EXTRA_HEADER));
+                if (zip64Size) {
+                    record.putLong(entry.size);
+                    record.putLong(entry.size);
+                }
+                if (zip64Offset) {
+                    record.putLong(entry.offset);
+                }
+            }
+            writeFully(record);
+        }
+        long centralSize = position - centralStart;
+        int count = central.size();
+        boolean zip64End = needsZip64End(count, centralStart, centralSize);
+
+        ByteBuffer end = buffer((zip64End ? ZIP64_END_RECORD + ZIP64_LOCATOR : 0) + END_RECORD);
+        if (zip64End) {
+            long zip64EndOffset = position;
+            end.putInt(0x06064B50);
+            end.putLong(ZIP64_END_RECORD - 12);
+            end.putShort((short) VERSION_ZIP64);
+            end.putShort((short) VERSION_ZIP64);
+            end.putInt(0);
+            end.putInt(0);
+            end.putLong(count);
+            end.putLong(count);
+            end.putLong(centralSize);
+            end.putLong(centralStart);
+            end.putInt(0x07064B50);
+            end.putInt(0);
+            end.putLong(zip64EndOffset);
+            end.putInt(1);
+        }
+        end.putInt(0x06054B50);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) Math.min(count, MAX_16));
+        end.putShort((short) Math.min(count, MAX_16));
+        end.putInt((int) Math.min(centralSize, MAX_32));
+        end.putInt((int) Math.min(centralStart, MAX_32));
+        end.putShort((short) 0); // comentário
+        writeFully(end);
+    }
+
+    // Tamanho exato do ZIP que write/finish produzem para estas entradas
+    public static long length(List<Entry> entries) {
+        long offset = 0;
+        long centralSize = 0;
+        for (Entry entry : entries) {
+            int nameLength = entry.getName().getBytes(StandardCharsets.UTF_8).length;
+            long size = entry.getSize();
+            centralSize += CENTRAL_HEADER + nameLength + zip64Extra(size >= MAX_32, offset >= MAX_32);
+            offset += localHeaderLength(nameLength, size) + size;
+        }
+        boolean zip64End = needsZip64End(entries.size(), offset, centralSize);
+        return offset + centralSize + (zip64End ? ZIP64_END_RECORD + ZIP64_LOCATOR : 0) + END_RECORD;
+    }
+
+    private static int localHeaderLength(int nameLength, long size) {
+        return LOCAL_HEADER + nameLength + (size >= MAX_32 ? ZIP64_EXTRA_HEADER + 16 : 0);
+    }
+
+    private static int zip64Extra(boolean zip64Size, boolean zip64Offset) {
+        if (!zip64Size && !zip64Offset) {
+            return 0;
+        }
+        return ZIP64_EXTRA_HEADER + (zip64Size ? 16 : 0) + (zip64Offset ? 8 : 0);
+    }
+
+    private static boolean needsZip64End(int count, long centralStart, long centralSize) {
+        return count >= MAX_16 || centralStart >= MAX_32 || centralSize >= MAX_32;
+    }
+
+    // Data e hora no formato MS-DOS (resolução de 2 s, a partir de 1980) no horário local
+    private static int dosTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return ((time.getYear() - 1980) << 25) | (time.getMonthValue() << 21) | (time.getDayOfMonth() << 16)
+                | (time.getHour() << 11) | (time.getMinute() << 5) | (time.getSecond() >> 1);
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer);
+        }
+    }
+}
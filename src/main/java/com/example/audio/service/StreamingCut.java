@@ -0,0 +1,171 @@
+package com.example.audio.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Corte preparado para ser escrito direto na resposta HTTP: por cópia de frames (MP3) ou pela saída
+// padrão do FFmpeg, com cópia opcional para um arquivo em disco enquanto os bytes seguem para o cliente
+public class StreamingCut {
+
+    private static final int PIPE_BUFFER = 64 * 1024;
+
+    private final Path source;
+    private final long from;
+    private final long to;
+    private final List<String> ffmpegCommand;
+    private final FFmpegLauncher ffmpegLauncher;
+    private final Path persistPath;
+    private final Path partPath;
+
+    private StreamingCut(Path source, long from, long to, FFmpegLauncher ffmpegLauncher, List<String> ffmpegCommand,
+                         Path persistPath) {
+        this.source = source;
+        this.from = from;
+        this.to = to;
+        this.ffmpegLauncher = ffmpegLauncher;
+        this.ffmpegCommand = ffmpegCommand;
+        this.persistPath = persistPath;
+        // Arquivo oculto enquanto é escrito, para não aparecer nas listagens
+        this.partPath = persistPath != null
+                ? persistPath.resolveSibling("." + persistPath.getFileName()) : null;
+    }
+
+    static StreamingCut ofFrames(Path source, long from, long to, Path persistPath) {
+        return new StreamingCut(source, from, to, null, null, persistPath);
+    }
+
+    static StreamingCut ofFFmpeg(FFmpegLauncher launcher, List<String> command, Path persistPath) {
+        return new StreamingCut(null, 0, 0, launcher, command, persistPath);
+    }
+
+    // Tamanho da resposta quando conhecido de antemão (cópia de frames); -1 para a saída do FFmpeg
+    public long getContentLength() {
+        return ffmpegCommand == null ? to - from : -1;
+    }
+
+    // Arquivo onde o corte fica salvo ao final; null se o corte não for persistido
+    public Path getPersistPath() {
+        return persistPath;
+    }
+
+    // Escreve o corte no stream da resposta. Com persistência, uma desconexão do cliente não
+    // interrompe o corte: ele termina só no disco e o erro do cliente é relançado no fim.
+    public void writeTo(OutputStream out) throws IOException {
+        FileChannel file = partPath != null ? FileChannel.open(partPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE) : null;
+        TeeChannel target = new TeeChannel(Channels.newChannel(out), file);
+        boolean complete = false;
+        try {
+            if (ffmpegCommand == null) {
+                Mp3FrameCopier.copy(source, from, to, target);
+            } else {
+                pipeFFmpeg(target);
+            }
+            complete = true;
+        } finally {
+            if (file != null) {
+                file.close();
+                if (complete) {
+                    moveIntoPlace(partPath, persistPath);
+                } else {
+                    Files.deleteIfExists(partPath);
+                }
+            }
+        }
+        if (target.clientFailure != null) {
+            throw target.clientFailure;
+        }
+    }
+
+    private void pipeFFmpeg(WritableByteChannel target) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(ffmpegCommand);
+        processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = ffmpegLauncher.start("stream-cut", processBuilder);
+        try (InputStream stdout = process.getInputStream()) {
+            byte[] buffer = new byte[PIPE_BUFFER];
+            int read;
+            while ((read = stdout.read(buffer)) != -1) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    target.write(chunk);
+                }
+            }
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new IOException("Erro no processo FFmpeg, código de saída: " + exitCode);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Corte interrompido", e);
+        } finally {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    static void moveIntoPlace(Path part, Path target) throws IOException {
+        try {
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Envia os bytes ao cliente e, se houver, ao arquivo; falhas do cliente só interrompem quando não há arquivo
+    private static class TeeChannel implements WritableByteChannel {
+        private final WritableByteChannel client;
+        private final FileChannel file;
+        private IOException clientFailure;
+
+        TeeChannel(WritableByteChannel client, FileChannel file) {
+            this.client = client;
+            this.file = file;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int count = src.remaining();
+            if (file != null) {
+                ByteBuffer copy = src.duplicate();
+                while (copy.hasRemaining()) {
+                    file.write(copy);
+                }
+            }
+            if (clientFailure == null) {
+                try {
+                    while (src.hasRemaining()) {
+                        client.write(src);
+                    }
+                } catch (IOException e) {
+                    if (file == null) {
+                        throw e;
+                    }
+                    clientFailure = e;
+                }
+            }
+            src.position(src.limit());
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
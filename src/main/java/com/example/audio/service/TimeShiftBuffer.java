@@ -0,0 +1,297 @@
+package com.example.audio.service;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// Últimos minutos de uma gravação ao vivo, em frames MP3 já codificados, guardados em um buffer circular fora do
+// heap (ByteBuffer direto) de tamanho fixo. Um índice de frames (posição e horário de cada um) permite recortar
+// qualquer janela ainda presente, inclusive do segmento que o FFmpeg ainda não fechou.
+// Um único escritor (a thread que lê a saída do FFmpeg) e vários leitores: o índice é protegido pelo monitor
+// do objeto e a cópia dos bytes é validada depois de feita, pois o escritor pode sobrescrever o trecho.
+public class TimeShiftBuffer {
+
+    // Janela recortada: posições absolutas (bytes escritos desde a criação) e horários do primeiro e último frame
+    public static final class Window {
+        private final long start;
+        private final long end;
+        private final Instant from;
+        private final Instant to;
+
+        Window(long start, long end, Instant from, Instant to) {
+            this.start = start;
+            this.end = end;
+            this.from = from;
+            this.to = to;
+        }
+
+        public long getLength() {
+            return end - start;
+        }
+
+        public Instant getFrom() {
+            return from;
+        }
+
+        public Instant getTo() {
+            return to;
+        }
+    }
+
+    // Menor frame esperado (MPEG-2 Layer III a 8 kb/s tem 24 bytes; a 128 kb/s, 417): dimensiona o índice
+    private static final int MIN_AVERAGE_FRAME = 96;
+
+    // Tolerância antes de corrigir o horário calculado pela duração dos frames em relação ao relógio
+    private static final long AHEAD_TOLERANCE_MICROS = 1_000_000;
+    private static final long BEHIND_TOLERANCE_MICROS = 5_000_000;
+
+    private final String radioName;
+    private final ByteBuffer data;
+    private final int capacity;
+    private volatile long written = 0;
+
+    // Fim do frame sendo gravado: avança antes da cópia, para que leitores detectem a sobrescrita
+    private volatile long reserved = 0;
+
+    // Índice circular de frames, por número sequencial
+    private final long[] frameOffsets;
+    private final long[] frameTimes;
+    private final int[] frameDurations;
+    private long frames = 0;
+
+    // Relógio da execução atual do FFmpeg: horário do primeiro frame mais a duração acumulada
+    private long runFirstFrame = 0;
+    private long previousRunEnd = 0;
+    private long anchorMicros = -1;
+    private long runMicros = 0;
+    private int bitrateKbps = 0;
+
+    // Bytes recebidos e ainda não reconhecidos como frame completo
+    private final byte[] pending = new byte[64 * 1024];
+    private int pendingLength = 0;
+
+    private volatile boolean released = false;
+
+    public TimeShiftBuffer(String radioName, int capacity) {
+        this.radioName = radioName;
+        this.capacity = capacity;
+        this.data = ByteBuffer.allocateDirect(capacity);
+        int indexSize = Math.max(1024, capacity / MIN_AVERAGE_FRAME);
+        this.frameOffsets = new long[indexSize];
+        this.frameTimes = new long[indexSize];
+        this.frameDurations = new int[indexSize];
+    }
+
+    public String getRadioName() {
+        return radioName;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+
+    // Marca o buffer como descartado (a memória é liberada quando não houver mais referências a ele)
+    void release() {
+        released = true;
+    }
+
+    // Nova execução do FFmpeg: descarta bytes parciais e recomeça o relógio no próximo frame
+    public synchronized void restart() {
+        pendingLength = 0;
+        if (frames > 0) {
+            int last = (int) ((frames - 1) % frameOffsets.length);
+            previousRunEnd = frameTimes[last] + frameDurations[last];
+        }
+        anchorMicros = -1;
+        runMicros = 0;
+        runFirstFrame = frames;
+    }
+
+    // Bytes brutos da saída MP3 do FFmpeg; separa os frames e grava os completos
+    public void append(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            int chunk = Math.min(length, pending.length - pendingLength);
+            System.arraycopy(bytes, offset, pending, pendingLength, chunk);
+            pendingLength += chunk;
+            offset += chunk;
+            length -= chunk;
+            consumeFrames();
+        }
+    }
+
+    private void consumeFrames() {
+        int position = 0;
+        while (pendingLength - position >= 4) {
+            int header = ((pending[position] & 0xFF) << 24) | ((pending[position + 1] & 0xFF) << 16)
+                    | ((pending[position + 2] & 0xFF) << 8) | (pending[position + 3] & 0xFF);
+            Mp3FrameHeader frame = Mp3FrameHeader.parse(header);
+            if (frame == null) {
+                // Fora de sincronismo (tag ou lixo no início): avança até o próximo cabeçalho válido
+                position++;
+                continue;
+            }
+            int length = frame.getFrameLength();
+            if (pendingLength - position < length) {
+                break;
+            }
+            writeFrame(position, length, frame);
+            position += length;
+        }
+        System.arraycopy(pending, position, pending, 0, pendingLength - position);
+        pendingLength -= position;
+    }
+
+    private void writeFrame(int position, int length, Mp3FrameHeader frame) {
+        long offset = written;
+        reserved = offset + length;
+        int index = (int) (offset % capacity);
+        int first = Math.min(length, capacity - index);
+        ByteBuffer view = data.duplicate();
+        view.position(index);
+        view.put(pending, position, first);
+        if (first < length) {
+            view.position(0);
+            view.put(pending, position + first, length - first);
+        }
+
+        long nowMicros = Instant.now().toEpochMilli() * 1000;
+        int duration = (int) frame.getFrameDurationMicros();
+        synchronized (this) {
+            if (anchorMicros < 0) {
+                anchorMicros = nowMicros - duration;
+                runMicros = 0;
+            }
+            long time = anchorMicros + runMicros;
+            if (time + duration > nowMicros + AHEAD_TOLERANCE_MICROS) {
+                // Rajada inicial do servidor (mais rápida que o tempo real): recua os frames desta execução
+                shiftRun(time + duration - nowMicros);
+                time = anchorMicros + runMicros;
+            } else if (time + duration < nowMicros - BEHIND_TOLERANCE_MICROS) {
+                // Fluxo interrompido e retomado: o intervalo sem áudio fica como lacuna
+                anchorMicros += nowMicros - (time + duration);
+                time = anchorMicros + runMicros;
+            }
+            written = offset + length;
+            int slot = (int) (frames % frameOffsets.length);
+            frameOffsets[slot] = offset;
+            frameTimes[slot] = time;
+            frameDurations[slot] = duration;
+            frames++;
+            runMicros += duration;
+            bitrateKbps = frame.getBitrateKbps();
+        }
+    }
+
+    // Os horários não podem recuar para antes do fim da execução anterior (o índice fica em ordem crescente)
+    private void shiftRun(long micros) {
+        long firstTime = runFirstFrame < frames ? timeOf(runFirstFrame) : anchorMicros;
+        micros = Math.min(micros, Math.max(0, firstTime - previousRunEnd));
+        anchorMicros -= micros;
+        for (long seq = Math.max(runFirstFrame, oldestFrame()); seq < frames; seq++) {
+            frameTimes[(int) (seq % frameOffsets.length)] -= micros;
+        }
+    }
+
+    // Primeiro frame ainda presente tanto no índice quanto nos dados
+    private long oldestFrame() {
+        long low = Math.max(0, frames - frameOffsets.length);
+        long high = frames;
+        long oldestByte = written - capacity;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (frameOffsets[(int) (mid % frameOffsets.length)] < oldestByte) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long timeOf(long seq) {
+        return frameTimes[(int) (seq % frameOffsets.length)];
+    }
+
+    // Frames que começam em [from, to); null se a janela não estiver (mais) no buffer
+    public synchronized Window find(Instant from, Instant to) {
+        long oldest = oldestFrame();
+        if (oldest >= frames) {
+            return null;
+        }
+        long fromMicros = from.toEpochMilli() * 1000;
+        long toMicros = to.toEpochMilli() * 1000;
+        long first = firstAtOrAfter(oldest, fromMicros);
+        long last = firstAtOrAfter(first, toMicros);
+        if (first >= last) {
+            return null;
+        }
+        int lastSlot = (int) ((last - 1) % frameOffsets.length);
+        long end = frameOffsets[lastSlot] + frameLength(last - 1);
+        return new Window(frameOffsets[(int) (first % frameOffsets.length)], end,
+                Instant.ofEpochMilli(timeOf(first) / 1000),
+                Instant.ofEpochMilli((frameTimes[lastSlot] + frameDurations[lastSlot]) / 1000));
+    }
+
+    private long frameLength(long seq) {
+        long next = seq + 1 < frames ? frameOffsets[(int) ((seq + 1) % frameOffsets.length)] : written;
+        return next - frameOffsets[(int) (seq % frameOffsets.length)];
+    }
+
+    private long firstAtOrAfter(long low, long micros) {
+        long high = frames;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timeOf(mid) < micros) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Copia os bytes de uma janela; lança IllegalStateException se ela foi sobrescrita durante a cópia
+    public byte[] read(Window window) {
+        byte[] bytes = new byte[(int) window.getLength()];
+        int index = (int) (window.start % capacity);
+        int first = Math.min(bytes.length, capacity - index);
+        ByteBuffer view = data.duplicate();
+        view.position(index);
+        view.get(bytes, 0, first);
+        if (first < bytes.length) {
+            view.position(0);
+            view.get(bytes, first, bytes.length - first);
+        }
+        if (reserved - capacity > window.start) {
+            throw new IllegalStateException("Trecho já descartado do buffer da rádio " + radioName);
+        }
+        return bytes;
+    }
+
+    // Estado do buffer no formato retornado pela API
+    public synchronized Map<String, Object> describe() {
+        Map<String, Object> status = new HashMap<>();
+        long oldest = oldestFrame();
+        status.put("radioName", radioName);
+        status.put("capacityBytes", capacity);
+        status.put("usedBytes", Math.min(written, capacity));
+        status.put("bitrateKbps", bitrateKbps);
+        if (oldest < frames) {
+            long lastSlot = (frames - 1) % frameOffsets.length;
+            long end = frameTimes[(int) lastSlot] + frameDurations[(int) lastSlot];
+            status.put("from", Instant.ofEpochMilli(timeOf(oldest) / 1000).toString());
+            status.put("to", Instant.ofEpochMilli(end / 1000).toString());
+            status.put("seconds", (end - timeOf(oldest)) / 1_000_000.0);
+        } else {
+            status.put("from", null);
+            status.put("to", null);
+            status.put("seconds", 0);
+        }
+        return status;
+    }
+}
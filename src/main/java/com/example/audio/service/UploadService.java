@@ -0,0 +1,297 @@
+package com.example.audio.service;
+
+import com.example.audio.model.AudioFile;
+import com.example.audio.model.UploadSession;
+import com.example.audio.repository.AudioFileRepository;
+import com.example.audio.repository.UploadSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Uploads em partes e retomáveis: cada PATCH continua do último byte recebido, gravando direto no
+// arquivo de destino (oculto até o fim) e atualizando o SHA-256 à medida que os dados chegam
+@Service
+public class UploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadService.class);
+
+    private final String UPLOAD_DIR = "C:/pastaudios";
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private AudioFileRepository audioFileRepository;
+
+    @Autowired
+    private AudioMetadataService audioMetadataService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Sessões sem atividade por este tempo são descartadas
+    @Value("${audio.upload.expire-hours:48}")
+    private long expireHours;
+
+    // Estado em memória de cada sessão: o SHA-256 parcial e o lock que impede PATCHs simultâneos
+    private static class ChunkState {
+        final ReentrantLock lock = new ReentrantLock();
+        MessageDigest digest;
+        long digestedBytes = -1;
+    }
+
+    private final Map<String, ChunkState> states = new ConcurrentHashMap<>();
+
+    // Abre uma sessão de upload; o arquivo final não pode existir ainda
+    public UploadSession create(String fileName, String radioName, Long totalSize) throws IOException {
+        if (!isSafeName(fileName) || (radioName != null && !isSafeName(radioName))) {
+            throw new IllegalArgumentException("Nome de arquivo ou rádio inválido.");
+        }
+        if (totalSize != null && totalSize < 0) {
+            throw new IllegalArgumentException("Tamanho inválido: " + totalSize);
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setFileName(fileName);
+        session.setRadioName(radioName);
+        session.setTotalSize(totalSize);
+        session.setCreatedAt(Instant.now());
+        session.setUpdatedAt(session.getCreatedAt());
+
+        Path target = targetOf(session);
+        if (Files.exists(target)) {
+            throw new FileAlreadyExistsException(target.toString());
+        }
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(partOf(session));
+        Files.createFile(partOf(session));
+        return uploadSessionRepository.save(session);
+    }
+
+    public Optional<UploadSession> find(String id) {
+        return uploadSessionRepository.findById(id);
+    }
+
+    // Grava uma parte a partir de "offset", que precisa ser igual ao total já recebido.
+    // Se a conexão cair no meio, o que chegou fica gravado e o cliente retoma a partir do novo offset.
+    public UploadSession append(UploadSession session, long offset, InputStream body, boolean last) throws IOException {
+        ChunkState state = states.computeIfAbsent(session.getId(), id -> new ChunkState());
+        if (!state.lock.tryLock()) {
+            throw new IllegalStateException("Outra parte deste upload está sendo enviada.");
+        }
+        try {
+            if (session.isCompleted()) {
+                throw new IllegalStateException("Upload já concluído.");
+            }
+            if (offset != session.getReceived()) {
+                throw new IllegalStateException("Offset " + offset + " diferente do recebido: " + session.getReceived());
+            }
+
+            Path part = partOf(session);
+            if (state.digestedBytes != session.getReceived()) {
+                // Primeira parte após reinício do servidor (ou falha anterior): refaz o hash do que já está em disco
+                state.digest = rehash(part, session.getReceived());
+                state.digestedBytes = session.getReceived();
+            }
+
+            IOException failure = null;
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE)) {
+                // Descarta bytes de uma parte anterior interrompida após o último offset confirmado
+                channel.truncate(offset);
+                channel.position(offset);
+                byte[] buffer = new byte[BUFFER_SIZE];
+                ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+                long received = offset;
+                // Invalida o hash parcial até a parte terminar; se ela for rejeitada no meio, o próximo PATCH o refaz
+                state.digestedBytes = -1;
+                try {
+                    int read;
+                    while ((read = body.read(buffer)) != -1) {
+                        if (session.getTotalSize() != null && received + read > session.getTotalSize()) {
+                            throw new IllegalArgumentException("Upload maior que o tamanho declarado ("
+                                    + session.getTotalSize() + " bytes).");
+                        }
+                        wrapped.clear().limit(read);
+                        while (wrapped.hasRemaining()) {
+                            channel.write(wrapped);
+                        }
+                        state.digest.update(buffer, 0, read);
+                        received += read;
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+                channel.force(false);
+                session.setReceived(received);
+                state.digestedBytes = received;
+            }
+
+            session.setUpdatedAt(Instant.now());
+            if (failure != null) {
+                uploadSessionRepository.save(session);
+                throw failure;
+            }
+
+            boolean full = session.getTotalSize() != null && session.getReceived() == session.getTotalSize();
+            if (full || last) {
+                return complete(session, state);
+            }
+            return uploadSessionRepository.save(session);
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    // Lança FileAlreadyExistsException se o arquivo final tiver surgido depois da criação da sessão (outro upload
+    // com o mesmo nome, ou uma gravação): a sessão continua aberta com o que já foi recebido
+    private UploadSession complete(UploadSession session, ChunkState state) throws IOException {
+        Path target = targetOf(session);
+        try {
+            moveWithoutReplacing(partOf(session), target);
+        } catch (FileAlreadyExistsException e) {
+            uploadSessionRepository.save(session);
+            throw e;
+        }
+        String hash = toHex(state.digest.digest());
+
+        // Metadados lidos dos bytes já gravados (cabeçalhos), sem nova leitura completa do arquivo
+        AudioFile audioFile = audioMetadataService.describe(target);
+        audioFile.setContentHash(hash);
+        audioFileRepository.save(audioFile);
+
+        session.setTotalSize(session.getReceived());
+        session.setContentHash(hash);
+        session.setCompleted(true);
+        states.remove(session.getId());
+        UploadSession saved = uploadSessionRepository.save(session);
+        eventPublisher.publishEvent(new AudioFileReadyEvent(this, target, session.getRadioName()));
+        return saved;
+    }
+
+    // Um hard link é criado de forma atômica e falha se o destino existir, ao contrário do ATOMIC_MOVE, que o
+    // substituiria; sem suporte a hard links, move sem REPLACE_EXISTING
+    private static void moveWithoutReplacing(Path part, Path target) throws IOException {
+        try {
+            Files.createLink(target, part);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.move(part, target);
+            return;
+        }
+        Files.delete(part);
+    }
+
+    // Cancela o upload e apaga os bytes recebidos
+    public void abort(UploadSession session) throws IOException {
+        if (!session.isCompleted()) {
+            Files.deleteIfExists(partOf(session));
+        }
+        states.remove(session.getId());
+        uploadSessionRepository.delete(session);
+    }
+
+    // Remove sessões abandonadas
+    @Scheduled(fixedDelayString = "${audio.upload.purge-interval-millis:3600000}")
+    public void purgeExpiredSessions() {
+        Instant limit = Instant.now().minus(Duration.ofHours(expireHours));
+        for (UploadSession session : uploadSessionRepository.findByCompletedFalseAndUpdatedAtBefore(limit)) {
+            try {
+                abort(session);
+            } catch (IOException e) {
+                log.warn("Falha ao remover a sessão de upload expirada {}", session.getId(), e);
+            }
+        }
+    }
+
+    // Estado da sessão no formato retornado pela API
+    public Map<String, Object> describe(UploadSession session) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("uploadId", session.getId());
+        response.put("fileName", session.getFileName());
+        response.put("radioName", session.getRadioName());
+        response.put("totalSize", session.getTotalSize());
+        response.put("received", session.getReceived());
+        response.put("completed", session.isCompleted());
+        response.put("sha256", session.getContentHash());
+        return response;
+    }
+
+    private Path targetOf(UploadSession session) {
+        Path directory = session.getRadioName() != null
+                ? Paths.get(UPLOAD_DIR, session.getRadioName()) : Paths.get(UPLOAD_DIR);
+        return directory.resolve(session.getFileName());
+    }
+
+    // Arquivo oculto durante o upload, para não aparecer nas listagens
+    private Path partOf(UploadSession session) {
+        return targetOf(session).resolveSibling("." + session.getFileName() + "." + session.getId() + ".part");
+    }
+
+    private static MessageDigest rehash(Path part, long length) throws IOException {
+        MessageDigest digest = newDigest();
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = 0;
+            while (position < length) {
+                buffer.clear().limit((int) Math.min(BUFFER_SIZE, length - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Arquivo parcial menor que o offset registrado: " + part);
+                }
+                buffer.flip();
+                digest.update(buffer);
+                position += read;
+            }
+        }
+        return digest;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static boolean isSafeName(String name) {
+        return name != null && !name.isEmpty() && !name.startsWith(".")
+                && !name.contains("/") && !name.contains("\\") && !name.contains("..");
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.audio.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Pirâmide de picos (mínimo/máximo) da forma de onda em vários níveis de zoom, gravada em arquivo auxiliar
+// em PEAKS_DIR e lida por trechos, para o editor de cortes desenhar qualquer trecho em poucos KB
+@Service
+public class WaveformService implements PcmAnalysis {
+
+    private final String PEAKS_DIR = "C:/audiopeaks";
+
+    // Amostras (a 16 kHz) por pico em cada nível: 100, 25, 6,25, 1,56 e 0,39 picos por segundo
+    private static final int[] LEVEL_SAMPLES = {160, 640, 2560, 10240, 40960};
+
+    private static final long MAGIC = 0x315045564157L; // "WAVEP1"
+    private static final int HEADER_BYTES = 40;
+    private static final int LEVEL_ENTRY_BYTES = 16;
+
+    // Precisão dos picos gravados: 8 bits (metade do tamanho) ou 16 bits
+    @Value("${audio.waveform.bits:8}")
+    private int bits;
+
+    // Nível da pirâmide: posição dos dados no arquivo auxiliar
+    public static class Level {
+        private final int samplesPerPeak;
+        private final int peakCount;
+        private final long dataOffset;
+
+        Level(int samplesPerPeak, int peakCount, long dataOffset) {
+            this.samplesPerPeak = samplesPerPeak;
+            this.peakCount = peakCount;
+            this.dataOffset = dataOffset;
+        }
+
+        public int getSamplesPerPeak() {
+            return samplesPerPeak;
+        }
+
+        public int getPeakCount() {
+            return peakCount;
+        }
+    }
+
+    // Cabeçalho do arquivo auxiliar
+    public static class Header {
+        private final long fileSize;
+        private final long lastModified;
+        private final int sampleRate;
+        private final int bits;
+        private final List<Level> levels;
+
+        Header(long fileSize, long lastModified, int sampleRate, int bits, List<Level> levels) {
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.sampleRate = sampleRate;
+            this.bits = bits;
+            this.levels = levels;
+        }
+
+        public int getSampleRate() {
+            return sampleRate;
+        }
+
+        public int getBits() {
+            return bits;
+        }
+
+        public List<Level> getLevels() {
+            return levels;
+        }
+
+        // Bytes por pico: mínimo + máximo
+        public int bytesPerPeak() {
+            return bits == 16 ? 4 : 2;
+        }
+    }
+
+    @Override
+    public boolean isUpToDate(Path file) throws IOException {
+        return readHeader(file) != null;
+    }
+
+    @Override
+    public PcmAnalyzer open(Path file, int sampleRate) throws IOException {
+        return new PeakBuilder(file, Files.size(file), Files.getLastModifiedTime(file).toMillis(), sampleRate);
+    }
+
+    // Cabeçalho dos picos do arquivo; null se ainda não gerados ou desatualizados
+    public Header readHeader(Path file) throws IOException {
+        Path sidecar = sidecarFor(file);
+        if (!Files.isRegularFile(sidecar) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            if (header == null || header.fileSize != Files.size(file)
+                    || header.lastModified != Files.getLastModifiedTime(file).toMillis()) {
+                return null;
+            }
+            return header;
+        }
+    }
+
+    // Picos [start, start + count) de um nível, intercalados (mínimo, máximo), com sinal;
+    // 8 bits: um byte por valor, 16 bits: little-endian. Retorna null se os picos não existirem.
+    public ByteBuffer readPeaks(Path file, int level, long start, int count) throws IOException {
+        Path sidecar = sidecarFor(file);
+        if (!Files.isRegularFile(sidecar)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            if (header == null || level < 0 || level >= header.levels.size()) {
+                return null;
+            }
+            Level selected = header.levels.get(level);
+            long first = Math.max(0, Math.min(start, selected.peakCount));
+            long last = Math.min(selected.peakCount, first + Math.max(0, count));
+            int peakBytes = header.bytesPerPeak();
+            // Leitura para o heap: um mapeamento aberto impediria no Windows a troca do arquivo por uma versão nova
+            // (o ATOMIC_MOVE de PeakBuilder.finish) até o buffer ser coletado
+            ByteBuffer peaks = ByteBuffer.allocate(Math.toIntExact((last - first) * peakBytes));
+            long position = selected.dataOffset + first * peakBytes;
+            while (peaks.hasRemaining()) {
+                int read = channel.read(peaks, position + peaks.position());
+                if (read < 0) {
+                    return null;
+                }
+            }
+            peaks.flip();
+            return peaks;
+        }
+    }
+
+    // Descrição dos níveis disponíveis no formato retornado pela API
+    public Map<String, Object> describe(Header header) {
+        List<Map<String, Object>> levels = new ArrayList<>();
+        for (int i = 0; i < header.levels.size(); i++) {
+            Level level = header.levels.get(i);
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("level", i);
+            entry.put("samplesPerPeak", level.samplesPerPeak);
+            entry.put("peaksPerSecond", (double) header.sampleRate / level.samplesPerPeak);
+            entry.put("peakCount", level.peakCount);
+            levels.add(entry);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("sampleRate", header.sampleRate);
+        response.put("bits", header.bits);
+        response.put("levels", levels);
+        return response;
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.read(head, 0) < HEADER_BYTES) {
+            return null;
+        }
+        head.flip();
+        if (head.getLong() != MAGIC) {
+            return null;
+        }
+        long fileSize = head.getLong();
+        long lastModified = head.getLong();
+        int sampleRate = head.getInt();
+        int bits = head.getInt();
+        int levelCount = head.getInt();
+        if (levelCount <= 0 || levelCount > 32 || (bits != 8 && bits != 16)) {
+            return null;
+        }
+
+        ByteBuffer table = ByteBuffer.allocate(levelCount * LEVEL_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.read(table, HEADER_BYTES) < table.capacity()) {
+            return null;
+        }
+        table.flip();
+        List<Level> levels = new ArrayList<>(levelCount);
+        int peakBytes = bits == 16 ? 4 : 2;
+        for (int i = 0; i < levelCount; i++) {
+            Level level = new Level(table.getInt(), table.getInt(), table.getLong());
+            if (level.dataOffset + (long) level.peakCount * peakBytes > channel.size()) {
+                return null;
+            }
+            levels.add(level);
+        }
+        return new Header(fileSize, lastModified, sampleRate, bits, levels);
+    }
+
+    // Arquivo auxiliar dos picos: PEAKS_DIR/ab/<sha-1 do caminho>.peaks
+    Path sidecarFor(Path file) {
+        String hash = Mp3FrameIndexService.sha1(file.toAbsolutePath().normalize().toString());
+        return Paths.get(PEAKS_DIR, hash.substring(0, 2), hash + ".peaks");
+    }
+
+    // Acumula o nível mais detalhado durante a decodificação e deriva os demais ao final
+    private class PeakBuilder implements PcmAnalyzer {
+        private final Path file;
+        private final long fileSize;
+        private final long lastModified;
+        private final int sampleRate;
+        private short[] mins = new short[4096];
+        private short[] maxs = new short[4096];
+        private int count = 0;
+        private int inBucket = 0;
+        private short bucketMin = Short.MAX_VALUE;
+        private short bucketMax = Short.MIN_VALUE;
+
+        PeakBuilder(Path file, long fileSize, long lastModified, int sampleRate) {
+            this.file = file;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public void accept(short[] samples, int sampleCount) {
+            int bucketSize = LEVEL_SAMPLES[0];
+            for (int i = 0; i < sampleCount; i++) {
+                short sample = samples[i];
+                if (sample < bucketMin) {
+                    bucketMin = sample;
+                }
+                if (sample > bucketMax) {
+                    bucketMax = sample;
+                }
+                if (++inBucket == bucketSize) {
+                    closeBucket();
+                }
+            }
+        }
+
+        private void closeBucket() {
+            if (count == mins.length) {
+                mins = Arrays.copyOf(mins, count * 2);
+                maxs = Arrays.copyOf(maxs, count * 2);
+            }
+            mins[count] = bucketMin;
+            maxs[count] = bucketMax;
+            count++;
+            inBucket = 0;
+            bucketMin = Short.MAX_VALUE;
+            bucketMax = Short.MIN_VALUE;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (inBucket > 0) {
+                closeBucket();
+            }
+            int storedBits = bits == 16 ? 16 : 8;
+            int peakBytes = storedBits == 16 ? 4 : 2;
+
+            // Tamanho de cada nível: cada pico agrega LEVEL_SAMPLES[i] / LEVEL_SAMPLES[0] picos do nível 0
+            int[] counts = new int[LEVEL_SAMPLES.length];
+            long dataOffset = HEADER_BYTES + (long) LEVEL_SAMPLES.length * LEVEL_ENTRY_BYTES;
+            long[] offsets = new long[LEVEL_SAMPLES.length];
+            for (int level = 0; level < LEVEL_SAMPLES.length; level++) {
+                int factor = LEVEL_SAMPLES[level] / LEVEL_SAMPLES[0];
+                counts[level] = (count + factor - 1) / factor;
+                offsets[level] = dataOffset;
+                dataOffset += (long) counts[level] * peakBytes;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putLong(MAGIC).putLong(fileSize).putLong(lastModified)
+                    .putInt(sampleRate).putInt(storedBits).putInt(LEVEL_SAMPLES.length).putInt(0);
+            for (int level = 0; level < LEVEL_SAMPLES.length; level++) {
+                buffer.putInt(LEVEL_SAMPLES[level]).putInt(counts[level]).putLong(offsets[level]);
+            }
+            for (int level = 0; level < LEVEL_SAMPLES.length; level++) {
+                int factor = LEVEL_SAMPLES[level] / LEVEL_SAMPLES[0];
+                for (int peak = 0; peak < counts[level]; peak++) {
+                    short min = Short.MAX_VALUE;
+                    short max = Short.MIN_VALUE;
+                    int end = Math.min(count, (peak + 1) * factor);
+                    for (int i = peak * factor; i < end; i++) {
+                        min = (short) Math.min(min, mins[i]);
+                        max = (short) Math.max(max, maxs[i]);
+                    }
+                    if (storedBits == 16) {
+                        buffer.putShort(min).putShort(max);
+                    } else {
+                        buffer.put((byte) (min >> 8)).put((byte) (max >> 8));
+                    }
+                }
+            }
+            buffer.flip();
+
+            Path sidecar = sidecarFor(file);
+            Files.createDirectories(sidecar.getParent());
+            Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
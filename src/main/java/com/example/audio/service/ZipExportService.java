@@ -0,0 +1,169 @@
+package com.example.audio.service;
+
+import com.example.audio.model.AudioFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Exportação em ZIP de pastas de cortes, segmentos gravados de uma rádio e listas de cortes. As entradas são
+// STORED (o áudio já é comprimido), com o CRC reaproveitado do AudioFile quando o arquivo não mudou, e os bytes
+// vão do disco direto para a resposta: nada é gravado em arquivo temporário e a memória usada não depende do
+// tamanho dos arquivos, só da quantidade de entradas (limitada por audio.export.max-entries).
+@Service
+public class ZipExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ZipExportService.class);
+
+    private final String UPLOAD_DIR = "C:/pastaudios";
+    private final String OUTPUT_DIR = "C:/cortes";
+
+    // Segmentos buscados por consulta ao montar a exportação de uma rádio
+    private static final int SEGMENT_PAGE = 500;
+
+    @Autowired
+    private AudioCatalog audioCatalog;
+
+    @Autowired
+    private SegmentCatalogService segmentCatalogService;
+
+    @Autowired
+    private LiveRecorderService liveRecorderService;
+
+    @Autowired
+    private ContentHashService contentHashService;
+
+    // Quantidade máxima de arquivos em uma exportação
+    @Value("${audio.export.max-entries:5000}")
+    private int maxEntries;
+
+    // Cortes de uma pasta de C:/cortes (ex.: uma data); null se a pasta não existir
+    public List<StoredZipWriter.Entry> cortesFolder(String subFolder) throws IOException {
+        Path directory = resolveInside(Paths.get(OUTPUT_DIR), subFolder);
+        List<String> names = audioCatalog.listFileNames(directory);
+        if (names == null) {
+            return null;
+        }
+        List<StoredZipWriter.Entry> entries = new ArrayList<>();
+        for (String name : names) {
+            // Arquivos ocultos são saídas ainda em andamento; lotes já zipados não entram de novo
+            if (name.startsWith(".") || name.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+                continue;
+            }
+            addFile(entries, name, directory.resolve(name));
+        }
+        return entries;
+    }
+
+    // Segmentos gravados de uma rádio que cobrem [from, to), em ordem cronológica. O segmento que o gravador
+    // ainda está escrevendo fica de fora: o tamanho dele mudaria entre a listagem e a cópia.
+    public List<StoredZipWriter.Entry> stationSegments(String radioName, Instant from, Instant to) throws IOException {
+        resolveInside(Paths.get(UPLOAD_DIR), radioName);
+        Path recording = liveRecorderService.find(radioName).map(StationRecorder::getCurrentSegment).orElse(null);
+        List<StoredZipWriter.Entry> entries = new ArrayList<>();
+        Instant after = null;
+        while (true) {
+            List<AudioFile> segments = segmentCatalogService.findSegments(radioName, from, to, after, SEGMENT_PAGE);
+            for (AudioFile segment : segments) {
+                Path requested = Paths.get(segment.getFilePath());
+                if (requested.equals(recording)) {
+                    continue;
+                }
+                Path file = RetentionService.resolve(requested);
+                addFile(entries, radioName + "/" + file.getFileName(), file);
+            }
+            if (segments.size() < SEGMENT_PAGE) {
+                return entries;
+            }
+            after = segments.get(segments.size() - 1).getStartTime();
+        }
+    }
+
+    // Cortes indicados por caminho relativo a C:/cortes ("2024-01-31/corte.mp3"), na ordem recebida
+    public List<StoredZipWriter.Entry> clips(List<String> paths) throws IOException {
+        if (paths == null || paths.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um corte.");
+        }
+        Path root = Paths.get(OUTPUT_DIR);
+        List<StoredZipWriter.Entry> entries = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (String path : paths) {
+            Path file = resolveInside(root, path);
+            if (!Files.isRegularFile(file)) {
+                throw new NoSuchFileException(path);
+            }
+            String name = root.relativize(file).toString().replace('\\', '/');
+            if (names.add(name)) {
+                addFile(entries, name, file);
+            }
+        }
+        return entries;
+    }
+
+    private void addFile(List<StoredZipWriter.Entry> entries, String name, Path file) throws IOException {
+        if (entries.size() >= maxEntries) {
+            throw new IllegalArgumentException("A exportação deve ter no máximo " + maxEntries + " arquivos.");
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // Removido pela retenção depois da listagem
+            return;
+        }
+        if (attributes.isRegularFile()) {
+            entries.add(new StoredZipWriter.Entry(name, file, 0, attributes.size(),
+                    attributes.lastModifiedTime().toMillis()));
+        }
+    }
+
+    // Caminho dentro de "root", recusando nomes que saiam dele ("..", caminhos absolutos)
+    private static Path resolveInside(Path root, String relative) {
+        Path resolved = root.resolve(relative).normalize();
+        if (relative.isEmpty() || !resolved.startsWith(root.normalize()) || resolved.equals(root.normalize())) {
+            throw new IllegalArgumentException("Caminho inválido: " + relative);
+        }
+        return resolved;
+    }
+
+    // Escreve o ZIP na saída; o tamanho total é StoredZipWriter.length(entries)
+    public void write(List<StoredZipWriter.Entry> entries, OutputStream out) throws IOException {
+        StoredZipWriter zip = new StoredZipWriter(Channels.newChannel(out));
+        for (StoredZipWriter.Entry entry : entries) {
+            zip.write(entry, crcOf(entry));
+        }
+        zip.finish();
+        out.flush();
+    }
+
+    // CRC guardado no AudioFile quando a entrada é o arquivo inteiro e ele não mudou desde a listagem; senão
+    // (arquivo sem metadados, como uma imagem, ou alterado) calcula só sobre os bytes que serão copiados
+    private long crcOf(StoredZipWriter.Entry entry) throws IOException {
+        Path file = entry.getFile();
+        if (entry.getFrom() == 0 && Files.size(file) == entry.getTo()
+                && Files.getLastModifiedTime(file).toMillis() == entry.getLastModified()) {
+            try {
+                return contentHashService.crcOf(file);
+            } catch (IOException e) {
+                log.debug("CRC de {} calculado sem cache: {}", file, e.getMessage());
+            }
+        }
+        return ContentHashService.crc32(file, entry.getFrom(), entry.getTo());
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.audio.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CutCacheServiceTest {
+
+	@TempDir
+	Path dir;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private CutCacheService cache;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		cache = newCache(250);
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentRequestsShareOneProduction() throws Exception {
+		AtomicInteger productions = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CutCacheService.Producer producer = target -> {
+			productions.incrementAndGet();
+			started.countDown();
+			release.await();
+			Files.write(target, new byte[100]);
+		};
+
+		Future<Path> first = executor.submit(() -> cache.getOrCreate("k", ".mp3", producer));
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		Future<Path> second = executor.submit(() -> cache.getOrCreate("k", ".mp3", producer));
+		awaitStat("coalesced", 1L);
+		release.countDown();
+
+		Path produced = first.get(5, TimeUnit.SECONDS);
+		assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(produced);
+		assertThat(produced).hasParent(dir).hasFileName("k.mp3");
+		assertThat(productions).hasValue(1);
+		Map<String, Object> stats = cache.stats();
+		assertThat(stats).containsEntry("misses", 1L).containsEntry("coalesced", 1L).containsEntry("inflight", 0);
+	}
+
+	@Test
+	void waiterRetriesWhenTheSharedProductionIsCancelled() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CutCacheService.Producer cancelled = target -> {
+			started.countDown();
+			release.await();
+			// Retorna sem criar o arquivo: corte cancelado
+		};
+		CutCacheService.Producer completes = target -> Files.write(target, new byte[100]);
+
+		Future<Path> first = executor.submit(() -> cache.getOrCreate("k", ".mp3", cancelled));
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		Future<Path> second = executor.submit(() -> cache.getOrCreate("k", ".mp3", completes));
+		awaitStat("coalesced", 1L);
+		release.countDown();
+
+		assertThat(first.get(5, TimeUnit.SECONDS)).isNull();
+		Path produced = second.get(5, TimeUnit.SECONDS);
+		assertThat(produced).exists().hasFileName("k.mp3");
+		assertThat(cache.stats()).containsEntry("misses", 2L).containsEntry("coalesced", 1L);
+		try (Stream<Path> files = Files.list(dir)) {
+			assertThat(files).containsExactly(produced);
+		}
+	}
+
+	@Test
+	void failureReachesEveryWaiterAndLeavesNoTemporary() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CutCacheService.Producer failing = target -> {
+			Files.write(target, new byte[10]);
+			started.countDown();
+			release.await();
+			throw new IOException("FFmpeg falhou");
+		};
+
+		Future<Path> first = executor.submit(() -> cache.getOrCreate("k", ".mp3", failing));
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		Future<Path> second = executor.submit(() -> cache.getOrCreate("k", ".mp3", failing));
+		awaitStat("coalesced", 1L);
+		release.countDown();
+
+		for (Future<Path> future : Arrays.asList(first, second)) {
+			try {
+				future.get(5, TimeUnit.SECONDS);
+			} catch (ExecutionException e) {
+				assertThat(e.getCause()).isInstanceOf(IOException.class).hasMessage("FFmpeg falhou");
+				continue;
+			}
+			throw new AssertionError("A falha deveria chegar a todos os pedidos");
+		}
+		assertThat(cache.lookup("k", ".mp3")).isNull();
+		try (Stream<Path> files = Files.list(dir)) {
+			assertThat(files).isEmpty();
+		}
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedEntry() throws Exception {
+		cache.getOrCreate("a", ".mp3", target -> Files.write(target, new byte[100]));
+		cache.getOrCreate("b", ".mp3", target -> Files.write(target, new byte[100]));
+		// "a" passa a ser o mais recente; "b" é o próximo a sair
+		assertThat(cache.getOrCreate("a", ".mp3", target -> {
+			throw new AssertionError("Deveria vir do cache");
+		})).exists();
+		cache.getOrCreate("c", ".mp3", target -> Files.write(target, new byte[100]));
+
+		assertThat(cache.lookup("b", ".mp3")).isNull();
+		assertThat(dir.resolve("b.mp3")).doesNotExist();
+		assertThat(cache.lookup("a", ".mp3")).exists();
+		assertThat(cache.lookup("c", ".mp3")).exists();
+		assertThat(cache.stats())
+				.containsEntry("hits", 3L)
+				.containsEntry("misses", 3L)
+				.containsEntry("evictions", 1L)
+				.containsEntry("entries", 2)
+				.containsEntry("bytes", 200L)
+				.containsEntry("maxBytes", 250L);
+	}
+
+	@Test
+	void initRebuildsTheIndexAndRemovesTemporaries() throws Exception {
+		Files.write(dir.resolve("old.mp3"), new byte[100]);
+		Files.write(dir.resolve("new.mp3"), new byte[100]);
+		Files.setLastModifiedTime(dir.resolve("old.mp3"), FileTime.fromMillis(1_000));
+		Path temp = Files.write(cache.uniqueTempFile("x", ".mp3"), new byte[100]);
+
+		CutCacheService reopened = newCache(250);
+		reopened.getOrCreate("c", ".mp3", target -> Files.write(target, new byte[100]));
+
+		assertThat(temp).doesNotExist();
+		assertThat(dir.resolve("old.mp3")).doesNotExist();
+		assertThat(reopened.lookup("new", ".mp3")).exists();
+		assertThat(reopened.stats()).containsEntry("entries", 2).containsEntry("evictions", 1L);
+	}
+
+	@Test
+	void publishedCutIsReusedCountedAndEvictedWithTheEntry() throws Exception {
+		Path cortes = Files.createDirectories(dir.resolve("cortes"));
+		cache.getOrCreate("a", ".mp3", target -> Files.write(target, new byte[100]));
+
+		Path output = cache.publish("a", ".mp3", cortes.resolve("cortes_a.mp3"));
+		assertThat(cache.publish("a", ".mp3", cortes.resolve("cortes_a.mp3"))).isEqualTo(output);
+
+		assertThat(output).exists().hasSameBinaryContentAs(dir.resolve("a.mp3"));
+		// Hard link: os dados ficam uma vez só no disco
+		assertThat(cache.stats()).containsEntry("outputs", 1).containsEntry("bytes", 100L);
+
+		cache.getOrCreate("b", ".mp3", target -> Files.write(target, new byte[100]));
+		cache.getOrCreate("c", ".mp3", target -> Files.write(target, new byte[100]));
+
+		assertThat(cache.lookup("a", ".mp3")).isNull();
+		assertThat(output).doesNotExist();
+		assertThat(cache.publish("a", ".mp3", cortes.resolve("cortes_a.mp3"))).isNull();
+		assertThat(cache.stats()).containsEntry("outputs", 0).containsEntry("bytes", 200L);
+	}
+
+	@Test
+	void publishedCutsAreTrackedAcrossRestarts() throws Exception {
+		Path cortes = Files.createDirectories(dir.resolve("cortes"));
+		cache.getOrCreate("a", ".mp3", target -> Files.write(target, new byte[100]));
+		Path output = cache.publish("a", ".mp3", cortes.resolve("cortes_a.mp3"));
+
+		CutCacheService reopened = newCache(250);
+		assertThat(reopened.stats()).containsEntry("entries", 1).containsEntry("outputs", 1);
+		reopened.getOrCreate("b", ".mp3", target -> Files.write(target, new byte[100]));
+		reopened.getOrCreate("c", ".mp3", target -> Files.write(target, new byte[100]));
+
+		assertThat(output).doesNotExist();
+		assertThat(dir.resolve("a.mp3.links")).doesNotExist();
+	}
+
+	@Test
+	void hitsDoNotTouchTheCachedFile() throws Exception {
+		Path produced = cache.getOrCreate("a", ".mp3", target -> Files.write(target, new byte[100]));
+		Files.setLastModifiedTime(produced, FileTime.fromMillis(1_000));
+
+		assertThat(cache.lookup("a", ".mp3")).isEqualTo(produced);
+		assertThat(Files.getLastModifiedTime(produced).toMillis()).isEqualTo(1_000);
+	}
+
+	private CutCacheService newCache(long maxBytes) throws IOException {
+		CutCacheService service = new CutCacheService();
+		ReflectionTestUtils.setField(service, "cacheDir", dir.toString());
+		ReflectionTestUtils.setField(service, "maxBytes", maxBytes);
+		service.init();
+		return service;
+	}
+
+	// Espera outra thread chegar ao ponto em que o contador muda
+	private void awaitStat(String name, Object expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!expected.equals(cache.stats().get(name))) {
+			assertThat(System.currentTimeMillis()).as("aguardando " + name).isLessThan(deadline);
+			Thread.sleep(5);
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.audio.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Mp3FrameHeaderTest {
+
+	// MPEG 1 camada III, 128 kbps, 44,1 kHz, estéreo, sem padding
+	static final int MPEG1_128K = 0xFFFB9000;
+
+	@Test
+	void parsesMpeg1LayerIii() {
+		Mp3FrameHeader header = Mp3FrameHeader.parse(MPEG1_128K);
+
+		assertThat(header).isNotNull();
+		assertThat(header.getVersion()).isEqualTo(Mp3FrameHeader.MPEG1);
+		assertThat(header.getLayer()).isEqualTo(3);
+		assertThat(header.getBitrateKbps()).isEqualTo(128);
+		assertThat(header.getSampleRate()).isEqualTo(44100);
+		assertThat(header.getChannels()).isEqualTo(2);
+		assertThat(header.getSamplesPerFrame()).isEqualTo(1152);
+		assertThat(header.getFrameLength()).isEqualTo(417);
+		assertThat(header.getFrameDurationMicros()).isEqualTo(26122);
+	}
+
+	@Test
+	void paddingAddsOneByte() {
+		Mp3FrameHeader header = Mp3FrameHeader.parse(MPEG1_128K | 0x200);
+
+		assertThat(header.hasPadding()).isTrue();
+		assertThat(header.getFrameLength()).isEqualTo(418);
+	}
+
+	@Test
+	void parsesMpeg2LayerIiiWithHalfTheSamples() {
+		// MPEG 2 camada III, 64 kbps, 22,05 kHz
+		Mp3FrameHeader header = Mp3FrameHeader.parse(0xFFF38000);
+
+		assertThat(header.getVersion()).isEqualTo(Mp3FrameHeader.MPEG2);
+		assertThat(header.getBitrateKbps()).isEqualTo(64);
+		assertThat(header.getSampleRate()).isEqualTo(22050);
+		assertThat(header.getSamplesPerFrame()).isEqualTo(576);
+		assertThat(header.getFrameLength()).isEqualTo(208);
+	}
+
+	@Test
+	void sideInfoEndDependsOnVersionAndChannels() {
+		assertThat(Mp3FrameHeader.parse(MPEG1_128K).sideInfoEnd()).isEqualTo(36);
+		assertThat(Mp3FrameHeader.parse(MPEG1_128K | 0xC0).sideInfoEnd()).isEqualTo(21);
+		assertThat(Mp3FrameHeader.parse(0xFFF38000).sideInfoEnd()).isEqualTo(21);
+		assertThat(Mp3FrameHeader.parse(0xFFF380C0).sideInfoEnd()).isEqualTo(13);
+	}
+
+	@Test
+	void rejectsInvalidHeaders() {
+		assertThat(Mp3FrameHeader.parse(0x49443304)).as("sem sincronismo").isNull();
+		assertThat(Mp3FrameHeader.parse(0xFFEB9000)).as("versão reservada").isNull();
+		assertThat(Mp3FrameHeader.parse(0xFFF99000)).as("camada reservada").isNull();
+		assertThat(Mp3FrameHeader.parse(0xFFFB0000)).as("bitrate livre").isNull();
+		assertThat(Mp3FrameHeader.parse(0xFFFBF000)).as("bitrate inválido").isNull();
+		assertThat(Mp3FrameHeader.parse(0xFFFB9C00)).as("taxa de amostragem reservada").isNull();
+	}
+
+	@Test
+	void compatibleFramesShareVersionLayerAndSampleRate() {
+		Mp3FrameHeader cbr = Mp3FrameHeader.parse(MPEG1_128K);
+
+		assertThat(cbr.isCompatible(Mp3FrameHeader.parse(0xFFFBB000))).as("outro bitrate").isTrue();
+		assertThat(cbr.isCompatible(Mp3FrameHeader.parse(0xFFFB9400))).as("48 kHz").isFalse();
+		assertThat(cbr.isCompatible(Mp3FrameHeader.parse(0xFFF38000))).as("MPEG 2").isFalse();
+		assertThat(cbr.isCompatible(null)).isFalse();
+	}
+}
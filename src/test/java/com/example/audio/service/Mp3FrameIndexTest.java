@@ -0,0 +1,105 @@
+package com.example.audio.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Mp3FrameIndexTest {
+
+	// 100 frames de 417 bytes (128 kbps, 44,1 kHz) depois de 210 bytes de tag: ~2,61 s de áudio
+	private static final int FRAMES = 100;
+	private static final long AUDIO_START = 210;
+	private static final long AUDIO_END = AUDIO_START + FRAMES * 417L;
+
+	@TempDir
+	Path dir;
+
+	private final Mp3FrameIndex index = cbrIndex();
+
+	@Test
+	void rangeStartsOnTheFrameContainingTheStart() {
+		// 1,0 s cai no frame 38 (1,0 * 44100 / 1152 = 38,28); 1,5 s termina dentro do frame 57
+		long[] range = index.byteRange(1.0, 0.5);
+
+		assertThat(range).containsExactly(AUDIO_START + 38 * 417L, AUDIO_START + 58 * 417L);
+	}
+
+	@Test
+	void rangeFromTheBeginning() {
+		long[] range = index.byteRange(0, 1.0);
+
+		assertThat(range).containsExactly(AUDIO_START, AUDIO_START + 39 * 417L);
+	}
+
+	@Test
+	void rangeIsClampedToTheEndOfTheAudio() {
+		long[] range = index.byteRange(2.0, 60);
+
+		assertThat(range).containsExactly(AUDIO_START + 76 * 417L, AUDIO_END);
+	}
+
+	@Test
+	void startPastTheEndGivesAnEmptyRange() {
+		long[] range = index.byteRange(10, 5);
+
+		assertThat(range).containsExactly(AUDIO_END, AUDIO_END);
+	}
+
+	@Test
+	void durationAndFrameLookup() {
+		assertThat(index.getFrameCount()).isEqualTo(FRAMES);
+		assertThat(index.getDurationMicros()).isEqualTo(FRAMES * 26122L);
+		assertThat(index.frameAt(-1)).isEqualTo(0);
+		assertThat(index.frameAt(1000)).isEqualTo(FRAMES);
+		assertThat(index.offsetOf(FRAMES)).isEqualTo(AUDIO_END);
+	}
+
+	@Test
+	void sidecarRoundTripsAndCanBeReplacedAfterReading() throws IOException {
+		Path sidecar = dir.resolve("idx").resolve("a.mp3.idx");
+		index.writeTo(sidecar);
+
+		Mp3FrameIndex read = Mp3FrameIndex.readFrom(sidecar);
+		// Nada fica preso ao arquivo depois da leitura: ele pode ser regravado e apagado
+		index.writeTo(sidecar);
+		Files.delete(sidecar);
+
+		assertThat(read.getFrameCount()).isEqualTo(FRAMES);
+		assertThat(read.getAudioEnd()).isEqualTo(AUDIO_END);
+		assertThat(read.offsetOf(42)).isEqualTo(AUDIO_START + 42 * 417L);
+		assertThat(read.matches(AUDIO_END, 0)).isTrue();
+	}
+
+	@Test
+	void copierSendsExactlyTheRange() throws IOException {
+		byte[] data = new byte[3 * 1024 * 1024 + 100];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i * 31);
+		}
+		Path source = Files.write(dir.resolve("a.mp3"), data);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long copied = Mp3FrameCopier.copy(source, 1000, data.length - 50, Channels.newChannel(out));
+
+		assertThat(copied).isEqualTo(data.length - 1050);
+		assertThat(out.toByteArray()).isEqualTo(Arrays.copyOfRange(data, 1000, data.length - 50));
+		assertThat(Mp3FrameCopier.copy(source, data.length - 10, data.length + 500, Channels.newChannel(out)))
+				.isEqualTo(10);
+	}
+
+	private static Mp3FrameIndex cbrIndex() {
+		long[] offsets = new long[FRAMES];
+		for (int i = 0; i < FRAMES; i++) {
+			offsets[i] = AUDIO_START + i * 417L;
+		}
+		return new Mp3FrameIndex(AUDIO_END, 0, 44100, 1152, AUDIO_END, offsets);
+	}
+}
@@ -0,0 +1,129 @@
+package com.example.audio.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Mp3FrameScannerTest {
+
+	// MPEG 1 camada III, 44,1 kHz, estéreo: 128 kbps (417 bytes), 192 kbps (626) e 64 kbps (208)
+	static final int FRAME_128K = 0xFFFB9000;
+	static final int FRAME_192K = 0xFFFBB000;
+	static final int FRAME_64K = 0xFFFB5000;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void indexesEveryFrameOfACbrFile() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int i = 0; i < 10; i++) {
+			out.write(frame(FRAME_128K, null));
+		}
+
+		Mp3FrameIndex index = Mp3FrameScanner.scan(write("cbr.mp3", out));
+
+		assertThat(index.getFrameCount()).isEqualTo(10);
+		assertThat(index.getSampleRate()).isEqualTo(44100);
+		assertThat(index.getSamplesPerFrame()).isEqualTo(1152);
+		assertThat(index.getAudioStart()).isEqualTo(0);
+		assertThat(index.getAudioEnd()).isEqualTo(4170);
+		for (int i = 0; i < 10; i++) {
+			assertThat(index.offsetOf(i)).isEqualTo(i * 417L);
+		}
+	}
+
+	@Test
+	void followsVariableFrameSizesAndSkipsTheXingFrame() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(frame(FRAME_128K, "Xing"));
+		int[] headers = {FRAME_192K, FRAME_64K, FRAME_128K, FRAME_192K, FRAME_64K | 0x200};
+		for (int header : headers) {
+			out.write(frame(header, null));
+		}
+
+		Mp3FrameIndex index = Mp3FrameScanner.scan(write("vbr.mp3", out));
+
+		assertThat(index.getFrameCount()).isEqualTo(5);
+		assertThat(index.offsetOf(0)).isEqualTo(417);
+		assertThat(index.offsetOf(1)).isEqualTo(417 + 626);
+		assertThat(index.offsetOf(2)).isEqualTo(417 + 626 + 208);
+		assertThat(index.offsetOf(3)).isEqualTo(417 + 626 + 208 + 417);
+		assertThat(index.offsetOf(4)).isEqualTo(417 + 626 + 208 + 417 + 626);
+		assertThat(index.getAudioEnd()).isEqualTo(out.size());
+	}
+
+	@Test
+	void skipsTheId3v2TagEvenIfItLooksLikeAudio() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] tag = new byte[10 + 200];
+		tag[0] = 'I';
+		tag[1] = 'D';
+		tag[2] = '3';
+		tag[3] = 4;
+		tag[8] = 1; // tamanho synchsafe: (1 << 7) + 72 = 200
+		tag[9] = 72;
+		// Sincronismo falso dentro da tag
+		ByteBuffer.wrap(tag, 20, 4).putInt(FRAME_128K);
+		out.write(tag);
+		for (int i = 0; i < 3; i++) {
+			out.write(frame(FRAME_128K, null));
+		}
+
+		Mp3FrameIndex index = Mp3FrameScanner.scan(write("id3.mp3", out));
+
+		assertThat(index.getFrameCount()).isEqualTo(3);
+		assertThat(index.getAudioStart()).isEqualTo(210);
+		assertThat(index.getAudioEnd()).isEqualTo(210 + 3 * 417);
+	}
+
+	@Test
+	void ignoresATruncatedLastFrame() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int i = 0; i < 5; i++) {
+			out.write(frame(FRAME_128K, null));
+		}
+		byte[] truncated = frame(FRAME_128K, null);
+		out.write(truncated, 0, 100);
+
+		Path file = write("truncated.mp3", out);
+		Mp3FrameIndex index = Mp3FrameScanner.scan(file);
+
+		assertThat(index.getFrameCount()).isEqualTo(5);
+		assertThat(index.getAudioEnd()).isEqualTo(5 * 417);
+		assertThat(index.matches(Files.size(file), Files.getLastModifiedTime(file).toMillis())).isTrue();
+	}
+
+	@Test
+	void returnsNullWithoutAudioFrames() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write("não é um MP3".getBytes(StandardCharsets.UTF_8));
+		out.write(new byte[4096]);
+
+		assertThat(Mp3FrameScanner.scan(write("text.mp3", out))).isNull();
+	}
+
+	// Frame com o cabeçalho informado e corpo zerado; "tag" (Xing/Info) vai logo após a side information
+	static byte[] frame(int header, String tag) {
+		Mp3FrameHeader parsed = Mp3FrameHeader.parse(header);
+		ByteBuffer frame = ByteBuffer.allocate(parsed.getFrameLength());
+		frame.putInt(header);
+		if (tag != null) {
+			frame.position(parsed.sideInfoEnd());
+			frame.put(tag.getBytes(StandardCharsets.US_ASCII));
+		}
+		return frame.array();
+	}
+
+	private Path write(String name, ByteArrayOutputStream out) throws IOException {
+		return Files.write(dir.resolve(name), out.toByteArray());
+	}
+}
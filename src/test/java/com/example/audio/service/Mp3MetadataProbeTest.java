@@ -0,0 +1,166 @@
+package com.example.audio.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.example.audio.service.Mp3FrameScannerTest.FRAME_128K;
+import static com.example.audio.service.Mp3FrameScannerTest.frame;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Mp3MetadataProbeTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readsFramesAndBytesFromTheXingHeader() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] xing = frame(FRAME_128K, "Xing");
+		ByteBuffer.wrap(xing, 36 + 4, 12).putInt(0x3).putInt(1000).putInt(200_000);
+		out.write(xing);
+		writeFrames(out, FRAME_128K, 3);
+
+		AudioMetadata metadata = Mp3MetadataProbe.probe(write("xing.mp3", out));
+
+		// 1000 frames de 1152 amostras a 44,1 kHz; 200000 bytes nesse tempo
+		assertThat(metadata.getDurationMicros()).isEqualTo(26_122_448);
+		assertThat(metadata.getBitrateKbps()).isEqualTo(61);
+		assertThat(metadata.getSampleRate()).isEqualTo(44100);
+		assertThat(metadata.getChannels()).isEqualTo(2);
+	}
+
+	@Test
+	void infoHeaderWithoutByteCountUsesTheFileSize() throws IOException {
+		int mono = FRAME_128K | 0xC0;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] info = frame(mono, "Info");
+		ByteBuffer.wrap(info, 21 + 4, 8).putInt(0x1).putInt(4);
+		out.write(info);
+		writeFrames(out, mono, 4);
+
+		AudioMetadata metadata = Mp3MetadataProbe.probe(write("info.mp3", out));
+
+		// 4 frames, com os 5 * 417 bytes do arquivo (o frame Info incluso)
+		assertThat(metadata.getDurationMicros()).isEqualTo(104_489);
+		assertThat(metadata.getBitrateKbps()).isEqualTo(160);
+		assertThat(metadata.getChannels()).isEqualTo(1);
+	}
+
+	@Test
+	void readsFramesAndBytesFromTheVbriHeader() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] vbri = frame(FRAME_128K, null);
+		ByteBuffer.wrap(vbri, 4 + 32, 18)
+				.put("VBRI".getBytes(StandardCharsets.US_ASCII))
+				.putShort((short) 1)   // versão
+				.putShort((short) 0)   // atraso
+				.putShort((short) 75)  // qualidade
+				.putInt(100_000)
+				.putInt(500);
+		out.write(vbri);
+		writeFrames(out, FRAME_128K, 3);
+
+		AudioMetadata metadata = Mp3MetadataProbe.probe(write("vbri.mp3", out));
+
+		assertThat(metadata.getDurationMicros()).isEqualTo(13_061_224);
+		assertThat(metadata.getBitrateKbps()).isEqualTo(61);
+	}
+
+	@Test
+	void usesTlenFromAnId3v23Tag() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(id3v2(3, textFrame(3, "TIT2", 0, "Programa da manhã"), textFrame(3, "TLEN", 0, "261")));
+		writeFrames(out, FRAME_128K, 10);
+
+		AudioMetadata metadata = Mp3MetadataProbe.probe(write("tlen.mp3", out));
+
+		// 10 * 417 bytes em 261 ms
+		assertThat(metadata.getDurationMicros()).isEqualTo(261_000);
+		assertThat(metadata.getBitrateKbps()).isEqualTo(128);
+	}
+
+	@Test
+	void usesTlenFromAnId3v24TagInUtf8() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(id3v2(4, textFrame(4, "TLEN", 3, "3600000")));
+		writeFrames(out, FRAME_128K, 10);
+
+		AudioMetadata metadata = Mp3MetadataProbe.probe(write("tlen24.mp3", out));
+
+		assertThat(metadata.getDurationMicros()).isEqualTo(3_600_000_000L);
+	}
+
+	@Test
+	void fallsBackToCbrIgnoringTheId3v1Tag() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeFrames(out, FRAME_128K, 20);
+		byte[] id3v1 = new byte[128];
+		id3v1[0] = 'T';
+		id3v1[1] = 'A';
+		id3v1[2] = 'G';
+		out.write(id3v1);
+
+		AudioMetadata metadata = Mp3MetadataProbe.probe(write("cbr.mp3", out));
+
+		// 20 * 417 bytes a 128 kbps
+		assertThat(metadata.getDurationMicros()).isEqualTo(20 * 417 * 8_000L / 128);
+		assertThat(metadata.getBitrateKbps()).isEqualTo(128);
+		assertThat(metadata.getSampleRate()).isEqualTo(44100);
+		assertThat(metadata.getChannels()).isEqualTo(2);
+	}
+
+	@Test
+	void returnsNullWithoutAudioFrames() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(new byte[8192]);
+
+		assertThat(Mp3MetadataProbe.probe(write("zeros.mp3", out))).isNull();
+	}
+
+	private static void writeFrames(ByteArrayOutputStream out, int header, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.write(frame(header, null));
+		}
+	}
+
+	// Tag ID3v2 com os frames informados e tamanho synchsafe
+	private static byte[] id3v2(int major, byte[]... frames) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		for (byte[] frame : frames) {
+			body.write(frame);
+		}
+		body.write(new byte[32]); // padding
+		ByteBuffer tag = ByteBuffer.allocate(10 + body.size());
+		tag.put("ID3".getBytes(StandardCharsets.US_ASCII)).put((byte) major).put((byte) 0).put((byte) 0);
+		tag.putInt(synchsafe(body.size()));
+		tag.put(body.toByteArray());
+		return tag.array();
+	}
+
+	// Frame de texto: o tamanho é synchsafe na versão 2.4 e inteiro comum na 2.3
+	private static byte[] textFrame(int major, String id, int encoding, String text) {
+		byte[] value = text.getBytes(encoding == 3 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+		int size = 1 + value.length;
+		ByteBuffer frame = ByteBuffer.allocate(10 + size);
+		frame.put(id.getBytes(StandardCharsets.US_ASCII));
+		frame.putInt(major == 4 ? synchsafe(size) : size);
+		frame.putShort((short) 0);
+		frame.put((byte) encoding).put(value);
+		return frame.array();
+	}
+
+	private static int synchsafe(int value) {
+		return ((value >> 21) & 0x7F) << 24 | ((value >> 14) & 0x7F) << 16 | ((value >> 7) & 0x7F) << 8 | (value & 0x7F);
+	}
+
+	private Path write(String name, ByteArrayOutputStream out) throws IOException {
+		return Files.write(dir.resolve(name), out.toByteArray());
+	}
+}
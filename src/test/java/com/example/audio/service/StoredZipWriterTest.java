@@ -0,0 +1,172 @@
+package com.example.audio.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoredZipWriterTest {
+
+	private static final long MODIFIED = 1_700_000_000_000L;
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void writesExactlyTheAnnouncedLengthAndReadsBack() throws IOException {
+		Path first = Files.write(dir.resolve("a.mp3"), bytes(1000, 1));
+		Path second = Files.write(dir.resolve("b.mp3"), bytes(5000, 7));
+		List<StoredZipWriter.Entry> entries = Arrays.asList(
+				new StoredZipWriter.Entry("a.mp3", first, 0, 1000, MODIFIED),
+				new StoredZipWriter.Entry("rádio/trecho.mp3", second, 1000, 3500, MODIFIED),
+				new StoredZipWriter.Entry("vazio.mp3", first, 0, 0, MODIFIED));
+
+		byte[] zip = write(entries);
+
+		assertThat((long) zip.length).isEqualTo(StoredZipWriter.length(entries));
+		try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip), StandardCharsets.UTF_8)) {
+			assertEntry(in, "a.mp3", bytes(1000, 1));
+			assertEntry(in, "rádio/trecho.mp3", Arrays.copyOfRange(bytes(5000, 7), 1000, 3500));
+			assertEntry(in, "vazio.mp3", new byte[0]);
+			assertThat(in.getNextEntry()).isNull();
+		}
+	}
+
+	@Test
+	void zipFileReadsTheCentralDirectory() throws IOException {
+		Path source = Files.write(dir.resolve("a.mp3"), bytes(300, 3));
+		List<StoredZipWriter.Entry> entries = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			entries.add(new StoredZipWriter.Entry("corte" + i + ".mp3", source, i, 300, MODIFIED));
+		}
+
+		Path zip = Files.write(dir.resolve("out.zip"), write(entries));
+
+		try (ZipFile file = new ZipFile(zip.toFile())) {
+			assertThat(file.size()).isEqualTo(20);
+			ZipEntry entry = file.getEntry("corte5.mp3");
+			assertThat(entry.getMethod()).isEqualTo(ZipEntry.STORED);
+			assertThat(entry.getSize()).isEqualTo(295);
+			assertThat(file.getInputStream(entry).readAllBytes()).isEqualTo(Arrays.copyOfRange(bytes(300, 3), 5, 300));
+		}
+	}
+
+	@Test
+	void zip64EndRecordStartsAt65535Entries() {
+		List<StoredZipWriter.Entry> below = tinyEntries(Paths.get("x"), 65534);
+		List<StoredZipWriter.Entry> at = tinyEntries(Paths.get("x"), 65535);
+		long perEntry = StoredZipWriter.length(tinyEntries(Paths.get("x"), 2))
+				- StoredZipWriter.length(tinyEntries(Paths.get("x"), 1));
+
+		// Registro de fim ZIP64 (56 bytes) e o localizador (20 bytes)
+		assertThat(StoredZipWriter.length(at) - StoredZipWriter.length(below)).isEqualTo(perEntry + 56 + 20);
+	}
+
+	@Test
+	void writes65535EntriesWithTheZip64EndRecord() throws IOException {
+		Path source = Files.write(dir.resolve("a.mp3"), new byte[]{42});
+		List<StoredZipWriter.Entry> entries = tinyEntries(source, 65535);
+
+		byte[] zip = write(entries);
+
+		assertThat((long) zip.length).isEqualTo(StoredZipWriter.length(entries));
+		ByteBuffer tail = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+		assertThat(tail.getInt(zip.length - 22)).isEqualTo(0x06054B50);
+		assertThat(tail.getShort(zip.length - 22 + 10) & 0xFFFF).isEqualTo(0xFFFF);
+		assertThat(tail.getInt(zip.length - 22 - 20)).isEqualTo(0x07064B50);
+		assertThat(tail.getLong(zip.length - 22 - 20 - 56 + 32)).isEqualTo(65535);
+
+		Path file = Files.write(dir.resolve("many.zip"), zip);
+		try (ZipFile read = new ZipFile(file.toFile())) {
+			assertThat(read.size()).isEqualTo(65535);
+			assertThat(read.getInputStream(read.getEntry("e65534")).readAllBytes()).containsExactly(42);
+		}
+	}
+
+	@Test
+	void lengthAccountsForZip64ExtrasOfLargeEntries() {
+		long size = 5L * 1024 * 1024 * 1024;
+		List<StoredZipWriter.Entry> entries = Arrays.asList(
+				new StoredZipWriter.Entry("grande.mp3", Paths.get("grande.mp3"), 0, size, MODIFIED));
+
+		// Cabeçalho local e registro central com extra ZIP64 (20 bytes cada), fim ZIP64 porque o diretório
+		// central começa depois de 4 GB
+		long expected = (30 + 10 + 20) + size + (46 + 10 + 20) + (56 + 20) + 22;
+		assertThat(StoredZipWriter.length(entries)).isEqualTo(expected);
+	}
+
+	private byte[] write(List<StoredZipWriter.Entry> entries) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StoredZipWriter zip = new StoredZipWriter(Channels.newChannel(out));
+		// Um canal e um CRC por trecho distinto, como na exportação de vários cortes do mesmo arquivo
+		Map<String, Long> crcs = new HashMap<>();
+		Map<Path, FileChannel> channels = new HashMap<>();
+		try {
+			for (StoredZipWriter.Entry entry : entries) {
+				FileChannel channel = channels.get(entry.getFile());
+				if (channel == null) {
+					channel = FileChannel.open(entry.getFile(), StandardOpenOption.READ);
+					channels.put(entry.getFile(), channel);
+				}
+				String range = entry.getFile() + "|" + entry.getFrom() + "|" + entry.getTo();
+				Long crc = crcs.get(range);
+				if (crc == null) {
+					crc = ContentHashService.crc32(entry.getFile(), entry.getFrom(), entry.getTo());
+					crcs.put(range, crc);
+				}
+				zip.write(entry, crc, channel);
+			}
+		} finally {
+			for (FileChannel channel : channels.values()) {
+				channel.close();
+			}
+		}
+		zip.finish();
+		assertThat(zip.getPosition()).isEqualTo(out.size());
+		return out.toByteArray();
+	}
+
+	private static List<StoredZipWriter.Entry> tinyEntries(Path file, int count) {
+		List<StoredZipWriter.Entry> entries = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			entries.add(new StoredZipWriter.Entry(String.format("e%05d", i), file, 0, 1, MODIFIED));
+		}
+		return entries;
+	}
+
+	private static void assertEntry(ZipInputStream in, String name, byte[] content) throws IOException {
+		ZipEntry entry = in.getNextEntry();
+		assertThat(entry.getName()).isEqualTo(name);
+		// ZipInputStream confere o CRC ao chegar no fim dos dados
+		assertThat(in.readAllBytes()).isEqualTo(content);
+	}
+
+	private static byte[] bytes(int length, int seed) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) (i * 31 + seed);
+		}
+		return data;
+	}
+}